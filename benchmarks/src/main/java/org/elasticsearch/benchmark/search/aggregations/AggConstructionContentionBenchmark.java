@@ -44,9 +44,12 @@ import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeCursorCache;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramSegmentCache;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.AggregationSpillSpace;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
@@ -347,6 +350,31 @@ public class AggConstructionContentionBenchmark {
             return true;
         }
 
+        @Override
+        public boolean enableReplayQueryForDeferred() {
+            return true;
+        }
+
+        @Override
+        public int termsSpillThreshold() {
+            return -1;
+        }
+
+        @Override
+        public AggregationSpillSpace aggregationSpillSpace() {
+            return null;
+        }
+
+        @Override
+        public DateHistogramSegmentCache dateHistogramSegmentCache() {
+            return null;
+        }
+
+        @Override
+        public CompositeCursorCache compositeCursorCache() {
+            return null;
+        }
+
         @Override
         public boolean isInSortOrderExecutionRequired() {
             return false;
@@ -0,0 +1,187 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.s3;
+
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.CheckedRunnable;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs some of the part transfers of a single blob in the background while the calling thread transfers the others. A transfer only runs
+ * in the background if it obtains one of the node's part transfer permits (see {@link S3Service#partTransferPermits()}), so the number of
+ * background transfers, and the memory they hold, is bounded per node across all blobs and repositories. A transfer that is started in
+ * the background but that no executor thread has picked up yet is run by the calling thread when it waits for it, so a saturated or
+ * rejecting executor only reduces the concurrency of the transfer instead of stalling it.
+ */
+final class ConcurrentTransfers {
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private final List<Transfer> started = new ArrayList<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    ConcurrentTransfers(Executor executor, Semaphore permits) {
+        this.executor = executor;
+        this.permits = permits;
+    }
+
+    /**
+     * Starts the given transfer in the background if a permit is available. Once a transfer failed no more transfers are started and the
+     * failure is thrown from here and from {@link #awaitCompletion}.
+     *
+     * @return the started transfer or {@code null} if there is no permit available, in which case the caller should run it itself
+     */
+    @Nullable
+    Transfer tryStart(CheckedRunnable<Exception> transfer) throws IOException {
+        return tryStart(transfer, true);
+    }
+
+    /**
+     * Like {@link #tryStart(CheckedRunnable)}, but the permit is held until {@link Transfer#releasePermit()} is called rather than until
+     * the transfer completes, for transfers whose result is held in memory until it is consumed.
+     */
+    @Nullable
+    Transfer tryStartHoldingPermit(CheckedRunnable<Exception> transfer) throws IOException {
+        return tryStart(transfer, false);
+    }
+
+    private Transfer tryStart(CheckedRunnable<Exception> transfer, boolean releaseOnCompletion) throws IOException {
+        ensureNoFailure();
+        if (permits.tryAcquire() == false) {
+            return null;
+        }
+        final Transfer started = new Transfer(new AtomicBoolean(), transfer, releaseOnCompletion);
+        this.started.add(started);
+        try {
+            executor.execute(started);
+        } catch (EsRejectedExecutionException e) {
+            // the calling thread runs the transfer when it waits for it
+        }
+        return started;
+    }
+
+    /**
+     * Waits for all started transfers to complete, running those that no executor thread has picked up yet on the calling thread, and
+     * throws the first failure if any transfer failed.
+     */
+    void awaitCompletion() throws IOException {
+        for (Transfer transfer : started) {
+            try {
+                transfer.await();
+            } catch (IOException | RuntimeException e) {
+                // recorded in failure by the transfer itself, thrown below
+            }
+        }
+        ensureNoFailure();
+    }
+
+    /**
+     * Skips the started transfers that no thread has picked up yet. Those that are running complete in the background and then release
+     * their permits.
+     */
+    void cancel() {
+        for (Transfer transfer : started) {
+            if (transfer.claimed.compareAndSet(false, true)) {
+                transfer.releasePermit();
+            } else {
+                transfer.releaseOnCompletion = true;
+                if (transfer.isDone()) {
+                    transfer.releasePermit();
+                }
+            }
+        }
+    }
+
+    private void ensureNoFailure() throws IOException {
+        final Exception e = failure.get();
+        if (e != null) {
+            throw asIOException(e);
+        }
+    }
+
+    private static IOException asIOException(Throwable e) {
+        if (e instanceof IOException ioException) {
+            return ioException;
+        }
+        if (e instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return new IOException(e);
+    }
+
+    final class Transfer extends FutureTask<Void> {
+
+        // set by the thread that runs the transfer, or by cancel() if no thread picked it up yet
+        private final AtomicBoolean claimed;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean releaseOnCompletion;
+
+        private Transfer(AtomicBoolean claimed, CheckedRunnable<Exception> transfer, boolean releaseOnCompletion) {
+            super(() -> {
+                if (claimed.compareAndSet(false, true) == false) {
+                    throw new IOException("part transfer was cancelled");
+                }
+                final Exception previousFailure = failure.get();
+                if (previousFailure != null) {
+                    // another transfer failed already, so this one is skipped and fails the same way
+                    throw previousFailure;
+                }
+                try {
+                    transfer.run();
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                }
+                return null;
+            });
+            this.claimed = claimed;
+            this.releaseOnCompletion = releaseOnCompletion;
+        }
+
+        @Override
+        protected void done() {
+            if (releaseOnCompletion) {
+                releasePermit();
+            }
+        }
+
+        void releasePermit() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        /**
+         * Waits for the transfer to complete, running it on the calling thread if no executor thread has started it yet, and throws its
+         * failure if it failed.
+         */
+        void await() throws IOException {
+            run();
+            try {
+                get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for a part transfer");
+            } catch (ExecutionException e) {
+                throw asIOException(e.getCause());
+            }
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.repositories.blobstore.ChunkedBlobOutputStream;
@@ -72,6 +73,12 @@ class S3BlobContainer extends AbstractBlobContainer {
      */
     private static final int MAX_BULK_DELETES = 1000;
 
+    /**
+     * Size of the ranges in which a blob is downloaded when {@link S3BlobStore#concurrentPartTransfers()} allows downloading several
+     * ranges of it concurrently.
+     */
+    static final int DOWNLOAD_RANGE_SIZE = ByteSizeUnit.MB.toIntBytes(16);
+
     private final S3BlobStore blobStore;
     private final String keyPath;
 
@@ -92,7 +99,28 @@ class S3BlobContainer extends AbstractBlobContainer {
 
     @Override
     public InputStream readBlob(String blobName) throws IOException {
-        return new S3RetryingInputStream(blobStore, buildKey(blobName));
+        final String blobKey = buildKey(blobName);
+        final S3RetryingInputStream wholeObject = new S3RetryingInputStream(blobStore, blobKey);
+        final int rangeSize = downloadRangeSize();
+        // the response to the plain GET tells us the length of the blob, so that no extra request is needed to decide how to read it
+        if (blobStore.concurrentPartTransfers() == 0 || wholeObject.initialStreamLength() <= 2L * rangeSize) {
+            return wholeObject;
+        }
+        boolean success = false;
+        try {
+            final InputStream stream = new S3ConcurrentRangeInputStream(blobStore, blobKey, wholeObject, rangeSize);
+            success = true;
+            return stream;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(wholeObject);
+            }
+        }
+    }
+
+    // overridden in tests
+    int downloadRangeSize() {
+        return DOWNLOAD_RANGE_SIZE;
     }
 
     @Override
@@ -525,20 +553,26 @@ class S3BlobContainer extends AbstractBlobContainer {
             final List<PartETag> parts = new ArrayList<>();
 
             long bytesCount = 0;
-            for (int i = 1; i <= nbParts; i++) {
-                final boolean lastPart = i == nbParts;
-                final UploadPartRequest uploadRequest = createPartUploadRequest(
-                    input,
-                    uploadId.get(),
-                    i,
-                    blobName,
-                    lastPart ? lastPartSize : partSize,
-                    lastPart
-                );
-                bytesCount += uploadRequest.getPartSize();
+            if (s3BlobStore.concurrentPartTransfers() > 0 && nbParts > 1 && partSize <= Integer.MAX_VALUE) {
+                bytesCount = executeConcurrentPartUploads(s3BlobStore, clientReference, uploadId.get(), blobName, input, nbParts, parts);
+            } else {
+                for (int i = 1; i <= nbParts; i++) {
+                    final boolean lastPart = i == nbParts;
+                    final UploadPartRequest uploadRequest = createPartUploadRequest(
+                        input,
+                        uploadId.get(),
+                        i,
+                        blobName,
+                        lastPart ? lastPartSize : partSize,
+                        lastPart
+                    );
+                    bytesCount += uploadRequest.getPartSize();
 
-                final UploadPartResult uploadResponse = SocketAccess.doPrivileged(() -> clientReference.client().uploadPart(uploadRequest));
-                parts.add(uploadResponse.getPartETag());
+                    final UploadPartResult uploadResponse = SocketAccess.doPrivileged(
+                        () -> clientReference.client().uploadPart(uploadRequest)
+                    );
+                    parts.add(uploadResponse.getPartETag());
+                }
             }
 
             if (bytesCount != blobSize) {
@@ -566,6 +600,65 @@ class S3BlobContainer extends AbstractBlobContainer {
         }
     }
 
+    /**
+     * Uploads the parts of a multipart upload, in the background while the node has part transfer permits available and on the calling
+     * thread otherwise. The input stream can only be read sequentially, so each part is read into memory before its upload is started.
+     *
+     * @return the number of bytes read from the input stream
+     */
+    private long executeConcurrentPartUploads(
+        final S3BlobStore s3BlobStore,
+        final AmazonS3Reference clientReference,
+        final String uploadId,
+        final String blobName,
+        final InputStream input,
+        final int nbParts,
+        final List<PartETag> parts
+    ) throws IOException {
+        final int partSize = Math.toIntExact(s3BlobStore.bufferSizeInBytes());
+        final PartETag[] partETags = new PartETag[nbParts];
+        final ConcurrentTransfers transfers = s3BlobStore.concurrentTransfers();
+        long bytesCount = 0;
+        try {
+            for (int i = 1; i <= nbParts; i++) {
+                final byte[] part = input.readNBytes(partSize);
+                final UploadPartRequest uploadRequest = createPartUploadRequest(
+                    new ByteArrayInputStream(part),
+                    uploadId,
+                    i,
+                    blobName,
+                    part.length,
+                    i == nbParts
+                );
+                bytesCount += part.length;
+                final int index = i - 1;
+                final Runnable upload = () -> {
+                    final UploadPartResult uploadResponse = SocketAccess.doPrivileged(
+                        () -> clientReference.client().uploadPart(uploadRequest)
+                    );
+                    partETags[index] = uploadResponse.getPartETag();
+                };
+                if (transfers.tryStart(upload::run) == null) {
+                    upload.run();
+                }
+            }
+        } catch (Exception e) {
+            // the multipart upload must not be aborted nor the client released while part uploads are still running
+            try {
+                transfers.awaitCompletion();
+            } catch (Exception inner) {
+                // a failed part upload is thrown both from the loop and from here
+                if (inner != e) {
+                    e.addSuppressed(inner);
+                }
+            }
+            throw e;
+        }
+        transfers.awaitCompletion();
+        Collections.addAll(parts, partETags);
+        return bytesCount;
+    }
+
     // non-static, package private for testing
     void ensureMultiPartUploadSize(final long blobSize) {
         if (blobSize > MAX_FILE_SIZE_USING_MULTIPART.getBytes()) {
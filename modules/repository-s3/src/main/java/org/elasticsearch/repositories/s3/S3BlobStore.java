@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 
 class S3BlobStore implements BlobStore {
@@ -51,6 +52,8 @@ class S3BlobStore implements BlobStore {
 
     private final RepositoryMetadata repositoryMetadata;
 
+    private final Executor transferExecutor;
+
     private final Stats stats = new Stats();
 
     final RequestMetricCollector getMetricCollector;
@@ -66,7 +69,8 @@ class S3BlobStore implements BlobStore {
         String cannedACL,
         String storageClass,
         RepositoryMetadata repositoryMetadata,
-        BigArrays bigArrays
+        BigArrays bigArrays,
+        Executor transferExecutor
     ) {
         this.service = service;
         this.bigArrays = bigArrays;
@@ -76,6 +80,7 @@ class S3BlobStore implements BlobStore {
         this.cannedACL = initCannedACL(cannedACL);
         this.storageClass = initStorageClass(storageClass);
         this.repositoryMetadata = repositoryMetadata;
+        this.transferExecutor = transferExecutor;
         this.getMetricCollector = new IgnoreNoResponseMetricsCollector() {
             @Override
             public void collectMetrics(Request<?> request) {
@@ -158,6 +163,21 @@ class S3BlobStore implements BlobStore {
         return bufferSize.getBytes();
     }
 
+    /**
+     * @return the maximum number of blob parts that this node transfers in the background, see {@link S3Service#partTransferPermits()}
+     */
+    int concurrentPartTransfers() {
+        return service.concurrentPartTransfers();
+    }
+
+    ConcurrentTransfers concurrentTransfers() {
+        return new ConcurrentTransfers(transferExecutor, service.partTransferPermits());
+    }
+
+    Executor transferExecutor() {
+        return transferExecutor;
+    }
+
     @Override
     public BlobContainer blobContainer(BlobPath path) {
         return new S3BlobContainer(path, this);
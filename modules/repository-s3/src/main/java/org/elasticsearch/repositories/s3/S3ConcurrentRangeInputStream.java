@@ -0,0 +1,181 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.repositories.s3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads a whole S3 object by downloading consecutive ranges of it concurrently and returning their bytes in order. The first range is
+ * read from the stream of the plain GET request that also told us the length of the object, which is aborted once the first range has
+ * been read. The following ranges are downloaded into memory with their own {@link S3RetryingInputStream}, in the background if one of
+ * the node's part transfer permits is available and by the reading thread otherwise. A range downloaded in the background holds its
+ * permit until it is read, so the node's permits also bound the memory held by downloaded ranges that have not been read yet.
+ */
+class S3ConcurrentRangeInputStream extends InputStream {
+
+    private final S3BlobStore blobStore;
+    private final String blobKey;
+    private final long length;
+    private final int rangeSize;
+    private final int maxRanges;
+    private final ConcurrentTransfers transfers;
+    private final Deque<Range> ranges = new ArrayDeque<>();
+
+    private S3RetryingInputStream firstRange;
+    private long firstRangeRemaining;
+    private long nextRangeStart;
+    private byte[] current = new byte[0];
+    private int currentOffset;
+    private volatile boolean closed;
+
+    S3ConcurrentRangeInputStream(S3BlobStore blobStore, String blobKey, S3RetryingInputStream wholeObject, int rangeSize)
+        throws IOException {
+        this.blobStore = blobStore;
+        this.blobKey = blobKey;
+        this.length = wholeObject.initialStreamLength();
+        this.rangeSize = rangeSize;
+        this.maxRanges = blobStore.concurrentPartTransfers();
+        this.transfers = blobStore.concurrentTransfers();
+        this.firstRange = wholeObject;
+        this.firstRangeRemaining = Math.min(length, rangeSize);
+        this.nextRangeStart = firstRangeRemaining;
+        startRanges();
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int read = read(b, 0, 1);
+        return read == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("stream is closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (firstRange != null) {
+            return readFirstRange(b, off, len);
+        }
+        if (ensureAvailable() == false) {
+            return -1;
+        }
+        final int read = Math.min(len, current.length - currentOffset);
+        System.arraycopy(current, currentOffset, b, off, read);
+        currentOffset += read;
+        return read;
+    }
+
+    private int readFirstRange(byte[] b, int off, int len) throws IOException {
+        final int read = firstRange.read(b, off, (int) Math.min(len, firstRangeRemaining));
+        if (read == -1) {
+            throw new IOException("expected [" + firstRangeRemaining + "] more bytes of the first range of [" + blobKey + "]");
+        }
+        firstRangeRemaining -= read;
+        if (firstRangeRemaining == 0) {
+            // aborts the request, the rest of the object is read from the other ranges
+            closeFirstRange();
+        }
+        return read;
+    }
+
+    private void closeFirstRange() throws IOException {
+        final S3RetryingInputStream stream = firstRange;
+        firstRange = null;
+        stream.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        // ranges that have not started downloading yet are skipped, the ones in flight complete in the background
+        closed = true;
+        transfers.cancel();
+        ranges.clear();
+        if (firstRange != null) {
+            closeFirstRange();
+        }
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        while (currentOffset == current.length) {
+            final Range range = ranges.pollFirst();
+            if (range == null) {
+                return false;
+            }
+            current = range.await();
+            currentOffset = 0;
+            startRanges();
+        }
+        return true;
+    }
+
+    private void startRanges() throws IOException {
+        while (ranges.size() < maxRanges && nextRangeStart < length) {
+            final Range range = new Range(nextRangeStart, Math.min(length, nextRangeStart + rangeSize) - 1);
+            nextRangeStart = range.end + 1;
+            ranges.addLast(range);
+            range.transfer = transfers.tryStartHoldingPermit(range::download);
+        }
+    }
+
+    private final class Range {
+        // both start and end are inclusive bounds, following the definition in GetObjectRequest.setRange
+        private final long start;
+        private final long end;
+        private ConcurrentTransfers.Transfer transfer;
+        private volatile byte[] bytes;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        void download() throws IOException {
+            if (closed) {
+                return;
+            }
+            final byte[] downloaded;
+            try (InputStream stream = new S3RetryingInputStream(blobStore, blobKey, start, end)) {
+                downloaded = stream.readAllBytes();
+            }
+            final long expectedLength = end - start + 1;
+            if (downloaded.length != expectedLength) {
+                throw new IOException(
+                    "expected [" + expectedLength + "] bytes from range [" + start + "-" + end + "] of [" + blobKey + "] but got ["
+                        + downloaded.length
+                        + "]"
+                );
+            }
+            bytes = downloaded;
+        }
+
+        byte[] await() throws IOException {
+            if (transfer == null) {
+                // no permit was available when the range was reached, so download it on the reading thread
+                download();
+            } else {
+                try {
+                    transfer.await();
+                } finally {
+                    // the bytes of the range being read are accounted for like those of a range downloaded by the reading thread
+                    transfer.releasePermit();
+                }
+            }
+            return bytes;
+        }
+    }
+}
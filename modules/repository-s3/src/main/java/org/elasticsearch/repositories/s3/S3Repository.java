@@ -136,6 +136,20 @@ class S3Repository extends MeteredBlobStoreRepository {
         MAX_FILE_SIZE_USING_MULTIPART
     );
 
+    /**
+     * Maximum number of blob parts that a node transfers in the background, using threads of the snapshot pool, in addition to the part
+     * that each thread reading or writing a blob transfers itself. The limit applies to all blobs of all S3 repositories of the node. Large
+     * blobs are uploaded in parts of {@code buffer_size} bytes and downloaded in ranges of {@link S3BlobContainer#DOWNLOAD_RANGE_SIZE}
+     * bytes, each of which is held in memory while it is transferred. Defaults to 0, which transfers the parts one after another.
+     */
+    static final Setting<Integer> CONCURRENT_PART_TRANSFERS_SETTING = Setting.intSetting(
+        "repositories.s3.concurrent_part_transfers",
+        0,
+        0,
+        256,
+        Setting.Property.NodeScope
+    );
+
     /**
      * Sets the S3 storage class type for the backup files. Values may be standard, reduced_redundancy,
      * standard_ia, onezone_ia and intelligent_tiering. Defaults to standard.
@@ -408,7 +422,17 @@ class S3Repository extends MeteredBlobStoreRepository {
 
     @Override
     protected S3BlobStore createBlobStore() {
-        return new S3BlobStore(service, bucket, serverSideEncryption, bufferSize, cannedACL, storageClass, metadata, bigArrays);
+        return new S3BlobStore(
+            service,
+            bucket,
+            serverSideEncryption,
+            bufferSize,
+            cannedACL,
+            storageClass,
+            metadata,
+            bigArrays,
+            threadPool.executor(ThreadPool.Names.SNAPSHOT)
+        );
     }
 
     // only use for testing
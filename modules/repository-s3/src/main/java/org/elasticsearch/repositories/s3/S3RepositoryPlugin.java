@@ -106,6 +106,7 @@ public class S3RepositoryPlugin extends Plugin implements RepositoryPlugin, Relo
     ) {
         service.set(s3Service(environment));
         this.service.get().refreshAndClearCache(S3ClientSettings.load(settings));
+        this.service.get().setConcurrentPartTransfers(S3Repository.CONCURRENT_PART_TRANSFERS_SETTING.get(settings));
         return List.of(service);
     }
 
@@ -147,7 +148,8 @@ public class S3RepositoryPlugin extends Plugin implements RepositoryPlugin, Relo
             S3ClientSettings.SIGNER_OVERRIDE,
             S3ClientSettings.REGION,
             S3Repository.ACCESS_KEY_SETTING,
-            S3Repository.SECRET_KEY_SETTING
+            S3Repository.SECRET_KEY_SETTING,
+            S3Repository.CONCURRENT_PART_TRANSFERS_SETTING
         );
     }
 
@@ -46,6 +46,7 @@ class S3RetryingInputStream extends InputStream {
     private final long start;
     private final long end;
     private final List<IOException> failures;
+    private final long initialStreamLength;
 
     private S3ObjectInputStream currentStream;
     private long currentStreamFirstOffset;
@@ -74,6 +75,14 @@ class S3RetryingInputStream extends InputStream {
         this.start = start;
         this.end = end;
         openStream();
+        this.initialStreamLength = currentStreamLastOffset - currentStreamFirstOffset;
+    }
+
+    /**
+     * @return the number of bytes that the first GET request returned, which is the length of the object if the whole object was requested
+     */
+    long initialStreamLength() {
+        return initialStreamLength;
     }
 
     private void openStream() throws IOException {
@@ -42,6 +42,7 @@ import java.time.Clock;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Semaphore;
 
 import static com.amazonaws.SDKGlobalConfiguration.AWS_ROLE_ARN_ENV_VAR;
 import static com.amazonaws.SDKGlobalConfiguration.AWS_ROLE_SESSION_NAME_ENV_VAR;
@@ -67,6 +68,13 @@ class S3Service implements Closeable {
      */
     private volatile Map<Settings, S3ClientSettings> derivedClientSettings = emptyMap();
 
+    private volatile int concurrentPartTransfers;
+
+    /**
+     * Permits for transferring blob parts in the background, shared by all S3 repositories of this node.
+     */
+    private volatile Semaphore partTransferPermits = new Semaphore(0);
+
     final CustomWebIdentityTokenCredentialsProvider webIdentityTokenCredentialsProvider;
 
     S3Service(Environment environment) {
@@ -94,6 +102,23 @@ class S3Service implements Closeable {
         // clients are built lazily by {@link client}
     }
 
+    /**
+     * Sets the number of blob parts that this node may transfer in the background, see
+     * {@link S3Repository#CONCURRENT_PART_TRANSFERS_SETTING}.
+     */
+    void setConcurrentPartTransfers(int concurrentPartTransfers) {
+        this.partTransferPermits = new Semaphore(concurrentPartTransfers);
+        this.concurrentPartTransfers = concurrentPartTransfers;
+    }
+
+    int concurrentPartTransfers() {
+        return concurrentPartTransfers;
+    }
+
+    Semaphore partTransferPermits() {
+        return partTransferPermits;
+    }
+
     /**
      * Attempts to retrieve a client by its repository metadata and settings from the cache.
      * If the client does not exist it will be created.
@@ -0,0 +1,117 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.s3;
+
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ConcurrentTransfersTests extends ESTestCase {
+
+    public void testBoundsBackgroundTransfersByPermits() throws Exception {
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final int permits = between(1, 8);
+            final Semaphore nodePermits = new Semaphore(permits);
+            // several blobs transferred at the same time share the permits of the node
+            final ConcurrentTransfers[] transfers = new ConcurrentTransfers[between(1, 3)];
+            for (int t = 0; t < transfers.length; t++) {
+                transfers[t] = new ConcurrentTransfers(threadPool.generic(), nodePermits);
+            }
+            final int count = between(1, 100);
+            final AtomicIntegerArray completed = new AtomicIntegerArray(count);
+            final AtomicInteger runningInBackground = new AtomicInteger();
+            final AtomicInteger maxRunningInBackground = new AtomicInteger();
+            for (int i = 0; i < count; i++) {
+                final int index = i;
+                final ConcurrentTransfers.Transfer transfer = randomFrom(transfers).tryStart(() -> {
+                    final boolean background = Thread.currentThread().getName().contains(ThreadPool.Names.GENERIC);
+                    if (background) {
+                        maxRunningInBackground.accumulateAndGet(runningInBackground.incrementAndGet(), Math::max);
+                    }
+                    if (randomBoolean()) {
+                        Thread.yield();
+                    }
+                    if (background) {
+                        runningInBackground.decrementAndGet();
+                    }
+                    completed.incrementAndGet(index);
+                });
+                if (transfer == null) {
+                    completed.incrementAndGet(index);
+                }
+            }
+            for (ConcurrentTransfers transfer : transfers) {
+                transfer.awaitCompletion();
+            }
+
+            for (int i = 0; i < count; i++) {
+                assertThat(completed.get(i), equalTo(1));
+            }
+            assertThat(maxRunningInBackground.get(), lessThanOrEqualTo(permits));
+            assertThat(nodePermits.availablePermits(), equalTo(permits));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testCallerRunsTransfersRejectedOrNotStartedByExecutor() throws Exception {
+        final boolean reject = randomBoolean();
+        final int permits = between(1, 4);
+        final Semaphore nodePermits = new Semaphore(permits);
+        final ConcurrentTransfers transfers = new ConcurrentTransfers(command -> {
+            if (reject) {
+                throw new EsRejectedExecutionException("rejected", randomBoolean());
+            }
+        }, nodePermits);
+        final AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < permits; i++) {
+            assertThat(transfers.tryStart(completed::incrementAndGet), notNullValue());
+        }
+        assertThat("all permits are in use", transfers.tryStart(completed::incrementAndGet), nullValue());
+        transfers.awaitCompletion();
+        assertThat(completed.get(), equalTo(permits));
+        assertThat(nodePermits.availablePermits(), equalTo(permits));
+    }
+
+    public void testFailureIsRethrownToCaller() throws Exception {
+        final Semaphore nodePermits = new Semaphore(2);
+        final ConcurrentTransfers transfers = new ConcurrentTransfers(Runnable::run, nodePermits);
+        final IOException failure = new IOException("simulated");
+        assertThat(transfers.tryStart(() -> { throw failure; }), notNullValue());
+        // the stored failure is thrown both when starting another transfer and when waiting for completion
+        assertThat(expectThrows(IOException.class, () -> transfers.tryStart(() -> {})), sameInstance(failure));
+        assertThat(expectThrows(IOException.class, transfers::awaitCompletion), sameInstance(failure));
+        assertThat(nodePermits.availablePermits(), equalTo(2));
+    }
+
+    public void testCancelSkipsTransfersThatHaveNotStarted() throws Exception {
+        final Semaphore nodePermits = new Semaphore(1);
+        final ConcurrentTransfers transfers = new ConcurrentTransfers(command -> {}, nodePermits);
+        final AtomicInteger completed = new AtomicInteger();
+        final ConcurrentTransfers.Transfer transfer = transfers.tryStart(completed::incrementAndGet);
+        assertThat(transfer, notNullValue());
+        transfers.cancel();
+        expectThrows(IOException.class, transfer::await);
+        assertThat(completed.get(), equalTo(0));
+        assertThat(nodePermits.availablePermits(), equalTo(1));
+    }
+}
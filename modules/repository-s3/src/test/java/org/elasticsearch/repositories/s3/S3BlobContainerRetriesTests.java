@@ -7,6 +7,8 @@
  */
 package org.elasticsearch.repositories.s3;
 
+import fixture.s3.S3HttpHandler;
+
 import com.amazonaws.SdkClientException;
 import com.amazonaws.services.s3.internal.MD5DigestCalculatingInputStream;
 import com.amazonaws.util.Base16;
@@ -28,12 +30,15 @@ import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.repositories.blobstore.AbstractBlobContainerRetriesTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.hamcrest.Matcher;
 import org.junit.After;
 import org.junit.Before;
@@ -49,6 +54,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -107,6 +113,24 @@ public class S3BlobContainerRetriesTests extends AbstractBlobContainerRetriesTes
         final @Nullable TimeValue readTimeout,
         final @Nullable Boolean disableChunkedEncoding,
         final @Nullable ByteSizeValue bufferSize
+    ) {
+        return createBlobContainer(
+            maxRetries,
+            readTimeout,
+            disableChunkedEncoding,
+            bufferSize,
+            EsExecutors.DIRECT_EXECUTOR_SERVICE,
+            S3BlobContainer.DOWNLOAD_RANGE_SIZE
+        );
+    }
+
+    private BlobContainer createBlobContainer(
+        final @Nullable Integer maxRetries,
+        final @Nullable TimeValue readTimeout,
+        final @Nullable Boolean disableChunkedEncoding,
+        final @Nullable ByteSizeValue bufferSize,
+        final Executor transferExecutor,
+        final int downloadRangeSize
     ) {
         final Settings.Builder clientSettings = Settings.builder();
         final String clientName = randomAlphaOfLength(5).toLowerCase(Locale.ROOT);
@@ -153,9 +177,15 @@ public class S3BlobContainerRetriesTests extends AbstractBlobContainerRetriesTes
                 S3Repository.CANNED_ACL_SETTING.getDefault(Settings.EMPTY),
                 S3Repository.STORAGE_CLASS_SETTING.getDefault(Settings.EMPTY),
                 repositoryMetadata,
-                BigArrays.NON_RECYCLING_INSTANCE
+                BigArrays.NON_RECYCLING_INSTANCE,
+                transferExecutor
             )
         ) {
+            @Override
+            int downloadRangeSize() {
+                return downloadRangeSize;
+            }
+
             @Override
             public InputStream readBlob(String blobName) throws IOException {
                 return new AssertingInputStream(super.readBlob(blobName), blobName);
@@ -520,6 +550,110 @@ public class S3BlobContainerRetriesTests extends AbstractBlobContainerRetriesTes
         }
     }
 
+    public void testReadAndWriteBlobWithConcurrentPartTransfers() throws Exception {
+        final int concurrentPartTransfers = between(1, 4);
+        service.setConcurrentPartTransfers(concurrentPartTransfers);
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final ByteSizeValue bufferSize = ByteSizeValue.ofBytes(randomIntBetween(1, 4) * ByteSizeUnit.MB.toIntBytes(1));
+            final int downloadRangeSize = randomIntBetween(1, 512) * ByteSizeUnit.KB.toIntBytes(1);
+            final BlobContainer blobContainer = createBlobContainer(
+                0,
+                null,
+                true,
+                bufferSize,
+                threadPool.executor(ThreadPool.Names.SNAPSHOT),
+                downloadRangeSize
+            );
+
+            final S3HttpHandler s3HttpHandler = new S3HttpHandler("bucket");
+            final AtomicInteger inFlightPartUploads = new AtomicInteger();
+            final AtomicInteger maxInFlightPartUploads = new AtomicInteger();
+            final AtomicInteger headRequests = new AtomicInteger();
+            final AtomicInteger rangedGetRequests = new AtomicInteger();
+            httpServer.createContext("/bucket", exchange -> {
+                final String method = exchange.getRequestMethod();
+                final String query = exchange.getRequestURI().getQuery();
+                if ("HEAD".equals(method)) {
+                    headRequests.incrementAndGet();
+                } else if ("GET".equals(method) && exchange.getRequestHeaders().containsKey("Range")) {
+                    rangedGetRequests.incrementAndGet();
+                }
+                final boolean partUpload = "PUT".equals(method) && query != null && query.contains("partNumber=");
+                if (partUpload) {
+                    maxInFlightPartUploads.accumulateAndGet(inFlightPartUploads.incrementAndGet(), Math::max);
+                }
+                try {
+                    s3HttpHandler.handle(exchange);
+                } finally {
+                    if (partUpload) {
+                        inFlightPartUploads.decrementAndGet();
+                    }
+                }
+            });
+
+            // at least the minimum size of a multipart upload, and more than two download ranges
+            final byte[] bytes = randomByteArrayOfLength(
+                Math.toIntExact(S3Repository.MIN_PART_SIZE_USING_MULTIPART.getBytes()) + randomIntBetween(0, ByteSizeUnit.MB.toIntBytes(2))
+            );
+            blobContainer.writeBlob("write_concurrently", new ByteArrayInputStream(bytes), bytes.length, false);
+            // each part is uploaded either in the background with one of the node's permits or by the writing thread
+            assertThat(maxInFlightPartUploads.get(), lessThanOrEqualTo(concurrentPartTransfers + 1));
+            assertThat(service.partTransferPermits().availablePermits(), equalTo(concurrentPartTransfers));
+
+            try (InputStream inputStream = blobContainer.readBlob("write_concurrently")) {
+                assertArrayEquals(bytes, BytesReference.toBytes(Streams.readFully(inputStream)));
+            }
+            assertThat("the length of the blob is taken from the GET response", headRequests.get(), equalTo(0));
+            // all ranges but the first one, which is read from the plain GET
+            assertThat(rangedGetRequests.get(), equalTo((bytes.length - 1) / downloadRangeSize));
+            assertBusy(() -> assertThat(service.partTransferPermits().availablePermits(), equalTo(concurrentPartTransfers)));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testWriteBlobWithConcurrentPartTransfersFailsWithFailedPart() throws Exception {
+        final int concurrentPartTransfers = between(1, 4);
+        service.setConcurrentPartTransfers(concurrentPartTransfers);
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final BlobContainer blobContainer = createBlobContainer(
+                0,
+                null,
+                true,
+                ByteSizeValue.ofBytes(ByteSizeUnit.MB.toIntBytes(1)),
+                threadPool.executor(ThreadPool.Names.SNAPSHOT),
+                S3BlobContainer.DOWNLOAD_RANGE_SIZE
+            );
+            final S3HttpHandler s3HttpHandler = new S3HttpHandler("bucket");
+            final int failingPart = between(1, 5);
+            httpServer.createContext("/bucket", exchange -> {
+                final String query = exchange.getRequestURI().getQuery();
+                if ("PUT".equals(exchange.getRequestMethod()) && query != null && query.contains("partNumber=" + failingPart)) {
+                    Streams.readFully(exchange.getRequestBody());
+                    exchange.sendResponseHeaders(HttpStatus.SC_BAD_REQUEST, -1);
+                    exchange.close();
+                } else {
+                    s3HttpHandler.handle(exchange);
+                }
+            });
+
+            final byte[] bytes = randomByteArrayOfLength(ByteSizeUnit.MB.toIntBytes(6));
+            final IOException e = expectThrows(
+                IOException.class,
+                () -> blobContainer.writeBlob("write_concurrently", new ByteArrayInputStream(bytes), bytes.length, false)
+            );
+            assertThat(e.getMessage(), containsString("Unable to upload object [write_concurrently] using multipart upload"));
+            for (Throwable suppressed : e.getCause().getSuppressed()) {
+                assertNotSame(e.getCause(), suppressed);
+            }
+            assertBusy(() -> assertThat(service.partTransferPermits().availablePermits(), equalTo(concurrentPartTransfers)));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
     @Override
     protected Matcher<Integer> getMaxRetriesMatcher(int maxRetries) {
         // some attempts make meaningful progress and do not count towards the max retry limit
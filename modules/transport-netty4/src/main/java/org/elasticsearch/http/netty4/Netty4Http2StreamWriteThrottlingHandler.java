@@ -0,0 +1,118 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.util.ReferenceCountUtil;
+
+import org.elasticsearch.transport.Transports;
+import org.elasticsearch.transport.netty4.Netty4WriteThrottlingHandler;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Stream level counterpart of {@link Netty4WriteThrottlingHandler} for HTTP/2. A stream channel is only writable while its flow control
+ * window is open and its connection is writable, so this handler queues up the frames written to a stream while it is not writable and
+ * writes them as it becomes writable again. Data frames are written in slices of at most
+ * {@link Netty4WriteThrottlingHandler#MAX_BYTES_PER_WRITE} bytes so that a single large response cannot fill up the outbound buffer of
+ * the connection that is shared with other streams.
+ */
+final class Netty4Http2StreamWriteThrottlingHandler extends ChannelDuplexHandler {
+
+    private static final int MAX_BYTES_PER_WRITE = Netty4WriteThrottlingHandler.MAX_BYTES_PER_WRITE;
+
+    private final Queue<WriteOperation> queuedWrites = new ArrayDeque<>();
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        assert Transports.assertTransportThread();
+        if (ctx.channel().isWritable() && queuedWrites.isEmpty() && isOversized(msg) == false) {
+            // nothing is queued for writing and the stream is writable, just pass the write down the pipeline directly
+            ctx.write(msg, promise);
+        } else {
+            final boolean queued = queuedWrites.offer(new WriteOperation(msg, promise));
+            assert queued;
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (ctx.channel().isWritable()) {
+            doFlush(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        doFlush(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        failQueuedWrites();
+        super.channelInactive(ctx);
+    }
+
+    private void doFlush(ChannelHandlerContext ctx) {
+        assert ctx.executor().inEventLoop();
+        final Channel channel = ctx.channel();
+        if (channel.isActive() == false) {
+            failQueuedWrites();
+            ctx.flush();
+            return;
+        }
+        while (channel.isWritable()) {
+            final WriteOperation write = queuedWrites.peek();
+            if (write == null) {
+                break;
+            }
+            if (isOversized(write.msg)) {
+                // write the first slice of the frame's data and leave the rest, along with the end of stream flag, queued
+                final ByteBuf content = ((Http2DataFrame) write.msg).content();
+                final ByteBuf slice = content.retainedSlice(content.readerIndex(), MAX_BYTES_PER_WRITE);
+                content.skipBytes(MAX_BYTES_PER_WRITE);
+                ctx.write(new DefaultHttp2DataFrame(slice, false)).addListener(future -> {
+                    if (future.isSuccess() == false) {
+                        write.promise.tryFailure(future.cause());
+                    }
+                });
+            } else {
+                queuedWrites.poll();
+                ctx.write(write.msg, write.promise);
+            }
+        }
+        ctx.flush();
+        if (channel.isActive() == false) {
+            failQueuedWrites();
+        }
+    }
+
+    private static boolean isOversized(Object msg) {
+        return msg instanceof Http2DataFrame dataFrame && dataFrame.content().readableBytes() > MAX_BYTES_PER_WRITE;
+    }
+
+    private void failQueuedWrites() {
+        WriteOperation queuedWrite;
+        while ((queuedWrite = queuedWrites.poll()) != null) {
+            queuedWrite.promise.tryFailure(new ClosedChannelException());
+            ReferenceCountUtil.release(queuedWrite.msg);
+        }
+    }
+
+    private record WriteOperation(Object msg, ChannelPromise promise) {}
+}
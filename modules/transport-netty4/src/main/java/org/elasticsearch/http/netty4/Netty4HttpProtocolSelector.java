@@ -0,0 +1,77 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Chooses between HTTP/1.1 and HTTP/2 for a newly accepted HTTP channel and then removes itself from the pipeline. On a TLS channel the
+ * protocol is the one negotiated via ALPN during the handshake; on a cleartext channel HTTP/2 is used if the client starts the connection
+ * with the HTTP/2 connection preface ("prior knowledge" h2c), and HTTP/1.1 otherwise. Any bytes read before the choice was made are passed
+ * on to the handlers of the chosen protocol.
+ */
+class Netty4HttpProtocolSelector extends ByteToMessageDecoder {
+
+    private static final ByteBuf CONNECTION_PREFACE = Http2CodecUtil.connectionPrefaceBuf();
+
+    private final boolean tls;
+    private final Consumer<ChannelPipeline> http1Configurer;
+    private final Consumer<ChannelPipeline> http2Configurer;
+
+    Netty4HttpProtocolSelector(boolean tls, Consumer<ChannelPipeline> http1Configurer, Consumer<ChannelPipeline> http2Configurer) {
+        this.tls = tls;
+        this.http1Configurer = http1Configurer;
+        this.http2Configurer = http2Configurer;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        if (tls) {
+            // wait for the handshake to complete, the negotiated protocol is only known then
+            return;
+        }
+        final int prefaceLength = CONNECTION_PREFACE.readableBytes();
+        final int bytesToCompare = Math.min(in.readableBytes(), prefaceLength);
+        if (ByteBufUtil.equals(in, in.readerIndex(), CONNECTION_PREFACE, CONNECTION_PREFACE.readerIndex(), bytesToCompare) == false) {
+            select(ctx, false);
+        } else if (bytesToCompare == prefaceLength) {
+            select(ctx, true);
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (tls && evt instanceof SslHandshakeCompletionEvent handshakeCompletionEvent && handshakeCompletionEvent.isSuccess()) {
+            final SslHandler sslHandler = ctx.pipeline().get(SslHandler.class);
+            select(ctx, ApplicationProtocolNames.HTTP_2.equals(sslHandler.engine().getApplicationProtocol()));
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    private void select(ChannelHandlerContext ctx, boolean http2) {
+        // this handler is the last one in the pipeline, so the chosen protocol's handlers are added right after it
+        if (http2) {
+            http2Configurer.accept(ctx.pipeline());
+        } else {
+            http1Configurer.accept(ctx.pipeline());
+        }
+        ctx.pipeline().remove(this);
+    }
+}
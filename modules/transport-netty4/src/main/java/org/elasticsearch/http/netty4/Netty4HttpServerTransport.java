@@ -16,6 +16,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.socket.nio.NioChannelOption;
@@ -27,6 +28,12 @@ import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseEncoder;
 import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.ReadTimeoutException;
 import io.netty.handler.timeout.ReadTimeoutHandler;
@@ -66,9 +73,15 @@ import org.elasticsearch.transport.netty4.TLSConfig;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiPredicate;
 
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_CHUNK_SIZE;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_HEADER_SIZE;
@@ -131,6 +144,16 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
 
     public static final Setting<Integer> SETTING_HTTP_WORKER_COUNT = Setting.intSetting("http.netty.worker_count", 0, Property.NodeScope);
 
+    /**
+     * Whether HTTP/2 is accepted in addition to HTTP/1.1, either negotiated via ALPN on TLS connections or with prior knowledge (h2c) on
+     * cleartext connections.
+     */
+    public static final Setting<Boolean> SETTING_HTTP_NETTY_HTTP2_ENABLED = Setting.boolSetting(
+        "http.netty.http2.enabled",
+        false,
+        Property.NodeScope
+    );
+
     public static final Setting<ByteSizeValue> SETTING_HTTP_NETTY_RECEIVE_PREDICTOR_SIZE = Setting.byteSizeSetting(
         "http.netty.receive_predictor_size",
         new ByteSizeValue(64, ByteSizeUnit.KB),
@@ -138,6 +161,7 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
     );
 
     private final int pipeliningMaxEvents;
+    private final boolean http2Enabled;
 
     private final SharedGroupFactory sharedGroupFactory;
     private final RecvByteBufAllocator recvByteBufAllocator;
@@ -180,6 +204,7 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
         this.acceptChannelPredicate = acceptChannelPredicate;
 
         this.pipeliningMaxEvents = SETTING_PIPELINING_MAX_EVENTS.get(settings);
+        this.http2Enabled = SETTING_HTTP_NETTY_HTTP2_ENABLED.get(settings);
 
         this.maxCompositeBufferComponents = SETTING_HTTP_NETTY_MAX_COMPOSITE_BUFFER_COMPONENTS.get(settings);
 
@@ -190,14 +215,15 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
 
         logger.debug(
             "using max_chunk_size[{}], max_header_size[{}], max_initial_line_length[{}], max_content_length[{}], "
-                + "receive_predictor[{}], max_composite_buffer_components[{}], pipelining_max_events[{}]",
+                + "receive_predictor[{}], max_composite_buffer_components[{}], pipelining_max_events[{}], http2_enabled[{}]",
             SETTING_HTTP_MAX_CHUNK_SIZE.get(settings),
             SETTING_HTTP_MAX_HEADER_SIZE.get(settings),
             SETTING_HTTP_MAX_INITIAL_LINE_LENGTH.get(settings),
             maxContentLength,
             receivePredictor,
             maxCompositeBufferComponents,
-            pipeliningMaxEvents
+            pipeliningMaxEvents,
+            http2Enabled
         );
     }
 
@@ -360,7 +386,13 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
                     );
             }
             if (tlsConfig.isTLSEnabled()) {
-                ch.pipeline().addLast("ssl", new SslHandler(tlsConfig.createServerSSLEngine()));
+                final SSLEngine sslEngine = tlsConfig.createServerSSLEngine();
+                if (transport.http2Enabled) {
+                    final SSLParameters sslParameters = sslEngine.getSSLParameters();
+                    sslParameters.setApplicationProtocols(new String[] { ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1 });
+                    sslEngine.setSSLParameters(sslParameters);
+                }
+                ch.pipeline().addLast("ssl", new SslHandler(sslEngine));
             }
             ch.pipeline()
                 .addLast("chunked_writer", new Netty4WriteThrottlingHandler(transport.getThreadPool().getThreadContext()))
@@ -368,16 +400,27 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
             if (transport.readTimeoutMillis > 0) {
                 ch.pipeline().addLast("read_timeout", new ReadTimeoutHandler(transport.readTimeoutMillis, TimeUnit.MILLISECONDS));
             }
+            if (transport.http2Enabled) {
+                final Netty4HttpProtocolSelector protocolSelector = new Netty4HttpProtocolSelector(
+                    tlsConfig.isTLSEnabled(),
+                    this::configureHttp1Pipeline,
+                    this::configureHttp2Pipeline
+                );
+                ch.pipeline().addLast("protocol_selector", protocolSelector);
+            } else {
+                configureHttp1Pipeline(ch.pipeline());
+            }
+            transport.serverAcceptedChannel(nettyHttpChannel);
+        }
+
+        private void configureHttp1Pipeline(ChannelPipeline pipeline) {
             final HttpRequestDecoder decoder = new HttpRequestDecoder(
                 handlingSettings.maxInitialLineLength(),
                 handlingSettings.maxHeaderSize(),
                 handlingSettings.maxChunkSize()
             );
             decoder.setCumulator(ByteToMessageDecoder.COMPOSITE_CUMULATOR);
-            final HttpObjectAggregator aggregator = new HttpObjectAggregator(handlingSettings.maxContentLength());
-            aggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
-            ch.pipeline()
-                .addLast("decoder", decoder)
+            pipeline.addLast("decoder", decoder)
                 .addLast("decoder_compress", new HttpContentDecompressor())
                 .addLast("encoder", new HttpResponseEncoder() {
                     @Override
@@ -391,12 +434,56 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
                         return super.isContentAlwaysEmpty(msg);
                     }
                 })
-                .addLast("aggregator", aggregator);
+                .addLast("aggregator", newAggregator());
             if (handlingSettings.compression()) {
-                ch.pipeline().addLast("encoder_compress", new HttpContentCompressor(handlingSettings.compressionLevel()));
+                pipeline.addLast("encoder_compress", new HttpContentCompressor(handlingSettings.compressionLevel()));
             }
-            ch.pipeline().addLast("pipelining", new Netty4HttpPipeliningHandler(logger, transport.pipeliningMaxEvents, transport));
-            transport.serverAcceptedChannel(nettyHttpChannel);
+            pipeline.addLast("pipelining", new Netty4HttpPipeliningHandler(logger, transport.pipeliningMaxEvents, transport));
+        }
+
+        /**
+         * Each HTTP/2 stream gets its own child channel with its own flow control window, and each child channel carries exactly one
+         * request and its response. The stream's frames are translated to and from HTTP/1.1 objects so that the same aggregation,
+         * compression and (chunked) response writing as for HTTP/1.1 applies. Since streams are independent, a slow response does not
+         * hold up the responses to other requests on the same connection. Stream channels are tracked by the transport and closed along
+         * with their connection.
+         */
+        private void configureHttp2Pipeline(ChannelPipeline pipeline) {
+            final Http2Settings http2Settings = Http2Settings.defaultSettings()
+                .maxConcurrentStreams(transport.pipeliningMaxEvents)
+                .maxHeaderListSize(handlingSettings.maxHeaderSize());
+            // stream channels run on the event loop of their connection, so this set is only accessed from that thread
+            final Set<Netty4HttpChannel> openStreams = new HashSet<>();
+            pipeline.channel().closeFuture().addListener(f -> CloseableChannel.closeChannels(new ArrayList<>(openStreams), false));
+            pipeline.addLast("http2_codec", Http2FrameCodecBuilder.forServer().initialSettings(http2Settings).build())
+                .addLast("http2_multiplexer", new Http2MultiplexHandler(new ChannelInitializer<Http2StreamChannel>() {
+                    @Override
+                    protected void initChannel(Http2StreamChannel streamChannel) {
+                        final Netty4HttpChannel streamHttpChannel = new Netty4HttpChannel(streamChannel);
+                        streamChannel.attr(HTTP_CHANNEL_KEY).set(streamHttpChannel);
+                        openStreams.add(streamHttpChannel);
+                        streamChannel.closeFuture().addListener(f -> openStreams.remove(streamHttpChannel));
+                        transport.serverOpenedStream(streamHttpChannel);
+                        streamChannel.pipeline()
+                            .addLast("stream_writer", new Netty4Http2StreamWriteThrottlingHandler())
+                            .addLast("http2_to_http", new Http2StreamFrameToHttpObjectCodec(true))
+                            .addLast("decoder_compress", new HttpContentDecompressor())
+                            .addLast("aggregator", newAggregator());
+                        if (handlingSettings.compression()) {
+                            streamChannel.pipeline()
+                                .addLast("encoder_compress", new HttpContentCompressor(handlingSettings.compressionLevel()));
+                        }
+                        // a stream carries a single request so there is nothing to pipeline, but this handler also writes our responses
+                        streamChannel.pipeline()
+                            .addLast("pipelining", new Netty4HttpPipeliningHandler(logger, transport.pipeliningMaxEvents, transport));
+                    }
+                }));
+        }
+
+        private HttpObjectAggregator newAggregator() {
+            final HttpObjectAggregator aggregator = new HttpObjectAggregator(handlingSettings.maxContentLength());
+            aggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
+            return aggregator;
         }
 
         @Override
@@ -20,10 +20,12 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
@@ -34,9 +36,16 @@ import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.codec.http2.HttpConversionUtil;
 
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -82,6 +91,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_CORS_ALLOW_ORIGIN;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_CORS_ENABLED;
+import static org.elasticsearch.http.netty4.Netty4HttpServerTransport.SETTING_HTTP_NETTY_HTTP2_ENABLED;
 import static org.elasticsearch.rest.RestStatus.BAD_REQUEST;
 import static org.elasticsearch.rest.RestStatus.OK;
 import static org.hamcrest.Matchers.containsString;
@@ -636,6 +646,108 @@ public class Netty4HttpServerTransportTests extends AbstractHttpServerTransportT
         }
     }
 
+    public void testHttp2WithPriorKnowledgeDoesNotBlockFastResponsesBehindSlowOnes() throws Exception {
+        final AtomicReference<RestChannel> slowChannel = new AtomicReference<>();
+        final CountDownLatch slowRequestReceived = new CountDownLatch(1);
+        final HttpServerTransport.Dispatcher dispatcher = new HttpServerTransport.Dispatcher() {
+
+            @Override
+            public void dispatchRequest(final RestRequest request, final RestChannel channel, final ThreadContext threadContext) {
+                if (request.uri().equals("/slow")) {
+                    // respond later, after the response to the fast request has been received
+                    slowChannel.set(channel);
+                    slowRequestReceived.countDown();
+                } else {
+                    channel.sendResponse(new RestResponse(OK, "fast"));
+                }
+            }
+
+            @Override
+            public void dispatchBadRequest(final RestChannel channel, final ThreadContext threadContext, final Throwable cause) {
+                throw new AssertionError();
+            }
+
+        };
+
+        final Settings settings = createBuilderWithPort().put(SETTING_HTTP_NETTY_HTTP2_ENABLED.getKey(), true).build();
+        try (
+            Netty4HttpServerTransport transport = new Netty4HttpServerTransport(
+                settings,
+                networkService,
+                threadPool,
+                xContentRegistry(),
+                dispatcher,
+                clusterSettings,
+                new SharedGroupFactory(settings),
+                Tracer.NOOP,
+                TLSConfig.noTLS(),
+                null
+            )
+        ) {
+            transport.start();
+            final TransportAddress remoteAddress = randomFrom(transport.boundAddress().boundAddresses());
+
+            final NioEventLoopGroup group = new NioEventLoopGroup(1);
+            try {
+                final Channel connection = new Bootstrap().group(group)
+                    .channel(NioSocketChannel.class)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline()
+                                .addLast(Http2FrameCodecBuilder.forClient().build())
+                                .addLast(new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+                        }
+                    })
+                    .connect(remoteAddress.address())
+                    .syncUninterruptibly()
+                    .channel();
+
+                final CountDownLatch slowResponseReceived = new CountDownLatch(1);
+                final CountDownLatch fastResponseReceived = new CountDownLatch(1);
+                final AtomicReference<String> slowResponse = new AtomicReference<>();
+                final AtomicReference<String> fastResponse = new AtomicReference<>();
+                sendHttp2Request(connection, "/slow", slowResponse, slowResponseReceived);
+                assertTrue(slowRequestReceived.await(10, TimeUnit.SECONDS));
+                sendHttp2Request(connection, "/fast", fastResponse, fastResponseReceived);
+
+                assertTrue(fastResponseReceived.await(10, TimeUnit.SECONDS));
+                assertThat(fastResponse.get(), equalTo("fast"));
+                assertThat(slowResponseReceived.getCount(), equalTo(1L));
+
+                slowChannel.get().sendResponse(new RestResponse(OK, "slow"));
+                assertTrue(slowResponseReceived.await(10, TimeUnit.SECONDS));
+                assertThat(slowResponse.get(), equalTo("slow"));
+
+                connection.close().syncUninterruptibly();
+            } finally {
+                group.shutdownGracefully(0, 10, TimeUnit.SECONDS).awaitUninterruptibly();
+            }
+        }
+    }
+
+    private static void sendHttp2Request(Channel connection, String uri, AtomicReference<String> response, CountDownLatch latch) {
+        final Http2StreamChannel stream = new Http2StreamChannelBootstrap(connection).handler(new ChannelInitializer<Http2StreamChannel>() {
+            @Override
+            protected void initChannel(Http2StreamChannel ch) {
+                ch.pipeline()
+                    .addLast(new Http2StreamFrameToHttpObjectCodec(false))
+                    .addLast(new HttpObjectAggregator(1024))
+                    .addLast(new SimpleChannelInboundHandler<FullHttpResponse>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                            response.set(msg.content().toString(StandardCharsets.UTF_8));
+                            latch.countDown();
+                        }
+                    });
+            }
+        }).open().syncUninterruptibly().getNow();
+        final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+        request.headers().set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), "http");
+        request.headers().set(HttpHeaderNames.HOST, "localhost");
+        stream.writeAndFlush(request).syncUninterruptibly();
+    }
+
     private Settings createSettings() {
         return createBuilderWithPort().build();
     }
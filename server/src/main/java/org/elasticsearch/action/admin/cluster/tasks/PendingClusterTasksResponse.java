@@ -8,12 +8,15 @@
 
 package org.elasticsearch.action.admin.cluster.tasks;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.cluster.action.shard.ShardStateCoalescingStats;
 import org.elasticsearch.cluster.service.PendingClusterTask;
 import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.ChunkedToXContentObject;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.xcontent.ToXContent;
 
 import java.io.IOException;
@@ -23,20 +26,40 @@ import java.util.List;
 public class PendingClusterTasksResponse extends ActionResponse implements ChunkedToXContentObject {
 
     private final List<PendingClusterTask> pendingTasks;
+    @Nullable
+    private final ShardStateCoalescingStats shardStateCoalescingStats;
 
     public PendingClusterTasksResponse(StreamInput in) throws IOException {
         super(in);
         pendingTasks = in.readList(PendingClusterTask::new);
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            shardStateCoalescingStats = in.readOptionalWriteable(ShardStateCoalescingStats::new);
+        } else {
+            shardStateCoalescingStats = null;
+        }
     }
 
     PendingClusterTasksResponse(List<PendingClusterTask> pendingTasks) {
+        this(pendingTasks, null);
+    }
+
+    PendingClusterTasksResponse(List<PendingClusterTask> pendingTasks, @Nullable ShardStateCoalescingStats shardStateCoalescingStats) {
         this.pendingTasks = pendingTasks;
+        this.shardStateCoalescingStats = shardStateCoalescingStats;
     }
 
     public List<PendingClusterTask> pendingTasks() {
         return pendingTasks;
     }
 
+    /**
+     * @return statistics about the coalescing of shard-state tasks on the elected master, or {@code null} if not available
+     */
+    @Nullable
+    public ShardStateCoalescingStats shardStateCoalescingStats() {
+        return shardStateCoalescingStats;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -72,6 +95,9 @@ public class PendingClusterTasksResponse extends ActionResponse implements Chunk
             return builder;
         }).iterator(), Iterators.single((builder, p) -> {
             builder.endArray();
+            if (shardStateCoalescingStats != null) {
+                shardStateCoalescingStats.toXContent(builder, p);
+            }
             builder.endObject();
             return builder;
         }));
@@ -92,6 +118,9 @@ public class PendingClusterTasksResponse extends ActionResponse implements Chunk
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeList(pendingTasks);
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeOptionalWriteable(shardStateCoalescingStats);
+        }
     }
 
 }
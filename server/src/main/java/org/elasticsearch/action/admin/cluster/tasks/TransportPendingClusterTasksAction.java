@@ -14,6 +14,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.master.TransportMasterNodeReadAction;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.block.ClusterBlockException;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -32,11 +33,13 @@ public class TransportPendingClusterTasksAction extends TransportMasterNodeReadA
     private static final Logger logger = LogManager.getLogger(TransportPendingClusterTasksAction.class);
 
     private final ClusterService clusterService;
+    private final ShardStateAction shardStateAction;
 
     @Inject
     public TransportPendingClusterTasksAction(
         TransportService transportService,
         ClusterService clusterService,
+        ShardStateAction shardStateAction,
         ThreadPool threadPool,
         ActionFilters actionFilters,
         IndexNameExpressionResolver indexNameExpressionResolver
@@ -53,6 +56,7 @@ public class TransportPendingClusterTasksAction extends TransportMasterNodeReadA
             ThreadPool.Names.SAME
         );
         this.clusterService = clusterService;
+        this.shardStateAction = shardStateAction;
     }
 
     @Override
@@ -70,6 +74,6 @@ public class TransportPendingClusterTasksAction extends TransportMasterNodeReadA
         logger.trace("fetching pending tasks from cluster service");
         final List<PendingClusterTask> pendingTasks = clusterService.getMasterService().pendingTasks();
         logger.trace("done fetching pending tasks from cluster service");
-        listener.onResponse(new PendingClusterTasksResponse(pendingTasks));
+        listener.onResponse(new PendingClusterTasksResponse(pendingTasks, shardStateAction.getCoalescingStats()));
     }
 }
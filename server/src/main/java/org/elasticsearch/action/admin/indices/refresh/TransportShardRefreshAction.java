@@ -9,12 +9,15 @@
 package org.elasticsearch.action.admin.indices.refresh;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.ActionType;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.replication.BasicReplicationRequest;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
+import org.elasticsearch.action.support.replication.ShardRequestBatcher;
 import org.elasticsearch.action.support.replication.TransportReplicationAction;
 import org.elasticsearch.cluster.action.shard.ShardStateAction;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -24,6 +27,7 @@ import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.logging.LogManager;
 import org.elasticsearch.logging.Logger;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportResponseHandler;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
@@ -39,6 +43,8 @@ public class TransportShardRefreshAction extends TransportReplicationAction<
     public static final ActionType<ReplicationResponse> TYPE = new ActionType<>(NAME, ReplicationResponse::new);
     public static final String SOURCE_API = "api";
 
+    private final ShardRequestBatcher shardRequestBatcher;
+
     @Inject
     public TransportShardRefreshAction(
         Settings settings,
@@ -47,7 +53,8 @@ public class TransportShardRefreshAction extends TransportReplicationAction<
         IndicesService indicesService,
         ThreadPool threadPool,
         ShardStateAction shardStateAction,
-        ActionFilters actionFilters
+        ActionFilters actionFilters,
+        ShardRequestBatcher shardRequestBatcher
     ) {
         super(
             settings,
@@ -62,6 +69,26 @@ public class TransportShardRefreshAction extends TransportReplicationAction<
             BasicReplicationRequest::new,
             ThreadPool.Names.REFRESH
         );
+        this.shardRequestBatcher = shardRequestBatcher;
+    }
+
+    @Override
+    protected void sendRerouteRequest(
+        DiscoveryNode node,
+        BasicReplicationRequest request,
+        TransportResponseHandler<ReplicationResponse> handler
+    ) {
+        // a refresh of many indices sends a request for each of their shards, so batch them per node
+        shardRequestBatcher.sendRequest(node, actionName, request, transportOptions, handler);
+    }
+
+    @Override
+    protected void sendReplicaRequest(
+        DiscoveryNode node,
+        ConcreteReplicaRequest<BasicReplicationRequest> replicaRequest,
+        ActionListenerResponseHandler<ReplicaResponse> handler
+    ) {
+        shardRequestBatcher.sendRequest(node, transportReplicaAction, replicaRequest, transportOptions, handler);
     }
 
     @Override
@@ -0,0 +1,478 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.support.replication;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.ActionNotFoundTransportException;
+import org.elasticsearch.transport.RemoteTransportException;
+import org.elasticsearch.transport.RequestHandlerRegistry;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportResponseHandler;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Sends shard-level requests to other nodes in batches, so that a single transport message carries the requests for many shards on the
+ * same node. This is intended for shard-level actions (e.g. global checkpoint and retention lease syncs and shard refreshes) which
+ * otherwise send one transport message per shard and cause request storms on nodes with many shards.
+ * <p>
+ * Requests are held per target node for up to {@link #BATCH_WINDOW_SETTING} (or until {@link #MAX_BATCH_SIZE} requests are waiting) and
+ * then sent together. A window of zero, the default, disables batching. The receiving node dispatches each request to the handler
+ * registered for its action, exactly as if it had been received individually, and returns the per-request responses or failures in a
+ * single response which is demultiplexed back to the individual response handlers. Only requests with the same
+ * {@link TransportRequestOptions} are batched together, and the batch is sent with those options. Nodes which do not understand batched
+ * requests are sent each request individually.
+ */
+public class ShardRequestBatcher {
+
+    private static final Logger logger = LogManager.getLogger(ShardRequestBatcher.class);
+
+    public static final String ACTION_NAME = "internal:transport/batched_shard_requests";
+
+    /**
+     * How long to hold shard-level requests for a node in order to send them together. Every batched request waits for up to this long
+     * before it is sent, so batching is disabled by default and only worth enabling on nodes that hold enough shards for the per-message
+     * overhead to matter.
+     */
+    public static final Setting<TimeValue> BATCH_WINDOW_SETTING = Setting.positiveTimeSetting(
+        "transport.batched_shard_requests.window",
+        TimeValue.ZERO,
+        Setting.Property.NodeScope
+    );
+
+    static final int MAX_BATCH_SIZE = 1000;
+
+    static final Version MINIMUM_VERSION = Version.V_8_7_0;
+
+    private final TransportService transportService;
+    private final ThreadPool threadPool;
+    private final TimeValue batchWindow;
+
+    private final Object mutex = new Object();
+    private final Map<BatchKey, List<PendingRequest<?>>> pendingRequestsByKey = new HashMap<>();
+
+    public ShardRequestBatcher(Settings settings, TransportService transportService, ThreadPool threadPool) {
+        this.transportService = transportService;
+        this.threadPool = threadPool;
+        this.batchWindow = BATCH_WINDOW_SETTING.get(settings);
+        transportService.registerRequestHandler(
+            ACTION_NAME,
+            ThreadPool.Names.SAME,
+            false,
+            false,
+            in -> new BatchedShardRequests(in, transportService),
+            this::handleBatch
+        );
+    }
+
+    /**
+     * Sends the given request to the given node, possibly batched together with other requests for the same node.
+     */
+    public <T extends TransportResponse> void sendRequest(
+        DiscoveryNode node,
+        String action,
+        TransportRequest request,
+        TransportRequestOptions options,
+        TransportResponseHandler<T> handler
+    ) {
+        if (batchWindow.millis() == 0
+            || transportService.getLocalNode().equals(node)
+            || node.getVersion().onOrAfter(MINIMUM_VERSION) == false) {
+            transportService.sendRequest(node, action, request, options, handler);
+            return;
+        }
+
+        final PendingRequest<T> pendingRequest = new PendingRequest<>(
+            action,
+            request,
+            handler,
+            threadPool.getThreadContext().newRestorableContext(false)
+        );
+        final BatchKey batchKey = new BatchKey(node, options.timeout(), options.type());
+        final List<PendingRequest<?>> fullBatch;
+        final boolean scheduleFlush;
+        synchronized (mutex) {
+            final List<PendingRequest<?>> pendingRequests = pendingRequestsByKey.computeIfAbsent(batchKey, k -> new ArrayList<>());
+            pendingRequests.add(pendingRequest);
+            scheduleFlush = pendingRequests.size() == 1;
+            if (pendingRequests.size() >= MAX_BATCH_SIZE) {
+                fullBatch = pendingRequestsByKey.remove(batchKey);
+            } else {
+                fullBatch = null;
+            }
+        }
+
+        if (fullBatch != null) {
+            sendBatch(batchKey, fullBatch);
+        } else if (scheduleFlush) {
+            try {
+                threadPool.schedule(() -> flush(batchKey), batchWindow, ThreadPool.Names.GENERIC);
+            } catch (EsRejectedExecutionException e) {
+                logger.debug("failed to schedule sending of batched shard requests, sending them immediately", e);
+                flush(batchKey);
+            }
+        }
+    }
+
+    private void flush(BatchKey batchKey) {
+        final List<PendingRequest<?>> pendingRequests;
+        synchronized (mutex) {
+            pendingRequests = pendingRequestsByKey.remove(batchKey);
+        }
+        if (pendingRequests != null) {
+            sendBatch(batchKey, pendingRequests);
+        }
+    }
+
+    private void sendBatch(BatchKey batchKey, List<PendingRequest<?>> pendingRequests) {
+        final DiscoveryNode node = batchKey.node();
+        logger.trace("sending [{}] batched shard requests to [{}]", pendingRequests.size(), node);
+        transportService.sendRequest(
+            node,
+            ACTION_NAME,
+            new BatchedShardRequests(pendingRequests),
+            TransportRequestOptions.of(batchKey.timeout(), batchKey.type()),
+            new TransportResponseHandler<BatchedShardResponses>() {
+                @Override
+                public BatchedShardResponses read(StreamInput in) throws IOException {
+                    return new BatchedShardResponses(in, node, pendingRequests);
+                }
+
+                @Override
+                public void handleResponse(BatchedShardResponses response) {
+                    for (int i = 0; i < pendingRequests.size(); i++) {
+                        completeWithResponse(threadPool, pendingRequests.get(i), response.responses.get(i));
+                    }
+                }
+
+                @Override
+                public void handleException(TransportException exp) {
+                    for (PendingRequest<?> pendingRequest : pendingRequests) {
+                        pendingRequest.notify(threadPool, handler -> handler.handleException(exp));
+                    }
+                }
+            }
+        );
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void completeWithResponse(ThreadPool threadPool, PendingRequest<?> pendingRequest, Object response) {
+        if (response instanceof TransportException transportException) {
+            pendingRequest.notify(threadPool, handler -> handler.handleException(transportException));
+        } else {
+            final TransportResponse transportResponse = (TransportResponse) response;
+            // the batch response is released once handled, but the individual handlers may complete later on other threads
+            transportResponse.incRef();
+            pendingRequest.notify(threadPool, handler -> {
+                try {
+                    ((TransportResponseHandler) handler).handleResponse(transportResponse);
+                } finally {
+                    transportResponse.decRef();
+                }
+            });
+        }
+    }
+
+    private void handleBatch(BatchedShardRequests batch, TransportChannel channel, Task task) {
+        final int size = batch.actions.size();
+        final AtomicReferenceArray<Object> results = new AtomicReferenceArray<>(size);
+        final CountDown countDown = new CountDown(size);
+        final Runnable onItemCompletion = () -> {
+            if (countDown.countDown()) {
+                final List<Object> responses = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    responses.add(results.get(i));
+                }
+                try {
+                    channel.sendResponse(new BatchedShardResponses(responses));
+                } catch (Exception e) {
+                    logger.warn("failed to send response to batched shard requests", e);
+                }
+            }
+        };
+        if (size == 0) {
+            onItemCompletion.run();
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            final int slot = i;
+            final String action = batch.actions.get(i);
+            final TransportRequest request = batch.requests.get(i);
+            final TransportChannel itemChannel = new TransportChannel() {
+                @Override
+                public String getProfileName() {
+                    return channel.getProfileName();
+                }
+
+                @Override
+                public String getChannelType() {
+                    return channel.getChannelType();
+                }
+
+                @Override
+                public void sendResponse(TransportResponse response) {
+                    // ownership of the response passes to the batch response, which releases it once sent
+                    results.set(slot, response);
+                    onItemCompletion.run();
+                }
+
+                @Override
+                public void sendResponse(Exception exception) {
+                    results.set(slot, exception);
+                    onItemCompletion.run();
+                }
+
+                @Override
+                public Version getVersion() {
+                    return channel.getVersion();
+                }
+            };
+            dispatch(action, request, itemChannel);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(String action, TransportRequest request, TransportChannel channel) {
+        final RequestHandlerRegistry<TransportRequest> reg = (RequestHandlerRegistry<TransportRequest>) transportService.getRequestHandler(
+            action
+        );
+        assert reg != null : action; // checked when reading the request
+        // released exactly once, whether the request is processed, fails or is rejected by the executor
+        final Releasable releaseRequest = Releasables.releaseOnce(request::decRef);
+        final AbstractRunnable processing = new AbstractRunnable() {
+            @Override
+            protected void doRun() throws Exception {
+                reg.processMessageReceived(request, channel);
+            }
+
+            @Override
+            public boolean isForceExecution() {
+                return reg.isForceExecution();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                try {
+                    channel.sendResponse(e);
+                } catch (Exception inner) {
+                    inner.addSuppressed(e);
+                    logger.warn(() -> "failed to notify channel of failure of batched [" + action + "] request", inner);
+                }
+            }
+
+            @Override
+            public void onRejection(Exception e) {
+                try {
+                    onFailure(e);
+                } finally {
+                    releaseRequest.close();
+                }
+            }
+
+            @Override
+            public void onAfter() {
+                releaseRequest.close();
+            }
+
+            @Override
+            public String toString() {
+                return "processing of batched [" + action + "]: " + request;
+            }
+        };
+        try {
+            threadPool.executor(reg.getExecutor()).execute(threadPool.getThreadContext().preserveContext(processing));
+        } catch (Exception e) {
+            // not every executor reports rejections to the runnable itself
+            processing.onRejection(e);
+        }
+    }
+
+    private record BatchKey(DiscoveryNode node, @Nullable TimeValue timeout, TransportRequestOptions.Type type) {}
+
+    private static final class PendingRequest<T extends TransportResponse> {
+        private final String action;
+        private final TransportRequest request;
+        private final TransportResponseHandler<T> handler;
+        private final Supplier<ThreadContext.StoredContext> storedContext;
+
+        PendingRequest(
+            String action,
+            TransportRequest request,
+            TransportResponseHandler<T> handler,
+            Supplier<ThreadContext.StoredContext> storedContext
+        ) {
+            this.action = action;
+            this.request = request;
+            this.handler = handler;
+            this.storedContext = storedContext;
+        }
+
+        void notify(ThreadPool threadPool, Consumer<TransportResponseHandler<T>> consumer) {
+            final AbstractRunnable runnable = new AbstractRunnable() {
+                @Override
+                protected void doRun() {
+                    try (ThreadContext.StoredContext ignored = storedContext.get()) {
+                        consumer.accept(handler);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    logger.warn(() -> "failed to notify response handler of batched [" + action + "] request", e);
+                }
+            };
+            if (ThreadPool.Names.SAME.equals(handler.executor())) {
+                runnable.run();
+            } else {
+                threadPool.executor(handler.executor()).execute(runnable);
+            }
+        }
+    }
+
+    /**
+     * The requests for many shards on a single node. Each request is serialized inline after the name of its action, and is deserialized
+     * using the reader registered for that action on the receiving node.
+     */
+    static final class BatchedShardRequests extends TransportRequest {
+        private final List<String> actions;
+        private final List<TransportRequest> requests;
+
+        BatchedShardRequests(List<PendingRequest<?>> pendingRequests) {
+            this.actions = new ArrayList<>(pendingRequests.size());
+            this.requests = new ArrayList<>(pendingRequests.size());
+            for (PendingRequest<?> pendingRequest : pendingRequests) {
+                actions.add(pendingRequest.action);
+                requests.add(pendingRequest.request);
+            }
+        }
+
+        BatchedShardRequests(StreamInput in, TransportService transportService) throws IOException {
+            super(in);
+            final int size = in.readVInt();
+            this.actions = new ArrayList<>(size);
+            this.requests = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final String action = in.readString();
+                final RequestHandlerRegistry<? extends TransportRequest> reg = transportService.getRequestHandler(action);
+                if (reg == null) {
+                    throw new ActionNotFoundTransportException(action);
+                }
+                actions.add(action);
+                requests.add(reg.newRequest(in));
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeVInt(actions.size());
+            for (int i = 0; i < actions.size(); i++) {
+                out.writeString(actions.get(i));
+                requests.get(i).writeTo(out);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            return "batch of [" + actions.size() + "] shard requests";
+        }
+    }
+
+    /**
+     * The responses to a {@link BatchedShardRequests}, in the same order as the requests. Each entry is either a {@link TransportResponse}
+     * or, if the corresponding request failed, a {@link TransportException}.
+     */
+    static final class BatchedShardResponses extends TransportResponse {
+        private final List<Object> responses;
+
+        BatchedShardResponses(List<Object> responses) {
+            this.responses = responses;
+        }
+
+        BatchedShardResponses(StreamInput in, DiscoveryNode node, List<PendingRequest<?>> pendingRequests) throws IOException {
+            super(in);
+            final int size = in.readVInt();
+            if (size != pendingRequests.size()) {
+                throw new IllegalStateException("expected [" + pendingRequests.size() + "] batched responses but got [" + size + "]");
+            }
+            this.responses = new ArrayList<>(size);
+            for (PendingRequest<?> pendingRequest : pendingRequests) {
+                if (in.readBoolean()) {
+                    responses.add(pendingRequest.handler.read(in));
+                } else {
+                    final Exception e = in.readException();
+                    responses.add(new RemoteTransportException(node.getName(), node.getAddress(), pendingRequest.action, e));
+                }
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(responses.size());
+            for (Object response : responses) {
+                if (response instanceof TransportResponse transportResponse) {
+                    out.writeBoolean(true);
+                    transportResponse.writeTo(out);
+                } else {
+                    out.writeBoolean(false);
+                    out.writeException((Exception) response);
+                }
+            }
+        }
+
+        @Override
+        public void incRef() {
+            super.incRef();
+            for (Object response : responses) {
+                if (response instanceof TransportResponse transportResponse) {
+                    transportResponse.incRef();
+                }
+            }
+        }
+
+        @Override
+        public boolean decRef() {
+            for (Object response : responses) {
+                if (response instanceof TransportResponse transportResponse) {
+                    transportResponse.decRef();
+                }
+            }
+            return super.decRef();
+        }
+    }
+}
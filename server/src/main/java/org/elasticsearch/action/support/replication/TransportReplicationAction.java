@@ -966,7 +966,7 @@ public abstract class TransportReplicationAction<
             final boolean isPrimaryAction,
             final TransportRequest requestToPerform
         ) {
-            transportService.sendRequest(node, action, requestToPerform, transportOptions, new TransportResponseHandler<Response>() {
+            final TransportResponseHandler<Response> handler = new TransportResponseHandler<>() {
 
                 @Override
                 public Response read(StreamInput in) throws IOException {
@@ -1003,7 +1003,13 @@ public abstract class TransportReplicationAction<
                         finishWithUnexpectedFailure(e);
                     }
                 }
-            });
+            };
+            if (isPrimaryAction) {
+                transportService.sendRequest(node, action, requestToPerform, transportOptions, handler);
+            } else {
+                assert action.equals(actionName) && requestToPerform == request : action;
+                sendRerouteRequest(node, request, handler);
+            }
         }
 
         void retry(Exception failure) {
@@ -1241,6 +1247,27 @@ public abstract class TransportReplicationAction<
         }
     }
 
+    /**
+     * Sends the given request to the node holding the primary, which then executes it on the primary. Subclasses may override this to send
+     * the request differently, for instance batched together with requests for other shards on the same node using a
+     * {@link ShardRequestBatcher}.
+     */
+    protected void sendRerouteRequest(final DiscoveryNode node, final Request request, final TransportResponseHandler<Response> handler) {
+        transportService.sendRequest(node, actionName, request, transportOptions, handler);
+    }
+
+    /**
+     * Sends the given request to a replica on the given node. Subclasses may override this to send the request differently, for instance
+     * batched together with requests for other shards on the same node using a {@link ShardRequestBatcher}.
+     */
+    protected void sendReplicaRequest(
+        final DiscoveryNode node,
+        final ConcreteReplicaRequest<ReplicaRequest> replicaRequest,
+        final ActionListenerResponseHandler<ReplicaResponse> handler
+    ) {
+        transportService.sendRequest(node, transportReplicaAction, replicaRequest, transportOptions, handler);
+    }
+
     /**
      * The {@code ReplicasProxy} is an implementation of the {@code Replicas}
      * interface that performs the actual {@code ReplicaRequest} on the replica
@@ -1275,7 +1302,7 @@ public abstract class TransportReplicationAction<
                 listener,
                 ReplicaResponse::new
             );
-            transportService.sendRequest(node, transportReplicaAction, replicaRequest, transportOptions, handler);
+            sendReplicaRequest(node, replicaRequest, handler);
         }
 
         @Override
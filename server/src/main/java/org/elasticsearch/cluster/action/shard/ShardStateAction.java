@@ -36,6 +36,7 @@ import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
@@ -77,6 +78,19 @@ public class ShardStateAction {
     public static final String SHARD_STARTED_ACTION_NAME = "internal:cluster/shard/started";
     public static final String SHARD_FAILED_ACTION_NAME = "internal:cluster/shard/failure";
 
+    /**
+     * The maximum time for which the master holds shard-started and shard-failed tasks in order to execute more of them in each batch.
+     * The actual window grows with the depth of the master's pending task queue; tasks are never held while the master is idle.
+     */
+    public static final Setting<TimeValue> SHARD_STATE_COALESCING_WINDOW_SETTING = Setting.timeSetting(
+        "cluster.routing.allocation.shard_state.coalescing_window",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        TimeValue.timeValueSeconds(10),
+        Setting.Property.Dynamic,
+        Setting.Property.NodeScope
+    );
+
     private final TransportService transportService;
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
@@ -84,6 +98,9 @@ public class ShardStateAction {
     // we deduplicate these shard state requests in order to avoid sending duplicate failed/started shard requests for a shard
     private final ResultDeduplicator<TransportRequest, Void> remoteShardStateUpdateDeduplicator;
 
+    private final ShardStateTaskCoalescer<StartedShardUpdateTask> shardStartedTaskCoalescer;
+    private final ShardStateTaskCoalescer<FailedShardUpdateTask> shardFailedTaskCoalescer;
+
     @Inject
     public ShardStateAction(
         ClusterService clusterService,
@@ -96,18 +113,48 @@ public class ShardStateAction {
         this.clusterService = clusterService;
         this.threadPool = threadPool;
         this.remoteShardStateUpdateDeduplicator = new ResultDeduplicator<>(threadPool.getThreadContext());
+        this.shardStartedTaskCoalescer = new ShardStateTaskCoalescer<>(
+            clusterService,
+            threadPool,
+            ClusterStateTaskConfig.build(Priority.URGENT),
+            new ShardStartedClusterStateTaskExecutor(allocationService, rerouteService)
+        );
+        this.shardFailedTaskCoalescer = new ShardStateTaskCoalescer<>(
+            clusterService,
+            threadPool,
+            ClusterStateTaskConfig.build(Priority.HIGH),
+            new ShardFailedClusterStateTaskExecutor(allocationService, rerouteService)
+        );
+        setCoalescingWindow(SHARD_STATE_COALESCING_WINDOW_SETTING.get(clusterService.getSettings()));
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(SHARD_STATE_COALESCING_WINDOW_SETTING, this::setCoalescingWindow);
 
         transportService.registerRequestHandler(
             SHARD_STARTED_ACTION_NAME,
             ThreadPool.Names.SAME,
             StartedShardEntry::new,
-            new ShardStartedTransportHandler(clusterService, new ShardStartedClusterStateTaskExecutor(allocationService, rerouteService))
+            new ShardStartedTransportHandler(shardStartedTaskCoalescer)
         );
         transportService.registerRequestHandler(
             SHARD_FAILED_ACTION_NAME,
             ThreadPool.Names.SAME,
             FailedShardEntry::new,
-            new ShardFailedTransportHandler(clusterService, new ShardFailedClusterStateTaskExecutor(allocationService, rerouteService))
+            new ShardFailedTransportHandler(shardFailedTaskCoalescer)
+        );
+    }
+
+    private void setCoalescingWindow(TimeValue window) {
+        shardStartedTaskCoalescer.setMaxWindow(window);
+        shardFailedTaskCoalescer.setMaxWindow(window);
+    }
+
+    /**
+     * @return statistics about the coalescing of shard-started and shard-failed tasks on this node while it is the elected master
+     */
+    public ShardStateCoalescingStats getCoalescingStats() {
+        return new ShardStateCoalescingStats(
+            shardStartedTaskCoalescer.heldTaskCount() + shardFailedTaskCoalescer.heldTaskCount(),
+            shardStartedTaskCoalescer.submittedTaskCount() + shardFailedTaskCoalescer.submittedTaskCount(),
+            shardStartedTaskCoalescer.submissionCount() + shardFailedTaskCoalescer.submissionCount()
         );
     }
 
@@ -276,15 +323,10 @@ public class ShardStateAction {
 
     // TODO: Make this a TransportMasterNodeAction and remove duplication of master failover retrying from upstream code
     private static class ShardFailedTransportHandler implements TransportRequestHandler<FailedShardEntry> {
-        private final ClusterService clusterService;
-        private final ShardFailedClusterStateTaskExecutor shardFailedClusterStateTaskExecutor;
+        private final ShardStateTaskCoalescer<FailedShardUpdateTask> shardFailedTaskCoalescer;
 
-        ShardFailedTransportHandler(
-            ClusterService clusterService,
-            ShardFailedClusterStateTaskExecutor shardFailedClusterStateTaskExecutor
-        ) {
-            this.clusterService = clusterService;
-            this.shardFailedClusterStateTaskExecutor = shardFailedClusterStateTaskExecutor;
+        ShardFailedTransportHandler(ShardStateTaskCoalescer<FailedShardUpdateTask> shardFailedTaskCoalescer) {
+            this.shardFailedTaskCoalescer = shardFailedTaskCoalescer;
         }
 
         private static final String TASK_SOURCE = "shard-failed";
@@ -293,12 +335,7 @@ public class ShardStateAction {
         public void messageReceived(FailedShardEntry request, TransportChannel channel, Task task) throws Exception {
             logger.debug(() -> format("%s received shard failed for [%s]", request.getShardId(), request), request.failure);
             var update = new FailedShardUpdateTask(request, new ChannelActionListener<>(channel, TASK_SOURCE, request));
-            clusterService.submitStateUpdateTask(
-                TASK_SOURCE,
-                update,
-                ClusterStateTaskConfig.build(Priority.HIGH),
-                shardFailedClusterStateTaskExecutor
-            );
+            shardFailedTaskCoalescer.submit(TASK_SOURCE, update);
         }
     }
 
@@ -572,15 +609,10 @@ public class ShardStateAction {
 
     // TODO: Make this a TransportMasterNodeAction and remove duplication of master failover retrying from upstream code
     private static class ShardStartedTransportHandler implements TransportRequestHandler<StartedShardEntry> {
-        private final ClusterService clusterService;
-        private final ShardStartedClusterStateTaskExecutor shardStartedClusterStateTaskExecutor;
+        private final ShardStateTaskCoalescer<StartedShardUpdateTask> shardStartedTaskCoalescer;
 
-        ShardStartedTransportHandler(
-            ClusterService clusterService,
-            ShardStartedClusterStateTaskExecutor shardStartedClusterStateTaskExecutor
-        ) {
-            this.clusterService = clusterService;
-            this.shardStartedClusterStateTaskExecutor = shardStartedClusterStateTaskExecutor;
+        ShardStartedTransportHandler(ShardStateTaskCoalescer<StartedShardUpdateTask> shardStartedTaskCoalescer) {
+            this.shardStartedTaskCoalescer = shardStartedTaskCoalescer;
         }
 
         @Override
@@ -594,12 +626,7 @@ public class ShardStateAction {
 
             var update = new StartedShardUpdateTask(request, listener);
 
-            clusterService.submitStateUpdateTask(
-                "shard-started " + request,
-                update,
-                ClusterStateTaskConfig.build(Priority.URGENT),
-                shardStartedClusterStateTaskExecutor
-            );
+            shardStartedTaskCoalescer.submit("shard-started " + request, update);
         }
     }
 
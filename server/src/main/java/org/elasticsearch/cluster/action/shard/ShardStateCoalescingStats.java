@@ -0,0 +1,56 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.action.shard;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Statistics about how shard-started and shard-failed tasks were coalesced on the master before being submitted to the master service.
+ *
+ * @param heldTasks      the number of tasks currently held waiting for their coalescing window to elapse
+ * @param submittedTasks the total number of tasks submitted to the master service
+ * @param submissions    the total number of times tasks were submitted to the master service, either individually or coalesced
+ */
+public record ShardStateCoalescingStats(long heldTasks, long submittedTasks, long submissions) implements Writeable, ToXContentFragment {
+
+    public ShardStateCoalescingStats(StreamInput in) throws IOException {
+        this(in.readVLong(), in.readVLong(), in.readVLong());
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(heldTasks);
+        out.writeVLong(submittedTasks);
+        out.writeVLong(submissions);
+    }
+
+    /**
+     * @return the average number of tasks per submission, or {@code 0.0} if no tasks have been submitted yet
+     */
+    public double coalescingRatio() {
+        return submissions == 0 ? 0.0 : (double) submittedTasks / submissions;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("shard_state_coalescing");
+        builder.field("held_tasks", heldTasks);
+        builder.field("submitted_tasks", submittedTasks);
+        builder.field("submissions", submissions);
+        builder.field("coalescing_ratio", coalescingRatio());
+        builder.endObject();
+        return builder;
+    }
+}
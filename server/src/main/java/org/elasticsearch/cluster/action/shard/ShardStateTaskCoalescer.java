@@ -0,0 +1,140 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.action.shard;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.cluster.ClusterStateTaskConfig;
+import org.elasticsearch.cluster.ClusterStateTaskExecutor;
+import org.elasticsearch.cluster.ClusterStateTaskListener;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.cluster.service.MasterService;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds shard-state update tasks for a short window before submitting them to the master service, so that during shard-state storms
+ * (e.g. a full-cluster restart) many more tasks end up in each batch and the resulting reroute is computed far less often. The window
+ * adapts to the depth of the master's pending task queue: tasks are submitted immediately when the master is idle, and are held for up
+ * to the configured maximum window once the queue is {@link #QUEUE_DEPTH_FOR_MAX_WINDOW} tasks deep.
+ */
+class ShardStateTaskCoalescer<T extends ClusterStateTaskListener> {
+
+    private static final Logger logger = LogManager.getLogger(ShardStateTaskCoalescer.class);
+
+    /**
+     * Depth of the master's pending task queue at which tasks are held for the full configured window.
+     */
+    static final int QUEUE_DEPTH_FOR_MAX_WINDOW = 1000;
+
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final ClusterStateTaskConfig config;
+    private final ClusterStateTaskExecutor<T> executor;
+
+    private final Object mutex = new Object();
+    private List<MasterService.TaskSubmission<T>> heldTasks = new ArrayList<>();
+
+    private final CounterMetric submittedTasks = new CounterMetric();
+    private final CounterMetric submissions = new CounterMetric();
+
+    private volatile TimeValue maxWindow = TimeValue.ZERO;
+
+    ShardStateTaskCoalescer(
+        ClusterService clusterService,
+        ThreadPool threadPool,
+        ClusterStateTaskConfig config,
+        ClusterStateTaskExecutor<T> executor
+    ) {
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.config = config;
+        this.executor = executor;
+    }
+
+    void setMaxWindow(TimeValue maxWindow) {
+        this.maxWindow = maxWindow;
+    }
+
+    void submit(String source, T task) {
+        final TimeValue window;
+        synchronized (mutex) {
+            if (heldTasks.isEmpty() == false) {
+                // a flush is already scheduled and will pick this task up too
+                heldTasks.add(holdTask(source, task));
+                return;
+            }
+            window = computeWindow(maxWindow, clusterService.getMasterService().numberOfPendingTasks());
+            if (window.millis() > 0) {
+                heldTasks.add(holdTask(source, task));
+            }
+        }
+
+        if (window.millis() == 0) {
+            submittedTasks.inc();
+            submissions.inc();
+            clusterService.submitStateUpdateTask(source, task, config, executor);
+            return;
+        }
+
+        try {
+            threadPool.schedule(this::flush, window, ThreadPool.Names.GENERIC);
+        } catch (EsRejectedExecutionException e) {
+            logger.debug("failed to schedule flush of held shard-state tasks, submitting them immediately", e);
+            flush();
+        }
+    }
+
+    private MasterService.TaskSubmission<T> holdTask(String source, T task) {
+        // the task is submitted later from a generic thread, so it must be executed in the context of the thread that submitted it here
+        return new MasterService.TaskSubmission<>(source, task, threadPool.getThreadContext().newRestorableContext(true));
+    }
+
+    static TimeValue computeWindow(TimeValue maxWindow, int pendingTasks) {
+        if (maxWindow.millis() == 0 || pendingTasks <= 0) {
+            return TimeValue.ZERO;
+        }
+        final long queueDepth = Math.min(pendingTasks, QUEUE_DEPTH_FOR_MAX_WINDOW);
+        return TimeValue.timeValueMillis(maxWindow.millis() * queueDepth / QUEUE_DEPTH_FOR_MAX_WINDOW);
+    }
+
+    private void flush() {
+        final List<MasterService.TaskSubmission<T>> tasks;
+        synchronized (mutex) {
+            tasks = heldTasks;
+            heldTasks = new ArrayList<>();
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+        logger.trace("submitting [{}] coalesced shard-state tasks", tasks.size());
+        submittedTasks.inc(tasks.size());
+        submissions.inc();
+        clusterService.getMasterService().submitStateUpdateTasks(tasks, config, executor);
+    }
+
+    int heldTaskCount() {
+        synchronized (mutex) {
+            return heldTasks.size();
+        }
+    }
+
+    long submittedTaskCount() {
+        return submittedTasks.count();
+    }
+
+    long submissionCount() {
+        return submissions.count();
+    }
+}
@@ -7,22 +7,29 @@
  */
 package org.elasticsearch.cluster.service;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.service.ClusterApplierRecordingService.Stats.Recording;
+import org.elasticsearch.cluster.service.ClusterApplierRecordingService.Stats.SlowApply;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.metrics.MeanMetric;
+import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.ToXContentObject;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -32,28 +39,75 @@ import java.util.function.LongSupplier;
 
 public final class ClusterApplierRecordingService {
 
-    private final Map<String, MeanMetric> recordedActions = new HashMap<>();
+    /**
+     * Number of recent cluster state applications that are retained in order to report the slowest ones.
+     */
+    static final int RECENT_APPLIES_CAPACITY = 64;
+
+    /**
+     * Number of slowest recent cluster state applications that are reported in the stats.
+     */
+    static final int MAX_REPORTED_SLOW_APPLIES = 10;
+
+    /**
+     * Number of slowest actions that are retained for each recent cluster state application.
+     */
+    static final int MAX_ACTIONS_PER_SLOW_APPLY = 5;
+
+    private final Map<String, ActionStats> recordedActions = new HashMap<>();
+
+    // ring buffer of the most recent applications, overwritten in place so that tracking them is cheap enough to be always on
+    private final SlowApply[] recentApplies = new SlowApply[RECENT_APPLIES_CAPACITY];
+    private int nextRecentApplyIndex;
 
     synchronized Stats getStats() {
         return new Stats(
             recordedActions.entrySet()
                 .stream()
-                .sorted(Comparator.<Map.Entry<String, MeanMetric>>comparingLong(o -> o.getValue().sum()).reversed())
-                .collect(Maps.toUnmodifiableOrderedMap(Map.Entry::getKey, v -> new Recording(v.getValue().count(), v.getValue().sum())))
+                .sorted(Comparator.<Map.Entry<String, ActionStats>>comparingLong(o -> o.getValue().metric.sum()).reversed())
+                .collect(Maps.toUnmodifiableOrderedMap(Map.Entry::getKey, v -> v.getValue().toRecording())),
+            Arrays.stream(recentApplies)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingLong(SlowApply::getTotalTimeMillis).reversed())
+                .limit(MAX_REPORTED_SLOW_APPLIES)
+                .toList()
         );
     }
 
-    synchronized void updateStats(Recorder recorder) {
+    synchronized void updateStats(String source, long totalTimeMillis, Recorder recorder) {
         Set<String> seenActions = new HashSet<>();
         for (Tuple<String, Long> entry : recorder.recordings) {
             String action = entry.v1();
             long timeSpentMS = entry.v2();
 
-            MeanMetric metric = recordedActions.computeIfAbsent(action, key -> new MeanMetric());
-            metric.inc(timeSpentMS);
+            recordedActions.computeIfAbsent(action, key -> new ActionStats()).record(timeSpentMS);
             seenActions.add(action);
         }
         recordedActions.entrySet().removeIf(entry -> seenActions.contains(entry.getKey()) == false);
+
+        final Map<String, Long> slowestActions = new LinkedHashMap<>();
+        recorder.recordings.stream()
+            .sorted(Comparator.<Tuple<String, Long>>comparingLong(Tuple::v2).reversed())
+            .limit(MAX_ACTIONS_PER_SLOW_APPLY)
+            .forEach(t -> slowestActions.merge(t.v1(), t.v2(), Long::sum));
+        recentApplies[nextRecentApplyIndex] = new SlowApply(source, totalTimeMillis, Collections.unmodifiableMap(slowestActions));
+        nextRecentApplyIndex = (nextRecentApplyIndex + 1) % recentApplies.length;
+    }
+
+    private static final class ActionStats {
+        private final MeanMetric metric = new MeanMetric();
+        private final HandlingTimeTracker histogram = new HandlingTimeTracker();
+        private long maxTimeMillis;
+
+        void record(long timeSpentMS) {
+            metric.inc(timeSpentMS);
+            histogram.addHandlingTime(timeSpentMS);
+            maxTimeMillis = Math.max(maxTimeMillis, timeSpentMS);
+        }
+
+        Recording toRecording() {
+            return new Recording(metric.count(), metric.sum(), maxTimeMillis, histogram.getHistogram());
+        }
     }
 
     static final class Recorder {
@@ -92,18 +146,33 @@ public final class ClusterApplierRecordingService {
 
     public static class Stats implements Writeable, ToXContentFragment {
 
+        private static final Version SLOW_APPLIES_VERSION = Version.V_8_7_0;
+
         private final Map<String, Recording> recordings;
+        private final List<SlowApply> slowestRecentApplies;
 
         public Stats(Map<String, Recording> recordings) {
+            this(recordings, List.of());
+        }
+
+        public Stats(Map<String, Recording> recordings, List<SlowApply> slowestRecentApplies) {
             this.recordings = recordings;
+            this.slowestRecentApplies = slowestRecentApplies;
         }
 
         public Map<String, Recording> getRecordings() {
             return recordings;
         }
 
+        public List<SlowApply> getSlowestRecentApplies() {
+            return slowestRecentApplies;
+        }
+
         public Stats(StreamInput in) throws IOException {
-            this(in.readOrderedMap(StreamInput::readString, Recording::new));
+            this(
+                in.readOrderedMap(StreamInput::readString, Recording::new),
+                in.getVersion().onOrAfter(SLOW_APPLIES_VERSION) ? in.readImmutableList(SlowApply::new) : List.of()
+            );
         }
 
         @Override
@@ -116,16 +185,53 @@ public final class ClusterApplierRecordingService {
                 String name = "cumulative_execution";
                 builder.field(name + "_count", entry.getValue().count);
                 builder.humanReadableField(name + "_time_millis", name + "_time", TimeValue.timeValueMillis(entry.getValue().sum));
+                if (entry.getValue().histogram.length > 0) {
+                    builder.humanReadableField(
+                        "max_execution_time_millis",
+                        "max_execution_time",
+                        TimeValue.timeValueMillis(entry.getValue().max)
+                    );
+                    histogramToXContent(builder, entry.getValue().histogram);
+                }
                 builder.endObject();
             }
             builder.endArray();
+            builder.startArray("slowest_recent_applies");
+            for (SlowApply slowApply : slowestRecentApplies) {
+                slowApply.toXContent(builder, params);
+            }
+            builder.endArray();
             builder.endObject();
             return builder;
         }
 
+        private static void histogramToXContent(XContentBuilder builder, long[] bucketFrequencies) throws IOException {
+            final int[] bucketBounds = HandlingTimeTracker.getBucketUpperBounds();
+            assert bucketFrequencies.length == bucketBounds.length + 1;
+            builder.startArray("execution_time_histogram");
+            for (int i = 0; i < bucketFrequencies.length; i++) {
+                if (bucketFrequencies[i] == 0) {
+                    continue;
+                }
+                builder.startObject();
+                if (i > 0 && i <= bucketBounds.length) {
+                    builder.field("ge_millis", bucketBounds[i - 1]);
+                }
+                if (i < bucketBounds.length) {
+                    builder.field("lt_millis", bucketBounds[i]);
+                }
+                builder.field("count", bucketFrequencies[i]);
+                builder.endObject();
+            }
+            builder.endArray();
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             out.writeMap(recordings, StreamOutput::writeString, (out1, value) -> value.writeTo(out1));
+            if (out.getVersion().onOrAfter(SLOW_APPLIES_VERSION)) {
+                out.writeList(slowestRecentApplies);
+            }
         }
 
         @Override
@@ -133,32 +239,70 @@ public final class ClusterApplierRecordingService {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             Stats stats = (Stats) o;
-            return Objects.equals(recordings, stats.recordings);
+            return Objects.equals(recordings, stats.recordings) && Objects.equals(slowestRecentApplies, stats.slowestRecentApplies);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(recordings);
+            return Objects.hash(recordings, slowestRecentApplies);
         }
 
         public static class Recording implements Writeable {
 
             private final long count;
             private final long sum;
+            private final long max;
+            // frequencies of execution times in the buckets defined by HandlingTimeTracker, or empty if received from an older node
+            private final long[] histogram;
 
             public Recording(long count, long sum) {
+                this(count, sum, 0L, new long[0]);
+            }
+
+            public Recording(long count, long sum, long max, long[] histogram) {
+                assert histogram.length == 0 || histogram.length == HandlingTimeTracker.BUCKET_COUNT;
                 this.count = count;
                 this.sum = sum;
+                this.max = max;
+                this.histogram = histogram;
             }
 
             public Recording(StreamInput in) throws IOException {
-                this(in.readVLong(), in.readVLong());
+                this.count = in.readVLong();
+                this.sum = in.readVLong();
+                if (in.getVersion().onOrAfter(SLOW_APPLIES_VERSION)) {
+                    this.max = in.readVLong();
+                    this.histogram = in.readVLongArray();
+                } else {
+                    this.max = 0L;
+                    this.histogram = new long[0];
+                }
             }
 
             @Override
             public void writeTo(StreamOutput out) throws IOException {
                 out.writeVLong(count);
                 out.writeVLong(sum);
+                if (out.getVersion().onOrAfter(SLOW_APPLIES_VERSION)) {
+                    out.writeVLong(max);
+                    out.writeVLongArray(histogram);
+                }
+            }
+
+            public long getCount() {
+                return count;
+            }
+
+            public long getSum() {
+                return sum;
+            }
+
+            public long getMax() {
+                return max;
+            }
+
+            public long[] getHistogram() {
+                return Arrays.copyOf(histogram, histogram.length);
             }
 
             @Override
@@ -166,17 +310,94 @@ public final class ClusterApplierRecordingService {
                 if (this == o) return true;
                 if (o == null || getClass() != o.getClass()) return false;
                 Recording recording = (Recording) o;
-                return count == recording.count && sum == recording.sum;
+                return count == recording.count
+                    && sum == recording.sum
+                    && max == recording.max
+                    && Arrays.equals(histogram, recording.histogram);
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(count, sum, max, Arrays.hashCode(histogram));
+            }
+
+            @Override
+            public String toString() {
+                return "Recording{" + "count=" + count + ", sum=" + sum + ", max=" + max + '}';
+            }
+        }
+
+        /**
+         * A single recent cluster state application, together with the actions that took the most time while applying it.
+         */
+        public static class SlowApply implements Writeable, ToXContentObject {
+
+            private final String source;
+            private final long totalTimeMillis;
+            private final Map<String, Long> slowestActions;
+
+            public SlowApply(String source, long totalTimeMillis, Map<String, Long> slowestActions) {
+                this.source = source;
+                this.totalTimeMillis = totalTimeMillis;
+                this.slowestActions = slowestActions;
+            }
+
+            public SlowApply(StreamInput in) throws IOException {
+                this(in.readString(), in.readVLong(), in.readOrderedMap(StreamInput::readString, StreamInput::readVLong));
+            }
+
+            @Override
+            public void writeTo(StreamOutput out) throws IOException {
+                out.writeString(source);
+                out.writeVLong(totalTimeMillis);
+                out.writeMap(slowestActions, StreamOutput::writeString, StreamOutput::writeVLong);
+            }
+
+            public String getSource() {
+                return source;
+            }
+
+            public long getTotalTimeMillis() {
+                return totalTimeMillis;
+            }
+
+            public Map<String, Long> getSlowestActions() {
+                return slowestActions;
+            }
+
+            @Override
+            public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+                builder.startObject();
+                builder.field("source", source);
+                builder.humanReadableField("execution_time_millis", "execution_time", TimeValue.timeValueMillis(totalTimeMillis));
+                builder.startArray("slowest_actions");
+                for (Map.Entry<String, Long> entry : slowestActions.entrySet()) {
+                    builder.startObject();
+                    builder.field("name", entry.getKey());
+                    builder.humanReadableField("execution_time_millis", "execution_time", TimeValue.timeValueMillis(entry.getValue()));
+                    builder.endObject();
+                }
+                builder.endArray();
+                builder.endObject();
+                return builder;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (o == null || getClass() != o.getClass()) return false;
+                SlowApply that = (SlowApply) o;
+                return totalTimeMillis == that.totalTimeMillis && source.equals(that.source) && slowestActions.equals(that.slowestActions);
             }
 
             @Override
             public int hashCode() {
-                return Objects.hash(count, sum);
+                return Objects.hash(source, totalTimeMillis, slowestActions);
             }
 
             @Override
             public String toString() {
-                return "Recording{" + "count=" + count + ", sum=" + sum + '}';
+                return "SlowApply{" + "source='" + source + '\'' + ", totalTimeMillis=" + totalTimeMillis + '}';
             }
         }
     }
@@ -610,7 +610,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
                 recorder.getRecordings().stream().map(ti -> '[' + ti.v1() + "] took [" + ti.v2() + "ms]").collect(Collectors.joining(", "))
             );
         }
-        recordingService.updateStats(recorder);
+        recordingService.updateStats(source, executionTime.millis(), recorder);
     }
 
     private class NotifyTimeout implements Runnable {
@@ -52,6 +52,7 @@ import org.elasticsearch.tasks.TaskManager;
 import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -603,6 +604,57 @@ public class MasterService extends AbstractLifecycleComponent {
         }
     }
 
+    /**
+     * A task to submit to {@link #submitStateUpdateTasks}, together with the thread context that it was created in.
+     *
+     * @param source         the source of the cluster state update task
+     * @param task           the state needed for the cluster state update task
+     * @param storedContext  restores the thread context that the task was created in, as captured by
+     *                       {@link ThreadContext#newRestorableContext}
+     */
+    public record TaskSubmission<T extends ClusterStateTaskListener>(
+        String source,
+        T task,
+        Supplier<ThreadContext.StoredContext> storedContext
+    ) {}
+
+    /**
+     * Submits several cluster state update tasks that share the same config and executor so that they are all executed in the same
+     * batch, unlike submitting them one by one which may split them across batches. Each task is executed and notified in the thread
+     * context captured in its {@link TaskSubmission} rather than in the caller's context.
+     *
+     * @param tasks    the tasks to submit, with their sources and thread contexts
+     * @param config   the cluster state update task configuration
+     * @param executor the cluster state update task executor; tasks
+     *                 that share the same executor will be executed
+     *                 in batches on this executor
+     * @param <T>      the type of the cluster state update task state
+     */
+    public <T extends ClusterStateTaskListener> void submitStateUpdateTasks(
+        List<TaskSubmission<T>> tasks,
+        ClusterStateTaskConfig config,
+        ClusterStateTaskExecutor<T> executor
+    ) {
+        if (lifecycle.started() == false) {
+            return;
+        }
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            threadContext.markAsSystemContext();
+            final List<Batcher.UpdateTask> updateTasks = new ArrayList<>(tasks.size());
+            for (TaskSubmission<T> task : tasks) {
+                updateTasks.add(taskBatcher.new UpdateTask(config.priority(), task.source(), task.task(), task.storedContext(), executor));
+            }
+            taskBatcher.submitTasks(updateTasks, config.timeout());
+        } catch (EsRejectedExecutionException e) {
+            // ignore cases where we are shutting down..., there is really nothing interesting
+            // to be done here...
+            if (lifecycle.stoppedOrClosed() == false) {
+                throw e;
+            }
+        }
+    }
+
     /**
      * Returns the tasks that are pending.
      */
@@ -41,20 +41,36 @@ public abstract class TaskBatcher {
     }
 
     public void submitTask(BatchedTask task, @Nullable TimeValue timeout) throws EsRejectedExecutionException {
-        tasksPerBatchingKey.compute(task.batchingKey, (k, existingTasks) -> {
+        submitTasks(List.of(task), timeout);
+    }
+
+    /**
+     * Submits tasks that share the same batching key together, so that they are all executed in the same batch.
+     */
+    public void submitTasks(List<? extends BatchedTask> tasks, @Nullable TimeValue timeout) throws EsRejectedExecutionException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        final Object batchingKey = tasks.get(0).batchingKey;
+        assert tasks.stream().allMatch(task -> task.batchingKey == batchingKey) : "tasks submitted together must share the batching key";
+        tasksPerBatchingKey.compute(batchingKey, (k, existingTasks) -> {
             if (existingTasks == null) {
                 existingTasks = Collections.synchronizedSet(new LinkedHashSet<>());
             } else {
-                assert assertNoDuplicateTasks(task, existingTasks);
+                for (BatchedTask task : tasks) {
+                    assert assertNoDuplicateTasks(task, existingTasks);
+                }
             }
-            existingTasks.add(task);
+            existingTasks.addAll(tasks);
             return existingTasks;
         });
 
-        if (timeout != null) {
-            threadExecutor.execute(task, timeout, () -> onTimeoutInternal(task, timeout));
-        } else {
-            threadExecutor.execute(task);
+        for (BatchedTask task : tasks) {
+            if (timeout != null) {
+                threadExecutor.execute(task, timeout, () -> onTimeoutInternal(task, timeout));
+            } else {
+                threadExecutor.execute(task);
+            }
         }
     }
 
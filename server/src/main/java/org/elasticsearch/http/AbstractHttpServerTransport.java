@@ -83,6 +83,7 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
     private volatile BoundTransportAddress boundAddress;
     private final AtomicLong totalChannelsAccepted = new AtomicLong();
     private final Set<HttpChannel> httpChannels = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Set<HttpChannel> httpStreams = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private final PlainActionFuture<Void> allClientsClosedListener = PlainActionFuture.newFuture();
     private final RefCounted refCounted = AbstractRefCounted.of(() -> allClientsClosedListener.onResponse(null));
     private final Set<HttpServerChannel> httpServerChannels = Collections.newSetFromMap(new ConcurrentHashMap<>());
@@ -229,6 +230,7 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
         }
         try {
             refCounted.decRef();
+            CloseableChannel.closeChannels(new ArrayList<>(httpStreams), true);
             CloseableChannel.closeChannels(new ArrayList<>(httpChannels), true);
         } catch (Exception e) {
             logger.warn("unexpected exception while closing http channels", e);
@@ -340,6 +342,21 @@ public abstract class AbstractHttpServerTransport extends AbstractLifecycleCompo
         logger.trace(() -> format("Http channel accepted: %s", httpChannel));
     }
 
+    /**
+     * Tracks a channel that carries requests over an already accepted connection, such as an HTTP/2 stream, so that it is closed and
+     * waited for when the transport stops. Unlike an accepted channel it is not counted as a connection in the HTTP stats.
+     */
+    protected void serverOpenedStream(HttpChannel streamChannel) {
+        boolean addedOnThisCall = httpStreams.add(streamChannel);
+        assert addedOnThisCall : "Stream should only be added to http stream set once";
+        refCounted.incRef();
+        streamChannel.addCloseListener(ActionListener.wrap(() -> {
+            httpStreams.remove(streamChannel);
+            refCounted.decRef();
+        }));
+        logger.trace(() -> format("Http stream opened: %s", streamChannel));
+    }
+
     /**
      * This method handles an incoming http request.
      *
@@ -579,6 +579,14 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
                         // ignore
                     }
                 }
+                if (indexFieldData != null) {
+                    try {
+                        // the shard's readers are closed now, release the global ordinals kept for readers it would have opened
+                        indexFieldData.onShardClosed(sId);
+                    } catch (Exception e) {
+                        logger.debug(() -> "[" + shardId + "] failed to release field data of closed shard", e);
+                    }
+                }
                 // call this before we close the store, so we can release resources for it
                 listener.afterIndexShardClosed(sId, indexShard, indexSettings);
             }
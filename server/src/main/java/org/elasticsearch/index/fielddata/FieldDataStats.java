@@ -8,12 +8,14 @@
 
 package org.elasticsearch.index.fielddata;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -31,6 +33,7 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
     private long evictions;
     @Nullable
     private FieldMemoryStats fields;
+    private GlobalOrdinalsStats globalOrdinals = new GlobalOrdinalsStats();
 
     public FieldDataStats() {
 
@@ -40,12 +43,20 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         fields = in.readOptionalWriteable(FieldMemoryStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            globalOrdinals = new GlobalOrdinalsStats(in);
+        }
     }
 
     public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields) {
+        this(memorySize, evictions, fields, new GlobalOrdinalsStats());
+    }
+
+    public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields, GlobalOrdinalsStats globalOrdinals) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.fields = fields;
+        this.globalOrdinals = globalOrdinals;
     }
 
     public void add(FieldDataStats stats) {
@@ -61,6 +72,7 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
                 fields.add(stats.fields);
             }
         }
+        this.globalOrdinals.add(stats.globalOrdinals);
     }
 
     public long getMemorySizeInBytes() {
@@ -80,11 +92,18 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         return fields;
     }
 
+    public GlobalOrdinalsStats getGlobalOrdinals() {
+        return globalOrdinals;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeOptionalWriteable(fields);
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            globalOrdinals.writeTo(out);
+        }
     }
 
     @Override
@@ -95,6 +114,7 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         if (fields != null) {
             fields.toXContent(builder, FIELDS, MEMORY_SIZE_IN_BYTES, MEMORY_SIZE);
         }
+        globalOrdinals.toXContent(builder, params);
         builder.endObject();
         return builder;
     }
@@ -104,11 +124,99 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FieldDataStats that = (FieldDataStats) o;
-        return memorySize == that.memorySize && evictions == that.evictions && Objects.equals(fields, that.fields);
+        return memorySize == that.memorySize
+            && evictions == that.evictions
+            && Objects.equals(fields, that.fields)
+            && globalOrdinals.equals(that.globalOrdinals);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, fields);
+        return Objects.hash(memorySize, evictions, fields, globalOrdinals);
+    }
+
+    /**
+     * Statistics about loading global ordinals.
+     */
+    public static class GlobalOrdinalsStats implements Writeable, ToXContentFragment {
+        private static final String GLOBAL_ORDINALS = "global_ordinals";
+        private static final String BUILD_TOTAL = "build_total";
+        private static final String REUSE_TOTAL = "reuse_total";
+        private static final String BUILD_TIME = "build_time";
+        private static final String BUILD_TIME_IN_MILLIS = "build_time_in_millis";
+
+        private long buildCount;
+        private long reuseCount;
+        private long buildTimeInMillis;
+
+        public GlobalOrdinalsStats() {
+
+        }
+
+        /**
+         * @param buildCount the number of times global ordinals were built from scratch
+         * @param reuseCount the number of times global ordinals were loaded by reusing those of an older reader over the same segments,
+         *                   which is only done for frozen indices
+         * @param buildTimeInMillis the total time spent loading global ordinals
+         */
+        public GlobalOrdinalsStats(long buildCount, long reuseCount, long buildTimeInMillis) {
+            this.buildCount = buildCount;
+            this.reuseCount = reuseCount;
+            this.buildTimeInMillis = buildTimeInMillis;
+        }
+
+        public GlobalOrdinalsStats(StreamInput in) throws IOException {
+            buildCount = in.readVLong();
+            reuseCount = in.readVLong();
+            buildTimeInMillis = in.readVLong();
+        }
+
+        public void add(GlobalOrdinalsStats stats) {
+            this.buildCount += stats.buildCount;
+            this.reuseCount += stats.reuseCount;
+            this.buildTimeInMillis += stats.buildTimeInMillis;
+        }
+
+        public long getBuildCount() {
+            return buildCount;
+        }
+
+        public long getReuseCount() {
+            return reuseCount;
+        }
+
+        public TimeValue getBuildTime() {
+            return TimeValue.timeValueMillis(buildTimeInMillis);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(buildCount);
+            out.writeVLong(reuseCount);
+            out.writeVLong(buildTimeInMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(GLOBAL_ORDINALS);
+            builder.field(BUILD_TOTAL, buildCount);
+            builder.field(REUSE_TOTAL, reuseCount);
+            builder.humanReadableField(BUILD_TIME_IN_MILLIS, BUILD_TIME, getBuildTime());
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            GlobalOrdinalsStats that = (GlobalOrdinalsStats) o;
+            return buildCount == that.buildCount && reuseCount == that.reuseCount && buildTimeInMillis == that.buildTimeInMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(buildCount, reuseCount, buildTimeInMillis);
+        }
     }
 }
@@ -33,6 +33,12 @@ public interface IndexFieldDataCache {
      */
     void clear(String fieldName);
 
+    /**
+     * Releases what is kept for the given shard beyond the lifetime of its
+     * readers. Called once the shard is closed.
+     */
+    default void onShardClosed(ShardId shardId) {}
+
     interface Listener {
 
         /**
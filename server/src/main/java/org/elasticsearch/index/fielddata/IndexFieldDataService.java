@@ -44,6 +44,7 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
     private final CircuitBreakerService circuitBreakerService;
 
     private final IndicesFieldDataCache indicesFieldDataCache;
+    private final boolean reuseGlobalOrdinals;
     // the below map needs to be modified under a lock
     private final Map<String, IndexFieldDataCache> fieldDataCaches = new HashMap<>();
     private static final IndexFieldDataCache.Listener DEFAULT_NOOP_LISTENER = new IndexFieldDataCache.Listener() {
@@ -63,6 +64,16 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
         super(indexSettings);
         this.indicesFieldDataCache = indicesFieldDataCache;
         this.circuitBreakerService = circuitBreakerService;
+        this.reuseGlobalOrdinals = isFrozen(indexSettings);
+    }
+
+    /**
+     * Frozen indices, whether frozen or partially mounted searchable snapshots, open a new reader over their unchanged segments for every
+     * search, so the ordinal maps of their global ordinals are kept to be reused by the next reader.
+     */
+    private static boolean isFrozen(IndexSettings indexSettings) {
+        final Boolean frozen = indexSettings.getSettings().getAsBoolean("index.frozen", null);
+        return frozen != null ? frozen : indexSettings.getIndexMetadata().isPartialSearchableSnapshot();
     }
 
     public synchronized void clear() {
@@ -92,6 +103,18 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
         ExceptionsHelper.maybeThrowRuntimeAndSuppress(exceptions);
     }
 
+    public synchronized void onShardClosed(ShardId shardId) {
+        List<Exception> exceptions = new ArrayList<>(0);
+        for (IndexFieldDataCache cache : fieldDataCaches.values()) {
+            try {
+                cache.onShardClosed(shardId);
+            } catch (Exception e) {
+                exceptions.add(e);
+            }
+        }
+        ExceptionsHelper.maybeThrowRuntimeAndSuppress(exceptions);
+    }
+
     /**
      * Returns fielddata for the provided field type, given the provided fully qualified index name, while also making
      * a {@link SearchLookup} supplier available that is required for runtime fields.
@@ -106,7 +129,7 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
             if (cache == null) {
                 String cacheType = indexSettings.getValue(INDEX_FIELDDATA_CACHE_KEY);
                 if (FIELDDATA_CACHE_VALUE_NODE.equals(cacheType)) {
-                    cache = indicesFieldDataCache.buildIndexFieldDataCache(listener, index(), fieldName);
+                    cache = indicesFieldDataCache.buildIndexFieldDataCache(listener, index(), fieldName, reuseGlobalOrdinals);
                 } else if ("none".equals(cacheType)) {
                     cache = new IndexFieldDataCache.None();
                 } else {
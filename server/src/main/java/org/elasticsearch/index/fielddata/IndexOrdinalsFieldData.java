@@ -11,6 +11,8 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.OrdinalMap;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData.ReusableOrdinalMap;
 
 /**
  * Specialization of {@link IndexFieldData} for data that is indexed with ordinals.
@@ -30,6 +32,16 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<LeafOrdina
     @Override
     IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+    /**
+     * Load a global view of the ordinals for the given {@link IndexReader},
+     * reusing {@code previous}, the ordinal map of an older reader of the same
+     * shard, if it was built for the same segments.
+     */
+    default IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader, @Nullable ReusableOrdinalMap previous)
+        throws Exception {
+        return loadGlobalDirect(indexReader);
+    }
+
     /**
      * Returns the underlying {@link OrdinalMap} for this fielddata
      * or null if global ordinals are not needed (constant value or single segment).
@@ -14,17 +14,22 @@ import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 public class ShardFieldData implements IndexFieldDataCache.Listener {
 
     private final CounterMetric evictionsMetric = new CounterMetric();
     private final CounterMetric totalMetric = new CounterMetric();
     private final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
+    private final CounterMetric globalOrdinalsBuilds = new CounterMetric();
+    private final CounterMetric globalOrdinalsReuses = new CounterMetric();
+    private final CounterMetric globalOrdinalsBuildTimeInNanos = new CounterMetric();
 
     public FieldDataStats stats(String... fields) {
         Map<String, Long> fieldTotals = null;
@@ -39,12 +44,25 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
         return new FieldDataStats(
             totalMetric.count(),
             evictionsMetric.count(),
-            fieldTotals == null ? null : new FieldMemoryStats(fieldTotals)
+            fieldTotals == null ? null : new FieldMemoryStats(fieldTotals),
+            new FieldDataStats.GlobalOrdinalsStats(
+                globalOrdinalsBuilds.count(),
+                globalOrdinalsReuses.count(),
+                TimeUnit.NANOSECONDS.toMillis(globalOrdinalsBuildTimeInNanos.count())
+            )
         );
     }
 
     @Override
     public void onCache(ShardId shardId, String fieldName, Accountable ramUsage) {
+        if (ramUsage instanceof GlobalOrdinalsIndexFieldData globalOrdinals) {
+            if (globalOrdinals.isReused()) {
+                globalOrdinalsReuses.inc();
+            } else {
+                globalOrdinalsBuilds.inc();
+            }
+            globalOrdinalsBuildTimeInNanos.inc(globalOrdinals.getBuildTime().nanos());
+        }
         totalMetric.inc(ramUsage.ramBytesUsed());
         CounterMetric total = perFieldTotals.get(fieldName);
         if (total != null) {
@@ -15,6 +15,7 @@ import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -33,13 +34,18 @@ public enum GlobalOrdinalsBuilder {
 
     /**
      * Build global ordinals for the provided {@link IndexReader}.
+     *
+     * @param previous the ordinal map of an older reader of the same shard,
+     *                 reused rather than rebuilt if it was built for the same
+     *                 segments
      */
     public static IndexOrdinalsFieldData build(
         final IndexReader indexReader,
         IndexOrdinalsFieldData indexFieldData,
         CircuitBreakerService breakerService,
         Logger logger,
-        ToScriptFieldFactory<SortedSetDocValues> toScriptFieldFactory
+        ToScriptFieldFactory<SortedSetDocValues> toScriptFieldFactory,
+        @Nullable GlobalOrdinalsIndexFieldData.ReusableOrdinalMap previous
     ) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTimeNS = System.nanoTime();
@@ -50,16 +56,22 @@ public enum GlobalOrdinalsBuilder {
             atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
             subs[i] = atomicFD[i].getOrdinalsValues();
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        final String[] segmentIds = GlobalOrdinalsIndexFieldData.segmentIds(indexReader, indexFieldData.getFieldName());
+        final OrdinalMap previousOrdinalMap = previous == null ? null : previous.reuseFor(segmentIds);
+        final boolean reused = previousOrdinalMap != null;
+        final OrdinalMap ordinalMap = reused ? previousOrdinalMap : OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        // Reused maps are accounted for once per reader because each is released when its reader is closed
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
         breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
 
+        final long buildTimeNS = System.nanoTime() - startTimeNS;
         if (logger.isDebugEnabled()) {
             logger.debug(
-                "global-ordinals [{}][{}] took [{}]",
+                "global-ordinals [{}][{}] {} [{}]",
                 indexFieldData.getFieldName(),
                 ordinalMap.getValueCount(),
-                new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
+                reused ? "reused in" : "took",
+                new TimeValue(buildTimeNS, TimeUnit.NANOSECONDS)
             );
         }
         return new GlobalOrdinalsIndexFieldData(
@@ -68,7 +80,10 @@ public enum GlobalOrdinalsBuilder {
             atomicFD,
             ordinalMap,
             memorySizeInBytes,
-            toScriptFieldFactory
+            toScriptFieldFactory,
+            segmentIds,
+            buildTimeNS,
+            reused
         );
     }
 
@@ -105,7 +120,10 @@ public enum GlobalOrdinalsBuilder {
             atomicFD,
             ordinalMap,
             0,
-            toScriptFieldFactory
+            toScriptFieldFactory,
+            new String[indexReader.leaves().size()],
+            0,
+            false
         );
     }
 
@@ -8,14 +8,22 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterCodecReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.StringHelper;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -29,6 +37,7 @@ import org.elasticsearch.search.sort.SortOrder;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -49,6 +58,9 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
     private final OrdinalMap ordinalMap;
     private final LeafOrdinalsFieldData[] segmentAfd;
     private final ToScriptFieldFactory<SortedSetDocValues> toScriptFieldFactory;
+    private final String[] segmentIds;
+    private final long buildTimeInNanos;
+    private final boolean reused;
 
     protected GlobalOrdinalsIndexFieldData(
         String fieldName,
@@ -56,7 +68,10 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
         LeafOrdinalsFieldData[] segmentAfd,
         OrdinalMap ordinalMap,
         long memorySizeInBytes,
-        ToScriptFieldFactory<SortedSetDocValues> toScriptFieldFactory
+        ToScriptFieldFactory<SortedSetDocValues> toScriptFieldFactory,
+        String[] segmentIds,
+        long buildTimeInNanos,
+        boolean reused
     ) {
         this.fieldName = fieldName;
         this.valuesSourceType = valuesSourceType;
@@ -64,6 +79,101 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
         this.ordinalMap = ordinalMap;
         this.segmentAfd = segmentAfd;
         this.toScriptFieldFactory = toScriptFieldFactory;
+        this.segmentIds = segmentIds;
+        this.buildTimeInNanos = buildTimeInNanos;
+        this.reused = reused;
+    }
+
+    /**
+     * Identifies the doc values of a field in each segment of a reader by the
+     * unique id of the segment and the generation of the field's doc values.
+     * Unlike the core cache keys these stay the same when a reader is opened
+     * again over the same segments, like the lazily opened readers of frozen
+     * indices are. {@code null} for segments that aren't backed by a
+     * {@link SegmentReader}.
+     */
+    static String[] segmentIds(IndexReader indexReader, String fieldName) {
+        String[] ids = new String[indexReader.leaves().size()];
+        for (int i = 0; i < ids.length; i++) {
+            SegmentReader segmentReader = unwrapSegmentReader(indexReader.leaves().get(i).reader());
+            if (segmentReader != null) {
+                FieldInfo fieldInfo = segmentReader.getFieldInfos().fieldInfo(fieldName);
+                long docValuesGen = fieldInfo == null ? -1 : fieldInfo.getDocValuesGen();
+                ids[i] = StringHelper.idToString(segmentReader.getSegmentInfo().info.getId()) + "/" + docValuesGen;
+            }
+        }
+        return ids;
+    }
+
+    @Nullable
+    private static SegmentReader unwrapSegmentReader(LeafReader reader) {
+        if (reader instanceof FilterLeafReader filterLeafReader) {
+            return unwrapSegmentReader(FilterLeafReader.unwrap(filterLeafReader));
+        }
+        if (reader instanceof FilterCodecReader filterCodecReader) {
+            return unwrapSegmentReader(FilterCodecReader.unwrap(filterCodecReader));
+        }
+        return reader instanceof SegmentReader segmentReader ? segmentReader : null;
+    }
+
+    /**
+     * The {@link OrdinalMap} of these global ordinals together with the
+     * segments it was built for, so the global ordinals of another reader
+     * over the same segments can reuse it. {@code null} if the segments
+     * can't be identified.
+     */
+    @Nullable
+    public ReusableOrdinalMap reusableOrdinalMap() {
+        for (String segmentId : segmentIds) {
+            if (segmentId == null) {
+                return null;
+            }
+        }
+        return new ReusableOrdinalMap(ordinalMap, segmentIds);
+    }
+
+    /**
+     * How long it took to build these global ordinals.
+     */
+    public TimeValue getBuildTime() {
+        return TimeValue.timeValueNanos(buildTimeInNanos);
+    }
+
+    /**
+     * Were these global ordinals built by reusing the {@link OrdinalMap} of an
+     * older reader?
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    /**
+     * An {@link OrdinalMap} and the segments it maps. It holds no reference
+     * to the segments so it can outlive their reader.
+     */
+    public static final class ReusableOrdinalMap implements Accountable {
+        private final OrdinalMap ordinalMap;
+        private final String[] segmentIds;
+
+        private ReusableOrdinalMap(OrdinalMap ordinalMap, String[] segmentIds) {
+            this.ordinalMap = ordinalMap;
+            this.segmentIds = segmentIds;
+        }
+
+        /**
+         * The ordinal map if it was built for the same segments, in the same
+         * order, as the given ones. Their segment ordinals are the same so the
+         * mapping from segment to global ordinals is too.
+         */
+        @Nullable
+        OrdinalMap reuseFor(String[] otherSegmentIds) {
+            return Arrays.equals(segmentIds, otherSegmentIds) ? ordinalMap : null;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return ordinalMap.ramBytesUsed();
+        }
     }
 
     public IndexOrdinalsFieldData newConsumer(DirectoryReader source) {
@@ -338,9 +338,24 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
         synchronized (this) {
             Mapping incomingMapping = parseMapping(type, mappingSource);
             Mapping mapping = mergeMappings(this.mapper, incomingMapping, reason);
-            // TODO: In many cases the source here is equal to mappingSource so we need not serialize again.
-            // We should identify these cases reliably and save expensive serialization here
-            DocumentMapper newMapper = newDocumentMapper(mapping, reason, mapping.toCompressedXContent());
+            CompressedXContent mergedMappingSource;
+            if (mapping == incomingMapping && reason == MergeReason.MAPPING_RECOVERY && indexVersionCreated.equals(Version.CURRENT)) {
+                // Nothing was merged into the recovered mapping, and the recovered source of an index created on this version was
+                // serialized by a node of this version, so serializing the mapping again would yield the same bytes.
+                mergedMappingSource = mappingSource;
+            } else {
+                mergedMappingSource = mapping.toCompressedXContent();
+                if (mergedMappingSource.equals(mappingSource)) {
+                    // share the incoming instance, which is typically deduplicated across indices in the cluster state metadata, rather
+                    // than holding another copy of the same bytes for each index
+                    mergedMappingSource = mappingSource;
+                }
+            }
+            /*
+             * The parsed mapping and its MappingLookup are not shared between indices with the same source: their field mappers hold
+             * the analyzers of this index, which are built from its own settings and closed with it.
+             */
+            DocumentMapper newMapper = newDocumentMapper(mapping, reason, mergedMappingSource);
             if (reason == MergeReason.MAPPING_UPDATE_PREFLIGHT) {
                 return newMapper;
             }
@@ -9,12 +9,15 @@
 package org.elasticsearch.index.seqno;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.ActionType;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.replication.ReplicationRequest;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
+import org.elasticsearch.action.support.replication.ShardRequestBatcher;
 import org.elasticsearch.action.support.replication.TransportReplicationAction;
 import org.elasticsearch.cluster.action.shard.ShardStateAction;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -41,6 +44,8 @@ public class GlobalCheckpointSyncAction extends TransportReplicationAction<
     public static String ACTION_NAME = "indices:admin/seq_no/global_checkpoint_sync";
     public static ActionType<ReplicationResponse> TYPE = new ActionType<>(ACTION_NAME, ReplicationResponse::new);
 
+    private final ShardRequestBatcher shardRequestBatcher;
+
     @Inject
     public GlobalCheckpointSyncAction(
         final Settings settings,
@@ -49,7 +54,8 @@ public class GlobalCheckpointSyncAction extends TransportReplicationAction<
         final IndicesService indicesService,
         final ThreadPool threadPool,
         final ShardStateAction shardStateAction,
-        final ActionFilters actionFilters
+        final ActionFilters actionFilters,
+        final ShardRequestBatcher shardRequestBatcher
     ) {
         super(
             settings,
@@ -64,6 +70,17 @@ public class GlobalCheckpointSyncAction extends TransportReplicationAction<
             Request::new,
             ThreadPool.Names.MANAGEMENT
         );
+        this.shardRequestBatcher = shardRequestBatcher;
+    }
+
+    @Override
+    protected void sendReplicaRequest(
+        final DiscoveryNode node,
+        final ConcreteReplicaRequest<Request> replicaRequest,
+        final ActionListenerResponseHandler<ReplicaResponse> handler
+    ) {
+        // background syncs are sent for every shard at once, so batch them per node to avoid a storm of tiny requests
+        shardRequestBatcher.sendRequest(node, transportReplicaAction, replicaRequest, transportOptions, handler);
     }
 
     @Override
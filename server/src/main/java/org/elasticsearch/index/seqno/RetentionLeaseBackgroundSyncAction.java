@@ -13,13 +13,16 @@ import org.apache.logging.log4j.Logger;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.ActiveShardCount;
 import org.elasticsearch.action.support.replication.ReplicationRequest;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.support.replication.ReplicationTask;
+import org.elasticsearch.action.support.replication.ShardRequestBatcher;
 import org.elasticsearch.action.support.replication.TransportReplicationAction;
 import org.elasticsearch.cluster.action.shard.ShardStateAction;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -63,6 +66,8 @@ public class RetentionLeaseBackgroundSyncAction extends TransportReplicationActi
         return LOGGER;
     }
 
+    private final ShardRequestBatcher shardRequestBatcher;
+
     @Inject
     public RetentionLeaseBackgroundSyncAction(
         final Settings settings,
@@ -71,7 +76,8 @@ public class RetentionLeaseBackgroundSyncAction extends TransportReplicationActi
         final IndicesService indicesService,
         final ThreadPool threadPool,
         final ShardStateAction shardStateAction,
-        final ActionFilters actionFilters
+        final ActionFilters actionFilters,
+        final ShardRequestBatcher shardRequestBatcher
     ) {
         super(
             settings,
@@ -86,6 +92,17 @@ public class RetentionLeaseBackgroundSyncAction extends TransportReplicationActi
             Request::new,
             ThreadPool.Names.MANAGEMENT
         );
+        this.shardRequestBatcher = shardRequestBatcher;
+    }
+
+    @Override
+    protected void sendReplicaRequest(
+        final DiscoveryNode node,
+        final ConcreteReplicaRequest<Request> replicaRequest,
+        final ActionListenerResponseHandler<ReplicaResponse> handler
+    ) {
+        // background syncs are sent for every shard at once, so batch them per node to avoid a storm of tiny requests
+        shardRequestBatcher.sendRequest(node, transportReplicaAction, replicaRequest, transportOptions, handler);
     }
 
     @Override
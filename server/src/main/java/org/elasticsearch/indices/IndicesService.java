@@ -1496,6 +1496,21 @@ public class IndicesService extends AbstractLifecycleComponent
 
     }
 
+    /**
+     * Does the request cache key differentiator tell this request apart from the same request by other users, typically because
+     * document or field level security applies to it? Caches that are keyed on the reader alone must not be used for such requests
+     * since the reader's cache key is the same whatever the security wrappers hide.
+     */
+    public boolean hasRequestCacheKeyDifferentiation(ShardSearchRequest request) throws IOException {
+        if (requestCacheKeyDifferentiator == null) {
+            return false;
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            requestCacheKeyDifferentiator.accept(request, out);
+            return out.size() > 0;
+        }
+    }
+
     /**
      * Loads the cache result, computing it if needed by executing the query phase and otherwise deserializing the cached
      * value into the {@link SearchContext#queryResult() context's query result}. The combination of load + compute allows
@@ -11,6 +11,7 @@ package org.elasticsearch.indices;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.ElasticsearchTimeoutException;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterStateApplier;
@@ -33,8 +34,12 @@ import org.elasticsearch.index.shard.IndexLongFieldRange;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -58,6 +63,16 @@ public class TimestampFieldMapperService extends AbstractLifecycleComponent impl
      */
     private final Map<Index, PlainActionFuture<DateFieldMapper.DateFieldType>> fieldTypesByIndex = ConcurrentCollections.newConcurrentMap();
 
+    /**
+     * The type of the {@code @timestamp} field of indices that do not have a local {@link IndexService}, keyed by the hash of their
+     * mapping and their creation version. Many indices (e.g. the backing indices of a data stream) share an identical mapping, so rather
+     * than building a mapper service and holding a separate field type for each of them we compute it once and share it. Only accessed
+     * on the applier thread.
+     */
+    private final Map<MappingKey, PlainActionFuture<DateFieldMapper.DateFieldType>> fieldTypesByMapping = new HashMap<>();
+
+    private record MappingKey(String mappingSha256, Version indexCreatedVersion) {}
+
     public TimestampFieldMapperService(Settings settings, ThreadPool threadPool, IndicesService indicesService) {
         this.indicesService = indicesService;
 
@@ -97,16 +112,38 @@ public class TimestampFieldMapperService extends AbstractLifecycleComponent impl
         // clear out mappers for indices that no longer exist or whose timestamp range is no longer known
         fieldTypesByIndex.keySet().removeIf(index -> hasUsefulTimestampField(metadata.index(index)) == false);
 
+        // and the shared field types that are no longer used by any index
+        if (fieldTypesByMapping.isEmpty() == false) {
+            final Set<PlainActionFuture<DateFieldMapper.DateFieldType>> futuresInUse = Collections.newSetFromMap(new IdentityHashMap<>());
+            futuresInUse.addAll(fieldTypesByIndex.values());
+            fieldTypesByMapping.values().removeIf(future -> futuresInUse.contains(future) == false);
+        }
+
         // capture mappers for indices that do exist
         for (IndexMetadata indexMetadata : indices.values()) {
             final Index index = indexMetadata.getIndex();
 
             if (hasUsefulTimestampField(indexMetadata) && fieldTypesByIndex.containsKey(index) == false) {
+                final IndexService indexService = indicesService.indexService(index);
+                final MappingKey mappingKey = indexService == null && indexMetadata.mapping() != null
+                    ? new MappingKey(indexMetadata.mapping().getSha256(), indexMetadata.getCreationVersion())
+                    : null;
+                if (mappingKey != null) {
+                    final PlainActionFuture<DateFieldMapper.DateFieldType> sharedFuture = fieldTypesByMapping.get(mappingKey);
+                    if (sharedFuture != null) {
+                        logger.trace("reusing timestamp mapping computed for an identical mapping for {}", index);
+                        fieldTypesByIndex.put(index, sharedFuture);
+                        continue;
+                    }
+                }
+
                 logger.trace("computing timestamp mapping for {}", index);
                 final PlainActionFuture<DateFieldMapper.DateFieldType> future = new PlainActionFuture<>();
                 fieldTypesByIndex.put(index, future);
+                if (mappingKey != null) {
+                    fieldTypesByMapping.put(mappingKey, future);
+                }
 
-                final IndexService indexService = indicesService.indexService(index);
                 if (indexService == null) {
                     logger.trace("computing timestamp mapping for {} async", index);
                     executor.execute(new AbstractRunnable() {
@@ -29,13 +29,19 @@ import org.elasticsearch.core.Releasable;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafFieldData;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData.ReusableOrdinalMap;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable {
@@ -66,7 +72,22 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
     }
 
     public IndexFieldDataCache buildIndexFieldDataCache(IndexFieldDataCache.Listener listener, Index index, String fieldName) {
-        return new IndexFieldCache(logger, cache, index, fieldName, indicesFieldDataCacheListener, listener);
+        return buildIndexFieldDataCache(listener, index, fieldName, false);
+    }
+
+    /**
+     * @param reuseGlobalOrdinals whether to keep the ordinal map of each shard's global ordinals after their reader is closed, so that
+     *                            the next reader opened over the same segments reuses it. Only worth it for frozen indices, which open
+     *                            a new reader over unchanged segments for every search, as the segments of other indices change with
+     *                            every refresh that isn't a no-op.
+     */
+    public IndexFieldDataCache buildIndexFieldDataCache(
+        IndexFieldDataCache.Listener listener,
+        Index index,
+        String fieldName,
+        boolean reuseGlobalOrdinals
+    ) {
+        return new IndexFieldCache(logger, cache, index, fieldName, reuseGlobalOrdinals, indicesFieldDataCacheListener, listener);
     }
 
     public Cache<Key, Accountable> getCache() {
@@ -79,13 +100,14 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         assert key != null && key.listeners != null;
         IndexFieldCache indexCache = key.indexCache;
         final Accountable value = notification.getValue();
+        final long retainedBytes = key.shardId == null ? 0 : indexCache.onRemovalOfGlobalOrdinals(key.shardId, value);
         for (IndexFieldDataCache.Listener listener : key.listeners) {
             try {
                 listener.onRemoval(
                     key.shardId,
                     indexCache.fieldName,
                     notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED,
-                    value.ramBytesUsed()
+                    value.ramBytesUsed() - retainedBytes
                 );
             } catch (Exception e) {
                 // load anyway since listeners should not throw exceptions
@@ -111,13 +133,29 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         final String fieldName;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        private final boolean reuseGlobalOrdinals;
+        /**
+         * The most recently loaded global ordinals of each shard, so loading
+         * them for the next reader over the same segments can reuse their
+         * ordinal map. Only used if {@link #reuseGlobalOrdinals} is set.
+         * Guarded by itself.
+         */
+        private final Map<ShardId, LatestGlobalOrdinals> latestGlobalOrdinals = new HashMap<>();
 
-        IndexFieldCache(Logger logger, final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
+        IndexFieldCache(
+            Logger logger,
+            final Cache<Key, Accountable> cache,
+            Index index,
+            String fieldName,
+            boolean reuseGlobalOrdinals,
+            Listener... listeners
+        ) {
             this.logger = logger;
             this.listeners = listeners;
             this.index = index;
             this.fieldName = fieldName;
             this.cache = cache;
+            this.reuseGlobalOrdinals = reuseGlobalOrdinals;
         }
 
         @Override
@@ -162,7 +200,7 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             final Accountable accountable = cache.computeIfAbsent(key, k -> {
                 ElasticsearchDirectoryReader.addReaderCloseListener(indexReader, IndexFieldCache.this);
                 Collections.addAll(k.listeners, this.listeners);
-                final Accountable ifd = (Accountable) indexFieldData.loadGlobalDirect(indexReader);
+                final Accountable ifd = (Accountable) loadGlobalDirect(indexReader, indexFieldData, shardId);
                 for (Listener listener : k.listeners) {
                     try {
                         listener.onCache(shardId, fieldName, ifd);
@@ -176,12 +214,103 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             return (IFD) accountable;
         }
 
+        private IndexFieldData<?> loadGlobalDirect(
+            DirectoryReader indexReader,
+            IndexFieldData.Global<?> indexFieldData,
+            @Nullable ShardId shardId
+        ) throws Exception {
+            if (reuseGlobalOrdinals == false || shardId == null || indexFieldData instanceof IndexOrdinalsFieldData == false) {
+                return indexFieldData.loadGlobalDirect(indexReader);
+            }
+            IndexOrdinalsFieldData ordinalsFieldData = (IndexOrdinalsFieldData) indexFieldData;
+            LatestGlobalOrdinals previous;
+            synchronized (latestGlobalOrdinals) {
+                previous = latestGlobalOrdinals.get(shardId);
+            }
+            IndexOrdinalsFieldData ifd = ordinalsFieldData.loadGlobalDirect(indexReader, previous == null ? null : previous.ordinalMap);
+            LatestGlobalOrdinals latest = new LatestGlobalOrdinals(
+                indexReader.getReaderCacheHelper().getKey(),
+                (Accountable) ifd,
+                ifd instanceof GlobalOrdinalsIndexFieldData global ? global.reusableOrdinalMap() : null
+            );
+            synchronized (latestGlobalOrdinals) {
+                previous = latestGlobalOrdinals.put(shardId, latest);
+            }
+            releaseRetained(shardId, previous);
+            return ifd;
+        }
+
+        /**
+         * Called when the global ordinals of a shard are removed from the
+         * cache. If they are the latest ones of the shard and are removed
+         * because their reader was closed, their ordinal map is retained for
+         * the next reader over the same segments, like the ones frozen
+         * indices open for each search.
+         *
+         * @return the bytes of the retained ordinal map, which stay accounted
+         *         for until it is released
+         */
+        long onRemovalOfGlobalOrdinals(ShardId shardId, Accountable globalOrdinals) {
+            synchronized (latestGlobalOrdinals) {
+                LatestGlobalOrdinals latest = latestGlobalOrdinals.get(shardId);
+                if (latest == null || latest.globalOrdinals != globalOrdinals) {
+                    return 0;
+                }
+                if (latest.readerClosed && latest.ordinalMap != null) {
+                    latest.retained = true;
+                    return latest.ordinalMap.ramBytesUsed();
+                }
+                latestGlobalOrdinals.remove(shardId);
+                return 0;
+            }
+        }
+
+        private void releaseRetained(ShardId shardId, @Nullable LatestGlobalOrdinals latest) {
+            if (latest == null || latest.retained == false) {
+                return;
+            }
+            for (Listener listener : listeners) {
+                try {
+                    listener.onRemoval(shardId, fieldName, false, latest.ordinalMap.ramBytesUsed());
+                } catch (Exception e) {
+                    // release anyway since listeners should not throw exceptions
+                    logger.error("Failed to call listener on global ordinals unloading", e);
+                }
+            }
+        }
+
+        private void releaseRetained(Predicate<ShardId> shards) {
+            final Map<ShardId, LatestGlobalOrdinals> removed = new HashMap<>();
+            synchronized (latestGlobalOrdinals) {
+                latestGlobalOrdinals.entrySet().removeIf(entry -> {
+                    if (shards.test(entry.getKey())) {
+                        removed.put(entry.getKey(), entry.getValue());
+                        return true;
+                    }
+                    return false;
+                });
+            }
+            removed.forEach(this::releaseRetained);
+        }
+
         @Override
         public void onClose(CacheKey key) {
+            synchronized (latestGlobalOrdinals) {
+                for (LatestGlobalOrdinals latest : latestGlobalOrdinals.values()) {
+                    if (latest.readerKey == key) {
+                        latest.readerClosed = true;
+                    }
+                }
+            }
             cache.invalidate(new Key(this, key, null));
             // don't call cache.cleanUp here as it would have bad performance implications
         }
 
+        @Override
+        public void onShardClosed(ShardId shardId) {
+            releaseRetained(shardId::equals);
+        }
+
         @Override
         public void clear() {
             for (Key key : cache.keys()) {
@@ -191,6 +320,7 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             }
             // force eviction
             cache.refresh();
+            releaseRetained(shardId -> true);
         }
 
         @Override
@@ -206,6 +336,25 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             // rarely and probably means the user wants to see memory returned as
             // soon as possible
             cache.refresh();
+            if (this.fieldName.equals(fieldName)) {
+                releaseRetained(shardId -> true);
+            }
+        }
+    }
+
+    private static final class LatestGlobalOrdinals {
+        final CacheKey readerKey;
+        final Accountable globalOrdinals;
+        @Nullable
+        final ReusableOrdinalMap ordinalMap;
+        // both guarded by IndexFieldCache#latestGlobalOrdinals
+        boolean readerClosed;
+        boolean retained;
+
+        LatestGlobalOrdinals(CacheKey readerKey, Accountable globalOrdinals, @Nullable ReusableOrdinalMap ordinalMap) {
+            this.readerKey = readerKey;
+            this.globalOrdinals = globalOrdinals;
+            this.ordinalMap = ordinalMap;
         }
     }
 
@@ -367,11 +367,7 @@ public class PeerRecoverySourceService extends AbstractLifecycleComponent implem
                     recoveryTarget,
                     shard.getThreadPool(),
                     request,
-                    Math.toIntExact(recoverySettings.getChunkSize().getBytes()),
-                    recoverySettings.getMaxConcurrentFileChunks(),
-                    recoverySettings.getMaxConcurrentOperations(),
-                    recoverySettings.getMaxConcurrentSnapshotFileDownloads(),
-                    recoverySettings.getUseSnapshotsDuringRecovery(),
+                    recoverySettings,
                     recoveryPlannerService
                 );
                 return Tuple.tuple(handler, recoveryTarget);
@@ -11,7 +11,6 @@ package org.elasticsearch.indices.recovery;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.store.RateLimiter;
-import org.apache.lucene.store.RateLimiter.SimpleRateLimiter;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodeRole;
@@ -244,6 +243,32 @@ public class RecoverySettings {
         Property.NodeScope
     );
 
+    /**
+     * Controls the maximum number of files that can be sent concurrently from the source node to the target node. Each file is sent with
+     * up to {@link #INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING} concurrent chunk requests.
+     */
+    public static final Setting<Integer> INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING = Setting.intSetting(
+        "indices.recovery.max_concurrent_files",
+        1,
+        1,
+        8,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * The share of the recovery bandwidth of a node that snapshots get while recoveries are running on the node, if the node bandwidth
+     * settings are configured. Recoveries get the remaining share, and either of them can use the whole bandwidth while the other is idle.
+     */
+    public static final Setting<Double> INDICES_RECOVERY_SNAPSHOT_BANDWIDTH_SHARE_SETTING = Setting.doubleSetting(
+        "indices.recovery.snapshot_bandwidth_share",
+        0.5,
+        0.1,
+        0.9,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     /**
      * Controls the maximum number of operation chunk requests that can be sent concurrently from the source node to the target node.
      */
@@ -379,8 +404,11 @@ public class RecoverySettings {
 
     private volatile ByteSizeValue maxBytesPerSec;
     private volatile int maxConcurrentFileChunks;
+    private volatile int maxConcurrentFiles;
     private volatile int maxConcurrentOperations;
-    private volatile SimpleRateLimiter rateLimiter;
+    private volatile SharedBandwidthRateLimiter rateLimiter;
+    private volatile SharedBandwidthRateLimiter snapshotRateLimiter;
+    private volatile double snapshotBandwidthShare;
     private volatile TimeValue retryDelayStateSync;
     private volatile TimeValue retryDelayNetwork;
     private volatile TimeValue activityTimeout;
@@ -403,6 +431,8 @@ public class RecoverySettings {
     public RecoverySettings(Settings settings, ClusterSettings clusterSettings) {
         this.retryDelayStateSync = INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING.get(settings);
         this.maxConcurrentFileChunks = INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING.get(settings);
+        this.maxConcurrentFiles = INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING.get(settings);
+        this.snapshotBandwidthShare = INDICES_RECOVERY_SNAPSHOT_BANDWIDTH_SHARE_SETTING.get(settings);
         this.maxConcurrentOperations = INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING.get(settings);
         // doesn't have to be fast as nodes are reconnected every 10s by default (see InternalClusterService.ReconnectToNodes)
         // and we want to give the master time to remove a faulty node
@@ -442,6 +472,8 @@ public class RecoverySettings {
             );
         }
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING, this::setMaxConcurrentFileChunks);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING, this::setMaxConcurrentFiles);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_SNAPSHOT_BANDWIDTH_SHARE_SETTING, this::setSnapshotBandwidthShare);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING, this::setMaxConcurrentOperations);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING, this::setRetryDelayStateSync);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_RETRY_DELAY_NETWORK_SETTING, this::setRetryDelayNetwork);
@@ -540,6 +572,13 @@ public class RecoverySettings {
         return rateLimiter;
     }
 
+    /**
+     * @return the rate limiter for snapshot uploads, which shares the recovery bandwidth of the node with {@link #rateLimiter()}
+     */
+    public RateLimiter snapshotRateLimiter() {
+        return snapshotRateLimiter;
+    }
+
     public TimeValue retryDelayNetwork() {
         return retryDelayNetwork;
     }
@@ -599,14 +638,32 @@ public class RecoverySettings {
         this.internalActionRetryTimeout = internalActionRetryTimeout;
     }
 
-    private void setMaxBytesPerSec(ByteSizeValue maxBytesPerSec) {
+    private synchronized void setMaxBytesPerSec(ByteSizeValue maxBytesPerSec) {
         this.maxBytesPerSec = maxBytesPerSec;
         if (maxBytesPerSec.getBytes() <= 0) {
             rateLimiter = null;
+            snapshotRateLimiter = null;
         } else if (rateLimiter != null) {
             rateLimiter.setMBPerSec(maxBytesPerSec.getMbFrac());
+            snapshotRateLimiter.setMBPerSec(maxBytesPerSec.getMbFrac());
         } else {
-            rateLimiter = new SimpleRateLimiter(maxBytesPerSec.getMbFrac());
+            final SharedBandwidthRateLimiter[] rateLimiters = SharedBandwidthRateLimiter.create(
+                maxBytesPerSec.getMbFrac(),
+                snapshotBandwidthShare,
+                System::nanoTime
+            );
+            snapshotRateLimiter = rateLimiters[1];
+            rateLimiter = rateLimiters[0];
+        }
+    }
+
+    private synchronized void setSnapshotBandwidthShare(double snapshotBandwidthShare) {
+        this.snapshotBandwidthShare = snapshotBandwidthShare;
+        final SharedBandwidthRateLimiter rateLimiter = this.rateLimiter;
+        final SharedBandwidthRateLimiter snapshotRateLimiter = this.snapshotRateLimiter;
+        if (rateLimiter != null && snapshotRateLimiter != null) {
+            rateLimiter.setShare(1.0 - snapshotBandwidthShare);
+            snapshotRateLimiter.setShare(snapshotBandwidthShare);
         }
     }
 
@@ -622,6 +679,14 @@ public class RecoverySettings {
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
     }
 
+    public int getMaxConcurrentFiles() {
+        return maxConcurrentFiles;
+    }
+
+    private void setMaxConcurrentFiles(int maxConcurrentFiles) {
+        this.maxConcurrentFiles = maxConcurrentFiles;
+    }
+
     public int getMaxConcurrentOperations() {
         return maxConcurrentOperations;
     }
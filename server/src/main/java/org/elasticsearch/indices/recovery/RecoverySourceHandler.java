@@ -22,6 +22,7 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.StepListener;
+import org.elasticsearch.action.support.CountDownActionListener;
 import org.elasticsearch.action.support.ThreadedActionListener;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
@@ -114,6 +115,7 @@ public class RecoverySourceHandler {
     private final int chunkSizeInBytes;
     private final RecoveryTargetHandler recoveryTarget;
     private final int maxConcurrentFileChunks;
+    private final int maxConcurrentFiles;
     private final int maxConcurrentOperations;
     private final int maxConcurrentSnapshotFileDownloads;
     private final boolean useSnapshots;
@@ -134,6 +136,61 @@ public class RecoverySourceHandler {
         int maxConcurrentSnapshotFileDownloads,
         boolean useSnapshots,
         RecoveryPlannerService recoveryPlannerService
+    ) {
+        this(
+            shard,
+            recoveryTarget,
+            threadPool,
+            request,
+            fileChunkSizeInBytes,
+            maxConcurrentFileChunks,
+            1,
+            maxConcurrentOperations,
+            maxConcurrentSnapshotFileDownloads,
+            useSnapshots,
+            recoveryPlannerService
+        );
+    }
+
+    /**
+     * Creates a handler whose chunk size, concurrency limits and use of snapshots are those of the given recovery settings at the time the
+     * recovery starts.
+     */
+    public RecoverySourceHandler(
+        IndexShard shard,
+        RecoveryTargetHandler recoveryTarget,
+        ThreadPool threadPool,
+        StartRecoveryRequest request,
+        RecoverySettings recoverySettings,
+        RecoveryPlannerService recoveryPlannerService
+    ) {
+        this(
+            shard,
+            recoveryTarget,
+            threadPool,
+            request,
+            Math.toIntExact(recoverySettings.getChunkSize().getBytes()),
+            recoverySettings.getMaxConcurrentFileChunks(),
+            recoverySettings.getMaxConcurrentFiles(),
+            recoverySettings.getMaxConcurrentOperations(),
+            recoverySettings.getMaxConcurrentSnapshotFileDownloads(),
+            recoverySettings.getUseSnapshotsDuringRecovery(),
+            recoveryPlannerService
+        );
+    }
+
+    private RecoverySourceHandler(
+        IndexShard shard,
+        RecoveryTargetHandler recoveryTarget,
+        ThreadPool threadPool,
+        StartRecoveryRequest request,
+        int fileChunkSizeInBytes,
+        int maxConcurrentFileChunks,
+        int maxConcurrentFiles,
+        int maxConcurrentOperations,
+        int maxConcurrentSnapshotFileDownloads,
+        boolean useSnapshots,
+        RecoveryPlannerService recoveryPlannerService
     ) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
@@ -144,6 +201,7 @@ public class RecoverySourceHandler {
         this.logger = Loggers.getLogger(getClass(), request.shardId(), "recover to " + request.targetNode().getName());
         this.chunkSizeInBytes = fileChunkSizeInBytes;
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+        this.maxConcurrentFiles = maxConcurrentFiles;
         this.maxConcurrentOperations = maxConcurrentOperations;
         this.maxConcurrentSnapshotFileDownloads = maxConcurrentSnapshotFileDownloads;
         this.useSnapshots = useSnapshots;
@@ -677,6 +735,7 @@ public class RecoverySourceHandler {
         // recovered from the source node, in that case we have to start from scratch using the fallback
         // recovery plan that would be used in subsequent steps.
         final StepListener<Void> sendFileInfoStep = new StepListener<>();
+        final StepListener<Void> sendSourceFilesConcurrentlyStep = new StepListener<>();
         final StepListener<Tuple<ShardRecoveryPlan, List<StoreFileMetadata>>> recoverSnapshotFilesStep = new StepListener<>();
         final StepListener<ShardRecoveryPlan> sendFilesStep = new StepListener<>();
         final StepListener<Tuple<ShardRecoveryPlan, RetentionLease>> createRetentionLeaseStep = new StepListener<>();
@@ -692,7 +751,25 @@ public class RecoverySourceHandler {
             sendFileInfoStep
         );
 
+        // When the files that are not in the snapshot can be sent from the source whatever happens to the snapshot downloads, send them
+        // while the target downloads the snapshot files rather than afterwards, so that the recovery of a shard that is mostly covered
+        // by a snapshot only waits for the repository. Otherwise a failed download may switch to the fallback plan, which has its own
+        // set of files to send from the source, so these are sent after the downloads.
+        final boolean sendSourceFilesConcurrently = shardRecoveryPlan.canRecoverSnapshotFilesFromSourceNode()
+            && shardRecoveryPlan.getSnapshotFilesToRecover().isEmpty() == false
+            && shardRecoveryPlan.getSourceFilesToRecover().isEmpty() == false;
+
         sendFileInfoStep.whenComplete(unused -> {
+            if (sendSourceFilesConcurrently) {
+                sendFiles(
+                    store,
+                    shardRecoveryPlan.getSourceFilesToRecover().toArray(new StoreFileMetadata[0]),
+                    shardRecoveryPlan::getTranslogOps,
+                    sendSourceFilesConcurrentlyStep
+                );
+            } else {
+                sendSourceFilesConcurrentlyStep.onResponse(null);
+            }
             recoverSnapshotFiles(shardRecoveryPlan, new ActionListener<>() {
                 @Override
                 public void onResponse(List<StoreFileMetadata> filesFailedToRecoverFromSnapshot) {
@@ -719,23 +796,29 @@ public class RecoverySourceHandler {
             });
         }, listener::onFailure);
 
-        recoverSnapshotFilesStep.whenComplete(planAndFilesFailedToRecoverFromSnapshot -> {
-            ShardRecoveryPlan recoveryPlan = planAndFilesFailedToRecoverFromSnapshot.v1();
-            List<StoreFileMetadata> filesFailedToRecoverFromSnapshot = planAndFilesFailedToRecoverFromSnapshot.v2();
-            final List<StoreFileMetadata> filesToRecoverFromSource;
-            if (filesFailedToRecoverFromSnapshot.isEmpty()) {
-                filesToRecoverFromSource = recoveryPlan.getSourceFilesToRecover();
-            } else {
-                filesToRecoverFromSource = concatLists(recoveryPlan.getSourceFilesToRecover(), filesFailedToRecoverFromSnapshot);
-            }
+        recoverSnapshotFilesStep.whenComplete(
+            planAndFilesFailedToRecoverFromSnapshot -> sendSourceFilesConcurrentlyStep.whenComplete(ignored -> {
+                ShardRecoveryPlan recoveryPlan = planAndFilesFailedToRecoverFromSnapshot.v1();
+                List<StoreFileMetadata> filesFailedToRecoverFromSnapshot = planAndFilesFailedToRecoverFromSnapshot.v2();
+                final List<StoreFileMetadata> filesToRecoverFromSource;
+                if (sendSourceFilesConcurrently) {
+                    assert recoveryPlan == shardRecoveryPlan;
+                    filesToRecoverFromSource = filesFailedToRecoverFromSnapshot;
+                } else if (filesFailedToRecoverFromSnapshot.isEmpty()) {
+                    filesToRecoverFromSource = recoveryPlan.getSourceFilesToRecover();
+                } else {
+                    filesToRecoverFromSource = concatLists(recoveryPlan.getSourceFilesToRecover(), filesFailedToRecoverFromSnapshot);
+                }
 
-            sendFiles(
-                store,
-                filesToRecoverFromSource.toArray(new StoreFileMetadata[0]),
-                recoveryPlan::getTranslogOps,
-                sendFilesStep.map(unused -> recoveryPlan)
-            );
-        }, listener::onFailure);
+                sendFiles(
+                    store,
+                    filesToRecoverFromSource.toArray(new StoreFileMetadata[0]),
+                    recoveryPlan::getTranslogOps,
+                    sendFilesStep.map(unused -> recoveryPlan)
+                );
+            }, listener::onFailure),
+            listener::onFailure
+        );
 
         sendFilesStep.whenComplete(recoveryPlan -> {
             createRetentionLease(
@@ -1342,6 +1425,41 @@ public class RecoverySourceHandler {
 
     void sendFiles(Store store, StoreFileMetadata[] files, IntSupplier translogOps, ActionListener<Void> listener) {
         ArrayUtil.timSort(files, Comparator.comparingLong(StoreFileMetadata::length)); // send smallest first
+        final int streams = Math.min(maxConcurrentFiles, files.length);
+        if (streams <= 1) {
+            sendFilesSequentially(store, files, translogOps, new AtomicBoolean(), listener);
+            return;
+        }
+        // deal the files out to the streams in size order so that the large files, which dominate the duration of the transfer, are sent
+        // concurrently; each stream sends its files one after the other with up to maxConcurrentFileChunks chunk requests in flight
+        final CountDownActionListener countDownListener = new CountDownActionListener(streams, listener);
+        // the first stream to fail stops the others before their next chunk rather than letting them send the rest of their files
+        final AtomicBoolean streamFailed = new AtomicBoolean();
+        final ActionListener<Void> streamListener = countDownListener.delegateResponse((l, e) -> {
+            streamFailed.set(true);
+            l.onFailure(e);
+        });
+        for (int stream = 0; stream < streams; stream++) {
+            final List<StoreFileMetadata> streamFiles = new ArrayList<>();
+            for (int i = stream; i < files.length; i += streams) {
+                streamFiles.add(files[i]);
+            }
+            try {
+                sendFilesSequentially(store, streamFiles.toArray(new StoreFileMetadata[0]), translogOps, streamFailed, streamListener);
+            } catch (Exception e) {
+                // the streams that already started complete the listener once they are done
+                streamListener.onFailure(e);
+            }
+        }
+    }
+
+    private void sendFilesSequentially(
+        Store store,
+        StoreFileMetadata[] files,
+        IntSupplier translogOps,
+        AtomicBoolean streamFailed,
+        ActionListener<Void> listener
+    ) {
         // use a smaller buffer than the configured chunk size if we only have files smaller than the chunk size
         final int bufferSize = files.length == 0 ? 0 : (int) Math.min(chunkSizeInBytes, files[files.length - 1].length());
         Releasable temporaryStoreRef = acquireStore(store);
@@ -1376,6 +1494,9 @@ public class RecoverySourceHandler {
                 protected FileChunk nextChunkRequest(StoreFileMetadata md) throws IOException {
                     assert Transports.assertNotTransportThread("read file chunk");
                     cancellableThreads.checkForCancel();
+                    if (streamFailed.get()) {
+                        throw new CancellableThreads.ExecutionCancelledException("another stream failed to send its files");
+                    }
                     if (currentInput == null) {
                         // no input => reading directly from the metadata
                         assert md.hashEqualsContents();
@@ -0,0 +1,105 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.lucene.store.RateLimiter;
+import org.apache.lucene.store.RateLimiter.SimpleRateLimiter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link RateLimiter} for one of two kinds of traffic that share the recovery bandwidth of a node. While the other kind of traffic is
+ * active, the traffic is limited to its share of the bandwidth so that both kinds of traffic together do not exceed the bandwidth. While
+ * the other kind of traffic is idle the traffic may use the whole bandwidth. Traffic is considered active if it was throttled within the
+ * last {@link #ACTIVITY_WINDOW_NANOS} nanoseconds.
+ */
+final class SharedBandwidthRateLimiter extends RateLimiter {
+
+    static final long ACTIVITY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+    private final SimpleRateLimiter delegate;
+    private final LongSupplier relativeTimeInNanosSupplier;
+    private SharedBandwidthRateLimiter other;
+
+    private volatile double totalMBPerSec;
+    private volatile double share;
+    private volatile boolean throttled;
+    private volatile long lastThrottledNanos;
+
+    private SharedBandwidthRateLimiter(double totalMBPerSec, double share, LongSupplier relativeTimeInNanosSupplier) {
+        this.delegate = new SimpleRateLimiter(totalMBPerSec);
+        this.totalMBPerSec = totalMBPerSec;
+        this.share = share;
+        this.relativeTimeInNanosSupplier = relativeTimeInNanosSupplier;
+    }
+
+    /**
+     * Creates the rate limiters of two kinds of traffic sharing the given bandwidth.
+     *
+     * @param totalMBPerSec the bandwidth shared by both kinds of traffic
+     * @param share         the share of the bandwidth of the second kind of traffic while both kinds are active, between 0 and 1
+     * @return the rate limiters of the first and of the second kind of traffic
+     */
+    static SharedBandwidthRateLimiter[] create(double totalMBPerSec, double share, LongSupplier relativeTimeInNanosSupplier) {
+        final SharedBandwidthRateLimiter first = new SharedBandwidthRateLimiter(totalMBPerSec, 1.0 - share, relativeTimeInNanosSupplier);
+        final SharedBandwidthRateLimiter second = new SharedBandwidthRateLimiter(totalMBPerSec, share, relativeTimeInNanosSupplier);
+        first.other = second;
+        second.other = first;
+        return new SharedBandwidthRateLimiter[] { first, second };
+    }
+
+    /**
+     * Sets the bandwidth shared by both kinds of traffic.
+     */
+    @Override
+    public void setMBPerSec(double mbPerSec) {
+        totalMBPerSec = mbPerSec;
+        updateRate(relativeTimeInNanosSupplier.getAsLong());
+    }
+
+    void setShare(double share) {
+        this.share = share;
+        updateRate(relativeTimeInNanosSupplier.getAsLong());
+    }
+
+    /**
+     * @return the current rate of this kind of traffic, which depends on whether the other kind of traffic is active
+     */
+    @Override
+    public double getMBPerSec() {
+        return delegate.getMBPerSec();
+    }
+
+    @Override
+    public long getMinPauseCheckBytes() {
+        return delegate.getMinPauseCheckBytes();
+    }
+
+    @Override
+    public long pause(long bytes) throws IOException {
+        final long nowNanos = relativeTimeInNanosSupplier.getAsLong();
+        lastThrottledNanos = nowNanos;
+        throttled = true;
+        updateRate(nowNanos);
+        return delegate.pause(bytes);
+    }
+
+    private boolean isActive(long nowNanos) {
+        return throttled && nowNanos - lastThrottledNanos < ACTIVITY_WINDOW_NANOS;
+    }
+
+    private void updateRate(long nowNanos) {
+        final double mbPerSec = other.isActive(nowNanos) ? totalMBPerSec * share : totalMBPerSec;
+        if (mbPerSec != delegate.getMBPerSec()) {
+            delegate.setMBPerSec(mbPerSec);
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.elasticsearch.action.search.SearchExecutionStatsCollector;
 import org.elasticsearch.action.search.SearchPhaseController;
 import org.elasticsearch.action.search.SearchTransportService;
 import org.elasticsearch.action.support.TransportAction;
+import org.elasticsearch.action.support.replication.ShardRequestBatcher;
 import org.elasticsearch.action.update.UpdateHelper;
 import org.elasticsearch.bootstrap.BootstrapCheck;
 import org.elasticsearch.bootstrap.BootstrapContext;
@@ -931,6 +932,7 @@ public class Node implements Closeable {
             final SearchService searchService = newSearchService(
                 clusterService,
                 indicesService,
+                nodeEnvironment,
                 threadPool,
                 scriptService,
                 bigArrays,
@@ -1043,6 +1045,7 @@ public class Node implements Closeable {
                 b.bind(SearchPhaseController.class).toInstance(new SearchPhaseController(searchService::aggReduceContextBuilder));
                 b.bind(Transport.class).toInstance(transport);
                 b.bind(TransportService.class).toInstance(transportService);
+                b.bind(ShardRequestBatcher.class).toInstance(new ShardRequestBatcher(settings, transportService, threadPool));
                 b.bind(NetworkService.class).toInstance(networkService);
                 b.bind(UpdateHelper.class).toInstance(new UpdateHelper(scriptService));
                 b.bind(IndexMetadataVerifier.class).toInstance(indexMetadataVerifier);
@@ -1754,6 +1757,7 @@ public class Node implements Closeable {
     protected SearchService newSearchService(
         ClusterService clusterService,
         IndicesService indicesService,
+        NodeEnvironment nodeEnvironment,
         ThreadPool threadPool,
         ScriptService scriptService,
         BigArrays bigArrays,
@@ -1766,6 +1770,7 @@ public class Node implements Closeable {
         return new SearchService(
             clusterService,
             indicesService,
+            nodeEnvironment,
             threadPool,
             scriptService,
             bigArrays,
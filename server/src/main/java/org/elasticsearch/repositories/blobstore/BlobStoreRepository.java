@@ -57,6 +57,8 @@ import org.elasticsearch.common.blobstore.support.BlobMetadata;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.DeflateCompressor;
 import org.elasticsearch.common.compress.NotXContentException;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.lucene.Lucene;
@@ -122,6 +124,7 @@ import org.elasticsearch.xcontent.XContentFactory;
 import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.xcontent.XContentType;
 
+import java.io.BufferedInputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -1021,15 +1024,96 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             listener.onResponse(null);
             return;
         }
-        threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(ActionRunnable.wrap(listener, l -> {
-            try {
-                deleteFromContainer(blobContainer(), filesToDelete);
-                l.onResponse(null);
-            } catch (Exception e) {
-                logger.warn(() -> format("%s Failed to delete some blobs during snapshot delete", snapshotIds), e);
-                throw e;
+        final BlobContainer container = blobContainer();
+        deleteInBatches(
+            filesToDelete,
+            // leave half of the snapshot pool to concurrent snapshot and restore work
+            Math.max(1, threadPool.info(ThreadPool.Names.SNAPSHOT).getMax() / 2),
+            threadPool.executor(ThreadPool.Names.SNAPSHOT),
+            batch -> deleteFromContainer(container, batch.iterator()),
+            e -> logger.warn(() -> format("%s Failed to delete some blobs during snapshot delete", snapshotIds), e),
+            listener.map(deletedBlobs -> {
+                logger.debug("{} deleted [{}] unreferenced shard level blobs", snapshotIds, deletedBlobs);
+                return null;
+            })
+        );
+    }
+
+    /**
+     * Deletes the given blobs in batches of up to {@link #DELETE_BATCH_SIZE} blobs with up to {@code workers} batches in flight on the
+     * given executor. Each task deletes a single batch pulled from the shared iterator and then submits a new task for the next batch, so
+     * that only the batches in flight are materialized at any time and other tasks on the executor get to run in between batches. A batch
+     * that fails to delete is passed to {@code onBatchFailure} and the remaining batches are still deleted, its blobs are left for a later
+     * delete or repository cleanup. Completes the listener with the number of deleted blobs once every batch is done.
+     */
+    static void deleteInBatches(
+        Iterator<String> blobs,
+        int workers,
+        Executor executor,
+        CheckedConsumer<List<String>, IOException> deleteBatch,
+        Consumer<Exception> onBatchFailure,
+        ActionListener<Long> listener
+    ) {
+        final AtomicLong deletedBlobs = new AtomicLong();
+        try (var refs = new RefCountingRunnable(() -> listener.onResponse(deletedBlobs.get()))) {
+            for (int i = 0; i < workers; i++) {
+                deleteNextBatch(blobs, executor, deleteBatch, onBatchFailure, deletedBlobs, refs);
             }
-        }));
+        }
+    }
+
+    private static void deleteNextBatch(
+        Iterator<String> blobs,
+        Executor executor,
+        CheckedConsumer<List<String>, IOException> deleteBatch,
+        Consumer<Exception> onBatchFailure,
+        AtomicLong deletedBlobs,
+        RefCountingRunnable refs
+    ) {
+        final Releasable ref = refs.acquire();
+        executor.execute(new AbstractRunnable() {
+            @Override
+            protected void doRun() {
+                final List<String> batch = nextDeleteBatch(blobs);
+                if (batch.isEmpty()) {
+                    return;
+                }
+                try {
+                    deleteBatch.accept(batch);
+                    logger.trace("deleted [{}] unreferenced shard level blobs so far", deletedBlobs.addAndGet(batch.size()));
+                } catch (Exception e) {
+                    onBatchFailure.accept(e);
+                }
+                deleteNextBatch(blobs, executor, deleteBatch, onBatchFailure, deletedBlobs, refs);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                onBatchFailure.accept(e);
+            }
+
+            @Override
+            public void onAfter() {
+                ref.close();
+            }
+        });
+    }
+
+    /**
+     * Maximum number of blobs handed to a single {@link BlobContainer#deleteBlobsIgnoringIfNotExists} call when deleting the unreferenced
+     * shard level blobs of deleted snapshots, matching the maximum number of keys of a single bulk delete request of the most common
+     * blob stores.
+     */
+    static final int DELETE_BATCH_SIZE = 1000;
+
+    static List<String> nextDeleteBatch(Iterator<String> blobs) {
+        synchronized (blobs) {
+            final List<String> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+            while (batch.size() < DELETE_BATCH_SIZE && blobs.hasNext()) {
+                batch.add(blobs.next());
+            }
+            return batch;
+        }
     }
 
     // updates the shard state metadata for shards of a snapshot that is to be deleted. Also computes the files to be cleaned up.
@@ -2158,7 +2242,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
             // EMPTY is safe here because RepositoryData#fromXContent calls namedObject
             try (
-                InputStream blob = blobContainer().readBlob(snapshotsIndexBlobName);
+                InputStream blob = repositoryDataInputStream(blobContainer().readBlob(snapshotsIndexBlobName));
                 XContentParser parser = XContentType.JSON.xContent()
                     .createParser(NamedXContentRegistry.EMPTY, LoggingDeprecationHandler.INSTANCE, blob)
             ) {
@@ -2177,6 +2261,25 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Wraps a stream over the contents of a root {@code index-N} blob so that it returns the JSON serialization of the repository data,
+     * decompressing it if needed.
+     *
+     * @param blob stream over the contents of the blob, closed when the returned stream is closed
+     * @return stream over the uncompressed contents of the blob, which must only be used on the current thread
+     */
+    public static InputStream repositoryDataInputStream(InputStream blob) throws IOException {
+        final BufferedInputStream bufferedBlob = new BufferedInputStream(blob);
+        final byte[] header = new byte[DeflateCompressor.HEADER_SIZE];
+        bufferedBlob.mark(header.length);
+        final int headerLength = Streams.readFully(bufferedBlob, header);
+        bufferedBlob.reset();
+        if (CompressorFactory.COMPRESSOR.isCompressed(new BytesArray(header, 0, headerLength))) {
+            return CompressorFactory.COMPRESSOR.threadLocalInputStream(bufferedBlob);
+        }
+        return bufferedBlob;
+    }
+
     private static String testBlobPrefix(String seed) {
         return TESTS_FILE + seed;
     }
@@ -2363,8 +2466,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             }
             final String indexBlob = INDEX_FILE_PREFIX + Long.toString(newGen);
             logger.debug("Repository [{}] writing new index generational blob [{}]", metadata.name(), indexBlob);
+            // the root blob holds an entry for every snapshot and index in the repository, compress it to reduce the bytes written on each
+            // update and read when loading the repository data
+            final boolean compressRepositoryData = compress && SnapshotsService.useCompressedRepositoryData(version);
             writeAtomic(blobContainer(), indexBlob, out -> {
-                try (XContentBuilder xContentBuilder = XContentFactory.jsonBuilder(org.elasticsearch.core.Streams.noCloseStream(out))) {
+                final OutputStream noCloseOut = org.elasticsearch.core.Streams.noCloseStream(out);
+                try (
+                    XContentBuilder xContentBuilder = XContentFactory.jsonBuilder(
+                        compressRepositoryData ? CompressorFactory.COMPRESSOR.threadLocalOutputStream(noCloseOut) : noCloseOut
+                    )
+                ) {
                     newRepositoryData.snapshotsToXContent(xContentBuilder, version);
                 }
             }, true);
@@ -3199,7 +3310,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      * Wrap the snapshot rate limiter around the given stream. Any throttling is recorded in the value returned by
      * {@link BlobStoreRepository#getSnapshotThrottleTimeInNanos()}. Note that speed is throttled by the repository setting
      * `max_snapshot_bytes_per_sec` and, if recovery node bandwidth settings have been set, additionally by the
-     * `indices.recovery.max_bytes_per_sec` speed.
+     * `indices.recovery.max_bytes_per_sec` speed which snapshots share with recoveries according to
+     * `indices.recovery.snapshot_bandwidth_share`.
      */
     public InputStream maybeRateLimitSnapshots(InputStream stream) {
         return maybeRateLimitSnapshots(stream, snapshotRateLimitingTimeInNanos::inc);
@@ -3209,12 +3321,13 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      * Wrap the snapshot rate limiter around the given stream. Any throttling is recorded in the value returned by
      * {@link BlobStoreRepository#getSnapshotThrottleTimeInNanos()}. Note that speed is throttled by the repository setting
      * `max_snapshot_bytes_per_sec` and, if recovery node bandwidth settings have been set, additionally by the
-     * `indices.recovery.max_bytes_per_sec` speed.
+     * `indices.recovery.max_bytes_per_sec` speed which snapshots share with recoveries according to
+     * `indices.recovery.snapshot_bandwidth_share`.
      */
     public InputStream maybeRateLimitSnapshots(InputStream stream, RateLimitingInputStream.Listener throttleListener) {
         InputStream rateLimitStream = maybeRateLimit(stream, () -> snapshotRateLimiter, throttleListener);
         if (recoverySettings.nodeBandwidthSettingsExist()) {
-            rateLimitStream = maybeRateLimit(rateLimitStream, recoverySettings::rateLimiter, throttleListener);
+            rateLimitStream = maybeRateLimit(rateLimitStream, recoverySettings::snapshotRateLimiter, throttleListener);
         }
         return rateLimitStream;
     }
@@ -162,6 +162,8 @@ import org.elasticsearch.search.aggregations.metrics.InternalCardinality;
 import org.elasticsearch.search.aggregations.metrics.InternalExtendedStats;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoBounds;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoCentroid;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentileRanks;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentiles;
 import org.elasticsearch.search.aggregations.metrics.InternalHDRPercentileRanks;
 import org.elasticsearch.search.aggregations.metrics.InternalHDRPercentiles;
 import org.elasticsearch.search.aggregations.metrics.InternalMedianAbsoluteDeviation;
@@ -400,6 +402,7 @@ public class SearchModule {
                 PercentilesAggregationBuilder.PARSER
             ).addResultReader(InternalTDigestPercentiles.NAME, InternalTDigestPercentiles::new)
                 .addResultReader(InternalHDRPercentiles.NAME, InternalHDRPercentiles::new)
+                .addResultReader(InternalDDSketchPercentiles.NAME, InternalDDSketchPercentiles::new)
                 .setAggregatorRegistrar(PercentilesAggregationBuilder::registerAggregators),
             builder
         );
@@ -410,6 +413,7 @@ public class SearchModule {
                 PercentileRanksAggregationBuilder.PARSER
             ).addResultReader(InternalTDigestPercentileRanks.NAME, InternalTDigestPercentileRanks::new)
                 .addResultReader(InternalHDRPercentileRanks.NAME, InternalHDRPercentileRanks::new)
+                .addResultReader(InternalDDSketchPercentileRanks.NAME, InternalDDSketchPercentileRanks::new)
                 .setAggregatorRegistrar(PercentileRanksAggregationBuilder::registerAggregators),
             builder
         );
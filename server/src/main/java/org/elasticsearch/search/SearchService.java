@@ -32,6 +32,7 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
@@ -40,10 +41,13 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
@@ -74,8 +78,11 @@ import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeCursorCache;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramSegmentCache;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationContext.ProductionAggregationContext;
+import org.elasticsearch.search.aggregations.support.AggregationSpillSpace;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseContext;
 import org.elasticsearch.search.dfs.DfsPhase;
@@ -120,6 +127,7 @@ import org.elasticsearch.tracing.Tracer;
 import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -217,6 +225,38 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * The number of buckets after which top level {@code terms} aggregations without sub-aggregations spill the doc counts of their
+     * buckets to temporary files on disk instead of growing their hash in memory, {@code -1} to disable spilling.
+     */
+    public static final Setting<Integer> AGGS_TERMS_SPILL_THRESHOLD = Setting.intSetting(
+        "search.aggs.terms.spill_threshold",
+        -1,
+        -1,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * Whether the coordinating node reduces sibling aggregations in parallel on the {@link ThreadPool.Names#SEARCH_REDUCE} pool.
+     */
+    public static final Setting<Boolean> AGGS_PARALLEL_REDUCE = Setting.boolSetting(
+        "search.aggs.parallel_reduce",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * Whether metric aggregations that don't need scores collect the matching docs in blocks rather than one doc at a time.
+     */
+    public static final Setting<Boolean> AGGS_BLOCK_COLLECTION = Setting.boolSetting(
+        "search.aggs.block_collection",
+        true,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final Setting<ByteSizeValue> MAX_ASYNC_SEARCH_RESPONSE_SIZE_SETTING = Setting.byteSizeSetting(
         "search.max_async_search_response_size",
         new ByteSizeValue(10, ByteSizeUnit.MB),
@@ -259,6 +299,21 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
 
+    private volatile int aggsTermsSpillThreshold;
+
+    private volatile boolean aggsParallelReduce;
+
+    private volatile boolean aggsBlockCollection;
+
+    @Nullable
+    private final DateHistogramSegmentCache dateHistogramSegmentCache;
+
+    @Nullable
+    private final CompositeCursorCache compositeCursorCache;
+
+    @Nullable
+    private final AggregationSpillSpace aggregationSpillSpace;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
@@ -275,6 +330,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public SearchService(
         ClusterService clusterService,
         IndicesService indicesService,
+        NodeEnvironment nodeEnvironment,
         ThreadPool threadPool,
         ScriptService scriptService,
         BigArrays bigArrays,
@@ -299,6 +355,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         );
         this.executorSelector = executorSelector;
         this.tracer = tracer;
+        this.dateHistogramSegmentCache = DateHistogramSegmentCache.build(settings);
+        this.compositeCursorCache = CompositeCursorCache.build(settings);
+        this.aggregationSpillSpace = buildAggregationSpillSpace(nodeEnvironment, clusterService.getClusterSettings());
 
         TimeValue keepAliveInterval = KEEPALIVE_INTERVAL_SETTING.get(settings);
         setKeepAlives(DEFAULT_KEEPALIVE_SETTING.get(settings), MAX_KEEPALIVE_SETTING.get(settings));
@@ -329,6 +388,27 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         enableRewriteAggsToFilterByFilter = ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
+
+        aggsTermsSpillThreshold = AGGS_TERMS_SPILL_THRESHOLD.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(AGGS_TERMS_SPILL_THRESHOLD, this::setAggsTermsSpillThreshold);
+
+        aggsParallelReduce = AGGS_PARALLEL_REDUCE.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(AGGS_PARALLEL_REDUCE, this::setAggsParallelReduce);
+
+        aggsBlockCollection = AGGS_BLOCK_COLLECTION.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(AGGS_BLOCK_COLLECTION, this::setAggsBlockCollection);
+    }
+
+    @Nullable
+    private static AggregationSpillSpace buildAggregationSpillSpace(NodeEnvironment nodeEnvironment, ClusterSettings clusterSettings) {
+        if (nodeEnvironment.hasNodeFile() == false) {
+            return null;
+        }
+        try {
+            return AggregationSpillSpace.create(nodeEnvironment, clusterSettings);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to prepare the aggregation spill directory", e);
+        }
     }
 
     private static void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -379,6 +459,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.enableRewriteAggsToFilterByFilter = enableRewriteAggsToFilterByFilter;
     }
 
+    private void setAggsTermsSpillThreshold(int aggsTermsSpillThreshold) {
+        this.aggsTermsSpillThreshold = aggsTermsSpillThreshold;
+    }
+
+    private void setAggsParallelReduce(boolean aggsParallelReduce) {
+        this.aggsParallelReduce = aggsParallelReduce;
+    }
+
+    private void setAggsBlockCollection(boolean aggsBlockCollection) {
+        this.aggsBlockCollection = aggsBlockCollection;
+    }
+
     @Override
     public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
         // once an index is removed due to deletion or closing, we can just clean up all the pending search context information
@@ -1216,6 +1308,24 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
         context.terminateAfter(source.terminateAfter());
         if (source.aggregations() != null && includeAggregations) {
+            /*
+             * min_score and terminate_after drop docs matching the query
+             * after the aggs see them and a timeout stops collecting part way
+             * through, so the aggs don't see every doc matching the query.
+             */
+            boolean collectsAllMatches = source.minScore() == null
+                && source.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER;
+            /*
+             * The node level caches are keyed on the reader which doesn't
+             * change with document or field level security, so users who
+             * see different docs or fields of the shard must not share them.
+             */
+            boolean readerKeyedCachesAllowed;
+            try {
+                readerKeyedCachesAllowed = indicesService.hasRequestCacheKeyDifferentiation(context.request()) == false;
+            } catch (IOException e) {
+                throw new SearchException(shardTarget, "failed to check the request cache key", e);
+            }
             AggregationContext aggContext = new ProductionAggregationContext(
                 indicesService.getAnalysis(),
                 context.getSearchExecutionContext(),
@@ -1236,12 +1346,19 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 context::isCancelled,
                 context::buildFilteredQuery,
                 enableRewriteAggsToFilterByFilter,
+                collectsAllMatches && source.timeout() == null,
+                aggsTermsSpillThreshold,
+                aggregationSpillSpace,
+                // the cached doc counts are only right if the aggs see every match, a timeout just returns partial results anyway
+                collectsAllMatches && readerKeyedCachesAllowed ? dateHistogramSegmentCache : null,
+                // the buckets after the page would be missing the docs not collected before a timeout
+                collectsAllMatches && source.timeout() == null && readerKeyedCachesAllowed ? compositeCursorCache : null,
                 IndexSettings.isTimeSeriesModeEnabled() && source.aggregations().isInSortOrderExecutionRequired()
             );
             context.addReleasable(aggContext);
             try {
                 AggregatorFactories factories = source.aggregations().build(aggContext, null);
-                context.aggregations(new SearchContextAggregations(factories));
+                context.aggregations(new SearchContextAggregations(factories, aggsBlockCollection));
             } catch (IOException e) {
                 throw new AggregationInitializationException("Failed to create aggregators", e);
             }
@@ -1615,10 +1732,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
      * builder retains a reference to the provided {@link SearchRequest}.
      */
     public AggregationReduceContext.Builder aggReduceContextBuilder(Supplier<Boolean> isCanceled, SearchRequest request) {
+        final Executor parallelReduceExecutor = aggsParallelReduce ? parallelReduceExecutor() : null;
         return new AggregationReduceContext.Builder() {
             @Override
             public AggregationReduceContext forPartialReduction() {
-                return new AggregationReduceContext.ForPartial(bigArrays, scriptService, isCanceled, request.source().aggregations());
+                return new AggregationReduceContext.ForPartial(
+                    bigArrays,
+                    scriptService,
+                    isCanceled,
+                    request.source().aggregations(),
+                    parallelReduceExecutor
+                );
             }
 
             @Override
@@ -1628,12 +1752,22 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     scriptService,
                     isCanceled,
                     request.source().aggregations(),
-                    multiBucketConsumerService.create()
+                    multiBucketConsumerService.create(),
+                    parallelReduceExecutor
                 );
             }
         };
     }
 
+    /**
+     * The executor to reduce sibling aggregations on, preserving the thread context of the thread that forks the reduction.
+     */
+    private Executor parallelReduceExecutor() {
+        final Executor executor = threadPool.executor(ThreadPool.Names.SEARCH_REDUCE);
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        return command -> executor.execute(threadContext.preserveContext(command));
+    }
+
     /**
      * This helper class ensures we only execute either the success or the failure path for {@link SearchOperationListener}.
      * This is crucial for some implementations like {@link org.elasticsearch.index.search.stats.ShardSearchStats}.
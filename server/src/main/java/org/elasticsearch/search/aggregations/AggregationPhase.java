@@ -51,9 +51,18 @@ public class AggregationPhase {
             }
             context.queryCollectors().put(AggregationPhase.class, BucketCollector.NO_OP_COLLECTOR);
         } else {
+            Collector aggsCollector;
+            if (bucketCollector.scoreMode().needsScores() || context.aggregations().blockCollection() == false) {
+                aggsCollector = bucketCollector.asCollector();
+            } else {
+                // without scores the aggregators can collect docs in blocks
+                DocBlockCollector docBlockCollector = new DocBlockCollector(bucketCollector);
+                context.aggregations().docBlockCollector(docBlockCollector);
+                aggsCollector = docBlockCollector;
+            }
             Collector collector = context.getProfilers() == null
-                ? bucketCollector.asCollector()
-                : new InternalProfileCollector(bucketCollector.asCollector(), CollectorResult.REASON_AGGREGATION, List.of());
+                ? aggsCollector
+                : new InternalProfileCollector(aggsCollector, CollectorResult.REASON_AGGREGATION, List.of());
             context.queryCollectors().put(AggregationPhase.class, collector);
         }
     }
@@ -99,6 +108,15 @@ public class AggregationPhase {
             return;
         }
 
+        DocBlockCollector docBlockCollector = context.aggregations().docBlockCollector();
+        if (docBlockCollector != null) {
+            try {
+                docBlockCollector.finish();
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to collect aggregations", e);
+            }
+        }
+
         Aggregator[] aggregators = context.aggregations().aggregators();
 
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
@@ -14,6 +14,7 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.tasks.TaskCancelledException;
 
+import java.util.concurrent.Executor;
 import java.util.function.IntConsumer;
 import java.util.function.Supplier;
 
@@ -46,18 +47,27 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
     @Nullable
     private final AggregationBuilder builder;
     private final AggregatorFactories.Builder subBuilders;
+    /**
+     * Executor to reduce sibling aggregations on in parallel or {@code null}
+     * to reduce them on the calling thread. Only ever set on the context for
+     * the top level.
+     */
+    @Nullable
+    private final Executor parallelReduceExecutor;
 
     private AggregationReduceContext(
         BigArrays bigArrays,
         ScriptService scriptService,
         Supplier<Boolean> isCanceled,
-        AggregatorFactories.Builder subBuilders
+        AggregatorFactories.Builder subBuilders,
+        @Nullable Executor parallelReduceExecutor
     ) {
         this.bigArrays = bigArrays;
         this.scriptService = scriptService;
         this.isCanceled = isCanceled;
         this.builder = null;
         this.subBuilders = subBuilders;
+        this.parallelReduceExecutor = parallelReduceExecutor;
     }
 
     private AggregationReduceContext(
@@ -71,6 +81,7 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
         this.isCanceled = isCanceled;
         this.builder = builder;
         this.subBuilders = builder.factoriesBuilder;
+        this.parallelReduceExecutor = null;
     }
 
     /**
@@ -102,6 +113,15 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
         return builder;
     }
 
+    /**
+     * Executor to reduce sibling aggregations on in parallel or {@code null}
+     * if they should be reduced one after the other on the calling thread.
+     */
+    @Nullable
+    public final Executor parallelReduceExecutor() {
+        return parallelReduceExecutor;
+    }
+
     /**
      * The root of the tree of pipeline aggregations for this request.
      */
@@ -145,7 +165,17 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
             Supplier<Boolean> isCanceled,
             AggregatorFactories.Builder builders
         ) {
-            super(bigArrays, scriptService, isCanceled, builders);
+            this(bigArrays, scriptService, isCanceled, builders, null);
+        }
+
+        public ForPartial(
+            BigArrays bigArrays,
+            ScriptService scriptService,
+            Supplier<Boolean> isCanceled,
+            AggregatorFactories.Builder builders,
+            @Nullable Executor parallelReduceExecutor
+        ) {
+            super(bigArrays, scriptService, isCanceled, builders, parallelReduceExecutor);
         }
 
         public ForPartial(BigArrays bigArrays, ScriptService scriptService, Supplier<Boolean> isCanceled, AggregationBuilder builder) {
@@ -185,8 +215,20 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
             AggregatorFactories.Builder builders,
             IntConsumer multiBucketConsumer
         ) {
-            super(bigArrays, scriptService, isCanceled, builders);
-            this.multiBucketConsumer = multiBucketConsumer;
+            this(bigArrays, scriptService, isCanceled, builders, multiBucketConsumer, null);
+        }
+
+        public ForFinal(
+            BigArrays bigArrays,
+            ScriptService scriptService,
+            Supplier<Boolean> isCanceled,
+            AggregatorFactories.Builder builders,
+            IntConsumer multiBucketConsumer,
+            @Nullable Executor parallelReduceExecutor
+        ) {
+            super(bigArrays, scriptService, isCanceled, builders, parallelReduceExecutor);
+            // sibling aggregations reduced in parallel all count their buckets against the same limit
+            this.multiBucketConsumer = parallelReduceExecutor == null ? multiBucketConsumer : synchronizedConsumer(multiBucketConsumer);
             this.pipelineTreeRoot = builders == null ? null : builders.buildPipelineTree();
         }
 
@@ -203,6 +245,15 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
             this.pipelineTreeRoot = pipelineTreeRoot;
         }
 
+        private static IntConsumer synchronizedConsumer(IntConsumer consumer) {
+            return new IntConsumer() {
+                @Override
+                public synchronized void accept(int value) {
+                    consumer.accept(value);
+                }
+            };
+        }
+
         @Override
         public boolean isFinalReduce() {
             return true;
@@ -0,0 +1,97 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+
+/**
+ * A {@link Collector} that buffers the docs matching the query and hands
+ * them to the top level aggregators in blocks using
+ * {@link LeafBucketCollector#collect(int[], int, long)}. This only works
+ * if the aggregators don't need scores because the score of a doc is not
+ * available anymore once the scorer moved to the next doc.
+ * <p>
+ * The last block of a segment is collected either when the search moves to
+ * the next segment or when {@link #finish()} is called, which must happen
+ * before the aggregators run their post collection.
+ */
+final class DocBlockCollector implements Collector {
+
+    /**
+     * The number of docs in a full block, the same as the number of docs in a
+     * block of postings.
+     */
+    static final int BLOCK_SIZE = 128;
+
+    private final BucketCollector bucketCollector;
+    private final int[] docs = new int[BLOCK_SIZE];
+    private int count;
+    private LeafBucketCollector leafCollector = LeafBucketCollector.NO_OP_COLLECTOR;
+
+    DocBlockCollector(BucketCollector bucketCollector) {
+        assert bucketCollector.scoreMode().needsScores() == false;
+        this.bucketCollector = bucketCollector;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        finish();
+        leafCollector = bucketCollector.getLeafCollector(new AggregationExecutionContext(context, null, null, null));
+        if (leafCollector.isNoop()) {
+            return leafCollector;
+        }
+        return new LeafCollector() {
+            @Override
+            public void setScorer(Scorable scorer) throws IOException {
+                leafCollector.setScorer(scorer);
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                docs[count++] = doc;
+                if (count == BLOCK_SIZE) {
+                    collectBlock();
+                }
+            }
+        };
+    }
+
+    /**
+     * Collect the docs that are still buffered.
+     */
+    void finish() throws IOException {
+        try {
+            collectBlock();
+        } catch (CollectionTerminatedException e) {
+            // the segment was fully searched anyway
+        }
+        leafCollector = LeafBucketCollector.NO_OP_COLLECTOR;
+    }
+
+    private void collectBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        final int blockCount = count;
+        count = 0;
+        leafCollector.collect(docs, blockCount, 0);
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return bucketCollector.scoreMode();
+    }
+}
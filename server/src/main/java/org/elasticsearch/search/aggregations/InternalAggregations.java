@@ -10,6 +10,7 @@ package org.elasticsearch.search.aggregations;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationPath;
@@ -18,6 +19,7 @@ import org.elasticsearch.search.sort.SortValue;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -25,6 +27,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -148,22 +155,77 @@ public final class InternalAggregations extends Aggregations implements Writeabl
         }
 
         // now we can use the first aggregation of each list to handle the reduce of its list
-        List<InternalAggregation> reducedAggregations = new ArrayList<>();
-        for (Map.Entry<String, List<InternalAggregation>> entry : aggByName.entrySet()) {
-            List<InternalAggregation> aggregations = entry.getValue();
+        List<Map.Entry<String, List<InternalAggregation>>> entries = new ArrayList<>(aggByName.entrySet());
+        InternalAggregation[] reducedAggregations = new InternalAggregation[entries.size()];
+        IntConsumer reduceOne = i -> {
+            List<InternalAggregation> aggregations = entries.get(i).getValue();
             // Sort aggregations so that unmapped aggs come last in the list
             // If all aggs are unmapped, the agg that leads the reduction will just return itself
             aggregations.sort(INTERNAL_AGG_COMPARATOR);
             InternalAggregation first = aggregations.get(0); // the list can't be empty as it's created on demand
             if (first.mustReduceOnSingleInternalAgg() || aggregations.size() > 1) {
-                reducedAggregations.add(first.reduce(aggregations, context.forAgg(entry.getKey())));
+                reducedAggregations[i] = first.reduce(aggregations, context.forAgg(entries.get(i).getKey()));
             } else {
                 // no need for reduce phase
-                reducedAggregations.add(first);
+                reducedAggregations[i] = first;
+            }
+        };
+        Executor executor = context.parallelReduceExecutor();
+        if (executor != null && entries.size() > 1) {
+            forkJoin(executor, entries.size(), reduceOne);
+        } else {
+            for (int i = 0; i < entries.size(); i++) {
+                reduceOne.accept(i);
             }
         }
 
-        return from(reducedAggregations);
+        return from(new ArrayList<>(Arrays.asList(reducedAggregations)));
+    }
+
+    /**
+     * Run {@code count} tasks, forking them onto {@code executor}. The calling
+     * thread runs tasks as well until none are left and then waits for the
+     * ones other threads picked up. So progress never depends on a free thread
+     * in the executor and a rejected fork just means the calling thread runs
+     * more of the tasks. The first failure is rethrown once all tasks finished.
+     */
+    static void forkJoin(Executor executor, int count, IntConsumer task) {
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(count);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < count) {
+                try {
+                    if (failure.get() == null) {
+                        task.accept(i);
+                    }
+                } catch (RuntimeException e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        for (int forked = 1; forked < count; forked++) {
+            try {
+                executor.execute(worker);
+            } catch (EsRejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while reducing aggregations", e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
     }
 
     /**
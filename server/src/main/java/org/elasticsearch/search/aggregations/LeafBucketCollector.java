@@ -73,6 +73,22 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect the first {@code count} docs of {@code docs} in the bucket owned
+     * by {@code owningBucketOrd}. The docs are in increasing order, like the
+     * docs passed to {@link #collect(int, long)}.
+     * <p>
+     * The default implementation calls {@link #collect(int, long)} for each doc.
+     * Aggregators that can decode the values of a whole block of docs at once
+     * should override this to aggregate them in a tight loop rather than going
+     * through the doc values one doc at a time.
+     */
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrd);
+        }
+    }
+
     /**
      * Does this collector collect anything? If this returns true we can safely
      * just never call {@link #collect}.
@@ -13,13 +13,18 @@ package org.elasticsearch.search.aggregations;
 public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
+    private final boolean blockCollection;
     private Aggregator[] aggregators;
+    private DocBlockCollector docBlockCollector;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
+     *
+     * @param blockCollection whether the top level aggregators may collect docs in blocks when they don't need scores
      */
-    public SearchContextAggregations(AggregatorFactories factories) {
+    public SearchContextAggregations(AggregatorFactories factories, boolean blockCollection) {
         this.factories = factories;
+        this.blockCollection = blockCollection;
     }
 
     public AggregatorFactories factories() {
@@ -38,4 +43,19 @@ public class SearchContextAggregations {
     public void aggregators(Aggregator[] aggregators) {
         this.aggregators = aggregators;
     }
+
+    boolean blockCollection() {
+        return blockCollection;
+    }
+
+    DocBlockCollector docBlockCollector() {
+        return docBlockCollector;
+    }
+
+    /**
+     * Registers the collector that buffers docs for the top level aggregators, which must be finished before post collection.
+     */
+    void docBlockCollector(DocBlockCollector docBlockCollector) {
+        this.docBlockCollector = docBlockCollector;
+    }
 }
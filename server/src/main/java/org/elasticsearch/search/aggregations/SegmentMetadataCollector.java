@@ -0,0 +1,37 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.function.LongConsumer;
+
+/**
+ * An {@link Aggregator} that can collect all of the live documents of a
+ * segment from index structures like {@link PointValues} without visiting
+ * the documents. Bucketing aggregators that know that every live document
+ * of a segment lands in the same bucket, like the {@code filters}
+ * aggregation running filter by filter, use this to skip collecting the
+ * segment document by document.
+ */
+public interface SegmentMetadataCollector {
+    /**
+     * Prepare to collect all live documents of a segment from the index
+     * structures.
+     *
+     * @return a function that collects the segment into the bucket with the
+     *         provided ordinal or {@code null} if the segment has to be
+     *         collected document by document
+     */
+    @Nullable
+    LongConsumer collectAllFromMetadata(LeafReaderContext ctx) throws IOException;
+}
@@ -77,7 +77,7 @@ public abstract class DeferableBucketAggregator extends BucketsAggregator {
      * replays all hits against the buckets selected by
      * {#link {@link DeferringBucketCollector#prepareSelectedBuckets(long...)}.
      */
-    protected DeferringBucketCollector buildDeferringCollector() {
+    protected DeferringBucketCollector buildDeferringCollector() throws IOException {
         return new BestBucketsDeferringCollector(topLevelQuery(), searcher(), descendsFromGlobalAggregator(parent()));
     }
 
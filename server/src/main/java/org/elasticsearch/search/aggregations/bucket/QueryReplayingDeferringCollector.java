@@ -0,0 +1,209 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.search.aggregations.AggregationExecutionContext;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BucketCollector;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.MultiBucketCollector;
+
+import java.io.IOException;
+
+/**
+ * A {@link DeferringBucketCollector} that doesn't record anything while the
+ * owning aggregator collects. Once the owning aggregator has pruned its
+ * buckets it runs the top level query again and asks the owning aggregator
+ * which of the selected buckets each matching doc belongs to. This takes
+ * another pass over the matching docs but no memory per collected doc, unlike
+ * {@link BestBucketsDeferringCollector}.
+ * <p>
+ * This only works for aggregators that collect every doc matching the top
+ * level query and can work out the buckets of a doc from the doc alone,
+ * typically a top level {@code terms} aggregation. And only for requests that
+ * collect every doc matching the query, see
+ * {@link org.elasticsearch.search.aggregations.support.AggregationContext#enableReplayQueryForDeferred()}.
+ * <p>
+ * The owning aggregator must {@link #close} this collector to release the
+ * selected buckets.
+ */
+public class QueryReplayingDeferringCollector extends DeferringBucketCollector implements Releasable {
+
+    /**
+     * Works out the buckets of the docs of a segment.
+     */
+    @FunctionalInterface
+    public interface BucketsOfDoc {
+        /**
+         * Build a collector that collects each doc into {@code deferred} once
+         * per selected bucket the doc belongs to, using the id of the bucket
+         * in {@code selectedBuckets} as the bucket ordinal.
+         *
+         * @return the collector or {@code null} if no doc of the segment
+         *         can belong to a selected bucket
+         */
+        LeafBucketCollector forLeaf(AggregationExecutionContext aggCtx, LongHash selectedBuckets, LeafBucketCollector deferred)
+            throws IOException;
+    }
+
+    private final Query topLevelQuery;
+    private final IndexSearcher searcher;
+    private final boolean isGlobal;
+    private final BucketsOfDoc bucketsOfDoc;
+    private final BigArrays bigArrays;
+
+    private BucketCollector collector;
+    private LongHash selectedBuckets;
+    private boolean finished = false;
+
+    /**
+     * @param isGlobal Whether the owning aggregator visits all documents (global context)
+     * @param bigArrays the arrays to hold the selected buckets in, so that they are accounted for by the request's circuit breaker
+     */
+    public QueryReplayingDeferringCollector(
+        Query topLevelQuery,
+        IndexSearcher searcher,
+        boolean isGlobal,
+        BucketsOfDoc bucketsOfDoc,
+        BigArrays bigArrays
+    ) {
+        this.topLevelQuery = topLevelQuery;
+        this.searcher = searcher;
+        this.isGlobal = isGlobal;
+        this.bucketsOfDoc = bucketsOfDoc;
+        this.bigArrays = bigArrays;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        if (collector == null) {
+            throw new IllegalStateException();
+        }
+        // nothing is collected before the query runs again
+        return ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    @Override
+    public void setDeferredCollector(Iterable<BucketCollector> deferredCollectors) {
+        this.collector = MultiBucketCollector.wrap(true, deferredCollectors);
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(AggregationExecutionContext aggCtx) {
+        return LeafBucketCollector.NO_OP_COLLECTOR;
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        collector.preCollection();
+    }
+
+    @Override
+    public void postCollection() {
+        finished = true;
+    }
+
+    @Override
+    public void prepareSelectedBuckets(long... selectedBuckets) throws IOException {
+        if (finished == false) {
+            throw new IllegalStateException("Cannot replay yet, collection is not finished: postCollect() has not been called");
+        }
+        if (this.selectedBuckets != null) {
+            throw new IllegalStateException("Already been replayed");
+        }
+
+        this.selectedBuckets = new LongHash(selectedBuckets.length, bigArrays);
+        for (long ord : selectedBuckets) {
+            this.selectedBuckets.add(ord);
+        }
+
+        if (selectedBuckets.length > 0) {
+            final ScoreMode scoreMode = collector.scoreMode();
+            searcher.search(isGlobal ? new MatchAllDocsQuery() : topLevelQuery, new Collector() {
+                @Override
+                public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+                    final LeafBucketCollector deferred = collector.getLeafCollector(
+                        new AggregationExecutionContext(context, null, null, null)
+                    );
+                    if (deferred.isNoop()) {
+                        throw new CollectionTerminatedException();
+                    }
+                    final LeafBucketCollector replay = bucketsOfDoc.forLeaf(
+                        new AggregationExecutionContext(context, null, null, null),
+                        QueryReplayingDeferringCollector.this.selectedBuckets,
+                        deferred
+                    );
+                    if (replay == null) {
+                        throw new CollectionTerminatedException();
+                    }
+                    return new LeafCollector() {
+                        @Override
+                        public void setScorer(Scorable scorer) throws IOException {
+                            deferred.setScorer(scorer);
+                        }
+
+                        @Override
+                        public void collect(int doc) throws IOException {
+                            replay.collect(doc, 0);
+                        }
+                    };
+                }
+
+                @Override
+                public ScoreMode scoreMode() {
+                    return scoreMode;
+                }
+            });
+        }
+        collector.postCollection();
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(selectedBuckets);
+    }
+
+    /**
+     * Wrap the provided aggregator so that it behaves (almost) as if it had
+     * been collected directly.
+     */
+    @Override
+    public Aggregator wrap(final Aggregator in) {
+        return new WrappedAggregator(in) {
+            @Override
+            public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+                if (selectedBuckets == null) {
+                    throw new IllegalStateException("Collection has not been replayed yet.");
+                }
+                long[] rebasedOrds = new long[owningBucketOrds.length];
+                for (int ordIdx = 0; ordIdx < owningBucketOrds.length; ordIdx++) {
+                    rebasedOrds[ordIdx] = selectedBuckets.find(owningBucketOrds[ordIdx]);
+                    if (rebasedOrds[ordIdx] == -1) {
+                        throw new IllegalStateException("Cannot build for a bucket which has not been collected");
+                    }
+                }
+                return in.buildAggregations(rebasedOrds);
+            }
+        };
+    }
+}
@@ -15,11 +15,13 @@ import org.elasticsearch.search.aggregations.CardinalityUpperBound;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 class CompositeAggregationFactory extends AggregatorFactory {
     private final int size;
     private final CompositeValuesSourceConfig[] sources;
+    private final List<CompositeValuesSourceBuilder<?>> sourceBuilders;
     private final CompositeKey afterKey;
 
     CompositeAggregationFactory(
@@ -30,17 +32,19 @@ class CompositeAggregationFactory extends AggregatorFactory {
         Map<String, Object> metadata,
         int size,
         CompositeValuesSourceConfig[] sources,
+        List<CompositeValuesSourceBuilder<?>> sourceBuilders,
         CompositeKey afterKey
     ) throws IOException {
         super(name, context, parent, subFactoriesBuilder, metadata);
         this.size = size;
         this.sources = sources;
+        this.sourceBuilders = sourceBuilders;
         this.afterKey = afterKey;
     }
 
     @Override
     protected Aggregator createInternal(Aggregator parent, CardinalityUpperBound cardinality, Map<String, Object> metadata)
         throws IOException {
-        return new CompositeAggregator(name, factories, context, parent, metadata, size, sources, afterKey);
+        return new CompositeAggregator(name, factories, context, parent, metadata, size, sources, sourceBuilders, afterKey);
     }
 }
@@ -9,6 +9,7 @@
 package org.elasticsearch.search.aggregations.bucket.composite;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
@@ -30,9 +31,11 @@ import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.comparators.LongComparator;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RoaringDocIdSet;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Rounding;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.Strings;
 import org.elasticsearch.index.IndexSortConfig;
@@ -79,6 +82,19 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
     private final SingleDimensionValuesSource<?>[] sources;
     private final CompositeValuesCollectorQueue queue;
     private final DateHistogramValuesSource[] innerSizedBucketAggregators;
+    private final List<CompositeValuesSourceBuilder<?>> sourceBuilders;
+    /**
+     * The cache of buckets beyond the current page or {@code null} if this
+     * aggregation can't use it.
+     */
+    @Nullable
+    private final CompositeCursorCache cursorCache;
+    private CompositeCursorCache.Key cursorKey;
+    /**
+     * The page taken from the {@link #cursorCache} or {@code null} if we
+     * have to collect the page.
+     */
+    private List<InternalComposite.InternalBucket> cachedPage;
 
     private final List<Entry> entries = new ArrayList<>();
     private AggregationExecutionContext currentAggCtx;
@@ -95,6 +111,7 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
         Map<String, Object> metadata,
         int size,
         CompositeValuesSourceConfig[] sourceConfigs,
+        List<CompositeValuesSourceBuilder<?>> sourceBuilders,
         CompositeKey rawAfterKey
     ) throws IOException {
         super(name, factories, aggCtx, parent, CardinalityUpperBound.MANY, metadata);
@@ -120,12 +137,37 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             );
         }
         this.sourceConfigs = sourceConfigs;
+        this.sourceBuilders = sourceBuilders;
+        this.cursorCache = canUseCursorCache(aggCtx, parent) ? aggCtx.compositeCursorCache() : null;
+        final CompositeCursorCache.Cursor cursor;
+        if (cursorCache != null) {
+            cursorKey = new CompositeCursorCache.Key(
+                aggCtx.searcher().getIndexReader().getReaderCacheHelper().getKey(),
+                aggCtx.query(),
+                sourceBuilders,
+                Arrays.stream(sourceConfigs).map(c -> (Object) c.fieldType()).toList(),
+                size
+            );
+            cursor = cursorCache.get(cursorKey);
+        } else {
+            cursor = null;
+        }
+        /*
+         * Collecting a few pages at once costs up to that many times the
+         * memory and time of collecting one, which only pays off if the
+         * next pages are requested from the same reader. Readers that
+         * aren't kept open by a point in time or a scroll change with
+         * every refresh, so we only collect a single page on a reader that
+         * we haven't cached a page of yet and collect several pages once
+         * a request runs past the end of the cached ones.
+         */
+        final int queueSize = cursor == null ? size : (int) Math.min((long) size * cursorCache.pages(), bucketLimit);
         List<DateHistogramValuesSource> dateHistogramValuesSources = new ArrayList<>();
         for (int i = 0; i < sourceConfigs.length; i++) {
             this.sources[i] = sourceConfigs[i].createValuesSource(
                 aggCtx.bigArrays(),
                 aggCtx.searcher().getIndexReader(),
-                size,
+                queueSize,
                 this::addRequestCircuitBreakerBytes
             );
             if (this.sources[i] instanceof DateHistogramValuesSource) {
@@ -133,7 +175,7 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             }
         }
         this.innerSizedBucketAggregators = dateHistogramValuesSources.toArray(new DateHistogramValuesSource[0]);
-        this.queue = new CompositeValuesCollectorQueue(aggCtx.bigArrays(), sources, size, aggCtx.searcher().getIndexReader());
+        this.queue = new CompositeValuesCollectorQueue(aggCtx.bigArrays(), sources, queueSize, aggCtx.searcher().getIndexReader());
         if (rawAfterKey != null) {
             try {
                 this.queue.setAfterKey(rawAfterKey);
@@ -145,6 +187,34 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             }
         }
         this.rawAfterKey = rawAfterKey;
+        if (cursor != null) {
+            cachedPage = cursor.page(afterBucket(), size);
+            if (cachedPage != null) {
+                earlyTerminated = cursor.earlyTerminated();
+            }
+        }
+    }
+
+    /**
+     * Can we take pages from the {@link CompositeCursorCache}? The cache
+     * only holds doc counts so we can't use it with sub-aggregations. And
+     * it is keyed on the reader so we can't use it if the reader can't be
+     * cached, like when document level security hides some docs.
+     */
+    private boolean canUseCursorCache(AggregationContext aggCtx, Aggregator parent) {
+        if (aggCtx.compositeCursorCache() == null || parent != null || subAggregators.length > 0 || aggCtx.isCacheable() == false) {
+            return false;
+        }
+        IndexReader reader = aggCtx.searcher().getIndexReader();
+        if (reader.getReaderCacheHelper() == null) {
+            return false;
+        }
+        for (LeafReaderContext leaf : reader.leaves()) {
+            if (leaf.reader().getReaderCacheHelper() == null) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -172,6 +242,24 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
         collectableSubAggregators = BucketCollector.NO_OP_BUCKET_COLLECTOR;
     }
 
+    /**
+     * The after key as a bucket so we can compare it with other buckets.
+     */
+    private InternalComposite.InternalBucket afterBucket() {
+        if (rawAfterKey == null) {
+            return null;
+        }
+        Comparable<?>[] values = new Comparable<?>[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            values[i] = sources[i].getAfter();
+        }
+        return bucket(new CompositeKey(values), 0, InternalAggregations.EMPTY);
+    }
+
+    private InternalComposite.InternalBucket bucket(CompositeKey key, long docCount, InternalAggregations aggs) {
+        return new InternalComposite.InternalBucket(sourceNames, formats, key, reverseMuls, missingOrders, docCount, aggs);
+    }
+
     @Override
     protected void doPostCollection() throws IOException {
         finishLeaf();
@@ -181,13 +269,18 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         // Composite aggregator must be at the top of the aggregation tree
         assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0L;
+        if (cachedPage != null) {
+            return new InternalAggregation[] { buildResult(new ArrayList<>(cachedPage)) };
+        }
         if (deferredCollectors != NO_OP_BUCKET_COLLECTOR) {
             // Replay all documents that contain at least one top bucket (collected during the first pass).
             runDeferredCollections();
         }
 
         int num = Math.min(size, queue.size());
-        final InternalComposite.InternalBucket[] buckets = new InternalComposite.InternalBucket[num];
+        // A queue that isn't full holds all the buckets after the after key
+        final boolean exhausted = queue.isFull() == false;
+        final InternalComposite.InternalBucket[] buckets = new InternalComposite.InternalBucket[queue.size()];
         long[] bucketOrdsToCollect = new long[queue.size()];
         for (int i = 0; i < queue.size(); i++) {
             bucketOrdsToCollect[i] = i;
@@ -198,30 +291,50 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             CompositeKey key = queue.toCompositeKey(slot);
             InternalAggregations aggs = subAggsForBuckets[slot];
             long docCount = queue.getDocCount(slot);
-            buckets[queue.size()] = new InternalComposite.InternalBucket(
-                sourceNames,
-                formats,
-                key,
-                reverseMuls,
-                missingOrders,
-                docCount,
-                aggs
-            );
+            buckets[queue.size()] = bucket(key, docCount, aggs);
+        }
+        if (cursorCache != null) {
+            cacheCursor(buckets, exhausted);
+        }
+        return new InternalAggregation[] { buildResult(Arrays.asList(buckets).subList(0, num)) };
+    }
+
+    private InternalComposite buildResult(List<InternalComposite.InternalBucket> buckets) {
+        CompositeKey lastBucket = buckets.isEmpty() ? null : buckets.get(buckets.size() - 1).getRawKey();
+        return new InternalComposite(
+            name,
+            size,
+            sourceNames,
+            formats,
+            buckets,
+            lastBucket,
+            reverseMuls,
+            missingOrders,
+            earlyTerminated,
+            metadata()
+        );
+    }
+
+    /**
+     * Cache all buckets we collected so the next pages don't have to collect
+     * them again.
+     */
+    private void cacheCursor(InternalComposite.InternalBucket[] buckets, boolean exhausted) {
+        List<InternalComposite.InternalBucket> copies = new ArrayList<>(buckets.length);
+        for (InternalComposite.InternalBucket bucket : buckets) {
+            CompositeKey key = bucket.getRawKey();
+            Comparable<?>[] values = new Comparable<?>[key.size()];
+            for (int i = 0; i < values.length; i++) {
+                // Terms may point into arrays that are recycled once we're closed
+                values[i] = key.get(i) instanceof BytesRef b ? BytesRef.deepCopyOf(b) : key.get(i);
+            }
+            copies.add(bucket(new CompositeKey(values), bucket.getDocCount(), InternalAggregations.EMPTY));
         }
-        CompositeKey lastBucket = num > 0 ? buckets[num - 1].getRawKey() : null;
-        return new InternalAggregation[] {
-            new InternalComposite(
-                name,
-                size,
-                sourceNames,
-                formats,
-                Arrays.asList(buckets),
-                lastBucket,
-                reverseMuls,
-                missingOrders,
-                earlyTerminated,
-                metadata()
-            ) };
+        cursorCache.put(
+            searcher().getIndexReader().getReaderCacheHelper(),
+            cursorKey,
+            new CompositeCursorCache.Cursor(afterBucket(), copies, exhausted, earlyTerminated)
+        );
     }
 
     @Override
@@ -449,6 +562,10 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
 
     @Override
     protected LeafBucketCollector getLeafCollector(AggregationExecutionContext aggCtx, LeafBucketCollector sub) throws IOException {
+        if (cachedPage != null) {
+            // The page comes from the cursor cache
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
         finishLeaf();
 
         boolean fillDocIdSet = deferredCollectors != NO_OP_BUCKET_COLLECTOR;
@@ -0,0 +1,201 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.aggregations.support.ReaderKeyedCache;
+
+import java.util.List;
+
+/**
+ * Node level cache of the composite buckets that a shard found beyond the
+ * page that it returned. Paging through a {@code composite} aggregation
+ * with {@code after} keys has to collect all docs matching the query for
+ * every page unless the index is sorted on the sources, so paging through
+ * all buckets is quadratic. With this cache the {@link CompositeAggregator}
+ * keeps the buckets it collected here. Subsequent requests for the same
+ * aggregation on the same reader, like those of {@code transform}s or of
+ * scrolls through a point in time, take their pages from the cache until they
+ * run past its end.
+ * <p>
+ * The first request on a reader only collects and caches its own page. A
+ * request that runs past the end of the cached buckets collects
+ * {@link #PAGES_SETTING} pages at once, which takes up to that many times the
+ * memory of collecting a single page. So a request pays for the extra pages
+ * only once its reader was paged through before, which is rarely the case for
+ * readers that aren't kept open by a point in time or a scroll since
+ * refreshes replace them. A cursor holds at most {@link #PAGES_SETTING}
+ * pages, and only aggregations without sub-aggregations are cached since
+ * only doc counts are kept.
+ * <p>
+ * Entries are evicted when the cache is full and when the reader that they
+ * were collected from is closed. The reader's cache key is the same whatever
+ * document or field level security hides from it, so the cache isn't used for
+ * requests where that applies.
+ */
+public final class CompositeCursorCache {
+    /**
+     * The maximum memory used by the cache, {@code 0} to disable it.
+     */
+    public static final Setting<ByteSizeValue> SIZE_SETTING = Setting.memorySizeSetting(
+        "search.aggs.composite.cursor_cache.size",
+        "0b",
+        Property.NodeScope
+    );
+
+    /**
+     * The number of pages collected when a request runs past the end of the
+     * cached buckets, and so the maximum number of pages cached for an
+     * aggregation.
+     */
+    public static final Setting<Integer> PAGES_SETTING = Setting.intSetting(
+        "search.aggs.composite.cursor_cache.pages",
+        10,
+        2,
+        Property.NodeScope
+    );
+
+    /**
+     * Build the cache or return {@code null} if it is disabled.
+     */
+    @Nullable
+    public static CompositeCursorCache build(Settings settings) {
+        return ReaderKeyedCache.buildIfEnabled(SIZE_SETTING, settings, size -> new CompositeCursorCache(size, PAGES_SETTING.get(settings)));
+    }
+
+    private final ReaderKeyedCache<Key, Cursor> cache;
+    private final int pages;
+
+    CompositeCursorCache(long sizeInBytes, int pages) {
+        this.cache = new ReaderKeyedCache<>(sizeInBytes);
+        this.pages = pages;
+    }
+
+    /**
+     * The number of pages collected when a request runs past the end of the
+     * cached buckets.
+     */
+    int pages() {
+        return pages;
+    }
+
+    /**
+     * The cursor for an aggregation or {@code null} if there isn't one.
+     */
+    @Nullable
+    Cursor get(Key key) {
+        return cache.get(key);
+    }
+
+    void put(IndexReader.CacheHelper cacheHelper, Key key, Cursor cursor) {
+        cache.put(cacheHelper, key, cursor);
+    }
+
+    /**
+     * The number of cached cursors.
+     */
+    int count() {
+        return cache.count();
+    }
+
+    /**
+     * Identifies an aggregation on a shard.
+     *
+     * @param reader the reader of the shard
+     * @param query the top level query
+     * @param sources the definitions of the sources
+     * @param fieldTypes the types of the fields of the sources, runtime fields are different every time
+     * @param size the number of buckets per page
+     */
+    record Key(
+        IndexReader.CacheKey reader,
+        Query query,
+        List<CompositeValuesSourceBuilder<?>> sources,
+        List<Object> fieldTypes,
+        int size
+    ) implements ReaderKeyedCache.Key {
+        @Override
+        public long ramBytesUsed() {
+            long queryBytes = query instanceof Accountable a ? a.ramBytesUsed() : RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED;
+            // The sources and field types are shared with the mapping or are small enough not to matter
+            return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 5L * RamUsageEstimator.NUM_BYTES_OBJECT_REF + queryBytes;
+        }
+    }
+
+    /**
+     * Buckets in ascending order of their keys.
+     *
+     * @param start the after key the buckets were collected from, {@code null} if they start with the first bucket
+     * @param buckets the buckets after {@code start}, without gaps
+     * @param exhausted are there no more buckets after the last one
+     * @param earlyTerminated did the collection of the buckets terminate early
+     */
+    record Cursor(
+        @Nullable InternalComposite.InternalBucket start,
+        List<InternalComposite.InternalBucket> buckets,
+        boolean exhausted,
+        boolean earlyTerminated
+    ) implements Accountable {
+        /**
+         * The page of buckets after {@code after} or {@code null} if the
+         * cursor doesn't contain all of them.
+         */
+        @Nullable
+        List<InternalComposite.InternalBucket> page(@Nullable InternalComposite.InternalBucket after, int size) {
+            if (start != null && (after == null || after.compareKey(start) < 0)) {
+                return null;
+            }
+            int from = 0;
+            if (after != null) {
+                // Binary search for the first bucket after the after key
+                int to = buckets.size();
+                while (from < to) {
+                    int mid = (from + to) >>> 1;
+                    if (buckets.get(mid).compareKey(after) <= 0) {
+                        from = mid + 1;
+                    } else {
+                        to = mid;
+                    }
+                }
+            }
+            int to = Math.min(buckets.size(), from + size);
+            if (to - from < size && exhausted == false) {
+                return null;
+            }
+            return buckets.subList(from, to);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER;
+            for (InternalComposite.InternalBucket bucket : buckets) {
+                // The reference in the list, the bucket, its key and the values array
+                bytes += 3 * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 9L * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+                CompositeKey key = bucket.getRawKey();
+                for (int i = 0; i < key.size(); i++) {
+                    if (key.get(i) instanceof BytesRef b) {
+                        bytes += RamUsageEstimator.sizeOf(b.bytes);
+                    } else {
+                        bytes += RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + Long.BYTES;
+                    }
+                }
+            }
+            return bytes;
+        }
+    }
+}
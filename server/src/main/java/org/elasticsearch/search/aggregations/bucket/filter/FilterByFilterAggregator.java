@@ -20,7 +20,9 @@ import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.CardinalityUpperBound;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.SegmentMetadataCollector;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.profile.aggregation.ProfilingAggregator;
 import org.elasticsearch.search.runtime.AbstractScriptFieldQuery;
 
 import java.io.IOException;
@@ -28,6 +30,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
 
 /**
  * Collects results by running each filter against the searcher and doesn't
@@ -190,6 +193,17 @@ public class FilterByFilterAggregator extends FiltersAggregator {
      * perform the count from metadata or had to fall back.
      */
     private int segmentsCounted;
+    /**
+     * Count of segments in which at least one filter matched all live docs
+     * and the sub-aggregators collected those docs from index structures
+     * like points rather than document by document.
+     */
+    private int segmentsCollectedFromMetadata;
+    /**
+     * The sub-aggregators if all of them can collect whole segments from
+     * index structures, {@code null} otherwise.
+     */
+    private final SegmentMetadataCollector[] metadataCollectors;
 
     /**
      * Build the aggregation. Private to force callers to go through the
@@ -207,6 +221,22 @@ public class FilterByFilterAggregator extends FiltersAggregator {
         Map<String, Object> metadata
     ) throws IOException {
         super(name, factories, filters, keyed, null, aggCtx, parent, cardinality, metadata);
+        this.metadataCollectors = metadataCollectors(subAggregators);
+    }
+
+    private static SegmentMetadataCollector[] metadataCollectors(Aggregator[] subAggregators) {
+        if (subAggregators.length == 0) {
+            return null;
+        }
+        SegmentMetadataCollector[] metadataCollectors = new SegmentMetadataCollector[subAggregators.length];
+        for (int i = 0; i < subAggregators.length; i++) {
+            Aggregator sub = ProfilingAggregator.unwrap(subAggregators[i]);
+            if (false == sub instanceof SegmentMetadataCollector) {
+                return null;
+            }
+            metadataCollectors[i] = (SegmentMetadataCollector) sub;
+        }
+        return metadataCollectors;
     }
 
     /**
@@ -289,12 +319,52 @@ public class FilterByFilterAggregator extends FiltersAggregator {
             public void setScorer(Scorable scorer) throws IOException {}
         }
         MatchCollector collector = new MatchCollector();
-        filters().get(0).collect(aggCtx.getLeafReaderContext(), collector, live);
-        for (int filterOrd = 1; filterOrd < filters().size(); filterOrd++) {
-            collector.subCollector = collectableSubAggregators.getLeafCollector(aggCtx);
+        boolean subCollectorUsed = false;
+        boolean collectedFromMetadata = false;
+        for (int filterOrd = 0; filterOrd < filters().size(); filterOrd++) {
+            if (metadataCollectors != null && collectFromMetadata(aggCtx.getLeafReaderContext(), live, filterOrd)) {
+                collectedFromMetadata = true;
+                continue;
+            }
+            if (subCollectorUsed) {
+                collector.subCollector = collectableSubAggregators.getLeafCollector(aggCtx);
+            }
+            subCollectorUsed = true;
             collector.filterOrd = filterOrd;
             filters().get(filterOrd).collect(aggCtx.getLeafReaderContext(), collector, live);
         }
+        if (collectedFromMetadata) {
+            segmentsCollectedFromMetadata++;
+        }
+    }
+
+    /**
+     * Collect a filter that matches all live docs in the segment without
+     * visiting the docs by having the sub-aggregators read their results
+     * from index structures. Think of {@code min} and {@code max} on a
+     * field with points under a {@code date_histogram} bucket that spans
+     * the whole segment.
+     *
+     * @return {@code true} if the filter was collected, {@code false} if it
+     *         has to be collected document by document
+     */
+    private boolean collectFromMetadata(LeafReaderContext ctx, Bits live, int filterOrd) throws IOException {
+        QueryToFilterAdapter filter = filters().get(filterOrd);
+        if (false == filter.matchesAllLiveDocs(ctx)) {
+            return false;
+        }
+        LongConsumer[] collectors = new LongConsumer[metadataCollectors.length];
+        for (int i = 0; i < metadataCollectors.length; i++) {
+            collectors[i] = metadataCollectors[i].collectAllFromMetadata(ctx);
+            if (collectors[i] == null) {
+                return false;
+            }
+        }
+        incrementBucketDocCount(filterOrd, filter.count(ctx, new Counter(docCountProvider), live));
+        for (LongConsumer c : collectors) {
+            c.accept(filterOrd);
+        }
+        return true;
     }
 
     @Override
@@ -302,6 +372,7 @@ public class FilterByFilterAggregator extends FiltersAggregator {
         super.collectDebugInfo(add);
         add.accept("segments_counted", segmentsCounted);
         add.accept("segments_collected", segmentsCollected);
+        add.accept("segments_collected_from_metadata", segmentsCollectedFromMetadata);
         add.accept("segments_with_deleted_docs", segmentsWithDeletedDocs);
         add.accept("segments_with_doc_count_field", segmentsWithDocCountField);
     }
@@ -212,6 +212,15 @@ public class QueryToFilterAdapter {
         return counter.readAndReset(ctx);
     }
 
+    /**
+     * Does this filter match all live documents in a leaf? This only returns
+     * {@code true} if the {@link Weight} can count the matches in constant
+     * time so it is cheap to call.
+     */
+    boolean matchesAllLiveDocs(LeafReaderContext ctx) throws IOException {
+        return weight().count(ctx) == ctx.reader().numDocs();
+    }
+
     /**
      * Collect all documents that match this filter in this leaf.
      */
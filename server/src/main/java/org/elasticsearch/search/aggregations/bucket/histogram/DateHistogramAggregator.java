@@ -9,14 +9,30 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.Rounding;
 import org.elasticsearch.common.Rounding.DateTimeUnit;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.core.CheckedFunction;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AdaptingAggregator;
 import org.elasticsearch.search.aggregations.AggregationExecutionContext;
@@ -232,6 +248,21 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
 
     private final LongKeyedBucketOrds bucketOrds;
 
+    /**
+     * The segment cache or {@code null} if this aggregation can't use it.
+     */
+    @Nullable
+    private final DateHistogramSegmentCache segmentCache;
+    /**
+     * The top level query split into the range on our field and the rest or
+     * {@code null} if we don't use the {@link #segmentCache}.
+     */
+    @Nullable
+    private final DateHistogramSegmentCache.SplitQuery splitQuery;
+    private final String field;
+    private CachedSegmentCounter cachedSegmentCounter;
+    private int segmentsFromCache;
+
     DateHistogramAggregator(
         String name,
         AggregatorFactories factories,
@@ -262,6 +293,32 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         this.formatter = valuesSourceConfig.format();
 
         bucketOrds = LongKeyedBucketOrds.build(bigArrays(), cardinality);
+
+        this.field = valuesSourceConfig.fieldContext() == null ? null : valuesSourceConfig.fieldContext().field();
+        this.splitQuery = splitQueryForSegmentCache(valuesSourceConfig, context);
+        this.segmentCache = splitQuery == null ? null : context.dateHistogramSegmentCache();
+    }
+
+    /**
+     * Split the top level query if we can count whole segments with the
+     * {@link DateHistogramSegmentCache}. That only works for top level
+     * {@code date_histogram}s without sub-aggregations on a date field
+     * because the cache only holds doc counts for the docs matching the top
+     * level query.
+     */
+    private DateHistogramSegmentCache.SplitQuery splitQueryForSegmentCache(ValuesSourceConfig config, AggregationContext context) {
+        if (context.dateHistogramSegmentCache() == null || parent() != null || subAggregators().length > 0 || valuesSource == null) {
+            return null;
+        }
+        if (config.script() != null || config.missing() != null || field == null) {
+            return null;
+        }
+        if (false == config.fieldType() instanceof DateFieldMapper.DateFieldType dateFieldType
+            || dateFieldType.resolution() != DateFieldMapper.Resolution.MILLISECONDS) {
+            // Nanosecond points aren't in the same unit as the rounded values
+            return null;
+        }
+        return DateHistogramSegmentCache.splitQuery(context.query(), field);
     }
 
     @Override
@@ -277,6 +334,10 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (segmentCache != null && collectFromSegmentCache(aggCtx.getLeafReaderContext())) {
+            segmentsFromCache++;
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
         SortedNumericDocValues values = valuesSource.longValues(aggCtx.getLeafReaderContext());
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -308,6 +369,252 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         };
     }
 
+    /**
+     * Collect a whole segment from the doc counts in the
+     * {@link DateHistogramSegmentCache}, only counting the buckets that the
+     * range in the top level query cuts through.
+     *
+     * @return {@code true} if the segment was collected, {@code false} if it
+     *         has to be collected doc by doc
+     */
+    private boolean collectFromSegmentCache(LeafReaderContext ctx) throws IOException {
+        IndexReader.CacheHelper cacheHelper = ctx.reader().getReaderCacheHelper();
+        if (cacheHelper == null || docCountProvider.alwaysOne() == false) {
+            return false;
+        }
+        PointValues points = ctx.reader().getPointValues(field);
+        if (points == null || points.size() != points.getDocCount()) {
+            // Docs with many values can land in buckets outside of the range
+            return false;
+        }
+        if (cachedSegmentCounter == null) {
+            cachedSegmentCounter = new CachedSegmentCounter();
+        }
+        return cachedSegmentCounter.collect(ctx, cacheHelper);
+    }
+
+    private void addBucketDocCount(long key, long docCount) {
+        if (docCount == 0 || (hardBounds != null && hardBounds.contain(key) == false)) {
+            return;
+        }
+        long bucketOrd = bucketOrds.add(0, key);
+        if (bucketOrd < 0) {
+            bucketOrd = -1 - bucketOrd;
+        }
+        incrementBucketDocCount(bucketOrd, docCount);
+    }
+
+    /**
+     * Counts segments using the {@link DateHistogramSegmentCache}. Buckets
+     * that the range only covers partly are counted with the rest of the
+     * query and the part of the range in the bucket. All other buckets are
+     * either fully inside of the range or fully outside of it so we can take
+     * their counts from the doc counts of the rest of the query.
+     */
+    private class CachedSegmentCounter {
+        /**
+         * {@link #preparedRounding} is only prepared for the values in the
+         * range. The bounds of the range and the cached counts of whole
+         * segments need a rounding that works for any value.
+         */
+        private final Rounding.Prepared unknownRounding = rounding.prepareForUnknown();
+        private final Weight rest;
+        /**
+         * The smallest key of a bucket fully inside of the range.
+         */
+        private final long minFullKey;
+        /**
+         * The largest key of a bucket fully inside of the range.
+         */
+        private final long maxFullKey;
+        private final long firstPartialKey;
+        private final Weight firstPartial;
+        private final long lastPartialKey;
+        private final Weight lastPartial;
+
+        CachedSegmentCounter() throws IOException {
+            long from = splitQuery.from();
+            long to = splitQuery.to();
+            rest = weight(splitQuery.rest());
+            long firstKey = from == Long.MIN_VALUE ? Long.MIN_VALUE : unknownRounding.round(from);
+            long lastKey = to == Long.MAX_VALUE ? Long.MAX_VALUE : unknownRounding.round(to);
+            boolean firstIsPartial = firstKey < from;
+            boolean lastIsPartial = lastKey != Long.MAX_VALUE && unknownRounding.nextRoundingValue(lastKey) - 1 > to;
+            if (firstKey == lastKey && (firstIsPartial || lastIsPartial)) {
+                // The range is inside of a single bucket
+                firstPartialKey = firstKey;
+                firstPartial = partialWeight(from, to);
+                lastPartialKey = lastKey;
+                lastPartial = null;
+                minFullKey = Long.MAX_VALUE;
+                maxFullKey = Long.MIN_VALUE;
+                return;
+            }
+            firstPartialKey = firstKey;
+            firstPartial = firstIsPartial ? partialWeight(from, unknownRounding.nextRoundingValue(firstKey) - 1) : null;
+            minFullKey = firstIsPartial ? unknownRounding.nextRoundingValue(firstKey) : firstKey;
+            lastPartialKey = lastKey;
+            lastPartial = lastIsPartial ? partialWeight(lastKey, to) : null;
+            maxFullKey = lastIsPartial ? lastKey - 1 : lastKey;
+        }
+
+        boolean collect(LeafReaderContext ctx, IndexReader.CacheHelper cacheHelper) throws IOException {
+            if (rest.isCacheable(ctx) == false) {
+                return false;
+            }
+            DateHistogramSegmentCache.BucketCounts counts = segmentCache.bucketCounts(
+                cacheHelper,
+                field,
+                rounding,
+                splitQuery.rest(),
+                () -> countBuckets(ctx)
+            );
+            for (int i = 0; i < counts.keys().length; i++) {
+                long key = counts.keys()[i];
+                if (key >= minFullKey && key <= maxFullKey) {
+                    addBucketDocCount(key, counts.counts()[i]);
+                }
+            }
+            if (firstPartial != null) {
+                addBucketDocCount(firstPartialKey, count(firstPartial, ctx));
+            }
+            if (lastPartial != null) {
+                addBucketDocCount(lastPartialKey, count(lastPartial, ctx));
+            }
+            return true;
+        }
+
+        private Weight partialWeight(long from, long to) throws IOException {
+            Query range = LongPoint.newRangeQuery(field, from, to);
+            if (splitQuery.rest() instanceof MatchAllDocsQuery) {
+                return weight(range);
+            }
+            return weight(
+                new BooleanQuery.Builder().add(splitQuery.rest(), BooleanClause.Occur.FILTER)
+                    .add(range, BooleanClause.Occur.FILTER)
+                    .build()
+            );
+        }
+
+        private Weight weight(Query query) throws IOException {
+            return searcher().createWeight(searcher().rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1.0f);
+        }
+
+        /**
+         * Count the live docs matching the rest of the query per bucket.
+         */
+        private DateHistogramSegmentCache.BucketCounts countBuckets(LeafReaderContext ctx) throws IOException {
+            BulkScorer scorer = rest.bulkScorer(ctx);
+            if (scorer == null) {
+                return DateHistogramSegmentCache.BucketCounts.EMPTY;
+            }
+            SortedNumericDocValues values = valuesSource.longValues(ctx);
+            try (BucketCounter counter = new BucketCounter(values, segmentRounding(ctx))) {
+                scorer.score(counter, ctx.reader().getLiveDocs());
+                return counter.counts();
+            }
+        }
+
+        /**
+         * Prepare the rounding for all values in the segment, not just those
+         * in the range of the query. The cached counts are reused with other
+         * ranges so they must have the same keys as a rounding for any value.
+         */
+        private Rounding.Prepared segmentRounding(LeafReaderContext ctx) throws IOException {
+            PointValues points = ctx.reader().getPointValues(field);
+            if (points == null) {
+                return unknownRounding;
+            }
+            long min = LongPoint.decodeDimension(points.getMinPackedValue(), 0);
+            long max = LongPoint.decodeDimension(points.getMaxPackedValue(), 0);
+            return rounding.prepare(min, max);
+        }
+    }
+
+    private static long count(Weight weight, LeafReaderContext ctx) throws IOException {
+        int count = weight.count(ctx);
+        if (count >= 0) {
+            return count;
+        }
+        BulkScorer scorer = weight.bulkScorer(ctx);
+        if (scorer == null) {
+            return 0;
+        }
+        long[] total = new long[1];
+        scorer.score(new LeafCollector() {
+            @Override
+            public void setScorer(Scorable scorer) {}
+
+            @Override
+            public void collect(int doc) {
+                total[0]++;
+            }
+        }, ctx.reader().getLiveDocs());
+        return total[0];
+    }
+
+    private class BucketCounter implements LeafCollector, Releasable {
+        private final SortedNumericDocValues values;
+        private final Rounding.Prepared segmentRounding;
+        private final LongHash keys;
+        private LongArray counts;
+
+        BucketCounter(SortedNumericDocValues values, Rounding.Prepared segmentRounding) {
+            this.values = values;
+            this.segmentRounding = segmentRounding;
+            this.keys = new LongHash(1, bigArrays());
+            boolean success = false;
+            try {
+                this.counts = bigArrays().newLongArray(1, true);
+                success = true;
+            } finally {
+                if (success == false) {
+                    keys.close();
+                }
+            }
+        }
+
+        @Override
+        public void setScorer(Scorable scorer) {}
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (values.advanceExact(doc) == false) {
+                return;
+            }
+            long previousRounded = Long.MIN_VALUE;
+            for (int i = 0; i < values.docValueCount(); i++) {
+                long rounded = segmentRounding.round(values.nextValue());
+                if (rounded == previousRounded) {
+                    continue;
+                }
+                long id = keys.add(rounded);
+                if (id < 0) {
+                    id = -1 - id;
+                } else {
+                    counts = bigArrays().grow(counts, id + 1);
+                }
+                counts.increment(id, 1);
+                previousRounded = rounded;
+            }
+        }
+
+        DateHistogramSegmentCache.BucketCounts counts() {
+            long[] k = new long[(int) keys.size()];
+            long[] c = new long[k.length];
+            for (int id = 0; id < k.length; id++) {
+                k[id] = keys.get(id);
+                c[id] = counts.get(id);
+            }
+            return new DateHistogramSegmentCache.BucketCounts(k, c);
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(keys, counts);
+        }
+    }
+
     @Override
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         return buildAggregationsForVariableBuckets(
@@ -364,6 +671,9 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
     @Override
     public void collectDebugInfo(BiConsumer<String, Object> add) {
         add.accept("total_buckets", bucketOrds.size());
+        if (segmentCache != null) {
+            add.accept("segments_from_cache", segmentsFromCache);
+        }
     }
 
     /**
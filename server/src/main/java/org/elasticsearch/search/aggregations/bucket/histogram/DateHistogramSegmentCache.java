@@ -0,0 +1,228 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.histogram;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Rounding;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.CheckedSupplier;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.query.DateRangeIncludingNowQuery;
+import org.elasticsearch.search.aggregations.support.ReaderKeyedCache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Node level cache of the {@code date_histogram} doc counts of whole segments.
+ * Dashboards tend to send the same query over and over again, only moving the
+ * time range forwards a little each time. The doc counts of a segment for the
+ * query <strong>without</strong> that time range don't change as long as the
+ * segment and its deletes don't, so we cache them per segment, field, rounding
+ * and remaining query. Then {@link DateHistogramAggregator} only has to count
+ * the docs of the buckets that the time range cuts through, usually the first
+ * and the last one, and can take all of the others from the cache.
+ * <p>
+ * Entries are evicted when the cache is full and when their segment reader is
+ * closed, so new data only ever lands in segments that aren't cached yet.
+ * The segment's core cache key doesn't change with document or field level
+ * security so the cache isn't used for requests where that applies.
+ */
+public final class DateHistogramSegmentCache {
+    /**
+     * The maximum memory used by the cache, {@code 0} to disable it.
+     */
+    public static final Setting<ByteSizeValue> SIZE_SETTING = Setting.memorySizeSetting(
+        "search.aggs.date_histogram.segment_cache.size",
+        "0b",
+        Property.NodeScope
+    );
+
+    /**
+     * Build the cache or return {@code null} if it is disabled.
+     */
+    @Nullable
+    public static DateHistogramSegmentCache build(Settings settings) {
+        return ReaderKeyedCache.buildIfEnabled(SIZE_SETTING, settings, DateHistogramSegmentCache::new);
+    }
+
+    private final ReaderKeyedCache<Key, BucketCounts> cache;
+
+    DateHistogramSegmentCache(long sizeInBytes) {
+        this.cache = new ReaderKeyedCache<>(sizeInBytes);
+    }
+
+    /**
+     * Get the doc counts per rounded key of all live docs of a segment that
+     * match {@code restQuery}, counting them if they aren't cached.
+     */
+    BucketCounts bucketCounts(
+        IndexReader.CacheHelper cacheHelper,
+        String field,
+        Rounding rounding,
+        Query restQuery,
+        CheckedSupplier<BucketCounts, IOException> count
+    ) throws IOException {
+        return cache.computeIfAbsent(cacheHelper, new Key(cacheHelper.getKey(), field, rounding, restQuery), count);
+    }
+
+    /**
+     * The number of cached segments.
+     */
+    int count() {
+        return cache.count();
+    }
+
+    /**
+     * The part of the top level query that limits the values of the field to
+     * a range and everything else.
+     *
+     * @param from the smallest value matching the query, {@link Long#MIN_VALUE} if unbounded
+     * @param to the largest value matching the query, {@link Long#MAX_VALUE} if unbounded
+     * @param rest the query without the range
+     */
+    record SplitQuery(long from, long to, Query rest) {}
+
+    /**
+     * Split the top level query into the range on the field and everything
+     * else. Only conjunctions are split, both halves of anything else have to
+     * match.
+     *
+     * @return the split query or {@code null} if the query can't be split
+     */
+    @Nullable
+    static SplitQuery splitQuery(Query query, String field) {
+        List<Query> filters = new ArrayList<>();
+        List<Query> mustNots = new ArrayList<>();
+        long[] range = new long[] { Long.MIN_VALUE, Long.MAX_VALUE };
+        if (split(query, field, range, filters, mustNots) == false) {
+            return null;
+        }
+        if (range[0] == Long.MIN_VALUE && range[1] == Long.MAX_VALUE) {
+            // Nothing to split off, the doc counts depend on the whole query
+            return null;
+        }
+        if (range[0] > range[1]) {
+            // Nothing matches so there's nothing worth caching
+            return null;
+        }
+        if (mustNots.isEmpty()) {
+            if (filters.isEmpty()) {
+                return new SplitQuery(range[0], range[1], new MatchAllDocsQuery());
+            }
+            if (filters.size() == 1) {
+                return new SplitQuery(range[0], range[1], filters.get(0));
+            }
+        }
+        BooleanQuery.Builder rest = new BooleanQuery.Builder();
+        if (filters.isEmpty()) {
+            rest.add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER);
+        }
+        for (Query filter : filters) {
+            rest.add(filter, BooleanClause.Occur.FILTER);
+        }
+        for (Query mustNot : mustNots) {
+            rest.add(mustNot, BooleanClause.Occur.MUST_NOT);
+        }
+        return new SplitQuery(range[0], range[1], rest.build());
+    }
+
+    private static boolean split(Query query, String field, long[] range, List<Query> filters, List<Query> mustNots) {
+        if (query instanceof ConstantScoreQuery csq) {
+            return split(csq.getQuery(), field, range, filters, mustNots);
+        }
+        if (query instanceof BoostQuery bq) {
+            return split(bq.getQuery(), field, range, filters, mustNots);
+        }
+        if (query instanceof DateRangeIncludingNowQuery now) {
+            return split(now.getQuery(), field, range, filters, mustNots);
+        }
+        if (query instanceof MatchAllDocsQuery) {
+            return true;
+        }
+        if (query instanceof BooleanQuery bq) {
+            if (bq.getMinimumNumberShouldMatch() > 0) {
+                return false;
+            }
+            for (BooleanClause clause : bq.clauses()) {
+                switch (clause.getOccur()) {
+                    case MUST, FILTER -> {
+                        if (split(clause.getQuery(), field, range, filters, mustNots) == false) {
+                            return false;
+                        }
+                    }
+                    case MUST_NOT -> mustNots.add(clause.getQuery());
+                    case SHOULD -> {
+                        // Should clauses either match on their own or only change scores, both are too much to untangle
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        PointRangeQuery pointRange = pointRange(query, field);
+        if (pointRange != null) {
+            range[0] = Math.max(range[0], LongPoint.decodeDimension(pointRange.getLowerPoint(), 0));
+            range[1] = Math.min(range[1], LongPoint.decodeDimension(pointRange.getUpperPoint(), 0));
+            return true;
+        }
+        filters.add(query);
+        return true;
+    }
+
+    @Nullable
+    private static PointRangeQuery pointRange(Query query, String field) {
+        if (query instanceof IndexOrDocValuesQuery iodvq) {
+            query = iodvq.getIndexQuery();
+        }
+        if (query instanceof PointRangeQuery prq
+            && prq.getField().equals(field)
+            && prq.getNumDims() == 1
+            && prq.getBytesPerDim() == Long.BYTES) {
+            return prq;
+        }
+        return null;
+    }
+
+    record Key(IndexReader.CacheKey reader, String field, Rounding rounding, Query restQuery) implements ReaderKeyedCache.Key {
+        @Override
+        public long ramBytesUsed() {
+            long queryBytes = restQuery instanceof Accountable a ? a.ramBytesUsed() : RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED;
+            long fieldBytes = RamUsageEstimator.sizeOf(field);
+            return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 4L * RamUsageEstimator.NUM_BYTES_OBJECT_REF + fieldBytes + queryBytes;
+        }
+    }
+
+    /**
+     * Doc counts per rounded key.
+     */
+    record BucketCounts(long[] keys, long[] counts) implements Accountable {
+        static final BucketCounts EMPTY = new BucketCounts(new long[0], new long[0]);
+
+        @Override
+        public long ramBytesUsed() {
+            return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.sizeOf(keys) + RamUsageEstimator.sizeOf(counts);
+        }
+    }
+}
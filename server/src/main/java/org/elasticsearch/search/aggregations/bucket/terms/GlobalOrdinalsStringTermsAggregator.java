@@ -9,8 +9,13 @@
 package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.PriorityQueue;
@@ -31,6 +36,8 @@ import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.InternalOrder;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.bucket.DeferringBucketCollector;
+import org.elasticsearch.search.aggregations.bucket.QueryReplayingDeferringCollector;
 import org.elasticsearch.search.aggregations.bucket.terms.SignificanceLookup.BackgroundFrequencyForBytes;
 import org.elasticsearch.search.aggregations.bucket.terms.heuristic.SignificanceHeuristic;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
@@ -61,6 +68,8 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
     protected final CollectionStrategy collectionStrategy;
     protected int segmentsWithSingleValuedOrds = 0;
     protected int segmentsWithMultiValuedOrds = 0;
+    private final boolean mayReplayQueryForDeferred;
+    private QueryReplayingDeferringCollector queryReplayingCollector;
 
     public interface GlobalOrdLookupFunction {
         BytesRef apply(long ord) throws IOException;
@@ -90,6 +99,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         this.valueCount = values.getValueCount();
         this.lookupGlobalOrd = values::lookupOrd;
         this.acceptedGlobalOrdinals = acceptedOrds;
+        this.mayReplayQueryForDeferred = parent == null && context.enableReplayQueryForDeferred();
         if (remapGlobalOrds) {
             this.collectionStrategy = new RemapGlobalOrds(cardinality);
         } else {
@@ -177,6 +187,90 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         });
     }
 
+    /**
+     * A top level {@code terms} aggregation collects every doc that matches
+     * the query and the buckets of a doc only depend on its global ordinals.
+     * So rather than recording all of the collected docs it can run the query
+     * again once it has pruned its buckets, and only collect the deferred
+     * sub-aggregations for docs with a global ordinal of a selected bucket.
+     * That only holds if the request collects every doc matching the query,
+     * so not with {@code min_score}, {@code terminate_after} or a timeout.
+     */
+    @Override
+    protected DeferringBucketCollector buildDeferringCollector() throws IOException {
+        if (mayReplayQueryForDeferred
+            // maxDoc is a cheap upper bound of the matches, only count them if it is over the threshold
+            && TermsAggregatorFactory.replayQueryForDeferred(searcher().getIndexReader().maxDoc(), valueCount)
+            && TermsAggregatorFactory.replayQueryForDeferred(estimateMatchingDocs(), valueCount)) {
+            queryReplayingCollector = new QueryReplayingDeferringCollector(
+                topLevelQuery(),
+                searcher(),
+                false,
+                this::replayLeafCollector,
+                bigArrays()
+            );
+            return queryReplayingCollector;
+        }
+        return super.buildDeferringCollector();
+    }
+
+    /**
+     * Estimate the number of docs matching the query without running it.
+     * Segments where the query can count its matches in constant time use
+     * that count, the others use the cost of iterating the matches which is
+     * usually an upper bound of them.
+     */
+    private long estimateMatchingDocs() throws IOException {
+        IndexSearcher searcher = searcher();
+        Weight weight = searcher.createWeight(searcher.rewrite(topLevelQuery()), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        long docs = 0;
+        for (LeafReaderContext ctx : searcher.getIndexReader().leaves()) {
+            int count = weight.count(ctx);
+            if (count >= 0) {
+                docs += count;
+                continue;
+            }
+            ScorerSupplier scorerSupplier = weight.scorerSupplier(ctx);
+            if (scorerSupplier != null) {
+                docs += Math.min(scorerSupplier.cost(), ctx.reader().maxDoc());
+            }
+        }
+        return docs;
+    }
+
+    private LeafBucketCollector replayLeafCollector(
+        AggregationExecutionContext aggCtx,
+        LongHash selectedBuckets,
+        LeafBucketCollector deferred
+    ) throws IOException {
+        SortedSetDocValues globalOrds = valuesSource.globalOrdinalsValues(aggCtx.getLeafReaderContext());
+        if (globalOrds.getValueCount() == 0) {
+            return null;
+        }
+        return new LeafBucketCollectorBase(deferred, globalOrds) {
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                assert owningBucketOrd == 0;
+                if (false == globalOrds.advanceExact(doc)) {
+                    return;
+                }
+                for (long globalOrd = globalOrds.nextOrd(); globalOrd != NO_MORE_ORDS; globalOrd = globalOrds.nextOrd()) {
+                    if (false == acceptedGlobalOrdinals.test(globalOrd)) {
+                        continue;
+                    }
+                    long bucketOrd = collectionStrategy.globalOrdToBucketOrd(0, globalOrd);
+                    if (bucketOrd < 0) {
+                        continue;
+                    }
+                    long rebasedBucketOrd = selectedBuckets.find(bucketOrd);
+                    if (rebasedBucketOrd != -1) {
+                        deferred.collect(doc, rebasedBucketOrd);
+                    }
+                }
+            }
+        };
+    }
+
     @Override
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         return resultStrategy.buildAggregations(owningBucketOrds);
@@ -241,7 +335,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
 
     @Override
     protected void doClose() {
-        Releasables.close(resultStrategy, collectionStrategy);
+        Releasables.close(resultStrategy, collectionStrategy, queryReplayingCollector);
     }
 
     /**
@@ -360,7 +454,8 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
 
         @Override
         protected void doClose() {
-            Releasables.close(resultStrategy, segmentDocCounts, collectionStrategy);
+            super.doClose();
+            Releasables.close(segmentDocCounts);
         }
 
         private void mapSegmentCountsToGlobalCounts(LongUnaryOperator mapping) throws IOException {
@@ -12,10 +12,14 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AggregationExecutionContext;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -30,6 +34,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.terms.SignificanceLookup.BackgroundFrequencyForBytes;
 import org.elasticsearch.search.aggregations.bucket.terms.heuristic.SignificanceHeuristic;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.AggregationSpillSpace;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 
@@ -50,8 +55,12 @@ import static org.elasticsearch.search.aggregations.InternalOrder.isKeyOrder;
 public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
     private final CollectorSource collectorSource;
     private final ResultStrategy<?, ?> resultStrategy;
-    private final BytesKeyedBucketOrds bucketOrds;
+    private BytesKeyedBucketOrds bucketOrds;
     private final IncludeExclude.StringFilter includeExclude;
+    private final AggregationSpillSpace spillSpace;
+    private int spillThreshold;
+    private TermCountsSpill spill;
+    private boolean spillSpaceExhausted;
 
     public MapStringTermsAggregator(
         String name,
@@ -73,6 +82,25 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
         this.resultStrategy = resultStrategy.apply(this); // ResultStrategy needs a reference to the Aggregator to do its job.
         this.includeExclude = includeExclude;
         bucketOrds = BytesKeyedBucketOrds.build(context.bigArrays(), cardinality);
+        /*
+         * Only top level terms aggregations without sub-aggregations can
+         * spill: the doc counts are all they collect per bucket so they can
+         * be summed up per term when reading back the spilled buckets, and
+         * the zero doc count buckets of min_doc_count 0 need the in memory
+         * hash.
+         */
+        if (context.termsSpillThreshold() > 0
+            && context.aggregationSpillSpace() != null
+            && subAggregators.length == 0
+            && cardinality.map(estimate -> estimate < 2)
+            && this.resultStrategy instanceof StandardTermsResults
+            && bucketCountThresholds.getMinDocCount() > 0) {
+            spillThreshold = context.termsSpillThreshold();
+            spillSpace = context.aggregationSpillSpace();
+        } else {
+            spillThreshold = -1;
+            spillSpace = null;
+        }
         // set last because if there is an error during construction the collector gets release outside the constructor.
         this.collectorSource = collectorSource;
     }
@@ -100,17 +128,105 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
                         collectExistingBucket(s, doc, bucketOrdinal);
                     } else {
                         collectBucket(s, doc, bucketOrdinal);
+                        if (spillThreshold > 0 && bucketOrdinal + 1 >= spillThreshold) {
+                            spillBuckets();
+                        }
                     }
                 }
             )
         );
     }
 
+    /**
+     * Move the buckets collected in memory to the spill and start over with
+     * an empty hash. If the spill space of the node is exhausted before
+     * anything was spilled the buckets stay in memory, but once buckets were
+     * spilled the remaining ones can't be merged with them in memory so the
+     * request is rejected.
+     */
+    private void spillBuckets() throws IOException {
+        BytesKeyedBucketOrds.BucketOrdsEnum ordsEnum = bucketOrds.ordsEnum(0);
+        BytesRef term = new BytesRef();
+        long termBytes = 0;
+        while (ordsEnum.next()) {
+            ordsEnum.readValue(term);
+            termBytes += term.length;
+        }
+        if (spill == null) {
+            spill = new TermCountsSpill(spillSpace);
+        }
+        if (spill.tryReserve(bucketOrds.size(), termBytes) == false) {
+            if (spill.spills() == 0) {
+                spillSpaceExhausted = true;
+                spillThreshold = -1;
+                spill.close();
+                spill = null;
+                return;
+            }
+            throw new ElasticsearchStatusException(
+                "the aggregation spill space of the node is exhausted with [{}] of [{}] in use, retry later or increase [{}]",
+                RestStatus.TOO_MANY_REQUESTS,
+                ByteSizeValue.ofBytes(spillSpace.usedBytes()),
+                ByteSizeValue.ofBytes(spillSpace.maxBytes()),
+                AggregationSpillSpace.MAX_SIZE_SETTING.getKey()
+            );
+        }
+        ordsEnum = bucketOrds.ordsEnum(0);
+        while (ordsEnum.next()) {
+            ordsEnum.readValue(term);
+            spill.add(term, bucketDocCount(ordsEnum.ord()));
+        }
+        spill.onSpilled();
+        bucketOrds.close();
+        bucketOrds = null; // so we don't close it again if building the new one fails
+        bucketOrds = BytesKeyedBucketOrds.build(bigArrays(), CardinalityUpperBound.ONE);
+        rewriteBuckets(1, ord -> -1);
+    }
+
     @Override
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        if (spill != null) {
+            assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0;
+            return new InternalAggregation[] { buildFromSpill((StandardTermsResults) resultStrategy) };
+        }
         return resultStrategy.buildAggregations(owningBucketOrds);
     }
 
+    /**
+     * Build the result from the spilled buckets, reading them back in key
+     * order with the doc counts of each term summed up over all spills.
+     */
+    private StringTerms buildFromSpill(StandardTermsResults results) throws IOException {
+        if (bucketOrds.size() > 0) {
+            spillBuckets();
+        }
+        int size = (int) Math.min(spill.spilledTerms(), bucketCountThresholds.getShardSize());
+        PriorityQueue<StringTerms.Bucket> ordered = results.buildPriorityQueue(size);
+        long[] otherDocCount = new long[1];
+        addRequestCircuitBreakerBytes(TermCountsSpill.SORT_BUFFER_BYTES);
+        try {
+            spill.forEachTerm((term, docCount) -> {
+                otherDocCount[0] += docCount;
+                if (docCount < bucketCountThresholds.getShardMinDocCount()) {
+                    return;
+                }
+                ordered.insertWithOverflow(
+                    new StringTerms.Bucket(BytesRef.deepCopyOf(term), docCount, null, showTermDocCountError, 0, format)
+                );
+            });
+        } finally {
+            addRequestCircuitBreakerBytes(-TermCountsSpill.SORT_BUFFER_BYTES);
+        }
+        StringTerms.Bucket[][] topBucketsPerOrd = results.buildTopBucketsPerOrd(1);
+        topBucketsPerOrd[0] = results.buildBuckets(ordered.size());
+        for (int i = ordered.size() - 1; i >= 0; --i) {
+            topBucketsPerOrd[0][i] = ordered.pop();
+            otherDocCount[0] -= topBucketsPerOrd[0][i].getDocCount();
+        }
+        results.buildSubAggs(topBucketsPerOrd);
+        return results.buildResult(0, otherDocCount[0], topBucketsPerOrd[0]);
+    }
+
     @Override
     public InternalAggregation buildEmptyAggregation() {
         return resultStrategy.buildEmptyResult();
@@ -120,6 +236,13 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
     public void collectDebugInfo(BiConsumer<String, Object> add) {
         super.collectDebugInfo(add);
         add.accept("total_buckets", bucketOrds.size());
+        if (spill != null) {
+            add.accept("spills", spill.spills());
+            add.accept("spilled_buckets", spill.spilledTerms());
+        }
+        if (spillSpaceExhausted) {
+            add.accept("spill_space_exhausted", true);
+        }
         add.accept("collection_strategy", collectorSource.describe());
         collectorSource.collectDebugInfo(add);
         add.accept("result_strategy", resultStrategy.describe());
@@ -127,7 +250,7 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
 
     @Override
     public void doClose() {
-        Releasables.close(collectorSource, resultStrategy, bucketOrds);
+        Releasables.close(collectorSource, resultStrategy, bucketOrds, () -> IOUtils.closeWhileHandlingException(spill));
     }
 
     /**
@@ -0,0 +1,185 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Approximates the counts of the most frequent terms in bounded memory using the Space-Saving algorithm described in "Efficient
+ * Computation of Frequent and Top-k Elements in Data Streams" (Metwally, Agrawal and El Abbadi, ICDT 2005). The sketch holds at most
+ * {@code maxCounters} counters. Once all counters are in use, a term without a counter takes over the counter with the smallest count
+ * and inherits that count as its error. So the count of a term overestimates its actual count by at most its error, and a term without a
+ * counter was seen at most {@link #minCount()} times.
+ * <p>
+ * Sketches of several shards merge by adding up the counts and errors of the same term, which is what the reduction of
+ * {@link InternalTerms} does with the doc counts and doc count errors of the buckets.
+ */
+final class SpaceSavingSketch {
+
+    /**
+     * Estimated size of a counter, its term and its entries in the map and the heap, without the bytes of the term.
+     */
+    static final long COUNTER_BYTES = RamUsageEstimator.shallowSizeOfInstance(Counter.class)
+        + RamUsageEstimator.shallowSizeOfInstance(BytesRefBuilder.class)
+        + RamUsageEstimator.shallowSizeOfInstance(BytesRef.class)
+        + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 5 * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    static final class Counter {
+        private final BytesRefBuilder term = new BytesRefBuilder();
+        private long count;
+        private long error;
+        private int heapIndex;
+
+        BytesRef term() {
+            return term.get();
+        }
+
+        long count() {
+            return count;
+        }
+
+        long error() {
+            return error;
+        }
+    }
+
+    private final int maxCounters;
+    private final LongConsumer addCircuitBreakerBytes;
+    private final Map<BytesRef, Counter> counters = new HashMap<>();
+    /**
+     * Min-heap of the counters by count.
+     */
+    private Counter[] heap;
+    private long evictions;
+
+    /**
+     * @param maxCounters            the maximum number of terms to count
+     * @param addCircuitBreakerBytes called with the number of bytes allocated for new counters and terms
+     */
+    SpaceSavingSketch(int maxCounters, LongConsumer addCircuitBreakerBytes) {
+        if (maxCounters <= 0) {
+            throw new IllegalArgumentException("[maxCounters] must be greater than 0 but was [" + maxCounters + "]");
+        }
+        this.maxCounters = maxCounters;
+        this.addCircuitBreakerBytes = addCircuitBreakerBytes;
+        this.heap = new Counter[Math.min(16, maxCounters)];
+    }
+
+    /**
+     * Count one occurrence of a term.
+     */
+    void add(BytesRef term) {
+        Counter counter = counters.get(term);
+        if (counter == null) {
+            final int size = counters.size();
+            if (size < maxCounters) {
+                addCircuitBreakerBytes.accept(COUNTER_BYTES + term.length);
+                counter = new Counter();
+                counter.term.copyBytes(term);
+                counter.heapIndex = size;
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap, Math.min(maxCounters, size << 1));
+                }
+                heap[size] = counter;
+                counters.put(counter.term.get(), counter);
+                siftUp(size);
+            } else {
+                // take over the counter with the smallest count
+                counter = heap[0];
+                counters.remove(counter.term.get());
+                final int oldCapacity = counter.term.bytes().length;
+                counter.term.copyBytes(term);
+                if (counter.term.bytes().length > oldCapacity) {
+                    addCircuitBreakerBytes.accept(counter.term.bytes().length - oldCapacity);
+                }
+                counter.error = counter.count;
+                counters.put(counter.term.get(), counter);
+                evictions++;
+            }
+        }
+        counter.count++;
+        siftDown(counter.heapIndex);
+    }
+
+    /**
+     * The number of terms that currently have a counter.
+     */
+    int size() {
+        return counters.size();
+    }
+
+    /**
+     * The number of times a term took over the counter of another term.
+     */
+    long evictions() {
+        return evictions;
+    }
+
+    /**
+     * An upper bound of the count of the terms without a counter, {@code 0} if no term ever lost its counter.
+     */
+    long minCount() {
+        return evictions == 0 ? 0 : heap[0].count;
+    }
+
+    /**
+     * The counters sorted by decreasing count, ties broken by term.
+     */
+    Counter[] sortedCounters() {
+        final Counter[] sorted = Arrays.copyOf(heap, counters.size());
+        Arrays.sort(sorted, Comparator.comparingLong(Counter::count).reversed().thenComparing(Counter::term));
+        return sorted;
+    }
+
+    private void siftUp(int index) {
+        final Counter counter = heap[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            move(heap[parent], index);
+            index = parent;
+        }
+        move(counter, index);
+    }
+
+    private void siftDown(int index) {
+        final Counter counter = heap[index];
+        final int size = counters.size();
+        while (true) {
+            int child = (index << 1) + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            move(heap[child], index);
+            index = child;
+        }
+        move(counter, index);
+    }
+
+    private void move(Counter counter, int index) {
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregationExecutionContext;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalOrder;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@code terms} aggregation that approximates the top terms by doc count in bounded memory using a {@link SpaceSavingSketch} instead
+ * of counting every distinct term. The doc count of each bucket is the lower bound of the count of its term and the doc count error of
+ * the bucket the difference to the upper bound, so the reduction of the shard results adds up both bounds.
+ */
+class SpaceSavingStringTermsAggregator extends AbstractStringTermsAggregator {
+
+    private final MapStringTermsAggregator.CollectorSource collectorSource;
+    private final IncludeExclude.StringFilter includeExclude;
+    private final SpaceSavingSketch sketch;
+    private long totalCount;
+
+    SpaceSavingStringTermsAggregator(
+        String name,
+        MapStringTermsAggregator.CollectorSource collectorSource,
+        BucketOrder order,
+        DocValueFormat format,
+        BucketCountThresholds bucketCountThresholds,
+        IncludeExclude.StringFilter includeExclude,
+        int maxCounters,
+        AggregationContext context,
+        Aggregator parent,
+        Map<String, Object> metadata
+    ) throws IOException {
+        super(
+            name,
+            AggregatorFactories.EMPTY,
+            context,
+            parent,
+            order,
+            format,
+            bucketCountThresholds,
+            SubAggCollectionMode.DEPTH_FIRST,
+            true,
+            metadata
+        );
+        assert InternalOrder.isCountDesc(order);
+        this.collectorSource = collectorSource;
+        this.includeExclude = includeExclude;
+        // always count at least as many terms as the shard returns
+        this.sketch = new SpaceSavingSketch(Math.max(maxCounters, bucketCountThresholds.getShardSize()), this::addRequestCircuitBreakerBytes);
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return collectorSource.needsScores() ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(AggregationExecutionContext aggCtx, LeafBucketCollector sub) throws IOException {
+        return collectorSource.getLeafCollector(
+            includeExclude,
+            aggCtx.getLeafReaderContext(),
+            sub,
+            this::addRequestCircuitBreakerBytes,
+            (s, doc, owningBucketOrd, bytes) -> {
+                assert owningBucketOrd == 0;
+                sketch.add(bytes);
+                totalCount++;
+            }
+        );
+    }
+
+    @Override
+    public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0;
+        final SpaceSavingSketch.Counter[] counters = sketch.sortedCounters();
+        final int shardSize = bucketCountThresholds.getShardSize();
+        final List<StringTerms.Bucket> buckets = new ArrayList<>(Math.min(shardSize, counters.length));
+        long otherDocCount = totalCount;
+        long minReturnedCount = Long.MAX_VALUE;
+        for (SpaceSavingSketch.Counter counter : counters) {
+            if (buckets.size() == shardSize) {
+                break;
+            }
+            if (counter.count() < bucketCountThresholds.getShardMinDocCount()) {
+                // counters are sorted by count so all following counters are below the threshold too
+                break;
+            }
+            // report the guaranteed count and the possible overestimation as the error
+            final long docCount = counter.count() - counter.error();
+            buckets.add(
+                new StringTerms.Bucket(
+                    BytesRef.deepCopyOf(counter.term()),
+                    docCount,
+                    InternalAggregations.EMPTY,
+                    true,
+                    counter.error(),
+                    format
+                )
+            );
+            otherDocCount -= docCount;
+            minReturnedCount = Math.min(minReturnedCount, counter.count());
+        }
+        /*
+         * A term that isn't returned either has a counter with a count that is at most the count of the last returned term or it has no
+         * counter and was seen at most as many times as the smallest counter.
+         */
+        final long docCountError;
+        if (buckets.isEmpty()) {
+            docCountError = sketch.minCount();
+        } else if (buckets.size() < counters.length || sketch.evictions() > 0) {
+            docCountError = minReturnedCount;
+        } else {
+            docCountError = 0;
+        }
+        buckets.sort(InternalOrder.key(true).comparator());
+        return new InternalAggregation[] {
+            new StringTerms(
+                name,
+                InternalOrder.key(true),
+                order,
+                bucketCountThresholds.getRequiredSize(),
+                bucketCountThresholds.getMinDocCount(),
+                metadata(),
+                format,
+                bucketCountThresholds.getShardSize(),
+                true,
+                otherDocCount,
+                buckets,
+                docCountError
+            ) };
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return buildEmptyTermsAggregation();
+    }
+
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        super.collectDebugInfo(add);
+        add.accept("total_buckets", sketch.size());
+        add.accept("evicted_buckets", sketch.evictions());
+        add.accept("collection_strategy", collectorSource.describe());
+        add.accept("result_strategy", "space_saving");
+    }
+
+    @Override
+    protected void doClose() {
+        collectorSource.close();
+    }
+}
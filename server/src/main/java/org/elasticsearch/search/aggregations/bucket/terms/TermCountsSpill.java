@@ -0,0 +1,276 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.OfflineSorter;
+import org.elasticsearch.common.util.ByteUtils;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.search.aggregations.support.AggregationSpillSpace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Temporary files holding the doc counts of terms that a terms aggregation moved out of memory. Terms may be added several times, with
+ * the doc counts collected between two spills, and are read back sorted by term with the doc counts of each term summed up. The disk
+ * space of the files is reserved from the node's {@link AggregationSpillSpace} before terms are added.
+ */
+final class TermCountsSpill implements Closeable {
+
+    /**
+     * The memory used to sort the spilled terms.
+     */
+    static final long SORT_BUFFER_BYTES = 16L * 1024 * 1024;
+
+    private static final String TEMP_FILE_PREFIX = "terms_agg_spill";
+
+    /**
+     * Sorting may write the spilled records twice more, once to sorted partitions and once when merging them.
+     */
+    private static final int SORT_SPACE_FACTOR = 3;
+
+    /**
+     * Records are prefixed by their length as an int rather than the short that {@link OfflineSorter} uses by default, which would
+     * limit terms to a little less than 32kB.
+     */
+    private static final int LENGTH_PREFIX_BYTES = Integer.BYTES;
+
+    /**
+     * Compares records by their term, ignoring the doc count in their last eight bytes.
+     */
+    private static final Comparator<BytesRef> TERM_COMPARATOR = (a, b) -> Arrays.compareUnsigned(
+        a.bytes,
+        a.offset,
+        a.offset + a.length - Long.BYTES,
+        b.bytes,
+        b.offset,
+        b.offset + b.length - Long.BYTES
+    );
+
+    @FunctionalInterface
+    interface TermConsumer {
+        void accept(BytesRef term, long docCount) throws IOException;
+    }
+
+    private final AggregationSpillSpace space;
+    private final Directory directory;
+    private final BytesRefBuilder record = new BytesRefBuilder();
+    private IndexOutput output;
+    private RecordWriter writer;
+    private long spilledTerms;
+    private int spills;
+    private long reservedBytes;
+
+    TermCountsSpill(AggregationSpillSpace space) throws IOException {
+        this.space = space;
+        this.directory = FSDirectory.open(space.path());
+    }
+
+    /**
+     * Reserve the disk space to add and then sort terms.
+     *
+     * @param terms the number of terms about to be added
+     * @param termBytes the length of these terms all together
+     * @return {@code false} if the node's spill space is exhausted
+     */
+    boolean tryReserve(long terms, long termBytes) {
+        // each record is the term and its doc count, prefixed by their length
+        final long bytes = SORT_SPACE_FACTOR * (termBytes + terms * (LENGTH_PREFIX_BYTES + Long.BYTES));
+        if (space.tryReserve(bytes) == false) {
+            return false;
+        }
+        reservedBytes += bytes;
+        return true;
+    }
+
+    /**
+     * Add a term and the doc count collected for it since the previous spill. Its space must have been reserved with
+     * {@link #tryReserve} first.
+     */
+    void add(BytesRef term, long docCount) throws IOException {
+        if (writer == null) {
+            output = directory.createTempOutput(TEMP_FILE_PREFIX, "unsorted", IOContext.DEFAULT);
+            writer = new RecordWriter(output);
+        }
+        record.clear();
+        record.append(term);
+        record.grow(term.length + Long.BYTES);
+        ByteUtils.writeLongBE(docCount, record.bytes(), term.length);
+        record.setLength(term.length + Long.BYTES);
+        writer.write(record.get());
+        spilledTerms++;
+    }
+
+    /**
+     * Mark the end of a spill, i.e. all terms collected in memory so far were added.
+     */
+    void onSpilled() {
+        spills++;
+    }
+
+    /**
+     * The number of terms added so far, counting the terms added by several spills once per spill.
+     */
+    long spilledTerms() {
+        return spilledTerms;
+    }
+
+    /**
+     * The number of times terms were spilled.
+     */
+    int spills() {
+        return spills;
+    }
+
+    /**
+     * Sort the spilled terms and call the consumer once per distinct term in increasing order with the sum of its doc counts. Terms
+     * cannot be added anymore after this is called.
+     */
+    void forEachTerm(TermConsumer consumer) throws IOException {
+        if (writer == null) {
+            return;
+        }
+        CodecUtil.writeFooter(output);
+        writer.close();
+        writer = null;
+        final String unsorted = output.getName();
+        String sorted = null;
+        try {
+            final OfflineSorter sorter = new OfflineSorter(
+                directory,
+                TEMP_FILE_PREFIX,
+                TERM_COMPARATOR,
+                OfflineSorter.BufferSize.megabytes(SORT_BUFFER_BYTES / 1024 / 1024),
+                OfflineSorter.MAX_TEMPFILES,
+                -1,
+                null,
+                0
+            ) {
+                @Override
+                protected ByteSequencesWriter getWriter(IndexOutput out, long itemCount) {
+                    return new RecordWriter(out);
+                }
+
+                @Override
+                protected ByteSequencesReader getReader(ChecksumIndexInput in, String name) throws IOException {
+                    return new RecordReader(in, name);
+                }
+            };
+            sorted = sorter.sort(unsorted);
+            deleteIgnoringExceptions(unsorted);
+            try (
+                OfflineSorter.ByteSequencesReader reader = new RecordReader(
+                    directory.openChecksumInput(sorted, IOContext.READONCE),
+                    sorted
+                )
+            ) {
+                final BytesRefBuilder current = new BytesRefBuilder();
+                final BytesRef term = new BytesRef();
+                boolean hasCurrent = false;
+                long docCount = 0;
+                BytesRef next;
+                while ((next = reader.next()) != null) {
+                    term.bytes = next.bytes;
+                    term.offset = next.offset;
+                    term.length = next.length - Long.BYTES;
+                    final long count = ByteUtils.readLongBE(next.bytes, next.offset + term.length);
+                    if (hasCurrent && current.get().bytesEquals(term)) {
+                        docCount += count;
+                    } else {
+                        if (hasCurrent) {
+                            consumer.accept(current.get(), docCount);
+                        }
+                        current.copyBytes(term);
+                        docCount = count;
+                        hasCurrent = true;
+                    }
+                }
+                if (hasCurrent) {
+                    consumer.accept(current.get(), docCount);
+                }
+            }
+        } finally {
+            deleteIgnoringExceptions(unsorted);
+            if (sorted != null) {
+                deleteIgnoringExceptions(sorted);
+            }
+        }
+    }
+
+    private void deleteIgnoringExceptions(String name) {
+        try {
+            directory.deleteFile(name);
+        } catch (IOException e) {
+            // the file was already deleted or will be cleaned up with the node's spill directory when it restarts
+        }
+    }
+
+    /**
+     * Writes records prefixed by their length as an int.
+     */
+    private static final class RecordWriter extends OfflineSorter.ByteSequencesWriter {
+        RecordWriter(IndexOutput out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            out.writeInt(len);
+            out.writeBytes(bytes, off, len);
+        }
+    }
+
+    /**
+     * Reads the records written by {@link RecordWriter}.
+     */
+    private static final class RecordReader extends OfflineSorter.ByteSequencesReader {
+        private final BytesRefBuilder record = new BytesRefBuilder();
+
+        RecordReader(ChecksumIndexInput in, String name) {
+            super(in, name);
+        }
+
+        @Override
+        public BytesRef next() throws IOException {
+            if (in.getFilePointer() >= end) {
+                return null;
+            }
+            final int length = in.readInt();
+            record.grow(length);
+            record.setLength(length);
+            in.readBytes(record.bytes(), 0, length);
+            return record.get();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writer != null) {
+                IOUtils.closeWhileHandlingException(writer);
+                writer = null;
+                deleteIgnoringExceptions(output.getName());
+            }
+        } finally {
+            space.release(reservedBytes);
+            reservedBytes = 0;
+            directory.close();
+        }
+    }
+}
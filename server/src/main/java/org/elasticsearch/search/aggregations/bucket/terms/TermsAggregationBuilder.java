@@ -56,6 +56,7 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
     );
     public static final ParseField SHOW_TERM_DOC_COUNT_ERROR = new ParseField("show_term_doc_count_error");
     public static final ParseField ORDER_FIELD = new ParseField("order");
+    public static final ParseField APPROXIMATE_COUNTERS_FIELD_NAME = new ParseField("approximate_counters");
 
     public static final ObjectParser<TermsAggregationBuilder, String> PARSER = ObjectParser.fromBuilder(NAME, TermsAggregationBuilder::new);
     static {
@@ -73,6 +74,8 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
 
         PARSER.declareString(TermsAggregationBuilder::executionHint, EXECUTION_HINT_FIELD_NAME);
 
+        PARSER.declareInt(TermsAggregationBuilder::approximateCounters, APPROXIMATE_COUNTERS_FIELD_NAME);
+
         PARSER.declareField(
             TermsAggregationBuilder::collectMode,
             (p, c) -> SubAggCollectionMode.parse(p.text(), LoggingDeprecationHandler.INSTANCE),
@@ -113,6 +116,7 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
         DEFAULT_BUCKET_COUNT_THRESHOLDS
     );
     private boolean showTermDocCountError = false;
+    private int approximateCounters = 0;
 
     public TermsAggregationBuilder(String name) {
         super(name);
@@ -130,6 +134,7 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
         this.collectMode = clone.collectMode;
         this.bucketCountThresholds = new BucketCountThresholds(clone.bucketCountThresholds);
         this.showTermDocCountError = clone.showTermDocCountError;
+        this.approximateCounters = clone.approximateCounters;
     }
 
     @Override
@@ -158,6 +163,9 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
         includeExclude = in.readOptionalWriteable(IncludeExclude::new);
         order = InternalOrder.Streams.readOrder(in);
         showTermDocCountError = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            approximateCounters = in.readVInt();
+        }
     }
 
     @Override
@@ -173,6 +181,9 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
         out.writeOptionalWriteable(includeExclude);
         order.writeTo(out);
         out.writeBoolean(showTermDocCountError);
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeVInt(approximateCounters);
+        }
     }
 
     /**
@@ -354,6 +365,29 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
         return this;
     }
 
+    /**
+     * Expert: approximate the top terms by counting at most this many terms
+     * per shard instead of counting every distinct term. {@code 0}, the
+     * default, counts every term exactly.
+     */
+    public TermsAggregationBuilder approximateCounters(int approximateCounters) {
+        if (approximateCounters < 0) {
+            throw new IllegalArgumentException(
+                "[approximateCounters] must be greater than or equal to 0. Found [" + approximateCounters + "] in [" + name + "]"
+            );
+        }
+        this.approximateCounters = approximateCounters;
+        return this;
+    }
+
+    /**
+     * Expert: the maximum number of terms counted per shard if the top terms
+     * are approximated, {@code 0} if they are counted exactly.
+     */
+    public int approximateCounters() {
+        return approximateCounters;
+    }
+
     @Override
     public BucketCardinality bucketCardinality() {
         return BucketCardinality.MANY;
@@ -376,6 +410,7 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
             collectMode,
             bucketCountThresholds,
             showTermDocCountError,
+            approximateCounters,
             context,
             parent,
             subFactoriesBuilder,
@@ -399,6 +434,9 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
         if (includeExclude != null) {
             includeExclude.toXContent(builder, params);
         }
+        if (approximateCounters > 0) {
+            builder.field(APPROXIMATE_COUNTERS_FIELD_NAME.getPreferredName(), approximateCounters);
+        }
         return builder;
     }
 
@@ -411,7 +449,8 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
             executionHint,
             includeExclude,
             order,
-            showTermDocCountError
+            showTermDocCountError,
+            approximateCounters
         );
     }
 
@@ -426,7 +465,8 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
             && Objects.equals(executionHint, other.executionHint)
             && Objects.equals(includeExclude, other.includeExclude)
             && Objects.equals(order, other.order)
-            && Objects.equals(showTermDocCountError, other.showTermDocCountError);
+            && Objects.equals(showTermDocCountError, other.showTermDocCountError)
+            && approximateCounters == other.approximateCounters;
     }
 
     @Override
@@ -14,6 +14,7 @@ import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.DocValueFormat;
@@ -47,7 +48,7 @@ import java.util.function.Function;
 import java.util.function.LongPredicate;
 
 public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
-    static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS;
+    static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS, REPLAY_QUERY_FOR_DEFERRED;
 
     private static final Logger logger = LogManager.getLogger(TermsAggregatorFactory.class);
 
@@ -83,6 +84,34 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
      */
     static final long MAX_ORDS_TO_TRY_FILTERS = 1000;
 
+    /**
+     * The estimated memory above which a top level {@code terms} aggregation
+     * runs the query again to collect its deferred sub-aggregations rather
+     * than recording every doc and bucket it collects. Recording takes about
+     * a byte for the doc delta plus enough bits for the bucket ordinal per
+     * collected doc, so this is crossed at around ten million docs with a few
+     * thousand distinct terms. Running the query again costs a second pass
+     * over the matching docs which is usually cheaper than holding that much
+     * memory for the duration of the request.
+     */
+    static final long MAX_DEFERRED_RECORDING_BYTES = 32 * 1024 * 1024;
+
+    /**
+     * Should a top level {@code terms} aggregation on global ordinals collect
+     * its deferred sub-aggregations by running the query again?
+     *
+     * @param collectedDocs an upper bound of the docs the aggregation collects
+     * @param valueCount the number of global ordinals, an upper bound of the buckets
+     */
+    static boolean replayQueryForDeferred(long collectedDocs, long valueCount) {
+        // we use the static REPLAY_QUERY_FOR_DEFERRED to allow tests to force specific optimizations
+        if (REPLAY_QUERY_FOR_DEFERRED != null) {
+            return REPLAY_QUERY_FOR_DEFERRED.booleanValue();
+        }
+        long estimatedRecordingBytes = collectedDocs * (PackedInts.bitsRequired(Math.max(0, valueCount - 1)) + Byte.SIZE) / Byte.SIZE;
+        return estimatedRecordingBytes > MAX_DEFERRED_RECORDING_BYTES;
+    }
+
     /**
      * This supplier is used for all the field types that should be aggregated as bytes/strings,
      * including those that need global ordinals
@@ -222,6 +251,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
     private final SubAggCollectionMode collectMode;
     private final TermsAggregator.BucketCountThresholds bucketCountThresholds;
     private final boolean showTermDocCountError;
+    private final int approximateCounters;
 
     TermsAggregatorFactory(
         String name,
@@ -232,6 +262,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
         SubAggCollectionMode collectMode,
         TermsAggregator.BucketCountThresholds bucketCountThresholds,
         boolean showTermDocCountError,
+        int approximateCounters,
         AggregationContext context,
         AggregatorFactory parent,
         AggregatorFactories.Builder subFactoriesBuilder,
@@ -246,6 +277,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
         this.collectMode = collectMode;
         this.bucketCountThresholds = bucketCountThresholds;
         this.showTermDocCountError = showTermDocCountError;
+        this.approximateCounters = approximateCounters;
     }
 
     @Override
@@ -305,6 +337,10 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
         }
         bucketCountThresholds.ensureValidity();
 
+        if (approximateCounters > 0) {
+            return createApproximate(parent, cardinality, bucketCountThresholds, metadata);
+        }
+
         return aggregatorSupplier.build(
             name,
             factories,
@@ -322,6 +358,52 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
         );
     }
 
+    /**
+     * Build an aggregator that approximates the top terms in bounded memory.
+     * The approximation only holds for terms counted once per shard and
+     * ordered by descending doc count.
+     */
+    private Aggregator createApproximate(
+        Aggregator parent,
+        CardinalityUpperBound cardinality,
+        BucketCountThresholds bucketCountThresholds,
+        Map<String, Object> metadata
+    ) throws IOException {
+        if (config.getValuesSource() instanceof ValuesSource.Bytes == false) {
+            throw approximateNotSupported("is only supported on keyword and ip fields");
+        }
+        if (InternalOrder.isCountDesc(order) == false) {
+            throw approximateNotSupported("requires the buckets to be ordered by descending doc count");
+        }
+        if (factories.countAggregators() > 0) {
+            throw approximateNotSupported("does not support sub-aggregations");
+        }
+        if (cardinality.map(c -> c > 1)) {
+            throw approximateNotSupported("is not supported under a multi-bucket aggregation");
+        }
+        if (bucketCountThresholds.getMinDocCount() == 0) {
+            throw approximateNotSupported("requires [min_doc_count] to be greater than 0");
+        }
+        return new SpaceSavingStringTermsAggregator(
+            name,
+            new MapStringTermsAggregator.ValuesSourceCollectorSource(config),
+            order,
+            config.format(),
+            bucketCountThresholds,
+            includeExclude == null ? null : includeExclude.convertToStringFilter(config.format()),
+            approximateCounters,
+            context,
+            parent,
+            metadata
+        );
+    }
+
+    private IllegalArgumentException approximateNotSupported(String reason) {
+        return new IllegalArgumentException(
+            "[" + TermsAggregationBuilder.APPROXIMATE_COUNTERS_FIELD_NAME.getPreferredName() + "] of aggregation [" + name + "] " + reason
+        );
+    }
+
     /**
      * Pick a {@link SubAggCollectionMode} based on heuristics about what
      * we're collecting.
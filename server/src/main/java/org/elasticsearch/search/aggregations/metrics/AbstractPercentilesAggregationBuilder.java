@@ -30,7 +30,7 @@ import java.util.stream.Collectors;
 
 /**
  * This provides a base class for aggregations that are building percentiles or percentiles-like functionality (e.g. percentile ranks).
- * It provides a set of common fields/functionality for setting the available algorithms (TDigest and HDRHistogram),
+ * It provides a set of common fields/functionality for setting the available algorithms (TDigest, HDRHistogram and DDSketch),
  * as well as algorithm-specific settings via a {@link PercentilesConfig} object
  */
 public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPercentilesAggregationBuilder<T>> extends
@@ -65,6 +65,7 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
          *  - args[0]: values
          *  - args[1]: tdigest config options
          *  - args[2]: hdr config options
+         *  - args[3]: ddsketch config options
          *
          *  If `args` is null or empty, it means all were omitted.  This is usually an anti-pattern for
          *  ConstructingObjectParser, but we're allowing it because of the above-mentioned reasons
@@ -79,19 +80,23 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
 
             PercentilesConfig tDigestConfig = (PercentilesConfig) args[1];
             PercentilesConfig hdrConfig = (PercentilesConfig) args[2];
+            PercentilesConfig ddSketchConfig = (PercentilesConfig) args[3];
 
             @SuppressWarnings("unchecked")
             double[] values = args[0] != null ? ((List<Double>) args[0]).stream().mapToDouble(Double::doubleValue).toArray() : null;
             PercentilesConfig percentilesConfig;
 
-            if (tDigestConfig != null && hdrConfig != null) {
+            int declared = (tDigestConfig != null ? 1 : 0) + (hdrConfig != null ? 1 : 0) + (ddSketchConfig != null ? 1 : 0);
+            if (declared > 1) {
                 throw new IllegalArgumentException("Only one percentiles method should be declared.");
-            } else if (tDigestConfig == null && hdrConfig == null) {
+            } else if (declared == 0) {
                 percentilesConfig = defaultConfig.get();
             } else if (tDigestConfig != null) {
                 percentilesConfig = tDigestConfig;
-            } else {
+            } else if (hdrConfig != null) {
                 percentilesConfig = hdrConfig;
+            } else {
+                percentilesConfig = ddSketchConfig;
             }
 
             return ctor.apply(name, values, percentilesConfig);
@@ -110,6 +115,11 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
             PercentilesMethod.HDR_PARSER,
             PercentilesMethod.HDR.getParseField()
         );
+        parser.declareObject(
+            ConstructingObjectParser.optionalConstructorArg(),
+            PercentilesMethod.DDSKETCH_PARSER,
+            PercentilesMethod.DDSKETCH.getParseField()
+        );
 
         return parser;
     }
@@ -280,24 +290,24 @@ public abstract class AbstractPercentilesAggregationBuilder<T extends AbstractPe
             throw new IllegalArgumentException("[method] must not be null: [" + name + "]");
         }
         if (percentilesConfig == null) {
-            if (method.equals(PercentilesMethod.TDIGEST)) {
-                this.percentilesConfig = new PercentilesConfig.TDigest();
-            } else {
-                this.percentilesConfig = new PercentilesConfig.Hdr();
-            }
+            this.percentilesConfig = defaultConfig(method);
         } else if (percentilesConfig.getMethod().equals(method) == false) {
             // we already have an algo configured, but it's different from the requested method
             // reset to default for the requested method
-            if (method.equals(PercentilesMethod.TDIGEST)) {
-                this.percentilesConfig = new PercentilesConfig.TDigest();
-            } else {
-                this.percentilesConfig = new PercentilesConfig.Hdr();
-            }
+            this.percentilesConfig = defaultConfig(method);
         } // if method and config were same, this is a no-op so we don't overwrite settings
 
         return (T) this;
     }
 
+    private static PercentilesConfig defaultConfig(PercentilesMethod method) {
+        return switch (method) {
+            case TDIGEST -> new PercentilesConfig.TDigest();
+            case HDR -> new PercentilesConfig.Hdr();
+            case DDSKETCH -> new PercentilesConfig.DDSketch();
+        };
+    }
+
     /**
      * Deprecated: get method by inspecting the {@link PercentilesConfig} returned from
      * {@link PercentilesAggregationBuilder#percentilesConfig()} instead
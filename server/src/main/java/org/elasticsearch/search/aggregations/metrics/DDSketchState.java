@@ -0,0 +1,391 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A percentiles sketch with a relative error guarantee, described in "DDSketch: A Fast and Fully-Mergeable Quantile Sketch with
+ * Relative-Error Guarantees" (Masson, Rim and Lee, VLDB 2019). Values are counted in buckets whose bounds grow geometrically by
+ * {@code gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy)}, so the value the sketch returns for a percentile is within
+ * {@code relativeAccuracy} of the actual value at that percentile. Positive and negative values are counted in separate stores and
+ * values too close to zero to be indexed are counted as zeros.
+ * <p>
+ * Two sketches with the same relative accuracy merge exactly by adding up the counts of their buckets. Each store keeps at most
+ * {@link #MAX_BUCKETS} buckets and collapses its lowest buckets into one once it'd need more. With the default relative accuracy of
+ * {@code 0.01} that only happens if the values span more than seventeen orders of magnitude, and only costs accuracy for the values
+ * closest to zero. The serialized form is the relative accuracy, a few counters and one variable length count per bucket.
+ */
+public final class DDSketchState {
+    /**
+     * The maximum number of buckets of each store.
+     */
+    public static final int MAX_BUCKETS = 2048;
+    private static final int INITIAL_BUCKETS = 64;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final Store positive = new Store();
+    private final Store negative = new Store();
+    private long zeroCount;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public DDSketchState(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException(
+                "[relative_accuracy] must be greater than 0 and less than 1 but was [" + relativeAccuracy + "]"
+            );
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * The number of values added to the sketch.
+     */
+    public long count() {
+        return negative.total + zeroCount + positive.total;
+    }
+
+    /**
+     * Add a value to the sketch.
+     */
+    public void add(double value) {
+        if (Double.isFinite(value) == false) {
+            throw new IllegalArgumentException("[ddsketch] percentiles can't count [" + value + "]");
+        }
+        if (value >= Double.MIN_NORMAL) {
+            positive.add(index(value), 1);
+        } else if (value <= -Double.MIN_NORMAL) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Merge another sketch with the same relative accuracy into this one.
+     */
+    public void add(DDSketchState other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException(
+                "can't merge sketches with relative accuracy [" + other.relativeAccuracy + "] into [" + relativeAccuracy + "]"
+            );
+        }
+        positive.add(other.positive);
+        negative.add(other.negative);
+        zeroCount += other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * The value at a percentile, {@link Double#NaN} if the sketch is empty.
+     * Like {@code hdr} this uses the nearest rank, the smallest value that at
+     * least {@code percent} percent of the values are less than or equal to.
+     *
+     * @param percent the percentile between {@code 0} and {@code 100}
+     */
+    public double percentile(double percent) {
+        final long count = count();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final long rank = Math.max(0, (long) Math.ceil(Math.max(0, Math.min(100, percent)) / 100 * count) - 1);
+        double value;
+        if (rank < negative.total) {
+            // the most negative values have the highest index
+            value = -value(negative.indexAtRankFromTop(rank));
+        } else if (rank < negative.total + zeroCount) {
+            value = 0;
+        } else {
+            value = value(positive.indexAtRank(rank - negative.total - zeroCount));
+        }
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * The percentage of values less than or equal to a value, {@link Double#NaN}
+     * if the sketch is empty. All values in the bucket of the value count as
+     * less than or equal to it.
+     */
+    public double percentileRank(double value) {
+        final long count = count();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (value < min) {
+            return 0;
+        }
+        if (value >= max) {
+            return 100;
+        }
+        long atOrBelow;
+        if (value >= Double.MIN_NORMAL) {
+            atOrBelow = negative.total + zeroCount + positive.countAtOrBelow(index(value));
+        } else if (value <= -Double.MIN_NORMAL) {
+            atOrBelow = negative.total - negative.countAtOrBelow(index(-value) - 1);
+        } else {
+            atOrBelow = negative.total + zeroCount;
+        }
+        return 100.0 * atOrBelow / count;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * The value within {@code relativeAccuracy} of all values in the bucket
+     * with the provided index.
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeDouble(relativeAccuracy);
+        out.writeVLong(zeroCount);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        positive.writeTo(out);
+        negative.writeTo(out);
+    }
+
+    public static DDSketchState read(StreamInput in) throws IOException {
+        DDSketchState state = new DDSketchState(in.readDouble());
+        state.zeroCount = in.readVLong();
+        state.min = in.readDouble();
+        state.max = in.readDouble();
+        state.positive.readFrom(in);
+        state.negative.readFrom(in);
+        return state;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        DDSketchState other = (DDSketchState) obj;
+        return relativeAccuracy == other.relativeAccuracy
+            && zeroCount == other.zeroCount
+            && Double.compare(min, other.min) == 0
+            && Double.compare(max, other.max) == 0
+            && positive.equals(other.positive)
+            && negative.equals(other.negative);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(relativeAccuracy, zeroCount, min, max, positive, negative);
+    }
+
+    /**
+     * Counts per bucket index for a contiguous range of indices.
+     */
+    private static final class Store {
+        private long[] counts = new long[0];
+        /**
+         * The index of {@code counts[0]}.
+         */
+        private int offset;
+        private int minIndex;
+        private int maxIndex;
+        private long total;
+
+        void add(int index, long count) {
+            if (count == 0) {
+                return;
+            }
+            if (total == 0) {
+                minIndex = index;
+                maxIndex = index;
+                ensureRange(index, index);
+            } else if (index < minIndex) {
+                // values below the lowest bucket we can keep are counted in that bucket
+                index = Math.max(index, maxIndex - MAX_BUCKETS + 1);
+                if (index < minIndex) {
+                    ensureRange(index, maxIndex);
+                    minIndex = index;
+                }
+            } else if (index > maxIndex) {
+                int lowest = index - MAX_BUCKETS + 1;
+                if (lowest > minIndex) {
+                    collapseBelow(lowest);
+                }
+                ensureRange(minIndex, index);
+                maxIndex = index;
+            }
+            counts[index - offset] += count;
+            total += count;
+        }
+
+        void add(Store other) {
+            if (other.total == 0) {
+                return;
+            }
+            // add the highest bucket first so we collapse at most once
+            for (int i = other.maxIndex; i >= other.minIndex; i--) {
+                add(i, other.counts[i - other.offset]);
+            }
+        }
+
+        /**
+         * Move the counts of all buckets below {@code lowest} into the bucket {@code lowest}.
+         */
+        private void collapseBelow(int lowest) {
+            long collapsed = 0;
+            for (int i = minIndex; i <= Math.min(lowest - 1, maxIndex); i++) {
+                collapsed += counts[i - offset];
+                counts[i - offset] = 0;
+            }
+            minIndex = lowest;
+            maxIndex = Math.max(maxIndex, lowest);
+            ensureRange(minIndex, maxIndex);
+            counts[lowest - offset] += collapsed;
+        }
+
+        /**
+         * Make sure {@link #counts} covers the indices from {@code lo} to {@code hi}.
+         */
+        private void ensureRange(int lo, int hi) {
+            if (lo >= offset && hi < offset + counts.length) {
+                return;
+            }
+            int length = hi - lo + 1;
+            int newLength = Math.max(length, Math.min(MAX_BUCKETS, Math.max(INITIAL_BUCKETS, counts.length * 2)));
+            // leave the extra room on the side we're growing towards
+            int newOffset = lo < offset ? hi - newLength + 1 : lo;
+            long[] grown = new long[newLength];
+            int from = Math.max(offset, newOffset);
+            int to = Math.min(offset + counts.length, newOffset + newLength);
+            if (from < to) {
+                System.arraycopy(counts, from - offset, grown, from - newOffset, to - from);
+            }
+            counts = grown;
+            offset = newOffset;
+        }
+
+        /**
+         * The index of the bucket with the value at a zero based rank, counting from the lowest index.
+         */
+        int indexAtRank(long rank) {
+            long cumulative = 0;
+            for (int i = minIndex; i < maxIndex; i++) {
+                cumulative += counts[i - offset];
+                if (cumulative > rank) {
+                    return i;
+                }
+            }
+            return maxIndex;
+        }
+
+        /**
+         * The index of the bucket with the value at a zero based rank, counting from the highest index.
+         */
+        int indexAtRankFromTop(long rank) {
+            long cumulative = 0;
+            for (int i = maxIndex; i > minIndex; i--) {
+                cumulative += counts[i - offset];
+                if (cumulative > rank) {
+                    return i;
+                }
+            }
+            return minIndex;
+        }
+
+        /**
+         * The number of values in buckets with an index less than or equal to {@code index}.
+         */
+        long countAtOrBelow(int index) {
+            if (total == 0 || index < minIndex) {
+                return 0;
+            }
+            long count = 0;
+            for (int i = minIndex; i <= Math.min(index, maxIndex); i++) {
+                count += counts[i - offset];
+            }
+            return count;
+        }
+
+        void writeTo(StreamOutput out) throws IOException {
+            if (total == 0) {
+                out.writeVInt(0);
+                return;
+            }
+            out.writeVInt(maxIndex - minIndex + 1);
+            out.writeZLong(minIndex);
+            for (int i = minIndex; i <= maxIndex; i++) {
+                out.writeVLong(counts[i - offset]);
+            }
+        }
+
+        void readFrom(StreamInput in) throws IOException {
+            int length = in.readVInt();
+            if (length == 0) {
+                return;
+            }
+            int start = Math.toIntExact(in.readZLong());
+            for (int i = 0; i < length; i++) {
+                add(start + i, in.readVLong());
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            Store other = (Store) obj;
+            if (total != other.total) {
+                return false;
+            }
+            if (total == 0) {
+                return true;
+            }
+            if (minIndex != other.minIndex || maxIndex != other.maxIndex) {
+                return false;
+            }
+            for (int i = minIndex; i <= maxIndex; i++) {
+                if (counts[i - offset] != other.counts[i - other.offset]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(total);
+            if (total > 0) {
+                for (int i = minIndex; i <= maxIndex; i++) {
+                    result = 31 * result + Long.hashCode(counts[i - offset]);
+                }
+            }
+            return result;
+        }
+    }
+}
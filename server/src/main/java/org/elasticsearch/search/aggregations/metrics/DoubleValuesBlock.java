@@ -0,0 +1,84 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+
+import java.io.IOException;
+
+/**
+ * Decodes the values of a block of docs into a primitive array so that metric
+ * aggregators can aggregate the whole block in a tight loop. Lucene doesn't
+ * decode doc values in bulk, so the values are still read one doc at a time,
+ * but single-valued fields, the common case, skip the per-doc value count and
+ * buffer growth and are read straight into the array.
+ */
+final class DoubleValuesBlock {
+
+    private final SortedNumericDoubleValues values;
+    private final NumericDoubleValues singleValues;
+    private double[] buffer = new double[128];
+    private int count;
+
+    DoubleValuesBlock(SortedNumericDoubleValues values) {
+        this.values = values;
+        this.singleValues = FieldData.unwrapSingleton(values);
+    }
+
+    /**
+     * Load the values of the first {@code docCount} docs of {@code docs},
+     * replacing the values of the previously loaded block.
+     *
+     * @return the number of loaded values
+     */
+    int load(int[] docs, int docCount) throws IOException {
+        this.count = singleValues == null ? loadMultiValued(docs, docCount) : loadSingleValued(docs, docCount);
+        return count;
+    }
+
+    private int loadSingleValued(int[] docs, int docCount) throws IOException {
+        buffer = ArrayUtil.grow(buffer, docCount);
+        final double[] buffer = this.buffer;
+        int count = 0;
+        for (int i = 0; i < docCount; i++) {
+            if (singleValues.advanceExact(docs[i])) {
+                buffer[count++] = singleValues.doubleValue();
+            }
+        }
+        return count;
+    }
+
+    private int loadMultiValued(int[] docs, int docCount) throws IOException {
+        int count = 0;
+        for (int i = 0; i < docCount; i++) {
+            if (values.advanceExact(docs[i])) {
+                final int valueCount = values.docValueCount();
+                buffer = ArrayUtil.grow(buffer, count + valueCount);
+                for (int v = 0; v < valueCount; v++) {
+                    buffer[count++] = values.nextValue();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The values loaded by the last call to {@link #load}, only the first {@link #count()} of which are valid.
+     */
+    double[] values() {
+        return buffer;
+    }
+
+    int count() {
+        return count;
+    }
+}
@@ -8,6 +8,7 @@
 package org.elasticsearch.search.aggregations.metrics;
 
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.Bits;
@@ -22,6 +23,7 @@ import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.SegmentMetadataCollector;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
@@ -30,14 +32,20 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
 
-class MaxAggregator extends NumericMetricsAggregator.SingleValue {
+class MaxAggregator extends NumericMetricsAggregator.SingleValue implements SegmentMetadataCollector {
 
     final ValuesSource.Numeric valuesSource;
     final DocValueFormat formatter;
 
     final String pointField;
     final Function<byte[], Number> pointConverter;
+    /**
+     * Reads the points of {@link #pointField} for segments that are
+     * collected in full, regardless of the parent and the top level query.
+     */
+    final Function<byte[], Number> segmentPointConverter;
 
     DoubleArray maxes;
 
@@ -52,7 +60,8 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
         }
         this.formatter = config.format();
         this.pointConverter = pointReaderIfAvailable(config);
-        if (pointConverter != null) {
+        this.segmentPointConverter = config.getPointReaderOrNull();
+        if (segmentPointConverter != null) {
             pointField = config.fieldContext().field();
         } else {
             pointField = null;
@@ -90,11 +99,7 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
 
             @Override
             public void collect(int doc, long bucket) throws IOException {
-                if (bucket >= maxes.size()) {
-                    long from = maxes.size();
-                    maxes = bigArrays().grow(maxes, bucket + 1);
-                    maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
-                }
+                grow(bucket);
                 if (values.advanceExact(doc)) {
                     final double value = values.doubleValue();
                     double max = maxes.get(bucket);
@@ -106,6 +111,33 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
         };
     }
 
+    @Override
+    public LongConsumer collectAllFromMetadata(LeafReaderContext ctx) throws IOException {
+        if (valuesSource == null) {
+            return bucket -> {};
+        }
+        if (segmentPointConverter == null) {
+            return null;
+        }
+        Number segMax = findLeafMaxValue(ctx.reader(), pointField, segmentPointConverter);
+        if (segMax == null) {
+            return null;
+        }
+        double value = segMax.doubleValue();
+        return bucket -> {
+            grow(bucket);
+            maxes.set(bucket, Math.max(maxes.get(bucket), value));
+        };
+    }
+
+    private void grow(long bucket) {
+        if (bucket >= maxes.size()) {
+            long from = maxes.size();
+            maxes = bigArrays().grow(maxes, bucket + 1);
+            maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+        }
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         if (valuesSource == null || owningBucketOrd >= maxes.size()) {
@@ -8,6 +8,7 @@
 package org.elasticsearch.search.aggregations.metrics;
 
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.ScoreMode;
@@ -23,6 +24,7 @@ import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.SegmentMetadataCollector;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
@@ -30,8 +32,9 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import java.io.IOException;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
 
-public class MinAggregator extends NumericMetricsAggregator.SingleValue {
+public class MinAggregator extends NumericMetricsAggregator.SingleValue implements SegmentMetadataCollector {
     private static final int MAX_BKD_LOOKUPS = 1024;
 
     final ValuesSource.Numeric valuesSource;
@@ -39,6 +42,11 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
 
     final String pointField;
     final Function<byte[], Number> pointConverter;
+    /**
+     * Reads the points of {@link #pointField} for segments that are
+     * collected in full, regardless of the parent and the top level query.
+     */
+    final Function<byte[], Number> segmentPointConverter;
 
     DoubleArray mins;
 
@@ -53,7 +61,8 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
         }
         this.format = config.format();
         this.pointConverter = pointReaderIfAvailable(config);
-        if (pointConverter != null) {
+        this.segmentPointConverter = config.getPointReaderOrNull();
+        if (segmentPointConverter != null) {
             pointField = config.fieldContext().field();
         } else {
             pointField = null;
@@ -89,11 +98,7 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
         return new LeafBucketCollectorBase(sub, allValues) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
-                if (bucket >= mins.size()) {
-                    long from = mins.size();
-                    mins = bigArrays().grow(mins, bucket + 1);
-                    mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
-                }
+                grow(bucket);
                 if (values.advanceExact(doc)) {
                     final double value = values.doubleValue();
                     double min = mins.get(bucket);
@@ -105,6 +110,33 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
         };
     }
 
+    @Override
+    public LongConsumer collectAllFromMetadata(LeafReaderContext ctx) throws IOException {
+        if (valuesSource == null) {
+            return bucket -> {};
+        }
+        if (segmentPointConverter == null) {
+            return null;
+        }
+        Number segMin = findLeafMinValue(ctx.reader(), pointField, segmentPointConverter);
+        if (segMin == null) {
+            return null;
+        }
+        double value = segMin.doubleValue();
+        return bucket -> {
+            grow(bucket);
+            mins.set(bucket, Math.min(mins.get(bucket), value));
+        };
+    }
+
+    private void grow(long bucket) {
+        if (bucket >= mins.size()) {
+            long from = mins.size();
+            mins = bigArrays().grow(mins, bucket + 1);
+            mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+        }
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         if (valuesSource == null || owningBucketOrd >= mins.size()) {
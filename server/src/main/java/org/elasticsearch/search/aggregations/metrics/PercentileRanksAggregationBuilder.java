@@ -116,6 +116,7 @@ public class PercentileRanksAggregationBuilder extends AbstractPercentilesAggreg
 
     @Override
     public Version getMinimalSupportedVersion() {
-        return Version.V_EMPTY;
+        PercentilesConfig config = percentilesConfig();
+        return config != null && config.getMethod() == PercentilesMethod.DDSKETCH ? Version.V_8_7_0 : Version.V_EMPTY;
     }
 }
@@ -152,6 +152,7 @@ public class PercentilesAggregationBuilder extends AbstractPercentilesAggregatio
 
     @Override
     public Version getMinimalSupportedVersion() {
-        return Version.V_EMPTY;
+        PercentilesConfig config = percentilesConfig();
+        return config != null && config.getMethod() == PercentilesMethod.DDSKETCH ? Version.V_8_7_0 : Version.V_EMPTY;
     }
 }
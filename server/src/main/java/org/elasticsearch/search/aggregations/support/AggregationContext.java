@@ -39,6 +39,8 @@ import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.BucketCollector;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterByFilterAggregator;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeCursorCache;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramSegmentCache;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.profile.aggregation.AggregationProfiler;
@@ -287,6 +289,45 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract boolean enableRewriteToFilterByFilter();
 
+    /**
+     * Can aggregations collect their deferred sub-aggregations by running the
+     * top level query again rather than recording the docs they collected?
+     * This is {@code false} if the request doesn't collect every doc that
+     * matches the query, like with {@code min_score}, {@code terminate_after}
+     * or a timeout, because running the query again would collect them all.
+     */
+    public abstract boolean enableReplayQueryForDeferred();
+
+    /**
+     * The number of buckets after which top level {@code terms} aggregations
+     * without sub-aggregations move the doc counts of their buckets to
+     * temporary files rather than keeping on growing their hash in memory,
+     * or {@code -1} if they must never do so. This hooks into a cluster level
+     * setting.
+     */
+    public abstract int termsSpillThreshold();
+
+    /**
+     * The space on the node's disk that aggregations can spill buckets to or
+     * {@code null} if they can't spill.
+     */
+    @Nullable
+    public abstract AggregationSpillSpace aggregationSpillSpace();
+
+    /**
+     * The node level cache of {@code date_histogram} doc counts per segment
+     * or {@code null} if it is disabled or can't be used for this request.
+     */
+    @Nullable
+    public abstract DateHistogramSegmentCache dateHistogramSegmentCache();
+
+    /**
+     * The node level cache of {@code composite} buckets beyond the returned
+     * page or {@code null} if it is disabled or can't be used for this request.
+     */
+    @Nullable
+    public abstract CompositeCursorCache compositeCursorCache();
+
     /**
      * Return true if any of the aggregations in this context is a time-series aggregation that requires an in-sort order execution.
      *
@@ -338,6 +379,11 @@ public abstract class AggregationContext implements Releasable {
         private final Supplier<Boolean> isCancelled;
         private final Function<Query, Query> filterQuery;
         private final boolean enableRewriteToFilterByFilter;
+        private final boolean enableReplayQueryForDeferred;
+        private final int termsSpillThreshold;
+        private final AggregationSpillSpace aggregationSpillSpace;
+        private final DateHistogramSegmentCache dateHistogramSegmentCache;
+        private final CompositeCursorCache compositeCursorCache;
         private final boolean inSortOrderExecutionRequired;
         private final AnalysisRegistry analysisRegistry;
 
@@ -358,6 +404,11 @@ public abstract class AggregationContext implements Releasable {
             Supplier<Boolean> isCancelled,
             Function<Query, Query> filterQuery,
             boolean enableRewriteToFilterByFilter,
+            boolean enableReplayQueryForDeferred,
+            int termsSpillThreshold,
+            @Nullable AggregationSpillSpace aggregationSpillSpace,
+            @Nullable DateHistogramSegmentCache dateHistogramSegmentCache,
+            @Nullable CompositeCursorCache compositeCursorCache,
             boolean inSortOrderExecutionRequired
         ) {
             this.analysisRegistry = analysisRegistry;
@@ -391,6 +442,11 @@ public abstract class AggregationContext implements Releasable {
             this.isCancelled = isCancelled;
             this.filterQuery = filterQuery;
             this.enableRewriteToFilterByFilter = enableRewriteToFilterByFilter;
+            this.enableReplayQueryForDeferred = enableReplayQueryForDeferred;
+            this.termsSpillThreshold = termsSpillThreshold;
+            this.aggregationSpillSpace = aggregationSpillSpace;
+            this.dateHistogramSegmentCache = dateHistogramSegmentCache;
+            this.compositeCursorCache = compositeCursorCache;
             this.inSortOrderExecutionRequired = inSortOrderExecutionRequired;
         }
 
@@ -569,6 +625,31 @@ public abstract class AggregationContext implements Releasable {
             return enableRewriteToFilterByFilter;
         }
 
+        @Override
+        public boolean enableReplayQueryForDeferred() {
+            return enableReplayQueryForDeferred;
+        }
+
+        @Override
+        public int termsSpillThreshold() {
+            return termsSpillThreshold;
+        }
+
+        @Override
+        public AggregationSpillSpace aggregationSpillSpace() {
+            return aggregationSpillSpace;
+        }
+
+        @Override
+        public DateHistogramSegmentCache dateHistogramSegmentCache() {
+            return dateHistogramSegmentCache;
+        }
+
+        @Override
+        public CompositeCursorCache compositeCursorCache() {
+            return compositeCursorCache;
+        }
+
         @Override
         public boolean isInSortOrderExecutionRequired() {
             return inSortOrderExecutionRequired;
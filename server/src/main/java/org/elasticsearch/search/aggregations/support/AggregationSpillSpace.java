@@ -0,0 +1,119 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.support;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.env.NodeEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The space on the disk of the node that aggregations move buckets to when
+ * they would use too much memory otherwise. The files live in a directory of
+ * the node's first data path that is removed when the node starts and only
+ * created once an aggregation spills, and the space they use all together is
+ * bounded by {@link #MAX_SIZE_SETTING}.
+ */
+public final class AggregationSpillSpace {
+
+    /**
+     * The name of the directory in the node's first data path.
+     */
+    public static final String DIRECTORY_NAME = "aggs_spill";
+
+    /**
+     * The disk space that the aggregations running on a node may spill to
+     * all together.
+     */
+    public static final Setting<ByteSizeValue> MAX_SIZE_SETTING = Setting.byteSizeSetting(
+        "search.aggs.spill.max_size",
+        ByteSizeValue.ofGb(1),
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    private final Path path;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private volatile long maxBytes;
+    private volatile boolean created;
+
+    public AggregationSpillSpace(Path path, long maxBytes) {
+        this.path = path;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Build the spill space of a node, deleting the files left behind by
+     * aggregations that were running when the node stopped.
+     */
+    public static AggregationSpillSpace create(NodeEnvironment nodeEnvironment, ClusterSettings clusterSettings) throws IOException {
+        Path path = nodeEnvironment.nodeDataPaths()[0].resolve(DIRECTORY_NAME);
+        if (Files.exists(path)) {
+            IOUtils.rm(path);
+        }
+        AggregationSpillSpace space = new AggregationSpillSpace(path, clusterSettings.get(MAX_SIZE_SETTING).getBytes());
+        clusterSettings.addSettingsUpdateConsumer(MAX_SIZE_SETTING, maxSize -> space.maxBytes = maxSize.getBytes());
+        return space;
+    }
+
+    /**
+     * The directory to write the spilled buckets to, created on the first
+     * call so that nodes that never spill don't have one.
+     */
+    public Path path() throws IOException {
+        if (created == false) {
+            synchronized (this) {
+                if (created == false) {
+                    Files.createDirectories(path);
+                    created = true;
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Reserve space to spill to.
+     *
+     * @return {@code false} if the space is exhausted, then nothing is reserved
+     */
+    public boolean tryReserve(long bytes) {
+        long used;
+        do {
+            used = usedBytes.get();
+            if (used + bytes > maxBytes) {
+                return false;
+            }
+        } while (usedBytes.compareAndSet(used, used + bytes) == false);
+        return true;
+    }
+
+    /**
+     * Release space reserved with {@link #tryReserve}.
+     */
+    public void release(long bytes) {
+        long used = usedBytes.addAndGet(-bytes);
+        assert used >= 0 : "released more than reserved, now using [" + used + "]";
+    }
+
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+}
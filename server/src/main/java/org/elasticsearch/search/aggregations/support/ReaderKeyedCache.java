@@ -0,0 +1,155 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.support;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.Accountable;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.CheckedSupplier;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongFunction;
+
+/**
+ * Node level cache of values computed from an {@link IndexReader}, limited
+ * by the memory its keys and values use. Entries are evicted when the cache
+ * is full and when the reader that they were computed from is closed. The
+ * keys of every reader are indexed so that closing a reader only touches
+ * its own entries.
+ * <p>
+ * The reader's cache key is the same whatever document or field level
+ * security hides from it, so callers must not use the cache for requests
+ * where that applies.
+ */
+public final class ReaderKeyedCache<K extends ReaderKeyedCache.Key, V extends Accountable> {
+    /**
+     * Build a cache whose size is configured by {@code sizeSetting} or
+     * return {@code null} if that size is {@code 0}.
+     */
+    @Nullable
+    public static <C> C buildIfEnabled(Setting<ByteSizeValue> sizeSetting, Settings settings, LongFunction<C> build) {
+        long size = sizeSetting.get(settings).getBytes();
+        return size == 0 ? null : build.apply(size);
+    }
+
+    /**
+     * The key of a cached value.
+     */
+    public interface Key extends Accountable {
+        /**
+         * The reader that the value was computed from.
+         */
+        IndexReader.CacheKey reader();
+    }
+
+    private final Cache<K, V> cache;
+    private final Map<IndexReader.CacheKey, Set<K>> keysByReader = ConcurrentCollections.newConcurrentMap();
+
+    public ReaderKeyedCache(long sizeInBytes) {
+        this.cache = CacheBuilder.<K, V>builder()
+            .setMaximumWeight(sizeInBytes)
+            .weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
+            .removalListener(this::onRemoval)
+            .build();
+    }
+
+    /**
+     * The value for a key or {@code null} if there isn't one.
+     */
+    @Nullable
+    public V get(K key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Cache a value computed from the reader of {@code cacheHelper}.
+     */
+    public void put(IndexReader.CacheHelper cacheHelper, K key, V value) {
+        index(cacheHelper, key);
+        cache.put(key, value);
+    }
+
+    /**
+     * The value for a key, computing and caching it if there isn't one.
+     */
+    public V computeIfAbsent(IndexReader.CacheHelper cacheHelper, K key, CheckedSupplier<V, IOException> compute) throws IOException {
+        index(cacheHelper, key);
+        try {
+            return cache.computeIfAbsent(key, k -> compute.get());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ExceptionsHelper.convertToRuntime(e);
+        }
+    }
+
+    /**
+     * The number of cached values.
+     */
+    public int count() {
+        return cache.count();
+    }
+
+    private void index(IndexReader.CacheHelper cacheHelper, K key) {
+        IndexReader.CacheKey reader = cacheHelper.getKey();
+        assert key.reader() == reader : "key of reader [" + key.reader() + "] cached for reader [" + reader + "]";
+        Set<K> keys = keysByReader.get(reader);
+        if (keys == null) {
+            Set<K> added = ConcurrentCollections.newConcurrentSet();
+            keys = keysByReader.putIfAbsent(reader, added);
+            if (keys == null) {
+                keys = added;
+                cacheHelper.addClosedListener(this::onClose);
+            }
+        }
+        keys.add(key);
+    }
+
+    private void onRemoval(RemovalNotification<K, V> notification) {
+        if (notification.getRemovalReason() == RemovalNotification.RemovalReason.REPLACED) {
+            // The key is still cached, with the new value
+            return;
+        }
+        Set<K> keys = keysByReader.get(notification.getKey().reader());
+        if (keys != null) {
+            keys.remove(notification.getKey());
+        }
+    }
+
+    private void onClose(IndexReader.CacheKey reader) {
+        Set<K> keys = keysByReader.remove(reader);
+        if (keys != null) {
+            for (K key : keys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * The number of open readers that the cache has seen.
+     */
+    int readers() {
+        return keysByReader.size();
+    }
+}
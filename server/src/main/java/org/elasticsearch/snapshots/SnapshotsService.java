@@ -135,6 +135,8 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
     public static final Version FILE_INFO_WRITER_UUIDS_IN_SHARD_DATA_VERSION = Version.V_7_16_0;
 
+    public static final Version COMPRESSED_REPO_DATA_VERSION = Version.V_8_7_0;
+
     public static final Version OLD_SNAPSHOT_FORMAT = Version.V_7_5_0;
 
     public static final String POLICY_ID_METADATA_FIELD = "policy";
@@ -2363,6 +2365,16 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         return repositoryMetaVersion.onOrAfter(FILE_INFO_WRITER_UUIDS_IN_SHARD_DATA_VERSION);
     }
 
+    /**
+     * Checks whether the root {@code index-N} blob may be compressed, which older versions cannot read.
+     *
+     * @param repositoryMetaVersion version to check
+     * @return true if the {@code index-N} blob may be compressed
+     */
+    public static boolean useCompressedRepositoryData(Version repositoryMetaVersion) {
+        return repositoryMetaVersion.onOrAfter(COMPRESSED_REPO_DATA_VERSION);
+    }
+
     /** Deletes snapshot from repository
      *
      * @param deleteEntry       delete entry in cluster state
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.action.admin.cluster.tasks;
 
+import org.elasticsearch.cluster.action.shard.ShardStateCoalescingStats;
 import org.elasticsearch.cluster.service.PendingClusterTask;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.text.Text;
@@ -31,7 +32,12 @@ public class PendingClusterTasksResponseTests extends ESTestCase {
             );
         }
         AbstractChunkedSerializingTestCase.assertChunkCount(
-            new PendingClusterTasksResponse(tasks),
+            new PendingClusterTasksResponse(
+                tasks,
+                randomBoolean()
+                    ? null
+                    : new ShardStateCoalescingStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong())
+            ),
             response -> response.pendingTasks().size() + 2
         );
     }
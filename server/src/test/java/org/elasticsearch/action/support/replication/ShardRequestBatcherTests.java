@@ -0,0 +1,358 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.support.replication;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+import org.elasticsearch.test.transport.MockTransportService;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.AbstractSimpleTransportTestCase;
+import org.elasticsearch.transport.RemoteTransportException;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportResponseHandler;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ShardRequestBatcherTests extends ESTestCase {
+
+    private static final String TEST_ACTION = "internal:test/shard_request";
+
+    private static final Settings BATCHING = Settings.builder().put(ShardRequestBatcher.BATCH_WINDOW_SETTING.getKey(), "50ms").build();
+
+    private ThreadPool threadPool;
+    private MockTransportService serviceA;
+    private MockTransportService serviceB;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+        serviceA = MockTransportService.createNewService(Settings.EMPTY, Version.CURRENT, threadPool);
+        serviceA.start();
+        serviceA.acceptIncomingRequests();
+        serviceB = MockTransportService.createNewService(Settings.EMPTY, Version.CURRENT, threadPool);
+        serviceB.start();
+        serviceB.acceptIncomingRequests();
+        AbstractSimpleTransportTestCase.connectToNode(serviceA, serviceB.getLocalNode());
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        IOUtils.close(serviceA, serviceB, () -> terminate(threadPool));
+        super.tearDown();
+    }
+
+    public void testBatchesRequestsToTheSameNode() throws Exception {
+        // long enough that the requests are not all sent individually, even on a slow machine
+        final Settings settings = Settings.builder().put(ShardRequestBatcher.BATCH_WINDOW_SETTING.getKey(), "200ms").build();
+        final ShardRequestBatcher batcherA = new ShardRequestBatcher(settings, serviceA, threadPool);
+        new ShardRequestBatcher(settings, serviceB, threadPool);
+
+        final AtomicInteger batches = new AtomicInteger();
+        serviceB.addRequestHandlingBehavior(ShardRequestBatcher.ACTION_NAME, (handler, request, channel, task) -> {
+            batches.incrementAndGet();
+            handler.messageReceived(request, channel, task);
+        });
+        serviceB.registerRequestHandler(
+            TEST_ACTION,
+            randomFrom(ThreadPool.Names.SAME, ThreadPool.Names.GENERIC),
+            TestRequest::new,
+            (request, channel, task) -> {
+                if (request.value < 0) {
+                    channel.sendResponse(new ElasticsearchException("negative value [" + request.value + "]"));
+                } else {
+                    channel.sendResponse(new TestResponse(request.value * 2));
+                }
+            }
+        );
+
+        final int requests = between(2, 50);
+        final AtomicReferenceArray<Object> results = new AtomicReferenceArray<>(requests);
+        final CountDownLatch latch = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            final int slot = i;
+            final int value = randomBoolean() ? i : -1 - i;
+            final TransportResponseHandler<TestResponse> handler = new TransportResponseHandler<>() {
+                @Override
+                public TestResponse read(StreamInput in) throws IOException {
+                    return new TestResponse(in);
+                }
+
+                @Override
+                public void handleResponse(TestResponse response) {
+                    results.set(slot, response);
+                    latch.countDown();
+                }
+
+                @Override
+                public void handleException(TransportException exp) {
+                    results.set(slot, exp);
+                    latch.countDown();
+                }
+            };
+            batcherA.sendRequest(serviceB.getLocalNode(), TEST_ACTION, new TestRequest(value), TransportRequestOptions.EMPTY, handler);
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(batches.get(), lessThan(requests));
+        for (int i = 0; i < requests; i++) {
+            final Object result = results.get(i);
+            if (result instanceof TestResponse testResponse) {
+                assertThat(testResponse.value, equalTo(i * 2));
+            } else {
+                assertThat(result, instanceOf(RemoteTransportException.class));
+                final Throwable cause = ((RemoteTransportException) result).getCause();
+                assertThat(cause, instanceOf(ElasticsearchException.class));
+                assertThat(cause.getMessage(), equalTo("negative value [" + (-1 - i) + "]"));
+            }
+        }
+    }
+
+    public void testSendsImmediatelyWhenBatchingIsDisabled() throws Exception {
+        // batching is disabled by default
+        final Settings settings = randomBoolean()
+            ? Settings.EMPTY
+            : Settings.builder().put(ShardRequestBatcher.BATCH_WINDOW_SETTING.getKey(), "0s").build();
+        final ShardRequestBatcher batcherA = new ShardRequestBatcher(settings, serviceA, threadPool);
+        new ShardRequestBatcher(settings, serviceB, threadPool);
+
+        final AtomicInteger batches = new AtomicInteger();
+        serviceB.addRequestHandlingBehavior(ShardRequestBatcher.ACTION_NAME, (handler, request, channel, task) -> {
+            batches.incrementAndGet();
+            handler.messageReceived(request, channel, task);
+        });
+        serviceB.registerRequestHandler(
+            TEST_ACTION,
+            ThreadPool.Names.SAME,
+            TestRequest::new,
+            (request, channel, task) -> channel.sendResponse(new TestResponse(request.value))
+        );
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        batcherA.sendRequest(serviceB.getLocalNode(), TEST_ACTION, new TestRequest(42), TransportRequestOptions.EMPTY, handler(result -> {
+            assertThat(((TestResponse) result).value, equalTo(42));
+            latch.countDown();
+        }));
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(batches.get(), equalTo(0));
+    }
+
+    public void testSendsIndividuallyToNodesWhichDoNotSupportBatching() throws Exception {
+        final Version oldVersion = VersionUtils.randomVersionBetween(
+            random(),
+            Version.CURRENT.minimumCompatibilityVersion(),
+            VersionUtils.getPreviousVersion(ShardRequestBatcher.MINIMUM_VERSION)
+        );
+        try (MockTransportService oldService = MockTransportService.createNewService(Settings.EMPTY, oldVersion, threadPool)) {
+            oldService.start();
+            oldService.acceptIncomingRequests();
+            final DiscoveryNode oldNode = oldService.getLocalNode();
+            AbstractSimpleTransportTestCase.connectToNode(serviceA, oldNode);
+            final ShardRequestBatcher batcherA = new ShardRequestBatcher(BATCHING, serviceA, threadPool);
+            oldService.registerRequestHandler(
+                TEST_ACTION,
+                ThreadPool.Names.SAME,
+                TestRequest::new,
+                (request, channel, task) -> channel.sendResponse(new TestResponse(request.value))
+            );
+
+            final int requests = between(2, 10);
+            final CountDownLatch latch = new CountDownLatch(requests);
+            for (int i = 0; i < requests; i++) {
+                final int value = i;
+                batcherA.sendRequest(oldNode, TEST_ACTION, new TestRequest(i), TransportRequestOptions.EMPTY, handler(r -> {
+                    assertThat(((TestResponse) r).value, equalTo(value));
+                    latch.countDown();
+                }));
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    public void testSendsBatchWithTheOptionsOfItsRequests() throws Exception {
+        final ShardRequestBatcher batcherA = new ShardRequestBatcher(BATCHING, serviceA, threadPool);
+        new ShardRequestBatcher(BATCHING, serviceB, threadPool);
+        serviceB.registerRequestHandler(
+            TEST_ACTION,
+            ThreadPool.Names.SAME,
+            TestRequest::new,
+            (request, channel, task) -> channel.sendResponse(new TestResponse(request.value))
+        );
+
+        final List<TransportRequestOptions> batchOptions = new CopyOnWriteArrayList<>();
+        serviceA.addSendBehavior((connection, requestId, action, request, options) -> {
+            if (action.equals(ShardRequestBatcher.ACTION_NAME)) {
+                batchOptions.add(options);
+            }
+            connection.sendRequest(requestId, action, request, options);
+        });
+
+        final TransportRequestOptions options = TransportRequestOptions.of(
+            TimeValue.timeValueSeconds(between(10, 60)),
+            TransportRequestOptions.Type.BULK
+        );
+        final CountDownLatch latch = new CountDownLatch(2);
+        final DiscoveryNode nodeB = serviceB.getLocalNode();
+        batcherA.sendRequest(nodeB, TEST_ACTION, new TestRequest(1), options, handler(r -> latch.countDown()));
+        batcherA.sendRequest(nodeB, TEST_ACTION, new TestRequest(2), TransportRequestOptions.EMPTY, handler(r -> latch.countDown()));
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        // requests with different options are never batched together
+        assertThat(batchOptions.size(), equalTo(2));
+        assertThat(batchOptions.stream().map(TransportRequestOptions::timeout).toList(), containsInAnyOrder(options.timeout(), null));
+        assertThat(
+            batchOptions.stream().map(TransportRequestOptions::type).toList(),
+            containsInAnyOrder(TransportRequestOptions.Type.BULK, TransportRequestOptions.Type.REG)
+        );
+    }
+
+    public void testReleasesRequestsRejectedOnTheReceivingNode() throws Exception {
+        final Settings poolSettings = Settings.builder()
+            .put("node.name", getTestName())
+            .put("thread_pool.write.size", 1)
+            .put("thread_pool.write.queue_size", 0)
+            .build();
+        final ThreadPool threadPoolC = new TestThreadPool(getTestName(), poolSettings);
+        final CountDownLatch blockWrite = new CountDownLatch(1);
+        try (MockTransportService serviceC = MockTransportService.createNewService(Settings.EMPTY, Version.CURRENT, threadPoolC)) {
+            serviceC.start();
+            serviceC.acceptIncomingRequests();
+            AbstractSimpleTransportTestCase.connectToNode(serviceA, serviceC.getLocalNode());
+            final ShardRequestBatcher batcherA = new ShardRequestBatcher(BATCHING, serviceA, threadPool);
+            new ShardRequestBatcher(BATCHING, serviceC, threadPoolC);
+
+            final List<TestRequest> received = new CopyOnWriteArrayList<>();
+            serviceC.registerRequestHandler(TEST_ACTION, ThreadPool.Names.WRITE, in -> {
+                final TestRequest request = new TestRequest(in);
+                received.add(request);
+                return request;
+            }, (request, channel, task) -> channel.sendResponse(new TestResponse(request.value)));
+
+            // occupy the only write thread so that all batched requests are rejected
+            threadPoolC.executor(ThreadPool.Names.WRITE).execute(() -> {
+                try {
+                    blockWrite.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+
+            final int requests = between(1, 10);
+            final CountDownLatch latch = new CountDownLatch(requests);
+            for (int i = 0; i < requests; i++) {
+                batcherA.sendRequest(serviceC.getLocalNode(), TEST_ACTION, new TestRequest(i), TransportRequestOptions.EMPTY, handler(r -> {
+                    assertThat(r, instanceOf(RemoteTransportException.class));
+                    assertThat(((RemoteTransportException) r).getCause(), instanceOf(EsRejectedExecutionException.class));
+                    latch.countDown();
+                }));
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertThat(received.size(), equalTo(requests));
+            for (TestRequest request : received) {
+                assertThat(request.decRefs.get(), equalTo(1));
+            }
+        } finally {
+            blockWrite.countDown();
+            terminate(threadPoolC);
+        }
+    }
+
+    private static TransportResponseHandler<TestResponse> handler(Consumer<Object> onResult) {
+        return new TransportResponseHandler<>() {
+            @Override
+            public TestResponse read(StreamInput in) throws IOException {
+                return new TestResponse(in);
+            }
+
+            @Override
+            public void handleResponse(TestResponse response) {
+                onResult.accept(response);
+            }
+
+            @Override
+            public void handleException(TransportException exp) {
+                onResult.accept(exp);
+            }
+        };
+    }
+
+    private static class TestRequest extends TransportRequest {
+        final int value;
+        final AtomicInteger decRefs = new AtomicInteger();
+
+        TestRequest(int value) {
+            this.value = value;
+        }
+
+        TestRequest(StreamInput in) throws IOException {
+            super(in);
+            this.value = in.readInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeInt(value);
+        }
+
+        @Override
+        public boolean decRef() {
+            decRefs.incrementAndGet();
+            return super.decRef();
+        }
+    }
+
+    private static class TestResponse extends TransportResponse {
+        final int value;
+
+        TestResponse(int value) {
+            this.value = value;
+        }
+
+        TestResponse(StreamInput in) throws IOException {
+            super(in);
+            this.value = in.readInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeInt(value);
+        }
+    }
+}
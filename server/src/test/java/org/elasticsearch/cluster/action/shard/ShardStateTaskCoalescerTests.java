@@ -0,0 +1,149 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.action.shard;
+
+import org.elasticsearch.cluster.ClusterStateTaskConfig;
+import org.elasticsearch.cluster.ClusterStateTaskExecutor;
+import org.elasticsearch.cluster.ClusterStateTaskListener;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.cluster.service.MasterService;
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShardStateTaskCoalescerTests extends ESTestCase {
+
+    public void testComputeWindow() {
+        assertThat(ShardStateTaskCoalescer.computeWindow(TimeValue.ZERO, between(0, 10000)), equalTo(TimeValue.ZERO));
+        assertThat(ShardStateTaskCoalescer.computeWindow(TimeValue.timeValueSeconds(1), 0), equalTo(TimeValue.ZERO));
+        assertThat(
+            ShardStateTaskCoalescer.computeWindow(TimeValue.timeValueSeconds(1), ShardStateTaskCoalescer.QUEUE_DEPTH_FOR_MAX_WINDOW / 2),
+            equalTo(TimeValue.timeValueMillis(500))
+        );
+        assertThat(
+            ShardStateTaskCoalescer.computeWindow(
+                TimeValue.timeValueSeconds(1),
+                between(ShardStateTaskCoalescer.QUEUE_DEPTH_FOR_MAX_WINDOW, Integer.MAX_VALUE)
+            ),
+            equalTo(TimeValue.timeValueSeconds(1))
+        );
+    }
+
+    public void testSubmitsImmediatelyWhenMasterIsIdle() {
+        final var deterministicTaskQueue = new DeterministicTaskQueue();
+        final var submitted = new AtomicInteger();
+        final var coalescer = createCoalescer(deterministicTaskQueue, 0, submitted, new ArrayList<>());
+        coalescer.setMaxWindow(TimeValue.timeValueSeconds(1));
+
+        final int tasks = between(1, 10);
+        for (int i = 0; i < tasks; i++) {
+            coalescer.submit("test", new TestTask());
+        }
+        assertThat(submitted.get(), equalTo(tasks));
+        assertThat(coalescer.heldTaskCount(), equalTo(0));
+        assertThat(coalescer.submittedTaskCount(), equalTo((long) tasks));
+        assertThat(coalescer.submissionCount(), equalTo((long) tasks));
+        assertFalse(deterministicTaskQueue.hasDeferredTasks());
+    }
+
+    public void testCoalescesTasksWhileMasterIsBusy() {
+        final var deterministicTaskQueue = new DeterministicTaskQueue();
+        final var submitted = new AtomicInteger();
+        final var submissions = new ArrayList<List<MasterService.TaskSubmission<TestTask>>>();
+        final var coalescer = createCoalescer(
+            deterministicTaskQueue,
+            ShardStateTaskCoalescer.QUEUE_DEPTH_FOR_MAX_WINDOW,
+            submitted,
+            submissions
+        );
+        coalescer.setMaxWindow(TimeValue.timeValueSeconds(1));
+
+        final var threadContext = deterministicTaskQueue.getThreadPool().getThreadContext();
+        final int tasks = between(1, 100);
+        for (int i = 0; i < tasks; i++) {
+            try (var ignored = threadContext.stashContext()) {
+                threadContext.putHeader("test-header", "task-" + i);
+                coalescer.submit("test", new TestTask());
+            }
+        }
+        assertThat(submitted.get(), equalTo(0));
+        assertThat(coalescer.heldTaskCount(), equalTo(tasks));
+
+        deterministicTaskQueue.advanceTime();
+        assertThat(deterministicTaskQueue.getCurrentTimeMillis(), equalTo(1000L));
+        deterministicTaskQueue.runAllRunnableTasks();
+
+        assertThat(submitted.get(), equalTo(tasks));
+        assertThat(coalescer.heldTaskCount(), equalTo(0));
+        assertThat(coalescer.submittedTaskCount(), equalTo((long) tasks));
+        assertThat(coalescer.submissionCount(), equalTo(1L));
+
+        // all the held tasks were submitted together, each restoring the thread context that it was submitted in
+        assertThat(submissions.size(), equalTo(1));
+        final var heldTasks = submissions.get(0);
+        assertThat(heldTasks.size(), equalTo(tasks));
+        for (int i = 0; i < tasks; i++) {
+            assertThat(threadContext.getHeader("test-header"), nullValue());
+            try (var ignored = heldTasks.get(i).storedContext().get()) {
+                assertThat(threadContext.getHeader("test-header"), equalTo("task-" + i));
+            }
+        }
+        assertThat(threadContext.getHeader("test-header"), nullValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ShardStateTaskCoalescer<TestTask> createCoalescer(
+        DeterministicTaskQueue deterministicTaskQueue,
+        int pendingTasks,
+        AtomicInteger submitted,
+        List<List<MasterService.TaskSubmission<TestTask>>> submissions
+    ) {
+        final var masterService = mock(MasterService.class);
+        when(masterService.numberOfPendingTasks()).thenReturn(pendingTasks);
+        doAnswer(invocation -> {
+            final List<MasterService.TaskSubmission<TestTask>> tasks = invocation.getArgument(0);
+            submitted.addAndGet(tasks.size());
+            submissions.add(tasks);
+            return null;
+        }).when(masterService).submitStateUpdateTasks(anyList(), any(), any(ClusterStateTaskExecutor.class));
+        final var clusterService = mock(ClusterService.class);
+        when(clusterService.getMasterService()).thenReturn(masterService);
+        doAnswer(invocation -> {
+            submitted.incrementAndGet();
+            return null;
+        }).when(clusterService).submitStateUpdateTask(anyString(), any(TestTask.class), any(), any(ClusterStateTaskExecutor.class));
+        return new ShardStateTaskCoalescer<>(
+            clusterService,
+            deterministicTaskQueue.getThreadPool(),
+            ClusterStateTaskConfig.build(Priority.URGENT),
+            batchExecutionContext -> batchExecutionContext.initialState()
+        );
+    }
+
+    private static class TestTask implements ClusterStateTaskListener {
+        @Override
+        public void onFailure(Exception e) {
+            throw new AssertionError("unexpected", e);
+        }
+    }
+}
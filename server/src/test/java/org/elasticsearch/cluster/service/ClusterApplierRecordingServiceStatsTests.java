@@ -10,10 +10,14 @@ package org.elasticsearch.cluster.service;
 
 import org.elasticsearch.cluster.service.ClusterApplierRecordingService.Stats;
 import org.elasticsearch.cluster.service.ClusterApplierRecordingService.Stats.Recording;
+import org.elasticsearch.cluster.service.ClusterApplierRecordingService.Stats.SlowApply;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.common.util.Maps;
+import org.elasticsearch.core.Tuple;
 import org.elasticsearch.test.AbstractWireSerializingTestCase;
 
+import java.util.List;
 import java.util.Map;
 
 public class ClusterApplierRecordingServiceStatsTests extends AbstractWireSerializingTestCase<Stats> {
@@ -28,8 +32,29 @@ public class ClusterApplierRecordingServiceStatsTests extends AbstractWireSerial
         int numRecordings = randomInt(256);
         Map<String, Recording> recordings = Maps.newMapWithExpectedSize(numRecordings);
         for (int i = 0; i < numRecordings; i++) {
-            recordings.put(randomAlphaOfLength(16), new Recording(randomNonNegativeLong(), randomNonNegativeLong()));
+            recordings.put(
+                randomAlphaOfLength(16),
+                randomBoolean()
+                    ? new Recording(randomNonNegativeLong(), randomNonNegativeLong())
+                    : new Recording(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomHistogram())
+            );
         }
-        return new Stats(recordings);
+        List<SlowApply> slowApplies = randomList(
+            ClusterApplierRecordingService.MAX_REPORTED_SLOW_APPLIES,
+            () -> new SlowApply(
+                randomAlphaOfLength(16),
+                randomNonNegativeLong(),
+                randomMap(0, 5, () -> Tuple.tuple(randomAlphaOfLength(8), randomNonNegativeLong()))
+            )
+        );
+        return new Stats(recordings, slowApplies);
+    }
+
+    private static long[] randomHistogram() {
+        long[] histogram = new long[HandlingTimeTracker.BUCKET_COUNT];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = randomNonNegativeLong();
+        }
+        return histogram;
     }
 }
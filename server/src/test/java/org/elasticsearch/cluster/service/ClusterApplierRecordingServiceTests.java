@@ -9,14 +9,20 @@
 package org.elasticsearch.cluster.service;
 
 import org.elasticsearch.cluster.service.ClusterApplierRecordingService.Recorder;
-import org.elasticsearch.cluster.service.ClusterApplierRecordingService.Stats.Recording;
+import org.elasticsearch.cluster.service.ClusterApplierRecordingService.Stats;
+import org.elasticsearch.cluster.service.ClusterApplierRecordingService.Stats.SlowApply;
+import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 
 public class ClusterApplierRecordingServiceTests extends ESTestCase {
 
@@ -64,14 +70,14 @@ public class ClusterApplierRecordingServiceTests extends ESTestCase {
             try (var r = recorder.record("action3")) {
                 currentTime[0] = 45;
             }
-            service.updateStats(recorder);
+            service.updateStats("source", 45L, recorder);
             var stats = service.getStats();
             assertThat(
-                stats.getRecordings().entrySet(),
+                countsAndSums(stats),
                 contains(
-                    Map.entry("action2", new Recording(1, 37)),
-                    Map.entry("action1", new Recording(1, 5)),
-                    Map.entry("action3", new Recording(1, 3))
+                    Map.entry("action2", Tuple.tuple(1L, 37L)),
+                    Map.entry("action1", Tuple.tuple(1L, 5L)),
+                    Map.entry("action3", Tuple.tuple(1L, 3L))
                 )
             );
         }
@@ -87,14 +93,14 @@ public class ClusterApplierRecordingServiceTests extends ESTestCase {
             try (var r = recorder.record("action3")) {
                 currentTime[0] = 41;
             }
-            service.updateStats(recorder);
+            service.updateStats("source", 41L, recorder);
             var stats = service.getStats();
             assertThat(
-                stats.getRecordings().entrySet(),
+                countsAndSums(stats),
                 contains(
-                    Map.entry("action2", new Recording(2, 69)),
-                    Map.entry("action3", new Recording(2, 9)),
-                    Map.entry("action1", new Recording(2, 8))
+                    Map.entry("action2", Tuple.tuple(2L, 69L)),
+                    Map.entry("action3", Tuple.tuple(2L, 9L)),
+                    Map.entry("action1", Tuple.tuple(2L, 8L))
                 )
             );
         }
@@ -107,13 +113,69 @@ public class ClusterApplierRecordingServiceTests extends ESTestCase {
             try (var r = recorder.record("action3")) {
                 currentTime[0] = 6;
             }
-            service.updateStats(recorder);
+            service.updateStats("source", 6L, recorder);
             var stats = service.getStats();
             assertThat(
-                stats.getRecordings().entrySet(),
-                contains(Map.entry("action3", new Recording(3, 13)), Map.entry("action1", new Recording(3, 10)))
+                countsAndSums(stats),
+                contains(Map.entry("action3", Tuple.tuple(3L, 13L)), Map.entry("action1", Tuple.tuple(3L, 10L)))
             );
         }
     }
 
+    public void testRecordingServiceMaxAndHistogram() {
+        var service = new ClusterApplierRecordingService();
+        long[] currentTime = new long[1];
+        for (long timeSpent : new long[] { 3, 100, 7 }) {
+            var recorder = new Recorder(() -> currentTime[0]);
+            try (var r = recorder.record("action")) {
+                currentTime[0] += timeSpent;
+            }
+            service.updateStats("source", timeSpent, recorder);
+        }
+
+        var recording = service.getStats().getRecordings().get("action");
+        assertThat(recording.getCount(), equalTo(3L));
+        assertThat(recording.getSum(), equalTo(110L));
+        assertThat(recording.getMax(), equalTo(100L));
+        long[] histogram = recording.getHistogram();
+        assertThat(histogram.length, equalTo(HandlingTimeTracker.BUCKET_COUNT));
+        assertThat(histogram[2], equalTo(1L)); // [2, 4)
+        assertThat(histogram[3], equalTo(1L)); // [4, 8)
+        assertThat(histogram[7], equalTo(1L)); // [64, 128)
+        assertThat(Arrays.stream(histogram).sum(), equalTo(3L));
+    }
+
+    public void testRecordingServiceSlowestRecentApplies() {
+        var service = new ClusterApplierRecordingService();
+        int applies = randomIntBetween(1, ClusterApplierRecordingService.RECENT_APPLIES_CAPACITY * 3);
+        for (int i = 0; i < applies; i++) {
+            long[] currentTime = new long[1];
+            var recorder = new Recorder(() -> currentTime[0]);
+            for (int action = 0; action < ClusterApplierRecordingService.MAX_ACTIONS_PER_SLOW_APPLY + 2; action++) {
+                try (var r = recorder.record("action" + action)) {
+                    currentTime[0] += action;
+                }
+            }
+            service.updateStats("source" + i, i, recorder);
+        }
+
+        List<SlowApply> slowestApplies = service.getStats().getSlowestRecentApplies();
+        int expectedSize = Math.min(applies, ClusterApplierRecordingService.MAX_REPORTED_SLOW_APPLIES);
+        assertThat(slowestApplies, hasSize(expectedSize));
+        for (int i = 0; i < expectedSize; i++) {
+            SlowApply slowApply = slowestApplies.get(i);
+            assertThat(slowApply.getSource(), equalTo("source" + (applies - 1 - i)));
+            assertThat(slowApply.getTotalTimeMillis(), equalTo((long) applies - 1 - i));
+            assertThat(slowApply.getSlowestActions().size(), equalTo(ClusterApplierRecordingService.MAX_ACTIONS_PER_SLOW_APPLY));
+            assertThat(slowApply.getSlowestActions().keySet().iterator().next(), equalTo("action6"));
+        }
+    }
+
+    private static List<Map.Entry<String, Tuple<Long, Long>>> countsAndSums(Stats stats) {
+        return stats.getRecordings()
+            .entrySet()
+            .stream()
+            .map(e -> Map.entry(e.getKey(), Tuple.tuple(e.getValue().getCount(), e.getValue().getSum())))
+            .toList();
+    }
 }
@@ -241,6 +241,35 @@ public class TaskBatcherTests extends TaskExecutorTests {
         latch.await();
     }
 
+    public void testTasksSubmittedTogetherAreExecutedInOneBatch() throws InterruptedException {
+        final int taskCount = between(1, 20);
+        final CountDownLatch latch = new CountDownLatch(taskCount);
+        final List<Integer> tasks = new ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            tasks.add(i);
+        }
+        final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        TestExecutor<Integer> executor = batches::add;
+        final TestListener listener = new TestListener() {
+            @Override
+            public void processed() {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+        final Priority priority = randomFrom(Priority.values());
+        taskBatcher.submitTasks(
+            tasks.stream().map(task -> taskBatcher.new UpdateTask(priority, "test", task, listener, executor)).toList(),
+            null
+        );
+        latch.await();
+        assertThat(batches, equalTo(List.of(tasks)));
+    }
+
     public void testDuplicateSubmission() throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(2);
         try (BlockingTask blockingTask = new BlockingTask(Priority.IMMEDIATE)) {
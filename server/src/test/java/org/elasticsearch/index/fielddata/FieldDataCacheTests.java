@@ -17,22 +17,31 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.plain.PagedBytesIndexFieldData;
 import org.elasticsearch.index.fielddata.plain.SortedSetOrdinalsIndexFieldData;
 import org.elasticsearch.index.mapper.TextFieldMapper;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
 import org.elasticsearch.script.field.DelegateDocValuesField;
 import org.elasticsearch.script.field.ToScriptFieldFactory;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.FieldMaskingReader;
 
+import java.io.IOException;
+
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class FieldDataCacheTests extends ESTestCase {
     private static final ToScriptFieldFactory<SortedSetDocValues> MOCK_TO_SCRIPT_FIELD = (dv, n) -> new DelegateDocValuesField(
@@ -78,6 +87,133 @@ public class FieldDataCacheTests extends ESTestCase {
         dir.close();
     }
 
+    public void testLoadGlobalReusesOrdinalMapOfSameSegments() throws Exception {
+        ShardId shardId = new ShardId("_index", "_na_", 0);
+        ShardFieldData shardFieldData = new ShardFieldData();
+        try (
+            Directory dir = newDirectory();
+            IndexWriter iw = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+            IndicesFieldDataCache indicesCache = new IndicesFieldDataCache(Settings.EMPTY, new IndexFieldDataCache.Listener() {
+            })
+        ) {
+            for (int i = 0; i < 100; i++) {
+                Document doc = new Document();
+                doc.add(new SortedSetDocValuesField("field1", new BytesRef(String.valueOf(i))));
+                doc.add(new StringField("id", String.valueOf(i), Field.Store.NO));
+                iw.addDocument(doc);
+                if (i % 24 == 0) {
+                    iw.commit();
+                }
+            }
+            IndexFieldDataCache cache = indicesCache.buildIndexFieldDataCache(shardFieldData, new Index("_index", "_na_"), "field1", true);
+            SortedSetOrdinalsIndexFieldData fieldData = createSortedDV("field1", cache);
+            DirectoryReader first = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(iw), shardId);
+            IndexOrdinalsFieldData firstGlobal = fieldData.loadGlobal(first);
+
+            // Only deleting docs keeps the segments
+            iw.deleteDocuments(new Term("id", "7"));
+            DirectoryReader second = DirectoryReader.openIfChanged(first, iw);
+            assertThat(second.leaves().size(), equalTo(first.leaves().size()));
+            IndexOrdinalsFieldData secondGlobal = fieldData.loadGlobal(second);
+            assertThat(secondGlobal.getOrdinalMap(), sameInstance(firstGlobal.getOrdinalMap()));
+            first.close();
+
+            // A new segment means new global ordinals
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("field1", new BytesRef("new")));
+            iw.addDocument(doc);
+            DirectoryReader third = DirectoryReader.openIfChanged(second, iw);
+            IndexOrdinalsFieldData thirdGlobal = fieldData.loadGlobal(third);
+            assertThat(thirdGlobal.getOrdinalMap(), not(sameInstance(secondGlobal.getOrdinalMap())));
+            assertThat(thirdGlobal.getOrdinalMap().getValueCount(), equalTo(secondGlobal.getOrdinalMap().getValueCount() + 1));
+            second.close();
+            third.close();
+
+            FieldDataStats.GlobalOrdinalsStats stats = shardFieldData.stats().getGlobalOrdinals();
+            assertThat(stats.getBuildCount(), equalTo(2L));
+            assertThat(stats.getReuseCount(), equalTo(1L));
+        }
+    }
+
+    public void testLoadGlobalRetainsOrdinalMapAfterReaderIsClosed() throws Exception {
+        ShardId shardId = new ShardId("_index", "_na_", 0);
+        ShardFieldData shardFieldData = new ShardFieldData();
+        try (
+            Directory dir = newDirectory();
+            IndicesFieldDataCache indicesCache = new IndicesFieldDataCache(Settings.EMPTY, new IndexFieldDataCache.Listener() {
+            })
+        ) {
+            indexWithSegments(dir);
+            IndexFieldDataCache cache = indicesCache.buildIndexFieldDataCache(shardFieldData, new Index("_index", "_na_"), "field1", true);
+            SortedSetOrdinalsIndexFieldData fieldData = createSortedDV("field1", cache);
+            OrdinalMap ordinalMap;
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), shardId)) {
+                ordinalMap = fieldData.loadGlobal(reader).getOrdinalMap();
+            }
+            // kept after its reader was closed so it stays accounted for
+            assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(ordinalMap.ramBytesUsed()));
+
+            // A reader opened again over the same segments, like frozen indices do for every search, has new core cache keys
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), shardId)) {
+                assertThat(fieldData.loadGlobal(reader).getOrdinalMap(), sameInstance(ordinalMap));
+            }
+            assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(ordinalMap.ramBytesUsed()));
+            FieldDataStats.GlobalOrdinalsStats stats = shardFieldData.stats().getGlobalOrdinals();
+            assertThat(stats.getBuildCount(), equalTo(1L));
+            assertThat(stats.getReuseCount(), equalTo(1L));
+
+            if (randomBoolean()) {
+                cache.clear();
+            } else {
+                cache.onShardClosed(shardId);
+            }
+            assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(0L));
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), shardId)) {
+                assertThat(fieldData.loadGlobal(reader).getOrdinalMap(), not(sameInstance(ordinalMap)));
+            }
+        }
+    }
+
+    public void testLoadGlobalDoesNotRetainOrdinalMapUnlessEnabled() throws Exception {
+        ShardId shardId = new ShardId("_index", "_na_", 0);
+        ShardFieldData shardFieldData = new ShardFieldData();
+        try (
+            Directory dir = newDirectory();
+            IndicesFieldDataCache indicesCache = new IndicesFieldDataCache(Settings.EMPTY, new IndexFieldDataCache.Listener() {
+            })
+        ) {
+            indexWithSegments(dir);
+            IndexFieldDataCache cache = indicesCache.buildIndexFieldDataCache(shardFieldData, new Index("_index", "_na_"), "field1");
+            SortedSetOrdinalsIndexFieldData fieldData = createSortedDV("field1", cache);
+            OrdinalMap ordinalMap;
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), shardId)) {
+                ordinalMap = fieldData.loadGlobal(reader).getOrdinalMap();
+            }
+            assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(0L));
+
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), shardId)) {
+                assertThat(fieldData.loadGlobal(reader).getOrdinalMap(), not(sameInstance(ordinalMap)));
+            }
+            assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(0L));
+            FieldDataStats.GlobalOrdinalsStats stats = shardFieldData.stats().getGlobalOrdinals();
+            assertThat(stats.getBuildCount(), equalTo(2L));
+            assertThat(stats.getReuseCount(), equalTo(0L));
+        }
+    }
+
+    private static void indexWithSegments(Directory dir) throws IOException {
+        try (IndexWriter iw = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE))) {
+            for (int i = 0; i < 100; i++) {
+                Document doc = new Document();
+                doc.add(new SortedSetDocValuesField("field1", new BytesRef(String.valueOf(i))));
+                iw.addDocument(doc);
+                if (i % 24 == 0) {
+                    iw.commit();
+                }
+            }
+        }
+    }
+
     private SortedSetOrdinalsIndexFieldData createSortedDV(String fieldName, IndexFieldDataCache indexFieldDataCache) {
         return new SortedSetOrdinalsIndexFieldData(
             indexFieldDataCache,
@@ -7,11 +7,13 @@
  */
 package org.elasticsearch.index.fielddata;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.FieldMemoryStatsTests;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 
 import java.io.IOException;
 
@@ -19,7 +21,7 @@ public class FieldDataStatsTests extends ESTestCase {
 
     public void testSerialize() throws IOException {
         FieldMemoryStats map = randomBoolean() ? null : FieldMemoryStatsTests.randomFieldMemoryStats();
-        FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), map);
+        FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), map, randomGlobalOrdinalsStats());
         BytesStreamOutput out = new BytesStreamOutput();
         stats.writeTo(out);
         StreamInput input = out.bytes().streamInput();
@@ -28,5 +30,33 @@ public class FieldDataStatsTests extends ESTestCase {
         assertEquals(stats.getEvictions(), read.getEvictions());
         assertEquals(stats.getMemorySize(), read.getMemorySize());
         assertEquals(stats.getFields(), read.getFields());
+        assertEquals(stats.getGlobalOrdinals(), read.getGlobalOrdinals());
+    }
+
+    public void testSerializeBeforeGlobalOrdinalsStats() throws IOException {
+        FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), null, randomGlobalOrdinalsStats());
+        BytesStreamOutput out = new BytesStreamOutput();
+        Version version = VersionUtils.randomPreviousCompatibleVersion(random(), Version.V_8_7_0);
+        out.setVersion(version);
+        stats.writeTo(out);
+        StreamInput input = out.bytes().streamInput();
+        input.setVersion(version);
+        FieldDataStats read = new FieldDataStats(input);
+        assertEquals(-1, input.read());
+        assertEquals(stats.getEvictions(), read.getEvictions());
+        assertEquals(stats.getMemorySize(), read.getMemorySize());
+        assertEquals(new FieldDataStats.GlobalOrdinalsStats(), read.getGlobalOrdinals());
+    }
+
+    public void testAdd() {
+        FieldDataStats stats = new FieldDataStats(1, 2, null, new FieldDataStats.GlobalOrdinalsStats(3, 4, 5));
+        stats.add(new FieldDataStats(10, 20, null, new FieldDataStats.GlobalOrdinalsStats(30, 40, 50)));
+        assertEquals(11, stats.getMemorySizeInBytes());
+        assertEquals(22, stats.getEvictions());
+        assertEquals(new FieldDataStats.GlobalOrdinalsStats(33, 44, 55), stats.getGlobalOrdinals());
+    }
+
+    private static FieldDataStats.GlobalOrdinalsStats randomGlobalOrdinalsStats() {
+        return new FieldDataStats.GlobalOrdinalsStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
     }
 }
@@ -30,6 +30,7 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class MapperServiceTests extends MapperServiceTestCase {
 
@@ -52,6 +53,20 @@ public class MapperServiceTests extends MapperServiceTestCase {
         assertThat(oldLookup.fieldTypesLookup().get("cat"), nullValue());
     }
 
+    public void testMergeSharesEqualMappingSource() throws IOException {
+        MapperService source = createMapperService(mapping(b -> b.startObject("cat").field("type", "keyword").endObject()));
+        CompressedXContent mappingSource = source.documentMapper().mappingSource();
+
+        MapperService target = createMapperService(mapping(b -> {}));
+        DocumentMapper merged = target.merge(MapperService.SINGLE_MAPPING_NAME, mappingSource, MergeReason.MAPPING_RECOVERY);
+        assertThat(merged.mappingSource(), sameInstance(mappingSource));
+
+        // recovering into a mapper service without mappings takes the source as is, without serializing the mapping again
+        MapperService recovered = createMapperService(Version.CURRENT, getIndexSettings(), () -> true);
+        merged = recovered.merge(MapperService.SINGLE_MAPPING_NAME, mappingSource, MergeReason.MAPPING_RECOVERY);
+        assertThat(merged.mappingSource(), sameInstance(mappingSource));
+    }
+
     /**
      * Test that we can have at least the number of fields in new mappings that are defined by "index.mapping.total_fields.limit".
      * Any additional field should trigger an IllegalArgumentException.
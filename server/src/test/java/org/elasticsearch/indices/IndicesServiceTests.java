@@ -22,9 +22,11 @@ import org.elasticsearch.cluster.metadata.IndexGraveyard;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.TimeValue;
@@ -58,7 +60,9 @@ import org.elasticsearch.indices.IndicesService.ShardDeletionCheckResult;
 import org.elasticsearch.plugins.EnginePlugin;
 import org.elasticsearch.plugins.MapperPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.plugins.SearchPlugin;
 import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
 import org.elasticsearch.test.hamcrest.RegexMatcher;
@@ -175,7 +179,7 @@ public class IndicesServiceTests extends ESSingleNodeTestCase {
 
     }
 
-    public static class TestPlugin extends Plugin implements MapperPlugin {
+    public static class TestPlugin extends Plugin implements MapperPlugin, SearchPlugin {
 
         public TestPlugin() {}
 
@@ -189,6 +193,15 @@ public class IndicesServiceTests extends ESSingleNodeTestCase {
             super.onIndexModule(indexModule);
             indexModule.addSimilarity("fake-similarity", (settings, indexCreatedVersion, scriptService) -> new BM25Similarity());
         }
+
+        @Override
+        public CheckedBiConsumer<ShardSearchRequest, StreamOutput, IOException> getRequestCacheKeyDifferentiator() {
+            return (request, out) -> {
+                if (request.shardId().getIndexName().startsWith("differentiated")) {
+                    out.writeString("differentiated");
+                }
+            };
+        }
     }
 
     @Override
@@ -743,4 +756,12 @@ public class IndicesServiceTests extends ESSingleNodeTestCase {
             assertThat(filter.should(), containsInAnyOrder(QueryBuilders.termQuery("foo", "baz"), QueryBuilders.termQuery("foo", "bar")));
         }
     }
+
+    public void testHasRequestCacheKeyDifferentiation() throws IOException {
+        IndicesService indicesService = getIndicesService();
+        ShardId shardId = new ShardId("differentiated", "_na_", 0);
+        assertTrue(indicesService.hasRequestCacheKeyDifferentiation(new ShardSearchRequest(shardId, 0L, AliasFilter.EMPTY)));
+        shardId = new ShardId("plain", "_na_", 0);
+        assertFalse(indicesService.hasRequestCacheKeyDifferentiation(new ShardSearchRequest(shardId, 0L, AliasFilter.EMPTY)));
+    }
 }
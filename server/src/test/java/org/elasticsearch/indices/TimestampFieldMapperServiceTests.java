@@ -0,0 +1,115 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.MapperTestUtils;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TimestampFieldMapperServiceTests extends ESTestCase {
+
+    private static final String MAPPING = """
+        {"_doc":{"properties":{"@timestamp":{"type":"date"}}}}""";
+
+    public void testSharesFieldTypeOfIndicesWithIdenticalMappings() throws Exception {
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        final IndicesService indicesService = mock(IndicesService.class);
+        final AtomicInteger mapperServices = new AtomicInteger();
+        when(indicesService.createIndexMapperServiceForValidation(any())).thenAnswer(invocation -> {
+            mapperServices.incrementAndGet();
+            final String indexName = ((IndexMetadata) invocation.getArgument(0)).getIndex().getName();
+            return MapperTestUtils.newMapperService(xContentRegistry(), createTempDir(), Settings.EMPTY, indexName);
+        });
+        final TimestampFieldMapperService service = new TimestampFieldMapperService(
+            Settings.builder().put(Node.NODE_NAME_SETTING.getKey(), "node").build(),
+            threadPool,
+            indicesService
+        );
+        service.start();
+        try {
+            final List<IndexMetadata> indices = new ArrayList<>();
+            for (int i = between(2, 5); i > 0; i--) {
+                indices.add(indexMetadata("index-" + i));
+            }
+            final ClusterState empty = ClusterState.builder(ClusterName.DEFAULT).build();
+            final ClusterState state = clusterState(indices);
+            service.applyClusterState(new ClusterChangedEvent("test", state, empty));
+            assertBusy(() -> {
+                for (IndexMetadata indexMetadata : indices) {
+                    assertThat(service.getTimestampFieldType(indexMetadata.getIndex()), notNullValue());
+                }
+            });
+            final DateFieldMapper.DateFieldType fieldType = service.getTimestampFieldType(indices.get(0).getIndex());
+            for (IndexMetadata indexMetadata : indices) {
+                assertThat(service.getTimestampFieldType(indexMetadata.getIndex()), sameInstance(fieldType));
+            }
+            assertThat(mapperServices.get(), equalTo(1));
+
+            // once no index uses the shared field type anymore it is dropped rather than handed out to new indices
+            service.applyClusterState(new ClusterChangedEvent("test", empty, state));
+            assertThat(service.getTimestampFieldType(indices.get(0).getIndex()), nullValue());
+            final IndexMetadata other = indexMetadata("other");
+            service.applyClusterState(new ClusterChangedEvent("test", clusterState(List.of(other)), empty));
+            assertBusy(() -> assertThat(service.getTimestampFieldType(other.getIndex()), notNullValue()));
+            assertThat(service.getTimestampFieldType(other.getIndex()), not(sameInstance(fieldType)));
+            assertThat(mapperServices.get(), equalTo(2));
+        } finally {
+            service.stop();
+            service.close();
+            terminate(threadPool);
+        }
+    }
+
+    private static IndexMetadata indexMetadata(String name) {
+        return IndexMetadata.builder(name)
+            .settings(
+                Settings.builder()
+                    .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexMetadata.SETTING_INDEX_UUID, UUIDs.randomBase64UUID())
+            )
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .putMapping(MAPPING)
+            .timestampRange(IndexLongFieldRange.EMPTY)
+            .build();
+    }
+
+    private static ClusterState clusterState(List<IndexMetadata> indices) {
+        final Metadata.Builder metadata = Metadata.builder();
+        for (IndexMetadata indexMetadata : indices) {
+            metadata.put(indexMetadata, false);
+        }
+        return ClusterState.builder(ClusterName.DEFAULT).metadata(metadata).build();
+    }
+}
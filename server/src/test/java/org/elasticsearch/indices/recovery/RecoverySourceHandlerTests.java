@@ -15,11 +15,13 @@ import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.tests.index.RandomIndexWriter;
 import org.apache.lucene.tests.store.BaseDirectoryWrapper;
 import org.apache.lucene.util.SetOnce;
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
@@ -115,10 +117,14 @@ import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -223,6 +229,186 @@ public class RecoverySourceHandlerTests extends MapperServiceTestCase {
         IOUtils.close(reader, store, multiFileWriter, targetStore);
     }
 
+    public void testSendFilesConcurrently() throws Throwable {
+        final int maxConcurrentFiles = between(2, 8);
+        final RecoverySettings recoverySettings = new RecoverySettings(
+            Settings.builder().put(RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING.getKey(), maxConcurrentFiles).build(),
+            service
+        );
+        final StartRecoveryRequest request = getStartRecoveryRequest();
+        Store store = newStore(createTempDir());
+        Directory dir = store.directory();
+        RandomIndexWriter writer = new RandomIndexWriter(random(), dir, newIndexWriterConfig());
+        int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+            document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 10), TextField.TYPE_STORED));
+            writer.addDocument(document);
+        }
+        writer.commit();
+        writer.close();
+
+        Store.MetadataSnapshot metadata = store.getMetadata(null);
+        List<StoreFileMetadata> metas = new ArrayList<>();
+        for (StoreFileMetadata md : metadata) {
+            metas.add(md);
+        }
+        assertThat(metas.size(), greaterThan(1));
+        final int expectedStreams = Math.min(maxConcurrentFiles, metas.size());
+
+        // hold back the responses to every chunk until chunks of as many distinct files as there are streams are in flight, which can
+        // only happen if the files are sent concurrently
+        final Set<String> filesInFlight = new HashSet<>();
+        final List<Runnable> pendingResponses = new ArrayList<>();
+        final AtomicBoolean releaseResponses = new AtomicBoolean();
+        final AtomicInteger maxFilesInFlight = new AtomicInteger();
+        Store targetStore = newStore(createTempDir());
+        MultiFileWriter multiFileWriter = new MultiFileWriter(targetStore, mock(RecoveryState.Index.class), "", logger, () -> {});
+        RecoveryTargetHandler target = new TestRecoveryTargetHandler() {
+            @Override
+            public void writeFileChunk(
+                StoreFileMetadata md,
+                long position,
+                ReleasableBytesReference content,
+                boolean lastChunk,
+                int totalTranslogOps,
+                ActionListener<Void> listener
+            ) {
+                try {
+                    multiFileWriter.writeFileChunk(md, position, content, lastChunk);
+                } catch (Exception e) {
+                    listener.onFailure(e);
+                    return;
+                }
+                final List<Runnable> toRun;
+                synchronized (pendingResponses) {
+                    pendingResponses.add(() -> listener.onResponse(null));
+                    if (releaseResponses.get() == false) {
+                        filesInFlight.add(md.name());
+                        maxFilesInFlight.accumulateAndGet(filesInFlight.size(), Math::max);
+                        if (filesInFlight.size() < expectedStreams) {
+                            return;
+                        }
+                        releaseResponses.set(true);
+                    }
+                    toRun = new ArrayList<>(pendingResponses);
+                    pendingResponses.clear();
+                }
+                toRun.forEach(Runnable::run);
+            }
+        };
+        RecoverySourceHandler handler = new RecoverySourceHandler(
+            null,
+            new AsyncRecoveryTarget(target, recoveryExecutor),
+            threadPool,
+            request,
+            recoverySettings,
+            recoveryPlannerService
+        );
+        PlainActionFuture<Void> sendFilesFuture = new PlainActionFuture<>();
+        handler.sendFiles(store, metas.toArray(new StoreFileMetadata[0]), () -> 0, sendFilesFuture);
+        sendFilesFuture.actionGet(TimeValue.timeValueSeconds(30));
+        assertThat(maxFilesInFlight.get(), equalTo(expectedStreams));
+        Store.MetadataSnapshot targetStoreMetadata = targetStore.getMetadata(null);
+        Store.RecoveryDiff recoveryDiff = targetStoreMetadata.recoveryDiff(metadata);
+        assertEquals(metas.size(), recoveryDiff.identical.size());
+        assertEquals(0, recoveryDiff.different.size());
+        assertEquals(0, recoveryDiff.missing.size());
+        IndexReader reader = DirectoryReader.open(targetStore.directory());
+        assertEquals(numDocs, reader.maxDoc());
+        IOUtils.close(reader, store, multiFileWriter, targetStore);
+    }
+
+    public void testSendFilesConcurrentlyStopsStreamsOnFirstFailure() throws Exception {
+        final RecoverySettings recoverySettings = new RecoverySettings(
+            Settings.builder()
+                .put(RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING.getKey(), 2)
+                .put(RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING.getKey(), 1)
+                .build(),
+            service
+        );
+        final StartRecoveryRequest request = getStartRecoveryRequest();
+        Store store = newStore(createTempDir());
+        // several segments that are not merged and not compound so that each stream has many files to send
+        RandomIndexWriter writer = new RandomIndexWriter(
+            random(),
+            store.directory(),
+            newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE).setUseCompoundFile(false)
+        );
+        for (int segment = 0; segment < 5; segment++) {
+            for (int i = between(1, 10); i > 0; i--) {
+                Document document = new Document();
+                document.add(new StringField("id", UUIDs.randomBase64UUID(), Field.Store.YES));
+                document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 10), TextField.TYPE_STORED));
+                writer.addDocument(document);
+            }
+            writer.commit();
+        }
+        writer.close();
+
+        List<StoreFileMetadata> metas = new ArrayList<>();
+        for (StoreFileMetadata md : store.getMetadata(null)) {
+            metas.add(md);
+        }
+
+        final Set<String> filesSent = ConcurrentCollections.newConcurrentSet();
+        final List<ActionListener<Void>> heldResponses = Collections.synchronizedList(new ArrayList<>());
+        final AtomicBoolean holdResponses = new AtomicBoolean(true);
+        RecoveryTargetHandler target = new TestRecoveryTargetHandler() {
+            @Override
+            public void writeFileChunk(
+                StoreFileMetadata md,
+                long position,
+                ReleasableBytesReference content,
+                boolean lastChunk,
+                int totalTranslogOps,
+                ActionListener<Void> listener
+            ) {
+                filesSent.add(md.name());
+                synchronized (heldResponses) {
+                    if (holdResponses.get()) {
+                        heldResponses.add(listener);
+                        return;
+                    }
+                }
+                listener.onResponse(null);
+            }
+        };
+        RecoverySourceHandler handler = new RecoverySourceHandler(
+            null,
+            new AsyncRecoveryTarget(target, recoveryExecutor),
+            threadPool,
+            request,
+            recoverySettings,
+            recoveryPlannerService
+        );
+        final int storeRefs = store.refCount();
+        PlainActionFuture<Void> sendFilesFuture = new PlainActionFuture<>();
+        handler.sendFiles(store, metas.toArray(new StoreFileMetadata[0]), () -> 0, sendFilesFuture);
+
+        // both streams have a chunk in flight, fail one of them and wait for that stream to release the store
+        assertBusy(() -> assertThat(heldResponses.size(), equalTo(2)));
+        assertThat(store.refCount(), equalTo(storeRefs + 2));
+        heldResponses.get(0).onFailure(new ElasticsearchException("simulated"));
+        assertBusy(() -> assertThat(store.refCount(), equalTo(storeRefs + 1)));
+        final List<ActionListener<Void>> toRelease;
+        synchronized (heldResponses) {
+            holdResponses.set(false);
+            toRelease = new ArrayList<>(heldResponses.subList(1, heldResponses.size()));
+        }
+        toRelease.forEach(listener -> listener.onResponse(null));
+
+        ElasticsearchException e = expectThrows(
+            ElasticsearchException.class,
+            () -> sendFilesFuture.actionGet(TimeValue.timeValueSeconds(30))
+        );
+        assertThat(e.getMessage(), equalTo("simulated"));
+        assertThat(filesSent.size(), lessThan(metas.size()));
+        assertBusy(() -> assertThat(store.refCount(), equalTo(storeRefs)));
+        IOUtils.close(store);
+    }
+
     public StartRecoveryRequest getStartRecoveryRequest() throws IOException {
         Store.MetadataSnapshot metadataSnapshot = randomBoolean()
             ? Store.MetadataSnapshot.EMPTY
@@ -1270,6 +1456,85 @@ public class RecoverySourceHandlerTests extends MapperServiceTestCase {
         }
     }
 
+    public void testSourceFilesAreSentWhileDownloadingSnapshotFiles() throws Exception {
+        try (Store store = newStore(createTempDir("source"), false)) {
+            IndexShard shard = mock(IndexShard.class);
+            when(shard.store()).thenReturn(store);
+            when(shard.state()).thenReturn(IndexShardState.STARTED);
+
+            final ShardRecoveryPlan shardRecoveryPlan = createShardRecoveryPlan(store, randomIntBetween(1, 10), randomIntBetween(1, 10));
+            final Set<String> sourceFilesToRecover = shardRecoveryPlan.getSourceFilesToRecover()
+                .stream()
+                .map(StoreFileMetadata::name)
+                .collect(Collectors.toSet());
+
+            List<RecoverSnapshotFileResponse> unrespondedRecoverSnapshotFiles = new CopyOnWriteArrayList<>();
+            Set<String> filesRecoveredFromSource = ConcurrentCollections.newConcurrentSet();
+            TestRecoveryTargetHandler recoveryTarget = new Phase1RecoveryTargetHandler() {
+                @Override
+                public void restoreFileFromSnapshot(
+                    String repository,
+                    IndexId indexId,
+                    BlobStoreIndexShardSnapshot.FileInfo snapshotFile,
+                    ActionListener<Void> listener
+                ) {
+                    unrespondedRecoverSnapshotFiles.add(new RecoverSnapshotFileResponse(snapshotFile, listener));
+                }
+
+                @Override
+                public void writeFileChunk(
+                    StoreFileMetadata fileMetadata,
+                    long position,
+                    ReleasableBytesReference content,
+                    boolean lastChunk,
+                    int totalTranslogOps,
+                    ActionListener<Void> listener
+                ) {
+                    if (lastChunk) {
+                        filesRecoveredFromSource.add(fileMetadata.name());
+                    }
+                    listener.onResponse(null);
+                }
+            };
+
+            RecoverySourceHandler handler = new RecoverySourceHandler(
+                shard,
+                new AsyncRecoveryTarget(recoveryTarget, threadPool.generic()),
+                threadPool,
+                getStartRecoveryRequest(),
+                between(1, 16),
+                between(1, 4),
+                between(1, 4),
+                between(1, 4),
+                true,
+                null
+            ) {
+                @Override
+                void createRetentionLease(long startingSeqNo, ActionListener<RetentionLease> listener) {
+                    listener.onResponse(new RetentionLease("id", startingSeqNo, 0, "test"));
+                }
+            };
+
+            PlainActionFuture<RecoverySourceHandler.SendFileResult> future = PlainActionFuture.newFuture();
+            handler.recoverFilesFromSourceAndSnapshot(shardRecoveryPlan, store, mock(StopWatch.class), future);
+
+            // all the files that are not in the snapshot are sent while the snapshot files are still being downloaded
+            assertBusy(() -> assertThat(filesRecoveredFromSource, equalTo(sourceFilesToRecover)));
+            assertThat(unrespondedRecoverSnapshotFiles, not(empty()));
+            assertThat(future.isDone(), is(false));
+
+            assertBusy(() -> {
+                for (RecoverSnapshotFileResponse response : unrespondedRecoverSnapshotFiles) {
+                    unrespondedRecoverSnapshotFiles.remove(response);
+                    response.listener.onResponse(null);
+                }
+                assertThat(future.isDone(), is(true));
+            });
+            future.actionGet();
+            assertThat(filesRecoveredFromSource, equalTo(sourceFilesToRecover));
+        }
+    }
+
     public void testSnapshotFilesRequestAreSentConcurrently() throws Exception {
         try (Store store = newStore(createTempDir("source"), false)) {
             IndexShard shard = mock(IndexShard.class);
@@ -0,0 +1,66 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SharedBandwidthRateLimiterTests extends ESTestCase {
+
+    // high enough for the pauses of the tests to be negligible
+    private static final double TOTAL_MB_PER_SEC = 1_000_000.0;
+
+    public void testBandwidthIsSharedWhileBothAreActive() throws IOException {
+        final AtomicLong nanos = new AtomicLong(randomLong());
+        final double share = randomDoubleBetween(0.1, 0.9, true);
+        final SharedBandwidthRateLimiter[] rateLimiters = SharedBandwidthRateLimiter.create(TOTAL_MB_PER_SEC, share, nanos::get);
+        final SharedBandwidthRateLimiter first = rateLimiters[0];
+        final SharedBandwidthRateLimiter second = rateLimiters[1];
+
+        // the only active traffic uses the whole bandwidth
+        first.pause(1L);
+        assertThat(first.getMBPerSec(), equalTo(TOTAL_MB_PER_SEC));
+
+        // once both are active each gets its share
+        second.pause(1L);
+        assertThat(second.getMBPerSec(), closeTo(TOTAL_MB_PER_SEC * share, 0.001));
+        first.pause(1L);
+        assertThat(first.getMBPerSec(), closeTo(TOTAL_MB_PER_SEC * (1.0 - share), 0.001));
+
+        // changing the share applies to both
+        final double newShare = randomDoubleBetween(0.1, 0.9, true);
+        first.setShare(1.0 - newShare);
+        second.setShare(newShare);
+        assertThat(first.getMBPerSec(), closeTo(TOTAL_MB_PER_SEC * (1.0 - newShare), 0.001));
+        assertThat(second.getMBPerSec(), closeTo(TOTAL_MB_PER_SEC * newShare, 0.001));
+
+        // once the second is idle the first gets the whole bandwidth back
+        nanos.addAndGet(SharedBandwidthRateLimiter.ACTIVITY_WINDOW_NANOS);
+        first.pause(1L);
+        assertThat(first.getMBPerSec(), equalTo(TOTAL_MB_PER_SEC));
+    }
+
+    public void testUpdateTotalBandwidth() throws IOException {
+        final AtomicLong nanos = new AtomicLong(randomLong());
+        final SharedBandwidthRateLimiter[] rateLimiters = SharedBandwidthRateLimiter.create(TOTAL_MB_PER_SEC, 0.5, nanos::get);
+        rateLimiters[0].pause(1L);
+        rateLimiters[1].pause(1L);
+
+        final double newTotal = TOTAL_MB_PER_SEC * 2;
+        rateLimiters[0].setMBPerSec(newTotal);
+        rateLimiters[1].setMBPerSec(newTotal);
+        assertThat(rateLimiters[0].getMBPerSec(), closeTo(newTotal / 2, 0.001));
+        assertThat(rateLimiters[1].getMBPerSec(), closeTo(newTotal / 2, 0.001));
+    }
+}
@@ -20,11 +20,16 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.core.Streams;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.TestEnvironment;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
@@ -46,19 +51,32 @@ import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+import org.elasticsearch.xcontent.XContentParser;
+import org.elasticsearch.xcontent.XContentParserConfiguration;
+import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.elasticsearch.repositories.RepositoryDataTests.generateRandomRepoData;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
@@ -66,6 +84,7 @@ import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
 
@@ -213,6 +232,104 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
         assertThat(repository.readSnapshotIndexLatestBlob(), equalTo(expectedGeneration + 2L));
     }
 
+    public void testRepositoryDataInputStream() throws Exception {
+        final RepositoryData repositoryData = generateRandomRepoData();
+        final boolean compressed = randomBoolean();
+        final BytesStreamOutput out = new BytesStreamOutput();
+        try (
+            XContentBuilder builder = XContentFactory.jsonBuilder(
+                compressed ? CompressorFactory.COMPRESSOR.threadLocalOutputStream(out) : Streams.noCloseStream(out)
+            )
+        ) {
+            repositoryData.snapshotsToXContent(builder, Version.CURRENT);
+        }
+        assertThat(CompressorFactory.COMPRESSOR.isCompressed(out.bytes()), equalTo(compressed));
+        try (
+            InputStream blob = BlobStoreRepository.repositoryDataInputStream(out.bytes().streamInput());
+            XContentParser parser = XContentType.JSON.xContent()
+                .createParser(XContentParserConfiguration.EMPTY.withDeprecationHandler(LoggingDeprecationHandler.INSTANCE), blob)
+        ) {
+            assertThat(RepositoryData.snapshotsFromXContent(parser, repositoryData.getGenId(), false), equalTo(repositoryData));
+        }
+    }
+
+    public void testNextDeleteBatch() {
+        final int blobCount = between(0, BlobStoreRepository.DELETE_BATCH_SIZE * 3);
+        final List<String> blobs = IntStream.range(0, blobCount).mapToObj(i -> "blob-" + i).toList();
+        final Iterator<String> iterator = blobs.iterator();
+        final List<String> deleted = new ArrayList<>();
+        List<String> batch;
+        while ((batch = BlobStoreRepository.nextDeleteBatch(iterator)).isEmpty() == false) {
+            assertThat(batch.size(), lessThanOrEqualTo(BlobStoreRepository.DELETE_BATCH_SIZE));
+            if (iterator.hasNext()) {
+                assertThat(batch.size(), equalTo(BlobStoreRepository.DELETE_BATCH_SIZE));
+            }
+            deleted.addAll(batch);
+        }
+        assertThat(deleted, equalTo(blobs));
+    }
+
+    public void testDeleteInBatchesRunsWorkersConcurrently() throws Exception {
+        final int workers = between(2, 4);
+        final int blobCount = between(BlobStoreRepository.DELETE_BATCH_SIZE * workers + 1, BlobStoreRepository.DELETE_BATCH_SIZE * 8);
+        final List<String> blobs = IntStream.range(0, blobCount).mapToObj(i -> "blob-" + i).toList();
+        final Set<String> deleted = ConcurrentCollections.newConcurrentSet();
+        final AtomicInteger deleteCalls = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        // every worker deletes its first batch only once all the workers hold a batch, so this only completes if they run concurrently
+        final CountDownLatch allWorkersStarted = new CountDownLatch(workers);
+        final PlainActionFuture<Long> future = new PlainActionFuture<>();
+        BlobStoreRepository.deleteInBatches(blobs.iterator(), workers, getInstanceFromNode(ThreadPool.class).generic(), batch -> {
+            deleteCalls.incrementAndGet();
+            assertThat(inFlight.incrementAndGet(), lessThanOrEqualTo(workers));
+            allWorkersStarted.countDown();
+            try {
+                assertTrue(allWorkersStarted.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            for (String blob : batch) {
+                assertTrue("blob [" + blob + "] deleted twice", deleted.add(blob));
+            }
+            inFlight.decrementAndGet();
+        }, e -> { throw new AssertionError(e); }, future);
+
+        assertThat(future.actionGet(10, TimeUnit.SECONDS), equalTo((long) blobCount));
+        assertThat(deleted, equalTo(Set.copyOf(blobs)));
+        final int batchCount = (blobCount + BlobStoreRepository.DELETE_BATCH_SIZE - 1) / BlobStoreRepository.DELETE_BATCH_SIZE;
+        assertThat(deleteCalls.get(), equalTo(batchCount));
+    }
+
+    public void testDeleteInBatchesContinuesAfterFailedBatch() {
+        final int blobCount = between(BlobStoreRepository.DELETE_BATCH_SIZE + 1, BlobStoreRepository.DELETE_BATCH_SIZE * 5);
+        final int batchCount = (blobCount + BlobStoreRepository.DELETE_BATCH_SIZE - 1) / BlobStoreRepository.DELETE_BATCH_SIZE;
+        final int failingBatch = between(0, batchCount - 1);
+        final List<String> blobs = IntStream.range(0, blobCount).mapToObj(i -> "blob-" + i).toList();
+        final List<String> deleted = new ArrayList<>();
+        final List<String> notDeleted = new ArrayList<>();
+        final List<Exception> failures = new ArrayList<>();
+        final AtomicInteger batchIndex = new AtomicInteger();
+        final PlainActionFuture<Long> future = new PlainActionFuture<>();
+        BlobStoreRepository.deleteInBatches(blobs.iterator(), between(1, 3), Runnable::run, batch -> {
+            if (batchIndex.getAndIncrement() == failingBatch) {
+                notDeleted.addAll(batch);
+                throw new IOException("simulated");
+            }
+            deleted.addAll(batch);
+        }, failures::add, future);
+
+        assertTrue(future.isDone());
+        assertThat(future.actionGet(), equalTo((long) deleted.size()));
+        assertThat(batchIndex.get(), equalTo(batchCount));
+        assertThat(failures, hasSize(1));
+        assertThat(failures.get(0).getMessage(), equalTo("simulated"));
+        final List<String> attempted = new ArrayList<>(deleted);
+        attempted.addAll(notDeleted);
+        assertThat(attempted.size(), equalTo(blobCount));
+        assertThat(Set.copyOf(attempted), equalTo(Set.copyOf(blobs)));
+        assertFalse(notDeleted.isEmpty());
+    }
+
     public void testCorruptIndexLatestFile() throws Exception {
         final BlobStoreRepository repository = setupRepo();
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class DocBlockCollectorTests extends ESTestCase {
+
+    public void testCollectsAllDocsInBlocks() throws IOException {
+        try (Directory directory = newDirectory()) {
+            final int numDocs = between(1, 1000);
+            try (RandomIndexWriter iw = new RandomIndexWriter(random(), directory)) {
+                for (int i = 0; i < numDocs; i++) {
+                    iw.addDocument(new Document());
+                    if (rarely()) {
+                        iw.commit();
+                    }
+                }
+            }
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                final List<Integer> collected = new ArrayList<>();
+                final List<Integer> blockSizes = new ArrayList<>();
+                final BucketCollector bucketCollector = new BucketCollector() {
+                    @Override
+                    public LeafBucketCollector getLeafCollector(AggregationExecutionContext aggCtx) {
+                        final int docBase = aggCtx.getLeafReaderContext().docBase;
+                        return new LeafBucketCollector() {
+                            @Override
+                            public void collect(int doc, long owningBucketOrd) {
+                                fail("docs should be collected in blocks");
+                            }
+
+                            @Override
+                            public void collect(int[] docs, int count, long owningBucketOrd) {
+                                assertThat(owningBucketOrd, equalTo(0L));
+                                blockSizes.add(count);
+                                for (int i = 0; i < count; i++) {
+                                    collected.add(docBase + docs[i]);
+                                }
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void preCollection() {}
+
+                    @Override
+                    public void postCollection() {}
+
+                    @Override
+                    public ScoreMode scoreMode() {
+                        return ScoreMode.COMPLETE_NO_SCORES;
+                    }
+                };
+
+                final DocBlockCollector docBlockCollector = new DocBlockCollector(bucketCollector);
+                new IndexSearcher(reader).search(new MatchAllDocsQuery(), docBlockCollector);
+                docBlockCollector.finish();
+
+                assertThat(collected.size(), equalTo(numDocs));
+                for (int i = 0; i < numDocs; i++) {
+                    assertThat(collected.get(i), equalTo(i));
+                }
+                for (int blockSize : blockSizes) {
+                    assertThat(blockSize, lessThanOrEqualTo(DocBlockCollector.BLOCK_SIZE));
+                }
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchModule;
@@ -25,16 +26,21 @@ import org.elasticsearch.search.aggregations.bucket.histogram.InternalDateHistog
 import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTermsTests;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValueTests;
 import org.elasticsearch.search.aggregations.pipeline.MaxBucketPipelineAggregationBuilder;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.InternalAggregationTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static java.util.Collections.singletonList;
@@ -84,6 +90,67 @@ public class InternalAggregationsTests extends ESTestCase {
         assertThat(reduced.asList(), equalTo(reduced(7, 12, 2, 3, 2, 1).asList()));
     }
 
+    public void testParallelReduce() {
+        int aggCount = between(2, 20);
+        AggregatorFactories.Builder builders = new AggregatorFactories.Builder();
+        List<InternalAggregation> shard1 = new ArrayList<>();
+        List<InternalAggregation> shard2 = new ArrayList<>();
+        for (int i = 0; i < aggCount; i++) {
+            builders.addAggregator(new MaxAggregationBuilder("max" + i));
+            shard1.add(new Max("max" + i, randomDouble(), DocValueFormat.RAW, null));
+            shard2.add(new Max("max" + i, randomDouble(), DocValueFormat.RAW, null));
+        }
+        List<InternalAggregations> toReduce = List.of(InternalAggregations.from(shard1), InternalAggregations.from(shard2));
+        InternalAggregations serial = InternalAggregations.topLevelReduce(
+            toReduce,
+            new AggregationReduceContext.ForFinal(null, null, () -> false, builders, b -> {})
+        );
+
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            InternalAggregations parallel = InternalAggregations.topLevelReduce(
+                toReduce,
+                new AggregationReduceContext.ForFinal(
+                    null,
+                    null,
+                    () -> false,
+                    builders,
+                    b -> {},
+                    threadPool.executor(ThreadPool.Names.SEARCH_REDUCE)
+                )
+            );
+            assertThat(parallel.asList(), equalTo(serial.asList()));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testForkJoinRunsRejectedTasksOnCaller() {
+        int count = between(1, 100);
+        AtomicInteger ran = new AtomicInteger();
+        InternalAggregations.forkJoin(r -> { throw new EsRejectedExecutionException("rejected"); }, count, i -> ran.incrementAndGet());
+        assertThat(ran.get(), equalTo(count));
+    }
+
+    public void testForkJoinRethrowsFailure() {
+        int count = between(1, 100);
+        int failing = between(0, count - 1);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            IllegalArgumentException e = expectThrows(
+                IllegalArgumentException.class,
+                () -> InternalAggregations.forkJoin(threadPool.executor(ThreadPool.Names.SEARCH_REDUCE), count, i -> {
+                    if (i == failing) {
+                        throw new IllegalArgumentException("failed [" + i + "]");
+                    }
+                })
+            );
+            assertThat(e.getMessage(), equalTo("failed [" + failing + "]"));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
     InternalAggregations toReduce(AtomicLong f1Reduced, AtomicLong f2Reduced, int k1, int k2, int k1k1, int k1k2, int k2k1, int k2k2) {
         class InternalFiltersForF2 extends InternalFilters {
             InternalFiltersForF2(String name, List<InternalBucket> buckets, boolean keyed, Map<String, Object> metadata) {
@@ -141,6 +141,9 @@ public class TermsTests extends BaseAggregationTestCase<TermsAggregationBuilder>
         if (randomBoolean()) {
             factory.showTermDocCountError(randomBoolean());
         }
+        if (randomBoolean()) {
+            factory.approximateCounters(randomIntBetween(1, 10000));
+        }
         return factory;
     }
 
@@ -0,0 +1,138 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CompositeCursorCacheTests extends AggregatorTestCase {
+    private static final String KEYWORD = "k";
+    private static final String LONG = "l";
+
+    private CompositeCursorCache cache;
+
+    @Override
+    protected CompositeCursorCache compositeCursorCache() {
+        return cache;
+    }
+
+    public void testPage() {
+        List<InternalComposite.InternalBucket> buckets = new ArrayList<>();
+        for (long i = 10; i < 20; i++) {
+            buckets.add(bucket(i));
+        }
+        CompositeCursorCache.Cursor cursor = new CompositeCursorCache.Cursor(bucket(5), buckets, false, false);
+        assertThat("before the start of the cursor", cursor.page(null, 3), nullValue());
+        assertThat("before the start of the cursor", cursor.page(bucket(4), 3), nullValue());
+        assertThat(keys(cursor.page(bucket(5), 3)), equalTo(List.of(10L, 11L, 12L)));
+        assertThat(keys(cursor.page(bucket(12), 3)), equalTo(List.of(13L, 14L, 15L)));
+        assertThat(keys(cursor.page(bucket(13), 3)), equalTo(List.of(14L, 15L, 16L)));
+        assertThat(keys(cursor.page(bucket(16), 3)), equalTo(List.of(17L, 18L, 19L)));
+        assertThat("past the end of the cursor", cursor.page(bucket(17), 3), nullValue());
+
+        CompositeCursorCache.Cursor exhausted = new CompositeCursorCache.Cursor(null, buckets, true, false);
+        assertThat(keys(exhausted.page(null, 3)), equalTo(List.of(10L, 11L, 12L)));
+        assertThat(keys(exhausted.page(bucket(17), 3)), equalTo(List.of(18L, 19L)));
+        assertThat(keys(exhausted.page(bucket(30), 3)), equalTo(List.of()));
+    }
+
+    private static InternalComposite.InternalBucket bucket(long key) {
+        return new InternalComposite.InternalBucket(
+            List.of("l"),
+            List.of(DocValueFormat.RAW),
+            new CompositeKey(key),
+            new int[] { 1 },
+            new MissingOrder[] { MissingOrder.DEFAULT },
+            1,
+            InternalAggregations.EMPTY
+        );
+    }
+
+    private static List<Object> keys(List<InternalComposite.InternalBucket> buckets) {
+        return buckets.stream().map(b -> (Object) b.getRawKey().get(0)).toList();
+    }
+
+    public void testSamePagesAsCollecting() throws IOException {
+        MappedFieldType keywordFt = new KeywordFieldMapper.KeywordFieldType(KEYWORD);
+        MappedFieldType longFt = new NumberFieldMapper.NumberFieldType(LONG, NumberFieldMapper.NumberType.LONG);
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter iw = new IndexWriter(directory, newIndexWriterConfig())) {
+                for (int d = between(1, 500); d > 0; d--) {
+                    long l = randomLongBetween(0, 20);
+                    Document doc = new Document();
+                    doc.add(new SortedSetDocValuesField(KEYWORD, new BytesRef(randomAlphaOfLength(1))));
+                    doc.add(new SortedNumericDocValuesField(LONG, l));
+                    doc.add(new LongPoint(LONG, l));
+                    iw.addDocument(doc);
+                }
+            }
+            CompositeCursorCache cursorCache = new CompositeCursorCache(Long.MAX_VALUE, between(2, 5));
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                int size = between(1, 20);
+                Query query = randomBoolean() ? new MatchAllDocsQuery() : LongPoint.newRangeQuery(LONG, 3, 17);
+                Map<String, Object> after = null;
+                do {
+                    cache = null;
+                    InternalComposite expected = page(searcher, query, size, after, keywordFt, longFt);
+                    cache = cursorCache;
+                    InternalComposite actual = page(searcher, query, size, after, keywordFt, longFt);
+                    assertThat(actual.getBuckets().size(), equalTo(expected.getBuckets().size()));
+                    for (int b = 0; b < expected.getBuckets().size(); b++) {
+                        assertThat(actual.getBuckets().get(b).getKey(), equalTo(expected.getBuckets().get(b).getKey()));
+                        assertThat(actual.getBuckets().get(b).getDocCount(), equalTo(expected.getBuckets().get(b).getDocCount()));
+                    }
+                    assertThat(actual.afterKey(), equalTo(expected.afterKey()));
+                    after = expected.afterKey();
+                } while (after != null);
+                assertThat(cursorCache.count(), greaterThan(0));
+            } finally {
+                cache = null;
+            }
+            assertThat("closing the reader evicts its cursors", cursorCache.count(), equalTo(0));
+        }
+    }
+
+    private InternalComposite page(IndexSearcher searcher, Query query, int size, Map<String, Object> after, MappedFieldType... fieldTypes)
+        throws IOException {
+        CompositeAggregationBuilder builder = new CompositeAggregationBuilder(
+            "c",
+            List.of(new TermsValuesSourceBuilder(KEYWORD).field(KEYWORD), new TermsValuesSourceBuilder(LONG).field(LONG))
+        ).size(size).aggregateAfter(after);
+        // The cursor is cached per reader so all segments have to be collected by the same aggregator
+        return searchAndReduce(
+            searcher,
+            new AggTestConfig(builder, fieldTypes).withQuery(query).withSplitLeavesIntoSeperateAggregators(false)
+        );
+    }
+}
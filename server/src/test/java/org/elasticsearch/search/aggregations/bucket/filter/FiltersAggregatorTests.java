@@ -9,6 +9,7 @@ package org.elasticsearch.search.aggregations.bucket.filter;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
@@ -71,6 +72,8 @@ import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregator.Key
 import org.elasticsearch.search.aggregations.bucket.nested.NestedAggregatorTests;
 import org.elasticsearch.search.aggregations.metrics.Max;
 import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Min;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.Sum;
 import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
@@ -411,6 +414,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                             matchesMap().entry("segments_with_doc_count_field", 0)
                                 .entry("segments_with_deleted_docs", 0)
                                 .entry("segments_collected", 0)
+                                .entry("segments_collected_from_metadata", 0)
                                 .entry("segments_counted", greaterThanOrEqualTo(1))
                                 .entry(
                                     "filters",
@@ -470,6 +474,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                                 matchesMap().entry("segments_with_doc_count_field", 0)
                                     .entry("segments_with_deleted_docs", 0)
                                     .entry("segments_collected", 0)
+                                    .entry("segments_collected_from_metadata", 0)
                                     .entry("segments_counted", greaterThanOrEqualTo(1))
                                     .entry(
                                         "filters",
@@ -537,6 +542,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         "test",
                         matchesMap().entry("segments_counted", greaterThanOrEqualTo(1))
                             .entry("segments_collected", 0)
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry(
@@ -573,6 +579,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         "test",
                         matchesMap().entry("segments_counted", greaterThanOrEqualTo(1))
                             .entry("segments_collected", 0)
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_with_doc_count_field", greaterThanOrEqualTo(1))
                             .entry("segments_with_deleted_docs", 0)
                             .entry(
@@ -684,6 +691,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                                 "test",
                                 matchesMap().entry("segments_counted", greaterThanOrEqualTo(1))
                                     .entry("segments_collected", 0)
+                                    .entry("segments_collected_from_metadata", 0)
                                     .entry("segments_with_doc_count_field", 0)
                                     .entry("segments_with_deleted_docs", segmentsWithLiveDocs)
                                     .entry(
@@ -755,6 +763,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                                 "test",
                                 matchesMap().entry("segments_counted", greaterThanOrEqualTo(1))
                                     .entry("segments_collected", 0)
+                                    .entry("segments_collected_from_metadata", 0)
                                     .entry("segments_with_doc_count_field", 0)
                                     .entry("segments_with_deleted_docs", segmentsWithLiveDocs)
                                     .entry(
@@ -824,6 +833,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                                 "test",
                                 matchesMap().entry("segments_counted", greaterThanOrEqualTo(1))
                                     .entry("segments_collected", 0)
+                                    .entry("segments_collected_from_metadata", 0)
                                     .entry("segments_with_doc_count_field", 0)
                                     .entry("segments_with_deleted_docs", segmentsWithLiveDocs)
                                     .entry(
@@ -919,6 +929,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", 0)
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", greaterThanOrEqualTo(1))
                             .entry(
                                 "filters",
@@ -956,6 +967,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", 0)
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", greaterThanOrEqualTo(1))
                             .entry(
                                 "filters",
@@ -995,6 +1007,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", 0)
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", greaterThanOrEqualTo(1))
                             .entry(
                                 "filters",
@@ -1034,6 +1047,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", 0)
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", greaterThanOrEqualTo(1))
                             .entry(
                                 "filters",
@@ -1092,6 +1106,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", 0)
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", greaterThanOrEqualTo(1))
                             .entry(
                                 "filters",
@@ -1151,6 +1166,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", 0)
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", greaterThanOrEqualTo(1))
                             .entry(
                                 "filters",
@@ -1213,6 +1229,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", 0)
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", greaterThanOrEqualTo(1))
                             .entry(
                                 "filters",
@@ -1306,6 +1323,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", greaterThanOrEqualTo(1))
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", 0)
                             .entry("filters", filtersMatcher)
                     ).entry("test.s", matchesMap()).entry("test.m", matchesMap())
@@ -1377,6 +1395,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", greaterThanOrEqualTo(1))
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", 0)
                             .entry("filters", hasSize(2))
                     ).entry("test.s", matchesMap()).entry("test.m", matchesMap())
@@ -1387,6 +1406,53 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
         );
     }
 
+    public void testSubAggsFromMetadata() throws IOException {
+        MappedFieldType intFt = new NumberFieldMapper.NumberFieldType("int", NumberType.INTEGER);
+        AggregationBuilder builder = new FiltersAggregationBuilder(
+            "test",
+            new KeyedFilter("all", new MatchAllQueryBuilder()),
+            new KeyedFilter("small", new RangeQueryBuilder("int").from(0).to(9))
+        ).subAggregation(new MinAggregationBuilder("min").field("int")).subAggregation(new MaxAggregationBuilder("max").field("int"));
+        List<List<IndexableField>> docs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            docs.add(List.of(new IntPoint("int", i), new SortedNumericDocValuesField("int", i)));
+        }
+        Collections.shuffle(docs, random());
+        debugTestCase(
+            builder,
+            new MatchAllDocsQuery(),
+            iw -> iw.addDocuments(docs),
+            (InternalFilters filters, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                assertThat(filters.getBuckets(), hasSize(2));
+
+                InternalFilters.InternalBucket b = filters.getBucketByKey("all");
+                assertThat(b.getDocCount(), equalTo(1000L));
+                assertThat(((Min) b.getAggregations().get("min")).value(), equalTo(0.0));
+                assertThat(((Max) b.getAggregations().get("max")).value(), equalTo(999.0));
+
+                b = filters.getBucketByKey("small");
+                assertThat(b.getDocCount(), equalTo(10L));
+                assertThat(((Min) b.getAggregations().get("min")).value(), equalTo(0.0));
+                assertThat(((Max) b.getAggregations().get("max")).value(), equalTo(9.0));
+
+                assertThat(impl, equalTo(FilterByFilterAggregator.class));
+                assertMap(
+                    debug,
+                    matchesMap().entry(
+                        "test",
+                        matchesMap().entry("segments_with_doc_count_field", 0)
+                            .entry("segments_with_deleted_docs", 0)
+                            .entry("segments_collected", greaterThanOrEqualTo(1))
+                            .entry("segments_collected_from_metadata", greaterThanOrEqualTo(1))
+                            .entry("segments_counted", 0)
+                            .entry("filters", hasSize(2))
+                    ).entry("test.min", matchesMap()).entry("test.max", matchesMap())
+                );
+            },
+            intFt
+        );
+    }
+
     public void testSubAggsManyFilters() throws IOException {
         MappedFieldType dateFt = new DateFieldMapper.DateFieldType(
             "test",
@@ -1455,6 +1521,7 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         matchesMap().entry("segments_with_doc_count_field", 0)
                             .entry("segments_with_deleted_docs", 0)
                             .entry("segments_collected", greaterThanOrEqualTo(1))
+                            .entry("segments_collected_from_metadata", 0)
                             .entry("segments_counted", 0)
                             .entry("filters", hasSize(buckets.size()))
                     ).entry("test.s", matchesMap()).entry("test.m", matchesMap())
@@ -894,6 +894,7 @@ public class DateHistogramAggregatorTests extends DateHistogramAggregatorTestCas
                                             .entry("segments_with_deleted_docs", 0)
                                             .entry("segments_counted", greaterThan(0))
                                             .entry("segments_collected", 0)
+                                            .entry("segments_collected_from_metadata", 0)
                                             .entry(
                                                 "filters",
                                                 matchesList().item(
@@ -953,6 +954,7 @@ public class DateHistogramAggregatorTests extends DateHistogramAggregatorTestCas
                                             .entry("segments_with_deleted_docs", 0)
                                             .entry("segments_counted", greaterThan(0))
                                             .entry("segments_collected", 0)
+                                            .entry("segments_collected_from_metadata", 0)
                                             .entry(
                                                 "filters",
                                                 matchesList().item(
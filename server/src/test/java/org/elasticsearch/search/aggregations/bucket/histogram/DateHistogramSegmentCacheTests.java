@@ -0,0 +1,185 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.histogram;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.DateRangeIncludingNowQuery;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class DateHistogramSegmentCacheTests extends AggregatorTestCase {
+    private static final String DATE = "d";
+    private static final String KEYWORD = "k";
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private DateHistogramSegmentCache cache;
+
+    @Override
+    protected DateHistogramSegmentCache dateHistogramSegmentCache() {
+        return cache;
+    }
+
+    public void testSplitRangeOnly() {
+        Query range = LongPoint.newRangeQuery(DATE, 10, 20);
+        DateHistogramSegmentCache.SplitQuery split = DateHistogramSegmentCache.splitQuery(new ConstantScoreQuery(range), DATE);
+        assertThat(split.from(), equalTo(10L));
+        assertThat(split.to(), equalTo(20L));
+        assertThat(split.rest(), equalTo(new MatchAllDocsQuery()));
+    }
+
+    public void testSplitConjunction() {
+        Query term = new TermQuery(new Term(KEYWORD, "a"));
+        Query notTerm = new TermQuery(new Term(KEYWORD, "b"));
+        Query range = new IndexOrDocValuesQuery(
+            LongPoint.newRangeQuery(DATE, 10, 20),
+            SortedNumericDocValuesField.newSlowRangeQuery(DATE, 10, 20)
+        );
+        Query query = new BooleanQuery.Builder().add(term, BooleanClause.Occur.MUST)
+            .add(new DateRangeIncludingNowQuery(range), BooleanClause.Occur.FILTER)
+            .add(LongPoint.newRangeQuery(DATE, 15, 30), BooleanClause.Occur.FILTER)
+            .add(notTerm, BooleanClause.Occur.MUST_NOT)
+            .build();
+        DateHistogramSegmentCache.SplitQuery split = DateHistogramSegmentCache.splitQuery(query, DATE);
+        assertThat(split.from(), equalTo(15L));
+        assertThat(split.to(), equalTo(20L));
+        assertThat(
+            split.rest(),
+            equalTo(new BooleanQuery.Builder().add(term, BooleanClause.Occur.FILTER).add(notTerm, BooleanClause.Occur.MUST_NOT).build())
+        );
+    }
+
+    public void testDontSplit() {
+        Query range = LongPoint.newRangeQuery(DATE, 10, 20);
+        Query term = new TermQuery(new Term(KEYWORD, "a"));
+        assertThat(DateHistogramSegmentCache.splitQuery(term, DATE), nullValue());
+        assertThat(DateHistogramSegmentCache.splitQuery(LongPoint.newRangeQuery("other", 10, 20), DATE), nullValue());
+        Query disjunction = new BooleanQuery.Builder().add(range, BooleanClause.Occur.SHOULD)
+            .add(term, BooleanClause.Occur.SHOULD)
+            .build();
+        assertThat(DateHistogramSegmentCache.splitQuery(disjunction, DATE), nullValue());
+    }
+
+    public void testSameCountsAsCollecting() throws IOException {
+        assertSameCountsAsCollecting(0, ZoneOffset.UTC);
+    }
+
+    public void testSameCountsAsCollectingAcrossDaylightSavingTime() throws IOException {
+        // Clocks in New York moved forwards on the 13th and backwards on the 6th of November
+        String start = randomFrom("2022-03-12T00:00:00Z", "2022-11-05T00:00:00Z");
+        assertSameCountsAsCollecting(Instant.parse(start).toEpochMilli(), ZoneId.of("America/New_York"));
+    }
+
+    /**
+     * Index docs in the three days after {@code start} and slide the range
+     * of the query through them. Every segment has docs before the range.
+     */
+    private void assertSameCountsAsCollecting(long start, ZoneId timeZone) throws IOException {
+        DateFieldMapper.DateFieldType dateFt = new DateFieldMapper.DateFieldType(DATE);
+        KeywordFieldMapper.KeywordFieldType keywordFt = new KeywordFieldMapper.KeywordFieldType(KEYWORD);
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter iw = new IndexWriter(directory, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                int segments = between(1, 5);
+                for (int s = 0; s < segments; s++) {
+                    for (int d = between(1, 200); d > 0; d--) {
+                        long date = d == 1 ? start : start + randomLongBetween(0, 72 * HOUR);
+                        String keyword = randomFrom("a", "b");
+                        Document doc = new Document();
+                        doc.add(new SortedNumericDocValuesField(DATE, date));
+                        doc.add(new LongPoint(DATE, date));
+                        doc.add(new StringField(KEYWORD, keyword, Field.Store.NO));
+                        doc.add(new SortedSetDocValuesField(KEYWORD, new BytesRef(keyword)));
+                        iw.addDocument(doc);
+                    }
+                    if (randomBoolean()) {
+                        iw.deleteDocuments(LongPoint.newRangeQuery(DATE, start + 1, start + randomLongBetween(1, HOUR)));
+                    }
+                    iw.commit();
+                }
+            }
+            DateHistogramSegmentCache segmentCache = new DateHistogramSegmentCache(Long.MAX_VALUE);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                // Slide the window forwards like a dashboard would
+                long from = start + randomLongBetween(1, 24 * HOUR);
+                LongBounds hardBounds = randomBoolean() ? null : new LongBounds(start + 6 * HOUR, start + 60 * HOUR);
+                for (int i = 0; i < 3; i++) {
+                    long to = from + randomLongBetween(0, 24 * HOUR);
+                    Query query = new BooleanQuery.Builder().add(LongPoint.newRangeQuery(DATE, from, to), BooleanClause.Occur.FILTER)
+                        .add(new TermQuery(new Term(KEYWORD, "a")), BooleanClause.Occur.FILTER)
+                        .build();
+                    cache = null;
+                    Map<Long, Long> expected = counts(searcher, query, hardBounds, timeZone, dateFt, keywordFt);
+                    cache = segmentCache;
+                    Map<Long, Long> actual = counts(searcher, query, hardBounds, timeZone, dateFt, keywordFt);
+                    assertThat(actual, equalTo(expected));
+                    from += randomLongBetween(0, HOUR);
+                }
+                assertThat(segmentCache.count(), greaterThan(0));
+            } finally {
+                cache = null;
+            }
+            assertThat("closing the reader evicts its segments", segmentCache.count(), equalTo(0));
+        }
+    }
+
+    private Map<Long, Long> counts(
+        IndexSearcher searcher,
+        Query query,
+        LongBounds hardBounds,
+        ZoneId timeZone,
+        MappedFieldType... fieldTypes
+    ) throws IOException {
+        // The offset stops the date_histogram from running as a range aggregation
+        DateHistogramAggregationBuilder builder = new DateHistogramAggregationBuilder("h").field(DATE)
+            .calendarInterval(DateHistogramInterval.HOUR)
+            .timeZone(timeZone)
+            .offset("+13m")
+            .hardBounds(hardBounds);
+        InternalDateHistogram result = searchAndReduce(searcher, new AggTestConfig(builder, fieldTypes).withQuery(query));
+        Map<Long, Long> counts = new TreeMap<>();
+        for (InternalDateHistogram.Bucket bucket : result.getBuckets()) {
+            if (bucket.getDocCount() > 0) {
+                counts.put(bucket.key, bucket.getDocCount());
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class SpaceSavingSketchTests extends ESTestCase {
+
+    public void testExactWhileCountersAreAvailable() {
+        final int terms = between(1, 50);
+        final SpaceSavingSketch sketch = new SpaceSavingSketch(terms, bytes -> {});
+        final Map<BytesRef, Long> expected = new HashMap<>();
+        for (int i = between(1, 1000); i > 0; i--) {
+            final BytesRef term = new BytesRef("t" + between(0, terms - 1));
+            sketch.add(term);
+            expected.merge(term, 1L, Long::sum);
+        }
+        assertThat(sketch.evictions(), equalTo(0L));
+        assertThat(sketch.minCount(), equalTo(0L));
+        assertThat(sketch.size(), equalTo(expected.size()));
+        long previous = Long.MAX_VALUE;
+        for (SpaceSavingSketch.Counter counter : sketch.sortedCounters()) {
+            assertThat(counter.count(), equalTo(expected.get(counter.term())));
+            assertThat(counter.error(), equalTo(0L));
+            assertThat(counter.count(), lessThanOrEqualTo(previous));
+            previous = counter.count();
+        }
+    }
+
+    public void testBounds() {
+        final int maxCounters = between(1, 20);
+        final SpaceSavingSketch sketch = new SpaceSavingSketch(maxCounters, bytes -> {});
+        final Map<BytesRef, Long> expected = new HashMap<>();
+        final int total = between(1, 5000);
+        for (int i = 0; i < total; i++) {
+            // a few frequent terms and many rare ones
+            final BytesRef term = new BytesRef(randomBoolean() ? "frequent" + between(0, 2) : "rare" + between(0, 500));
+            sketch.add(term);
+            expected.merge(term, 1L, Long::sum);
+        }
+        assertThat(sketch.size(), lessThanOrEqualTo(maxCounters));
+        final Set<BytesRef> counted = new HashSet<>();
+        for (SpaceSavingSketch.Counter counter : sketch.sortedCounters()) {
+            final long actual = expected.get(counter.term());
+            assertThat(counter.count(), greaterThanOrEqualTo(actual));
+            assertThat(counter.count() - counter.error(), lessThanOrEqualTo(actual));
+            assertThat(counter.error(), lessThanOrEqualTo((long) total / maxCounters));
+            counted.add(BytesRef.deepCopyOf(counter.term()));
+        }
+        for (Map.Entry<BytesRef, Long> entry : expected.entrySet()) {
+            if (counted.contains(entry.getKey()) == false) {
+                assertThat(entry.getValue(), lessThanOrEqualTo(sketch.minCount()));
+            }
+        }
+    }
+
+    public void testCircuitBreakerAccounting() {
+        final long[] bytes = new long[1];
+        final SpaceSavingSketch sketch = new SpaceSavingSketch(between(1, 10), b -> bytes[0] += b);
+        for (int i = between(1, 100); i > 0; i--) {
+            sketch.add(new BytesRef(randomAlphaOfLength(between(1, 20))));
+        }
+        assertThat(bytes[0], greaterThanOrEqualTo(sketch.size() * SpaceSavingSketch.COUNTER_BYTES));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.search.aggregations.support.AggregationSpillSpace;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TermCountsSpillTests extends ESTestCase {
+
+    public void testSpillsLongTerms() throws IOException {
+        Path path = createTempDir().resolve(AggregationSpillSpace.DIRECTORY_NAME);
+        AggregationSpillSpace space = new AggregationSpillSpace(path, Long.MAX_VALUE);
+        assertFalse("the directory is only created on the first spill", Files.exists(path));
+
+        Map<BytesRef, Long> expected = new TreeMap<>();
+        try (TermCountsSpill spill = new TermCountsSpill(space)) {
+            assertTrue(Files.exists(path));
+            for (int s = between(1, 3); s > 0; s--) {
+                int terms = between(1, 5);
+                BytesRef[] added = new BytesRef[terms];
+                long termBytes = 0;
+                for (int t = 0; t < terms; t++) {
+                    // longer than the 32kB that a record prefixed by a short length could hold
+                    String term = randomBoolean() ? randomAlphaOfLength(between(40_000, 70_000)) : randomAlphaOfLength(between(1, 10));
+                    added[t] = new BytesRef(term);
+                    termBytes += added[t].length;
+                }
+                assertTrue(spill.tryReserve(terms, termBytes));
+                for (BytesRef term : added) {
+                    long docCount = randomLongBetween(1, 100);
+                    spill.add(term, docCount);
+                    expected.merge(term, docCount, Long::sum);
+                }
+                spill.onSpilled();
+            }
+
+            Map<BytesRef, Long> actual = new TreeMap<>();
+            spill.forEachTerm((term, docCount) -> assertNull(actual.put(BytesRef.deepCopyOf(term), docCount)));
+            assertThat(actual, equalTo(expected));
+        }
+        assertThat(space.usedBytes(), equalTo(0L));
+        try (Stream<Path> files = Files.list(path)) {
+            assertThat(files.toList(), empty());
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.tests.index.RandomIndexWriter;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.geo.GeoPoint;
@@ -70,6 +71,7 @@ import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.script.MockScriptEngine;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptEngine;
@@ -89,7 +91,9 @@ import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.TooManyBucketsException;
+import org.elasticsearch.search.aggregations.bucket.BestBucketsDeferringCollector;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+import org.elasticsearch.search.aggregations.bucket.QueryReplayingDeferringCollector;
 import org.elasticsearch.search.aggregations.bucket.filter.Filter;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.filter.InternalFilter;
@@ -110,6 +114,7 @@ import org.elasticsearch.search.aggregations.pipeline.BucketScriptPipelineAggreg
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
+import org.elasticsearch.search.aggregations.support.AggregationSpillSpace;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.aggregations.support.ValueType;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
@@ -123,6 +128,8 @@ import org.elasticsearch.test.geo.RandomGeoGenerator;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -132,11 +139,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static java.util.Collections.singleton;
 import static java.util.stream.Collectors.toList;
@@ -146,18 +155,27 @@ import static org.elasticsearch.search.aggregations.PipelineAggregatorBuilders.b
 import static org.elasticsearch.test.MapMatcher.assertMap;
 import static org.elasticsearch.test.MapMatcher.matchesMap;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.either;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class TermsAggregatorTests extends AggregatorTestCase {
 
     private boolean randomizeAggregatorImpl = true;
 
+    private int termsSpillThreshold = -1;
+
+    private AggregationSpillSpace aggregationSpillSpace;
+
+    private boolean enableReplayQueryForDeferred = true;
+
     // Constants for a script that returns a string
     private static final String STRING_SCRIPT_NAME = "string_script";
     private static final String STRING_SCRIPT_OUTPUT = "Orange";
@@ -187,11 +205,13 @@ public class TermsAggregatorTests extends AggregatorTestCase {
             if (randomizeAggregatorImpl) {
                 TermsAggregatorFactory.COLLECT_SEGMENT_ORDS = randomBoolean();
                 TermsAggregatorFactory.REMAP_GLOBAL_ORDS = randomBoolean();
+                TermsAggregatorFactory.REPLAY_QUERY_FOR_DEFERRED = randomBoolean();
             }
             return super.createAggregator(aggregationBuilder, context);
         } finally {
             TermsAggregatorFactory.COLLECT_SEGMENT_ORDS = null;
             TermsAggregatorFactory.REMAP_GLOBAL_ORDS = null;
+            TermsAggregatorFactory.REPLAY_QUERY_FOR_DEFERRED = null;
         }
     }
 
@@ -315,6 +335,203 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testSpill() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        int termCount = between(1, 200);
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").executionHint("map")
+            .field("string")
+            .size(termCount)
+            .order(BucketOrder.key(true));
+        Map<String, Long> expected = new TreeMap<>();
+        List<List<IndexableField>> docs = new ArrayList<>();
+        int docCount = between(1, 500);
+        for (int d = 0; d < docCount; d++) {
+            Set<String> values = new TreeSet<>();
+            for (int v = between(1, 3); v > 0; v--) {
+                values.add(Strings.format("t%03d", between(0, termCount - 1)));
+            }
+            for (String value : values) {
+                expected.merge(value, 1L, Long::sum);
+            }
+            docs.add(doc(fieldType, values.toArray(String[]::new)));
+        }
+        termsSpillThreshold = between(1, 50);
+        // without any space the buckets stay in memory
+        aggregationSpillSpace = new AggregationSpillSpace(createTempDir(), randomBoolean() ? Long.MAX_VALUE : 0);
+        testCase(iw -> iw.addDocuments(docs), (StringTerms result) -> {
+            Map<String, Long> actual = new TreeMap<>();
+            for (StringTerms.Bucket bucket : result.getBuckets()) {
+                actual.put(bucket.getKeyAsString(), bucket.getDocCount());
+            }
+            assertThat(actual, equalTo(expected));
+            assertThat(result.getSumOfOtherDocCounts(), equalTo(0L));
+        }, new AggTestConfig(aggregationBuilder, fieldType));
+        assertThat(aggregationSpillSpace.usedBytes(), equalTo(0L));
+        try (Stream<Path> files = Files.list(aggregationSpillSpace.path())) {
+            assertThat(files.toList(), empty());
+        }
+    }
+
+    public void testSpillRejectedOnceSpillSpaceIsExhausted() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").executionHint("map").field("string");
+        List<List<IndexableField>> docs = new ArrayList<>();
+        for (int d = 0; d < 100; d++) {
+            docs.add(doc(fieldType, Strings.format("t%03d", d)));
+        }
+        termsSpillThreshold = 10;
+        // just enough to spill the first 10 terms of 4 bytes, written with their length and doc count, and to sort them
+        aggregationSpillSpace = new AggregationSpillSpace(createTempDir(), 3 * 10 * (4 + Integer.BYTES + Long.BYTES));
+        ElasticsearchStatusException e = expectThrows(
+            ElasticsearchStatusException.class,
+            () -> testCase(
+                iw -> iw.addDocuments(docs),
+                (StringTerms result) -> fail("expected the spill to be rejected"),
+                new AggTestConfig(aggregationBuilder, fieldType).withSplitLeavesIntoSeperateAggregators(false)
+            )
+        );
+        assertThat(e.status(), equalTo(RestStatus.TOO_MANY_REQUESTS));
+        assertThat(e.getMessage(), containsString("[search.aggs.spill.max_size]"));
+        assertThat(aggregationSpillSpace.usedBytes(), equalTo(0L));
+    }
+
+    public void testApproximateCounters() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").field("string")
+            .size(5)
+            .approximateCounters(between(1, 30));
+        Map<String, Long> expected = new HashMap<>();
+        List<List<IndexableField>> docs = new ArrayList<>();
+        for (int h = 0; h < 5; h++) {
+            String value = "heavy" + h;
+            for (int d = 0; d < 200; d++) {
+                docs.add(doc(fieldType, value));
+                expected.merge(value, 1L, Long::sum);
+            }
+        }
+        for (int d = 0; d < 300; d++) {
+            String value = "light" + between(0, 200);
+            docs.add(doc(fieldType, value));
+            expected.merge(value, 1L, Long::sum);
+        }
+        Collections.shuffle(docs, random());
+        testCase(iw -> iw.addDocuments(docs), (StringTerms result) -> {
+            Set<String> keys = new TreeSet<>();
+            for (StringTerms.Bucket bucket : result.getBuckets()) {
+                keys.add(bucket.getKeyAsString());
+                long actual = expected.get(bucket.getKeyAsString());
+                assertThat(bucket.getDocCount(), lessThanOrEqualTo(actual));
+                assertThat(bucket.getDocCount() + bucket.getDocCountError(), greaterThanOrEqualTo(actual));
+            }
+            assertThat(keys, equalTo(Set.of("heavy0", "heavy1", "heavy2", "heavy3", "heavy4")));
+        }, new AggTestConfig(aggregationBuilder, fieldType));
+    }
+
+    public void testApproximateCountersRequireCountOrder() throws IOException {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").field("string")
+            .order(BucketOrder.key(true))
+            .approximateCounters(10);
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> testCase(iw -> iw.addDocument(doc(fieldType, "a")), r -> {}, new AggTestConfig(aggregationBuilder, fieldType))
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("[approximate_counters] of aggregation [_name] requires the buckets to be ordered by descending doc count")
+        );
+    }
+
+    public void testReplayQueryForDeferred() throws IOException {
+        MappedFieldType keywordType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        MappedFieldType numberType = new NumberFieldMapper.NumberFieldType("number", NumberType.LONG);
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").field("string")
+            .size(3)
+            .collectMode(Aggregator.SubAggCollectionMode.BREADTH_FIRST)
+            .subAggregation(new MaxAggregationBuilder("max").field("number"));
+        Map<String, Long> expectedCounts = new HashMap<>();
+        Map<String, Long> expectedMax = new HashMap<>();
+        List<List<IndexableField>> docs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String value = "t" + between(0, 9);
+            long number = between(0, 99);
+            docs.add(
+                List.of(
+                    new SortedSetDocValuesField("string", new BytesRef(value)),
+                    new SortedNumericDocValuesField("number", number),
+                    new LongPoint("number", number)
+                )
+            );
+            if (number < 50) {
+                expectedCounts.merge(value, 1L, Long::sum);
+                expectedMax.merge(value, number, Math::max);
+            }
+        }
+        randomizeAggregatorImpl = false;
+        TermsAggregatorFactory.REPLAY_QUERY_FOR_DEFERRED = true;
+        try {
+            testCase(iw -> iw.addDocuments(docs), (StringTerms result) -> {
+                assertThat(result.getBuckets(), hasSize(3));
+                for (StringTerms.Bucket bucket : result.getBuckets()) {
+                    assertThat(bucket.getDocCount(), equalTo(expectedCounts.get(bucket.getKeyAsString())));
+                    Max max = bucket.getAggregations().get("max");
+                    assertThat((long) max.value(), equalTo(expectedMax.get(bucket.getKeyAsString())));
+                }
+            }, new AggTestConfig(aggregationBuilder, keywordType, numberType).withQuery(LongPoint.newRangeQuery("number", 0, 49)));
+        } finally {
+            TermsAggregatorFactory.REPLAY_QUERY_FOR_DEFERRED = null;
+        }
+    }
+
+    public void testReplayQueryForDeferredOnlyIfAllMatchesAreCollected() throws IOException {
+        MappedFieldType keywordType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        MappedFieldType numberType = new NumberFieldMapper.NumberFieldType("number", NumberType.LONG);
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").field("string")
+            .collectMode(Aggregator.SubAggCollectionMode.BREADTH_FIRST)
+            .subAggregation(new MaxAggregationBuilder("max").field("number"));
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter iw = new RandomIndexWriter(random(), directory)) {
+                iw.addDocument(
+                    List.of(new SortedSetDocValuesField("string", new BytesRef("a")), new SortedNumericDocValuesField("number", 1))
+                );
+            }
+            randomizeAggregatorImpl = false;
+            TermsAggregatorFactory.REPLAY_QUERY_FOR_DEFERRED = true;
+            enableReplayQueryForDeferred = randomBoolean();
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                AggregationContext context = createAggregationContext(
+                    newIndexSearcher(reader),
+                    new MatchAllDocsQuery(),
+                    keywordType,
+                    numberType
+                );
+                GlobalOrdinalsStringTermsAggregator aggregator = createAggregator(aggregationBuilder, context);
+                assertThat(
+                    aggregator.buildDeferringCollector(),
+                    instanceOf(enableReplayQueryForDeferred ? QueryReplayingDeferringCollector.class : BestBucketsDeferringCollector.class)
+                );
+            } finally {
+                TermsAggregatorFactory.REPLAY_QUERY_FOR_DEFERRED = null;
+                enableReplayQueryForDeferred = true;
+            }
+        }
+    }
+
+    @Override
+    protected int termsSpillThreshold() {
+        return termsSpillThreshold;
+    }
+
+    @Override
+    protected AggregationSpillSpace aggregationSpillSpace() {
+        return aggregationSpillSpace;
+    }
+
+    @Override
+    protected boolean enableReplayQueryForDeferred() {
+        return enableReplayQueryForDeferred;
+    }
+
     public void testManyTerms() throws Exception {
         MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
         TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").executionHint(randomHint()).field("string");
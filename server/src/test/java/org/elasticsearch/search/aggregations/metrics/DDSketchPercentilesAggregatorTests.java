@@ -0,0 +1,173 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.search.FieldExistsQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
+import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.search.aggregations.support.ValuesSourceType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.hamcrest.Matchers.equalTo;
+
+public class DDSketchPercentilesAggregatorTests extends AggregatorTestCase {
+
+    @Override
+    protected AggregationBuilder createAggBuilderForTypeTest(MappedFieldType fieldType, String fieldName) {
+        return new PercentilesAggregationBuilder("ddsketch_percentiles").field(fieldName)
+            .percentilesConfig(new PercentilesConfig.DDSketch());
+    }
+
+    @Override
+    protected List<ValuesSourceType> getSupportedValuesSourceTypes() {
+        return List.of(CoreValuesSourceType.NUMERIC, CoreValuesSourceType.DATE, CoreValuesSourceType.BOOLEAN);
+    }
+
+    public void testNoDocs() throws IOException {
+        testCase(new MatchAllDocsQuery(), iw -> {
+            // Intentionally not writing any docs
+        }, sketch -> {
+            assertEquals(0L, sketch.state.count());
+            assertFalse(AggregationInspectionHelper.hasValue(sketch));
+        });
+    }
+
+    /**
+     * Attempting to use DDSketch percentiles on a string field throws IllegalArgumentException
+     */
+    public void testStringField() throws IOException {
+        final String fieldName = "string";
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType(fieldName);
+        expectThrows(IllegalArgumentException.class, () -> testCase(new FieldExistsQuery(fieldName), iw -> {
+            iw.addDocument(singleton(new SortedSetDocValuesField("string", new BytesRef("bogus"))));
+            iw.addDocument(singleton(new SortedSetDocValuesField("string", new BytesRef("zwomp"))));
+            iw.addDocument(singleton(new SortedSetDocValuesField("string", new BytesRef("foobar"))));
+        }, sketch -> {}, fieldType, fieldName));
+    }
+
+    public void testNoMatchingField() throws IOException {
+        testCase(new MatchAllDocsQuery(), iw -> {
+            iw.addDocument(singleton(new SortedNumericDocValuesField("wrong_number", 7)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("wrong_number", 1)));
+        }, sketch -> {
+            assertEquals(0L, sketch.state.count());
+            assertFalse(AggregationInspectionHelper.hasValue(sketch));
+        });
+    }
+
+    public void testSomeMatchesSortedNumericDocValues() throws IOException {
+        testCase(new FieldExistsQuery("number"), iw -> {
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 60)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 40)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 20)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 10)));
+        }, sketch -> {
+            assertEquals(4L, sketch.state.count());
+            double approximation = 0.6d;
+            assertEquals(10.0d, sketch.percentile(25), approximation);
+            assertEquals(20.0d, sketch.percentile(50), approximation);
+            assertEquals(40.0d, sketch.percentile(75), approximation);
+            assertEquals(60.0d, sketch.percentile(99), approximation);
+            assertTrue(AggregationInspectionHelper.hasValue(sketch));
+        });
+    }
+
+    public void testSomeMatchesNumericDocValues() throws IOException {
+        testCase(new FieldExistsQuery("number"), iw -> {
+            iw.addDocument(singleton(new NumericDocValuesField("number", 60)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 40)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 20)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 10)));
+        }, sketch -> {
+            assertEquals(4L, sketch.state.count());
+            double approximation = 0.6d;
+            assertEquals(10.0d, sketch.percentile(25), approximation);
+            assertEquals(20.0d, sketch.percentile(50), approximation);
+            assertEquals(40.0d, sketch.percentile(75), approximation);
+            assertEquals(60.0d, sketch.percentile(99), approximation);
+            assertTrue(AggregationInspectionHelper.hasValue(sketch));
+        });
+    }
+
+    public void testQueryFiltering() throws IOException {
+        final CheckedConsumer<RandomIndexWriter, IOException> docs = iw -> {
+            iw.addDocument(asList(new LongPoint("row", 4), new SortedNumericDocValuesField("number", 60)));
+            iw.addDocument(asList(new LongPoint("row", 3), new SortedNumericDocValuesField("number", 40)));
+            iw.addDocument(asList(new LongPoint("row", 2), new SortedNumericDocValuesField("number", 20)));
+            iw.addDocument(asList(new LongPoint("row", 1), new SortedNumericDocValuesField("number", 10)));
+        };
+
+        testCase(LongPoint.newRangeQuery("row", 0, 2), docs, sketch -> {
+            assertEquals(2L, sketch.state.count());
+            assertEquals(10.0d, sketch.percentile(randomDoubleBetween(1, 50, true)), 0.1d);
+            assertTrue(AggregationInspectionHelper.hasValue(sketch));
+        });
+
+        testCase(LongPoint.newRangeQuery("row", 5, 10), docs, sketch -> {
+            assertEquals(0L, sketch.state.count());
+            assertFalse(AggregationInspectionHelper.hasValue(sketch));
+        });
+    }
+
+    public void testInvalidRelativeAccuracy() {
+        double relativeAccuracy = randomBoolean() ? -randomDouble() : 1 + randomDouble();
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new PercentilesConfig.DDSketch(relativeAccuracy));
+        assertThat(e.getMessage(), equalTo("[relative_accuracy] must be greater than 0 and less than 1. Found [" + relativeAccuracy + "]"));
+    }
+
+    private void testCase(
+        Query query,
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
+        Consumer<InternalDDSketchPercentiles> verify
+    ) throws IOException {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+        testCase(query, buildIndex, verify, fieldType, "number");
+    }
+
+    private void testCase(
+        Query query,
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
+        Consumer<InternalDDSketchPercentiles> verify,
+        MappedFieldType fieldType,
+        String fieldName
+    ) throws IOException {
+        // TODO this randomization path should be removed when the old settings are removed
+        PercentilesAggregationBuilder builder;
+        if (randomBoolean()) {
+            builder = new PercentilesAggregationBuilder("test").field(fieldName).method(PercentilesMethod.DDSKETCH);
+        } else {
+            PercentilesConfig ddSketch = new PercentilesConfig.DDSketch(randomDoubleBetween(0.001, 0.01, true));
+            builder = new PercentilesAggregationBuilder("test").field(fieldName).percentilesConfig(ddSketch);
+        }
+        testCase(
+            buildIndex,
+            agg -> verify.accept((InternalDDSketchPercentiles) agg),
+            new AggTestConfig(builder, fieldType).withQuery(query)
+        );
+    }
+}
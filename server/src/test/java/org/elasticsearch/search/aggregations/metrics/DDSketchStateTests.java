@@ -0,0 +1,110 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class DDSketchStateTests extends ESTestCase {
+
+    public void testEmpty() {
+        DDSketchState state = new DDSketchState(randomDoubleBetween(0.001, 0.5, true));
+        assertThat(state.count(), equalTo(0L));
+        assertTrue(Double.isNaN(state.percentile(randomDoubleBetween(0, 100, true))));
+        assertTrue(Double.isNaN(state.percentileRank(randomDouble())));
+    }
+
+    public void testInvalidRelativeAccuracy() {
+        expectThrows(IllegalArgumentException.class, () -> new DDSketchState(0));
+        expectThrows(IllegalArgumentException.class, () -> new DDSketchState(1));
+        expectThrows(IllegalArgumentException.class, () -> new DDSketchState(-randomDouble()));
+    }
+
+    public void testRelativeAccuracy() {
+        // accurate enough to need less than MAX_BUCKETS buckets for the random values
+        double relativeAccuracy = randomDoubleBetween(0.01, 0.1, true);
+        DDSketchState state = new DDSketchState(relativeAccuracy);
+        double[] values = randomValues();
+        for (double value : values) {
+            state.add(value);
+        }
+        Arrays.sort(values);
+        assertThat(state.count(), equalTo((long) values.length));
+        for (double percent : new double[] { 0, 1, 25, 50, 75, 99, 100 }) {
+            double expected = values[Math.max(0, (int) Math.ceil(percent / 100 * values.length) - 1)];
+            assertThat(state.percentile(percent), closeTo(expected, Math.abs(expected) * relativeAccuracy * 1.0001));
+        }
+        assertThat(state.percentileRank(values[0] - 1), equalTo(0.0));
+        assertThat(state.percentileRank(values[values.length - 1]), equalTo(100.0));
+    }
+
+    public void testMergeIsExact() {
+        double relativeAccuracy = randomDoubleBetween(0.01, 0.1, true);
+        DDSketchState all = new DDSketchState(relativeAccuracy);
+        DDSketchState merged = new DDSketchState(relativeAccuracy);
+        for (int s = between(1, 5); s > 0; s--) {
+            DDSketchState part = new DDSketchState(relativeAccuracy);
+            for (double value : randomValues()) {
+                part.add(value);
+                all.add(value);
+            }
+            merged.add(part);
+        }
+        assertThat(merged, equalTo(all));
+        assertThat(merged.hashCode(), equalTo(all.hashCode()));
+        expectThrows(IllegalArgumentException.class, () -> merged.add(new DDSketchState(relativeAccuracy / 2)));
+    }
+
+    public void testCollapsesLowestBuckets() {
+        DDSketchState state = new DDSketchState(0.01);
+        state.add(Double.MIN_NORMAL * 2);
+        state.add(Double.MAX_VALUE / 2);
+        assertThat(state.count(), equalTo(2L));
+        assertThat(state.percentile(100), closeTo(Double.MAX_VALUE / 2, Double.MAX_VALUE / 2 * 0.01));
+        // the smallest value was collapsed into the lowest bucket the sketch kept
+        assertThat(state.percentile(0), greaterThan(Double.MIN_NORMAL * 4));
+        assertThat(state.percentile(0), lessThan(Double.MAX_VALUE / 2));
+    }
+
+    public void testSerialization() throws IOException {
+        DDSketchState state = new DDSketchState(randomDoubleBetween(0.001, 0.5, true));
+        for (double value : randomValues()) {
+            state.add(value);
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            state.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                DDSketchState read = DDSketchState.read(in);
+                assertThat(read, equalTo(state));
+                assertThat(read.percentile(50), equalTo(state.percentile(50)));
+            }
+        }
+    }
+
+    private static double[] randomValues() {
+        double[] values = new double[between(1, 1000)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = switch (between(0, 3)) {
+                case 0 -> 0;
+                case 1 -> -randomDoubleBetween(0.001, 1000, true);
+                default -> randomDoubleBetween(0.001, 1_000_000, true);
+            };
+        }
+        return values;
+    }
+}
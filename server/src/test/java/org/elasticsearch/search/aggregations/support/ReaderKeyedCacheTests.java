@@ -0,0 +1,122 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.support;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Accountable;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ReaderKeyedCacheTests extends ESTestCase {
+    public void testClosingReaderOnlyEvictsItsEntries() throws IOException {
+        ReaderKeyedCache<TestKey, TestValue> cache = new ReaderKeyedCache<>(Long.MAX_VALUE);
+        try (Directory closedDir = newDirectory(); Directory openDir = newDirectory()) {
+            DirectoryReader closed = openReader(closedDir);
+            try (DirectoryReader open = openReader(openDir)) {
+                int closedEntries = between(1, 20);
+                int openEntries = between(1, 20);
+                for (int i = 0; i < closedEntries; i++) {
+                    cache.put(closed.getReaderCacheHelper(), new TestKey(closed.getReaderCacheHelper().getKey(), i), new TestValue(i));
+                }
+                for (int i = 0; i < openEntries; i++) {
+                    cache.put(open.getReaderCacheHelper(), new TestKey(open.getReaderCacheHelper().getKey(), i), new TestValue(i));
+                }
+                assertThat(cache.count(), equalTo(closedEntries + openEntries));
+                assertThat(cache.readers(), equalTo(2));
+
+                TestKey closedKey = new TestKey(closed.getReaderCacheHelper().getKey(), 0);
+                closed.close();
+                assertThat(cache.get(closedKey), nullValue());
+                assertThat(cache.count(), equalTo(openEntries));
+                assertThat(cache.readers(), equalTo(1));
+                for (int i = 0; i < openEntries; i++) {
+                    assertThat(cache.get(new TestKey(open.getReaderCacheHelper().getKey(), i)), equalTo(new TestValue(i)));
+                }
+            }
+            assertThat(cache.count(), equalTo(0));
+            assertThat(cache.readers(), equalTo(0));
+        }
+    }
+
+    public void testEvictionWhenFull() throws IOException {
+        int maxEntries = between(1, 10);
+        ReaderKeyedCache<TestKey, TestValue> cache = new ReaderKeyedCache<>(maxEntries * (TestKey.BYTES + TestValue.BYTES));
+        try (Directory dir = newDirectory()) {
+            try (DirectoryReader reader = openReader(dir)) {
+                IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+                for (int i = 0; i < maxEntries * 3; i++) {
+                    // replacing the value of a key keeps the key cached
+                    cache.put(cacheHelper, new TestKey(cacheHelper.getKey(), i), new TestValue(i));
+                    cache.put(cacheHelper, new TestKey(cacheHelper.getKey(), i), new TestValue(i + 1));
+                }
+                assertThat(cache.count(), equalTo(maxEntries));
+                assertThat(cache.get(new TestKey(cacheHelper.getKey(), maxEntries * 3 - 1)), equalTo(new TestValue(maxEntries * 3)));
+                assertThat(cache.get(new TestKey(cacheHelper.getKey(), 0)), nullValue());
+            }
+            assertThat(cache.count(), equalTo(0));
+        }
+    }
+
+    public void testComputeIfAbsent() throws IOException {
+        ReaderKeyedCache<TestKey, TestValue> cache = new ReaderKeyedCache<>(Long.MAX_VALUE);
+        try (Directory dir = newDirectory()) {
+            try (DirectoryReader reader = openReader(dir)) {
+                IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+                TestKey key = new TestKey(cacheHelper.getKey(), 0);
+                assertThat(cache.computeIfAbsent(cacheHelper, key, () -> new TestValue(1)), equalTo(new TestValue(1)));
+                TestValue cached = cache.computeIfAbsent(cacheHelper, key, () -> { throw new AssertionError("should be cached"); });
+                assertThat(cached, equalTo(new TestValue(1)));
+
+                TestKey failing = new TestKey(cacheHelper.getKey(), 1);
+                IOException e = expectThrows(
+                    IOException.class,
+                    () -> cache.computeIfAbsent(cacheHelper, failing, () -> { throw new IOException("test"); })
+                );
+                assertThat(e.getMessage(), equalTo("test"));
+                assertThat(cache.get(failing), nullValue());
+                assertThat(cache.count(), equalTo(1));
+            }
+            assertThat(cache.count(), equalTo(0));
+            assertThat(cache.readers(), equalTo(0));
+        }
+    }
+
+    private static DirectoryReader openReader(Directory dir) throws IOException {
+        try (IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            writer.addDocument(new Document());
+        }
+        return DirectoryReader.open(dir);
+    }
+
+    private record TestKey(IndexReader.CacheKey reader, int id) implements ReaderKeyedCache.Key {
+        static final long BYTES = 16;
+
+        @Override
+        public long ramBytesUsed() {
+            return BYTES;
+        }
+    }
+
+    private record TestValue(long value) implements Accountable {
+        static final long BYTES = 16;
+
+        @Override
+        public long ramBytesUsed() {
+            return BYTES;
+        }
+    }
+}
@@ -78,6 +78,7 @@ import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.TransportAction;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.action.support.replication.ShardRequestBatcher;
 import org.elasticsearch.action.update.UpdateHelper;
 import org.elasticsearch.client.internal.AdminClient;
 import org.elasticsearch.client.internal.node.NodeClient;
@@ -1819,7 +1820,8 @@ public class SnapshotResiliencyTests extends ESTestCase {
                         indicesService,
                         threadPool,
                         shardStateAction,
-                        actionFilters
+                        actionFilters,
+                        new ShardRequestBatcher(settings, transportService, threadPool)
                     )
                 );
                 final MetadataMappingService metadataMappingService = new MetadataMappingService(clusterService, indicesService);
@@ -1973,6 +1975,7 @@ public class SnapshotResiliencyTests extends ESTestCase {
                 final SearchService searchService = new SearchService(
                     clusterService,
                     indicesService,
+                    nodeEnv,
                     threadPool,
                     scriptService,
                     bigArrays,
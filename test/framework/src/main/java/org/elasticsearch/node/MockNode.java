@@ -23,6 +23,7 @@ import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.env.Environment;
+import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.indices.ExecutorSelector;
 import org.elasticsearch.indices.IndicesService;
@@ -134,6 +135,7 @@ public class MockNode extends Node {
     protected SearchService newSearchService(
         ClusterService clusterService,
         IndicesService indicesService,
+        NodeEnvironment nodeEnvironment,
         ThreadPool threadPool,
         ScriptService scriptService,
         BigArrays bigArrays,
@@ -147,6 +149,7 @@ public class MockNode extends Node {
             return super.newSearchService(
                 clusterService,
                 indicesService,
+                nodeEnvironment,
                 threadPool,
                 scriptService,
                 bigArrays,
@@ -160,6 +163,7 @@ public class MockNode extends Node {
         return new MockSearchService(
             clusterService,
             indicesService,
+            nodeEnvironment,
             threadPool,
             scriptService,
             bigArrays,
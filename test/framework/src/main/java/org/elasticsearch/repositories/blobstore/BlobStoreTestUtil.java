@@ -112,7 +112,9 @@ public final class BlobStoreTestUtil {
                 assertIndexGenerations(blobContainer, latestGen);
                 final RepositoryData repositoryData;
                 try (
-                    InputStream blob = blobContainer.readBlob(BlobStoreRepository.INDEX_FILE_PREFIX + latestGen);
+                    InputStream blob = BlobStoreRepository.repositoryDataInputStream(
+                        blobContainer.readBlob(BlobStoreRepository.INDEX_FILE_PREFIX + latestGen)
+                    );
                     XContentParser parser = XContentType.JSON.xContent()
                         .createParser(XContentParserConfiguration.EMPTY.withDeprecationHandler(LoggingDeprecationHandler.INSTANCE), blob)
                 ) {
@@ -11,6 +11,7 @@ package org.elasticsearch.search;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.indices.ExecutorSelector;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -76,6 +77,7 @@ public class MockSearchService extends SearchService {
     public MockSearchService(
         ClusterService clusterService,
         IndicesService indicesService,
+        NodeEnvironment nodeEnvironment,
         ThreadPool threadPool,
         ScriptService scriptService,
         BigArrays bigArrays,
@@ -88,6 +90,7 @@ public class MockSearchService extends SearchService {
         super(
             clusterService,
             indicesService,
+            nodeEnvironment,
             threadPool,
             scriptService,
             bigArrays,
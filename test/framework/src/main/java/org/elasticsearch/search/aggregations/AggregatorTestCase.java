@@ -117,6 +117,8 @@ import org.elasticsearch.search.NestedDocuments;
 import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.aggregations.AggregatorFactories.Builder;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeCursorCache;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramSegmentCache;
 import org.elasticsearch.search.aggregations.bucket.nested.NestedAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.MetricsAggregator;
 import org.elasticsearch.search.aggregations.metrics.MultiValueAggregation;
@@ -125,6 +127,7 @@ import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationContext.ProductionAggregationContext;
+import org.elasticsearch.search.aggregations.support.AggregationSpillSpace;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.aggregations.support.SamplingContext;
 import org.elasticsearch.search.aggregations.support.TimeSeriesIndexSearcher;
@@ -362,11 +365,58 @@ public abstract class AggregatorTestCase extends ESTestCase {
             () -> false,
             q -> q,
             true,
+            enableReplayQueryForDeferred(),
+            termsSpillThreshold(),
+            aggregationSpillSpace(),
+            dateHistogramSegmentCache(),
+            compositeCursorCache(),
             isInSortOrderExecutionRequired
         );
         return context;
     }
 
+    /**
+     * The number of buckets after which {@code terms} aggregations may spill
+     * their buckets to disk, {@code -1} to never spill. Subclasses can
+     * override this to test spilling.
+     */
+    protected int termsSpillThreshold() {
+        return -1;
+    }
+
+    /**
+     * The space aggregations spill their buckets to, {@code null} if they
+     * can't spill. Subclasses can override this to test spilling.
+     */
+    protected AggregationSpillSpace aggregationSpillSpace() {
+        return null;
+    }
+
+    /**
+     * Can {@code terms} aggregations run the query again to collect their
+     * deferred sub-aggregations? Subclasses can override this to test
+     * requests that don't collect every match.
+     */
+    protected boolean enableReplayQueryForDeferred() {
+        return true;
+    }
+
+    /**
+     * The cache of {@code date_histogram} doc counts per segment, {@code null}
+     * to disable it. Subclasses can override this to test the cache.
+     */
+    protected DateHistogramSegmentCache dateHistogramSegmentCache() {
+        return null;
+    }
+
+    /**
+     * The cache of {@code composite} buckets beyond the returned page,
+     * {@code null} to disable it. Subclasses can override this to test the cache.
+     */
+    protected CompositeCursorCache compositeCursorCache() {
+        return null;
+    }
+
     /**
      * Build a {@link FieldMapper} to create the {@link MappingLookup} used for the aggs.
      * {@code protected} so subclasses can have it.
@@ -532,7 +582,13 @@ public abstract class AggregatorTestCase extends ESTestCase {
                         new TimeSeriesIndexSearcher(subSearcher, List.of()).search(rewritten, a);
                     } else {
                         Weight weight = subSearcher.createWeight(rewritten, ScoreMode.COMPLETE, 1f);
-                        subSearcher.search(weight, a.asCollector());
+                        if (a.scoreMode().needsScores() == false && randomBoolean()) {
+                            DocBlockCollector docBlockCollector = new DocBlockCollector(a);
+                            subSearcher.search(weight, docBlockCollector);
+                            docBlockCollector.finish();
+                        } else {
+                            subSearcher.search(weight, a.asCollector());
+                        }
                     }
                     a.postCollection();
                     assertEquals(shouldBeCached, context.isCacheable());
@@ -558,7 +614,14 @@ public abstract class AggregatorTestCase extends ESTestCase {
                 if (context.isInSortOrderExecutionRequired()) {
                     new TimeSeriesIndexSearcher(searcher, List.of()).search(rewritten, MultiBucketCollector.wrap(true, List.of(root)));
                 } else {
-                    searcher.search(rewritten, MultiBucketCollector.wrap(true, List.of(root)).asCollector());
+                    BucketCollector collector = MultiBucketCollector.wrap(true, List.of(root));
+                    if (collector.scoreMode().needsScores() == false && randomBoolean()) {
+                        DocBlockCollector docBlockCollector = new DocBlockCollector(collector);
+                        searcher.search(rewritten, docBlockCollector);
+                        docBlockCollector.finish();
+                    } else {
+                        searcher.search(rewritten, collector.asCollector());
+                    }
                 }
                 root.postCollection();
                 aggs.add(root.buildTopLevel());
@@ -18,8 +18,10 @@ import org.apache.lucene.store.Directory;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.SuppressForbidden;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.engine.EngineException;
@@ -30,6 +32,7 @@ import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.indices.ESCacheHelper;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -50,6 +53,8 @@ import java.util.function.Function;
  * open at the same time.
  * The internal reopen of readers is treated like a refresh and refresh listeners are called up-on reopen. This allows to consume refresh
  * stats in order to obtain the number of reopens.
+ * If a non-zero reader keep-alive is configured, the engine holds on to an opened index reader until no searcher was acquired for the
+ * duration of the keep-alive, which saves reopening the reader between the phases of a search or between searches in quick succession.
  */
 public final class FrozenEngine extends ReadOnlyEngine {
     public static final Setting<Boolean> INDEX_FROZEN = Setting.boolSetting(
@@ -64,6 +69,11 @@ public final class FrozenEngine extends ReadOnlyEngine {
     private final ElasticsearchDirectoryReader canMatchReader;
     private final Object cacheIdentity = new Object();
     private final Set<ESCacheHelper.ClosedListener> closedListeners = new CopyOnWriteArraySet<>();
+    private final TimeValue readerKeepAlive;
+    private final ThreadPool threadPool;
+    // the reference to the last opened reader held by the engine until the reader keep-alive elapses, guarded by this
+    private ElasticsearchDirectoryReader keptAliveReader;
+    private volatile long lastSearcherAcquiredNanos;
 
     public FrozenEngine(EngineConfig config, boolean requireCompleteHistory, boolean lazilyLoadSoftDeletes) {
         this(config, null, null, true, Function.identity(), requireCompleteHistory, lazilyLoadSoftDeletes);
@@ -77,8 +87,36 @@ public final class FrozenEngine extends ReadOnlyEngine {
         Function<DirectoryReader, DirectoryReader> readerWrapperFunction,
         boolean requireCompleteHistory,
         boolean lazilyLoadSoftDeletes
+    ) {
+        this(
+            config,
+            seqNoStats,
+            translogStats,
+            obtainLock,
+            readerWrapperFunction,
+            requireCompleteHistory,
+            lazilyLoadSoftDeletes,
+            TimeValue.ZERO
+        );
+    }
+
+    /**
+     * @param readerKeepAlive how long to keep the lazily opened index reader open after the last searcher was acquired,
+     *                        {@link TimeValue#ZERO} to close it as soon as it is no longer referenced
+     */
+    public FrozenEngine(
+        EngineConfig config,
+        SeqNoStats seqNoStats,
+        TranslogStats translogStats,
+        boolean obtainLock,
+        Function<DirectoryReader, DirectoryReader> readerWrapperFunction,
+        boolean requireCompleteHistory,
+        boolean lazilyLoadSoftDeletes,
+        TimeValue readerKeepAlive
     ) {
         super(config, seqNoStats, translogStats, obtainLock, readerWrapperFunction, requireCompleteHistory, lazilyLoadSoftDeletes);
+        this.readerKeepAlive = Objects.requireNonNull(readerKeepAlive);
+        this.threadPool = config.getThreadPool();
         boolean success = false;
         Directory directory = store.directory();
         try (DirectoryReader reader = openDirectory(directory)) {
@@ -194,6 +232,11 @@ public final class FrozenEngine extends ReadOnlyEngine {
                 for (ReferenceManager.RefreshListener listeners : config().getInternalRefreshListener()) {
                     listeners.afterRefresh(true);
                 }
+                if (readerKeepAlive.nanos() > 0L && isClosed.get() == false) {
+                    reader.incRef();
+                    keptAliveReader = reader;
+                    scheduleKeepAliveCheck(readerKeepAlive);
+                }
             }
             success = true;
             return reader;
@@ -204,6 +247,39 @@ public final class FrozenEngine extends ReadOnlyEngine {
         }
     }
 
+    private void scheduleKeepAliveCheck(TimeValue delay) {
+        try {
+            threadPool.schedule(this::maybeReleaseKeptAliveReader, delay, ThreadPool.Names.GENERIC);
+        } catch (EsRejectedExecutionException e) {
+            // the node is shutting down, the reader is released when the engine is closed
+            assert e.isExecutorShutdown() : e;
+        }
+    }
+
+    private synchronized void maybeReleaseKeptAliveReader() {
+        if (keptAliveReader == null) {
+            return;
+        }
+        final long idleNanos = threadPool.relativeTimeInNanos() - lastSearcherAcquiredNanos;
+        if (idleNanos >= readerKeepAlive.nanos() || isClosed.get()) {
+            releaseKeptAliveReader();
+        } else {
+            scheduleKeepAliveCheck(TimeValue.timeValueNanos(readerKeepAlive.nanos() - idleNanos));
+        }
+    }
+
+    private synchronized void releaseKeptAliveReader() {
+        final ElasticsearchDirectoryReader reader = keptAliveReader;
+        if (reader != null) {
+            keptAliveReader = null;
+            try {
+                closeReader(reader);
+            } catch (IOException e) {
+                logger.warn("failed to close idle reader", e);
+            }
+        }
+    }
+
     @SuppressForbidden(reason = "we manage references explicitly here")
     private ElasticsearchDirectoryReader getReader() {
         final ElasticsearchDirectoryReader readerRef = lastOpenedReader; // volatile read
@@ -262,6 +338,9 @@ public final class FrozenEngine extends ReadOnlyEngine {
             default:
                 maybeOpenReader = true;
         }
+        if (maybeOpenReader) {
+            lastSearcherAcquiredNanos = threadPool.relativeTimeInNanos();
+        }
         ElasticsearchDirectoryReader reader = maybeOpenReader ? getOrOpenReader() : getReader();
         if (reader == null) {
             if (CAN_MATCH_SEARCH_SOURCE.equals(source) || FIELD_RANGE_SEARCH_SOURCE.equals(source)) {
@@ -314,7 +393,10 @@ public final class FrozenEngine extends ReadOnlyEngine {
 
     @Override
     protected void closeNoLock(String reason, CountDownLatch closedLatch) {
+        // release the kept-alive reader before the store is released, any reader opened concurrently is released below
+        releaseKeptAliveReader();
         super.closeNoLock(reason, closedLatch);
+        releaseKeptAliveReader();
         synchronized (closedListeners) {
             IOUtils.closeWhileHandlingException(closedListeners.stream().map(t -> (Closeable) () -> t.onClose(cacheIdentity))::iterator);
             closedListeners.clear();
@@ -152,6 +152,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         private final Counter blobStoreBytesRequested;
         private final Counter luceneBytesRead;
         private final long currentIndexCacheFills;
+        private final Counter cacheHits;
+        private final Counter cacheMisses;
+        private final Counter readaheadBytesFetched;
 
         public CacheIndexInputStats(
             String fileExt,
@@ -174,7 +177,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             TimedCounter optimizedBytesRead,
             Counter blobStoreBytesRequested,
             Counter luceneBytesRead,
-            long currentIndexCacheFills
+            long currentIndexCacheFills,
+            Counter cacheHits,
+            Counter cacheMisses,
+            Counter readaheadBytesFetched
         ) {
             this.fileExt = fileExt;
             this.numFiles = numFiles;
@@ -197,6 +203,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             this.blobStoreBytesRequested = blobStoreBytesRequested;
             this.luceneBytesRead = luceneBytesRead;
             this.currentIndexCacheFills = currentIndexCacheFills;
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+            this.readaheadBytesFetched = readaheadBytesFetched;
         }
 
         CacheIndexInputStats(final StreamInput in) throws IOException {
@@ -237,6 +246,15 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 this.luceneBytesRead = new Counter(0, 0, 0, 0);
             }
             this.currentIndexCacheFills = in.readVLong();
+            if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+                this.cacheHits = new Counter(in);
+                this.cacheMisses = new Counter(in);
+                this.readaheadBytesFetched = new Counter(in);
+            } else {
+                this.cacheHits = new Counter(0, 0, 0, 0);
+                this.cacheMisses = new Counter(0, 0, 0, 0);
+                this.readaheadBytesFetched = new Counter(0, 0, 0, 0);
+            }
         }
 
         public static CacheIndexInputStats combine(CacheIndexInputStats cis1, CacheIndexInputStats cis2) {
@@ -267,7 +285,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 cis1.optimizedBytesRead.add(cis2.optimizedBytesRead),
                 cis1.blobStoreBytesRequested.add(cis2.blobStoreBytesRequested),
                 cis1.luceneBytesRead.add(cis2.luceneBytesRead),
-                cis1.currentIndexCacheFills + cis2.currentIndexCacheFills
+                cis1.currentIndexCacheFills + cis2.currentIndexCacheFills,
+                cis1.cacheHits.add(cis2.cacheHits),
+                cis1.cacheMisses.add(cis2.cacheMisses),
+                cis1.readaheadBytesFetched.add(cis2.readaheadBytesFetched)
             );
         }
 
@@ -307,6 +328,11 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 luceneBytesRead.writeTo(out);
             }
             out.writeVLong(currentIndexCacheFills);
+            if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+                cacheHits.writeTo(out);
+                cacheMisses.writeTo(out);
+                readaheadBytesFetched.writeTo(out);
+            }
         }
 
         public String getFileExt() {
@@ -398,6 +424,18 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             return currentIndexCacheFills;
         }
 
+        public Counter getCacheHits() {
+            return cacheHits;
+        }
+
+        public Counter getCacheMisses() {
+            return cacheMisses;
+        }
+
+        public Counter getReadaheadBytesFetched() {
+            return readaheadBytesFetched;
+        }
+
         @Override
         public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
             builder.startObject();
@@ -436,6 +474,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 builder.field("blob_store_bytes_requested", getBlobStoreBytesRequested(), params);
                 builder.field("lucene_bytes_read", getLuceneBytesRead(), params);
                 builder.field("current_index_cache_fills", getCurrentIndexCacheFills());
+                builder.field("cache_hits", getCacheHits(), params);
+                builder.field("cache_misses", getCacheMisses(), params);
+                builder.field("readahead_bytes_fetched", getReadaheadBytesFetched(), params);
             }
             return builder.endObject();
         }
@@ -469,7 +510,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 && Objects.equals(optimizedBytesRead, stats.optimizedBytesRead)
                 && Objects.equals(blobStoreBytesRequested, stats.blobStoreBytesRequested)
                 && Objects.equals(luceneBytesRead, stats.luceneBytesRead)
-                && currentIndexCacheFills == stats.currentIndexCacheFills;
+                && currentIndexCacheFills == stats.currentIndexCacheFills
+                && Objects.equals(cacheHits, stats.cacheHits)
+                && Objects.equals(cacheMisses, stats.cacheMisses)
+                && Objects.equals(readaheadBytesFetched, stats.readaheadBytesFetched);
         }
 
         @Override
@@ -495,7 +539,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 optimizedBytesRead,
                 blobStoreBytesRequested,
                 luceneBytesRead,
-                currentIndexCacheFills
+                currentIndexCacheFills,
+                cacheHits,
+                cacheMisses,
+                readaheadBytesFetched
             );
         }
     }
@@ -15,6 +15,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.engine.EngineTestCase;
@@ -141,6 +142,83 @@ public class FrozenEngineTests extends EngineTestCase {
         }
     }
 
+    public void testReaderKeepAlive() throws Exception {
+        IOUtils.close(engine, store);
+        final AtomicLong globalCheckpoint = new AtomicLong(SequenceNumbers.NO_OPS_PERFORMED);
+        try (Store store = createStore()) {
+            CountingRefreshListener listener = new CountingRefreshListener();
+            EngineConfig config = config(
+                defaultSettings,
+                store,
+                createTempDir(),
+                newMergePolicy(),
+                null,
+                listener,
+                null,
+                globalCheckpoint::get,
+                new NoneCircuitBreakerService()
+            );
+            try (InternalEngine engine = createEngine(config)) {
+                int numDocs = Math.min(10, addDocuments(globalCheckpoint, engine));
+                engine.flushAndClose();
+                listener.reset();
+                final TimeValue keepAlive = TimeValue.timeValueMillis(between(1, 100));
+                try (
+                    FrozenEngine frozenEngine = new FrozenEngine(
+                        engine.getEngineConfig(),
+                        null,
+                        null,
+                        true,
+                        Function.identity(),
+                        true,
+                        randomBoolean(),
+                        keepAlive
+                    )
+                ) {
+                    assertFalse(frozenEngine.isReaderOpen());
+                    try (Engine.SearcherSupplier reader = frozenEngine.acquireSearcherSupplier(Function.identity())) {
+                        try (Engine.Searcher searcher = reader.acquireSearcher("frozen")) {
+                            TopDocs search = searcher.search(new MatchAllDocsQuery(), numDocs);
+                            assertEquals(search.scoreDocs.length, numDocs);
+                            assertEquals(1, listener.afterRefresh.get());
+                        }
+                    }
+                    // the reader is kept open until the keep-alive elapses without searches
+                    assertBusy(() -> assertFalse(frozenEngine.isReaderOpen()));
+                }
+
+                listener.reset();
+                try (
+                    FrozenEngine frozenEngine = new FrozenEngine(
+                        engine.getEngineConfig(),
+                        null,
+                        null,
+                        true,
+                        Function.identity(),
+                        true,
+                        randomBoolean(),
+                        TimeValue.timeValueHours(1)
+                    )
+                ) {
+                    final int searches = between(2, 5);
+                    for (int i = 0; i < searches; i++) {
+                        try (Engine.SearcherSupplier reader = frozenEngine.acquireSearcherSupplier(Function.identity())) {
+                            try (Engine.Searcher searcher = reader.acquireSearcher("frozen")) {
+                                TopDocs search = searcher.search(new MatchAllDocsQuery(), numDocs);
+                                assertEquals(search.scoreDocs.length, numDocs);
+                            }
+                        }
+                        assertTrue(frozenEngine.isReaderOpen());
+                        // searches within the keep-alive reuse the same reader
+                        assertEquals(1, listener.afterRefresh.get());
+                    }
+                    frozenEngine.close();
+                    assertFalse(frozenEngine.isReaderOpen());
+                }
+            }
+        }
+    }
+
     public void testSegmentStats() throws IOException {
         IOUtils.close(engine, store);
         final AtomicLong globalCheckpoint = new AtomicLong(SequenceNumbers.NO_OPS_PERFORMED);
@@ -195,6 +195,30 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
         Setting.Property.NodeScope,
         Setting.Property.NotCopyableOnResize
     );
+    // The file extensions of small and frequently accessed files whose regions are kept in the shared cache in preference to others
+    public static final Setting<List<String>> SNAPSHOT_CACHE_PINNED_FILE_TYPES_SETTING = Setting.listSetting(
+        "index.store.snapshot.cache.pinned_file_types",
+        List.of("si", "tip", "cfe"),
+        Function.identity(),
+        Setting.Property.IndexScope,
+        Setting.Property.NodeScope,
+        Setting.Property.NotCopyableOnResize
+    );
+    // Whether the shards of a fully mounted index open their Lucene readers only while they are searched, like partially mounted ones
+    public static final Setting<Boolean> SNAPSHOT_LAZY_READERS_SETTING = Setting.boolSetting(
+        "index.store.snapshot.lazy_readers",
+        false,
+        Setting.Property.IndexScope,
+        Setting.Property.NotCopyableOnResize
+    );
+    // How long the lazily opened Lucene reader of a shard is kept open after its last search, before it is closed again
+    public static final Setting<TimeValue> SNAPSHOT_READER_KEEP_ALIVE_SETTING = Setting.timeSetting(
+        "index.store.snapshot.reader_keep_alive",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        Setting.Property.IndexScope,
+        Setting.Property.NotCopyableOnResize
+    );
     public static final Setting<ByteSizeValue> SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING = Setting.byteSizeSetting(
         "index.store.snapshot.uncached_chunk_size",
         ByteSizeValue.MINUS_ONE,
@@ -292,7 +316,10 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             SNAPSHOT_CACHE_ENABLED_SETTING,
             SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING,
             SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING,
+            SNAPSHOT_CACHE_PINNED_FILE_TYPES_SETTING,
             SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING,
+            SNAPSHOT_LAZY_READERS_SETTING,
+            SNAPSHOT_READER_KEEP_ALIVE_SETTING,
             DELETE_SEARCHABLE_SNAPSHOT_ON_INDEX_DELETION,
             SearchableSnapshotsSettings.SNAPSHOT_PARTIAL_SETTING,
             SNAPSHOT_BLOB_CACHE_METADATA_FILES_MAX_LENGTH_SETTING,
@@ -307,6 +334,7 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_RANGE_SIZE_SETTING,
             FrozenCacheService.SHARED_CACHE_RECOVERY_RANGE_SIZE_SETTING,
+            FrozenCacheService.SHARED_CACHE_READAHEAD_RANGES_SETTING,
             FrozenCacheService.SHARED_CACHE_MAX_FREQ_SETTING,
             FrozenCacheService.SHARED_CACHE_DECAY_INTERVAL_SETTING,
             FrozenCacheService.SHARED_CACHE_MIN_TIME_DELTA_SETTING,
@@ -453,8 +481,8 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
     public Optional<EngineFactory> getEngineFactory(IndexSettings indexSettings) {
         if (indexSettings.getIndexMetadata().isSearchableSnapshot()) {
             final Boolean frozen = indexSettings.getSettings().getAsBoolean("index.frozen", null);
-            final boolean useFrozenEngine = indexSettings.getIndexMetadata().isPartialSearchableSnapshot()
-                && (frozen == null || frozen.equals(Boolean.TRUE));
+            final boolean useFrozenEngine = (indexSettings.getIndexMetadata().isPartialSearchableSnapshot()
+                && (frozen == null || frozen.equals(Boolean.TRUE))) || indexSettings.getValue(SNAPSHOT_LAZY_READERS_SETTING);
 
             if (useFrozenEngine) {
                 return Optional.of(
@@ -467,7 +495,8 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
                             ? SourceOnlySnapshotRepository.readerWrapper(engineConfig)
                             : Function.identity(),
                         false,
-                        true
+                        true,
+                        indexSettings.getValue(SNAPSHOT_READER_KEEP_ALIVE_SETTING)
                     )
                 );
             } else {
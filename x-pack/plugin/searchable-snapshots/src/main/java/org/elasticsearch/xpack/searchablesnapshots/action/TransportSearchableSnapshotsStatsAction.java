@@ -118,7 +118,10 @@ public class TransportSearchableSnapshotsStatsAction extends AbstractTransportSe
             toTimedCounter(inputStats.getOptimizedBytesRead()),
             toCounter(inputStats.getBlobStoreBytesRequested()),
             toCounter(inputStats.getLuceneBytesRead()),
-            inputStats.getCurrentIndexCacheFills()
+            inputStats.getCurrentIndexCacheFills(),
+            toCounter(inputStats.getCacheHits()),
+            toCounter(inputStats.getCacheMisses()),
+            toCounter(inputStats.getReadaheadBytesFetched())
         );
     }
 
@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximates how often keys were accessed recently, using a count-min sketch of 4-bit counters as described in "TinyLFU: A Highly
+ * Efficient Cache Admission Policy" (Einziger, Friedman and Manes, ACM Transactions on Storage, 2017). Each key maps to one counter in
+ * each of four rows and its estimated frequency is the minimum of these counters, which may overestimate but never underestimates the
+ * actual number of accesses up to the maximum of 15. Once the number of recorded accesses reaches ten times the number of tracked keys,
+ * all counters are halved so that the estimates reflect recent accesses rather than the whole history.
+ * <p>
+ * The sketch is read and updated on every cache access so it doesn't lock: counters are updated with a compare-and-set of the word that
+ * holds them and the thread whose access reaches the sample size halves the counters, one word at a time. Accesses recorded while the
+ * counters are halved may be halved too, which only makes the estimates age a little faster.
+ */
+class FrequencySketch {
+
+    private static final int ROWS = 4;
+    private static final long[] SEEDS = { 0x97CB3127E2A8A3D5L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final AtomicLongArray table;
+    private final int rowMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param expectedKeys the number of keys whose frequencies should be tracked accurately, typically the number of cache entries
+     */
+    FrequencySketch(int expectedKeys) {
+        // each long holds sixteen counters, size each row so that there are at least four counters per key
+        final int countersPerRow = Math.max(64, Integer.highestOneBit(Math.max(1, expectedKeys - 1)) << 3);
+        this.table = new AtomicLongArray(ROWS * countersPerRow / 16);
+        this.rowMask = countersPerRow - 1;
+        this.sampleSize = Math.max(10, 10 * expectedKeys);
+    }
+
+    /**
+     * @return the estimated number of recent accesses to the key with the given hash, between 0 and 15
+     */
+    int frequency(int hash) {
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < ROWS; row++) {
+            final int counter = counterIndex(hash, row);
+            frequency = Math.min(frequency, (int) ((table.get(counter >>> 4) >>> ((counter & 15) << 2)) & 0xFL));
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access to the key with the given hash.
+     */
+    void increment(int hash) {
+        boolean incremented = false;
+        for (int row = 0; row < ROWS; row++) {
+            final int counter = counterIndex(hash, row);
+            incremented |= incrementCounter(counter >>> 4, (counter & 15) << 2);
+        }
+        // only the one access that reaches the sample size resets, later ones see a greater number of additions
+        if (incremented && additions.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * @return whether the counter was incremented, i.e. it wasn't at its maximum already
+     */
+    private boolean incrementCounter(int index, int shift) {
+        long word;
+        do {
+            word = table.get(index);
+            if (((word >>> shift) & 0xFL) == 15L) {
+                return false;
+            }
+        } while (table.compareAndSet(index, word, word + (1L << shift)) == false);
+        return true;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, word -> (word >>> 1) & RESET_MASK);
+        }
+        additions.addAndGet(-(sampleSize - sampleSize / 2));
+    }
+
+    private int counterIndex(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h ^= h >>> 32;
+        // each row occupies a contiguous block of the table
+        return row * (rowMask + 1) + ((int) h & rowMask);
+    }
+}
@@ -80,6 +80,13 @@ public class FrozenCacheService implements Releasable {
         Setting.Property.NodeScope
     );
 
+    public static final Setting<Integer> SHARED_CACHE_READAHEAD_RANGES_SETTING = Setting.intSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "readahead_ranges",
+        2,                                                     // default
+        0,                                                     // min
+        Setting.Property.NodeScope
+    );
+
     public static final Setting<ByteSizeValue> SHARED_CACHE_REGION_SIZE_SETTING = new Setting<>(
         SHARED_CACHE_SETTINGS_PREFIX + "region_size",
         SHARED_CACHE_RANGE_SIZE_SETTING,
@@ -242,6 +249,7 @@ public class FrozenCacheService implements Releasable {
     private final long regionSize;
     private final ByteSizeValue rangeSize;
     private final ByteSizeValue recoveryRangeSize;
+    private final int readaheadRanges;
 
     private final int numRegions;
     private final ConcurrentLinkedQueue<Integer> freeRegions = new ConcurrentLinkedQueue<>();
@@ -261,6 +269,10 @@ public class FrozenCacheService implements Releasable {
 
     private final LongAdder evictCount = new LongAdder();
 
+    private final LongAdder admissionRejectCount = new LongAdder();
+
+    private final FrequencySketch frequencySketch;
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public FrozenCacheService(NodeEnvironment environment, Settings settings, ThreadPool threadPool) {
         this.currentTimeSupplier = threadPool::relativeTimeInMillis;
@@ -290,6 +302,7 @@ public class FrozenCacheService implements Releasable {
         this.maxFreq = SHARED_CACHE_MAX_FREQ_SETTING.get(settings);
         this.minTimeDelta = SHARED_CACHE_MIN_TIME_DELTA_SETTING.get(settings).millis();
         freqs = new Entry[maxFreq];
+        frequencySketch = new FrequencySketch(numRegions);
         try {
             sharedBytes = new SharedBytes(numRegions, regionSize, environment, writeBytes::add, readBytes::add);
         } catch (IOException e) {
@@ -299,6 +312,7 @@ public class FrozenCacheService implements Releasable {
         decayTask.rescheduleIfNecessary();
         this.rangeSize = SHARED_CACHE_RANGE_SIZE_SETTING.get(settings);
         this.recoveryRangeSize = SHARED_CACHE_RECOVERY_RANGE_SIZE_SETTING.get(settings);
+        this.readaheadRanges = SHARED_CACHE_READAHEAD_RANGES_SETTING.get(settings);
     }
 
     static long calculateCacheSize(Settings settings, long totalFsSize) {
@@ -315,6 +329,13 @@ public class FrozenCacheService implements Releasable {
         return toIntBytes(recoveryRangeSize.getBytes());
     }
 
+    /**
+     * @return the maximum number of ranges that index inputs read ahead of sequential reads, {@code 0} if readahead is disabled
+     */
+    public int getReadaheadRanges() {
+        return readaheadRanges;
+    }
+
     private int getRegion(long position) {
         return Math.toIntExact(position / regionSize);
     }
@@ -372,14 +393,32 @@ public class FrozenCacheService implements Releasable {
     }
 
     public CacheFileRegion get(CacheKey cacheKey, long fileLength, int region) {
+        return get(cacheKey, fileLength, region, false);
+    }
+
+    /**
+     * Returns the region of the given file, allocating it in the cache if needed. When the cache is full, the region that would be evicted
+     * to make room for the new one is compared with it using the recent access frequencies of both: if the region to evict was accessed
+     * more often, the new region is not admitted in the cache and an {@link AlreadyClosedException} is thrown, so that a scan over data
+     * that is read once only evicts other data that was read once and not the regions that are frequently needed.
+     *
+     * @param pinned whether the region belongs to a file that should be kept in the cache in preference to other files, which only
+     *               applies to files that fit in a single region
+     */
+    CacheFileRegion get(CacheKey cacheKey, long fileLength, int region, boolean pinned) {
         final long effectiveRegionSize = getRegionSize(fileLength, region);
         try (Releasable ignore = keyedLock.acquire(cacheKey)) {
             final RegionKey regionKey = new RegionKey(cacheKey, region);
+            final int regionKeyHash = regionKey.hashCode();
+            frequencySketch.increment(regionKeyHash);
             final long now = currentTimeSupplier.getAsLong();
             final Entry<CacheFileRegion> entry = keyMapping.computeIfAbsent(
                 regionKey,
                 key -> new Entry<>(new CacheFileRegion(key, effectiveRegionSize), now)
             );
+            if (pinned && fileLength <= regionSize) {
+                entry.pinned = true;
+            }
             if (entry.chunk.sharedBytesPos == -1) {
                 // new item
                 assert entry.freq == 0;
@@ -396,7 +435,7 @@ public class FrozenCacheService implements Releasable {
                 } else {
                     // need to evict something
                     synchronized (this) {
-                        maybeEvict();
+                        maybeEvict(frequencySketch.frequency(regionKeyHash));
                     }
                     final Integer freeSlotRetry = freeRegions.poll();
                     if (freeSlotRetry != null) {
@@ -445,7 +484,8 @@ public class FrozenCacheService implements Releasable {
             writeCount.sum(),
             writeBytes.sum(),
             readCount.sum(),
-            readBytes.sum()
+            readBytes.sum(),
+            admissionRejectCount.sum()
         );
     }
 
@@ -478,15 +518,30 @@ public class FrozenCacheService implements Releasable {
         return true;
     }
 
-    private void maybeEvict() {
+    /**
+     * Evicts the least frequently used region that is not in use, unless it was accessed more often recently than the region to admit.
+     * Pinned regions are only considered if no other region can be evicted.
+     *
+     * @param candidateFrequency the recent access frequency of the region to admit in the cache
+     */
+    private void maybeEvict(int candidateFrequency) {
         assert Thread.holdsLock(this);
-        for (int i = 0; i < maxFreq; i++) {
-            for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
-                boolean evicted = entry.chunk.tryEvict();
-                if (evicted) {
-                    unlink(entry);
-                    keyMapping.remove(entry.chunk.regionKey, entry);
-                    return;
+        for (boolean evictPinned : new boolean[] { false, true }) {
+            for (int i = 0; i < maxFreq; i++) {
+                for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
+                    if (entry.pinned != evictPinned || entry.chunk.refCount() > 1 || entry.chunk.isEvicted()) {
+                        continue;
+                    }
+                    if (frequencySketch.frequency(entry.chunk.regionKey.hashCode()) > candidateFrequency) {
+                        admissionRejectCount.increment();
+                        return;
+                    }
+                    boolean evicted = entry.chunk.tryEvict();
+                    if (evicted) {
+                        unlink(entry);
+                        keyMapping.remove(entry.chunk.regionKey, entry);
+                        return;
+                    }
                 }
             }
         }
@@ -663,6 +718,7 @@ public class FrozenCacheService implements Releasable {
         Entry<T> next;
         int freq;
         long lastAccessed;
+        volatile boolean pinned;
 
         Entry(T chunk, long lastAccessed) {
             this.chunk = chunk;
@@ -841,10 +897,12 @@ public class FrozenCacheService implements Releasable {
 
         private final CacheKey cacheKey;
         private final long length;
+        private final boolean pinned;
 
-        private FrozenCacheFile(CacheKey cacheKey, long length) {
+        private FrozenCacheFile(CacheKey cacheKey, long length, boolean pinned) {
             this.cacheKey = cacheKey;
             this.length = length;
+            this.pinned = pinned;
         }
 
         public long getLength() {
@@ -876,7 +934,7 @@ public class FrozenCacheService implements Releasable {
                     }
                     continue;
                 }
-                final CacheFileRegion fileRegion = get(cacheKey, length, region);
+                final CacheFileRegion fileRegion = get(cacheKey, length, region, pinned);
                 final long regionStart = getRegionStart(region);
                 final long writeOffset = writeStart - regionStart;
                 final long readOffset = readStart - regionStart;
@@ -906,14 +964,35 @@ public class FrozenCacheService implements Releasable {
             return stepListener;
         }
 
+        /**
+         * Populates the given range of the file without reading it, for instance to fetch data that is about to be read.
+         */
+        public StepListener<Integer> populate(final ByteRange rangeToWrite, final RangeMissingHandler writer, final Executor executor) {
+            return populateAndRead(
+                rangeToWrite,
+                rangeToWrite,
+                (channel, channelPos, relativePos, len) -> toIntBytes(len),
+                writer,
+                executor
+            );
+        }
+
         @Override
         public String toString() {
-            return "FrozenCacheFile{" + "cacheKey=" + cacheKey + ", length=" + length + '}';
+            return "FrozenCacheFile{" + "cacheKey=" + cacheKey + ", length=" + length + ", pinned=" + pinned + '}';
         }
     }
 
     public FrozenCacheFile getFrozenCacheFile(CacheKey cacheKey, long length) {
-        return new FrozenCacheFile(cacheKey, length);
+        return getFrozenCacheFile(cacheKey, length, false);
+    }
+
+    /**
+     * @param pinned whether the regions of the file should be kept in the cache in preference to the regions of other files, which only
+     *               applies to files that fit in a single region
+     */
+    public FrozenCacheFile getFrozenCacheFile(CacheKey cacheKey, long length, boolean pinned) {
+        return new FrozenCacheFile(cacheKey, length, pinned);
     }
 
     @FunctionalInterface
@@ -931,7 +1010,7 @@ public class FrozenCacheService implements Releasable {
 
     public static class Stats {
 
-        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
 
         private final int numberOfRegions;
         private final long size;
@@ -941,6 +1020,7 @@ public class FrozenCacheService implements Releasable {
         private final long writeBytes;
         private final long readCount;
         private final long readBytes;
+        private final long admissionRejectCount;
 
         private Stats(
             int numberOfRegions,
@@ -950,7 +1030,8 @@ public class FrozenCacheService implements Releasable {
             long writeCount,
             long writeBytes,
             long readCount,
-            long readBytes
+            long readBytes,
+            long admissionRejectCount
         ) {
             this.numberOfRegions = numberOfRegions;
             this.size = size;
@@ -960,6 +1041,7 @@ public class FrozenCacheService implements Releasable {
             this.writeBytes = writeBytes;
             this.readCount = readCount;
             this.readBytes = readBytes;
+            this.admissionRejectCount = admissionRejectCount;
         }
 
         public int getNumberOfRegions() {
@@ -993,5 +1075,9 @@ public class FrozenCacheService implements Releasable {
         public long getReadBytes() {
             return readBytes;
         }
+
+        public long getAdmissionRejectCount() {
+            return admissionRejectCount;
+        }
     }
 }
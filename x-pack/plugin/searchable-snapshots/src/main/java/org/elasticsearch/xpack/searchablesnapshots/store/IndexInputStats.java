@@ -57,6 +57,10 @@ public class IndexInputStats {
 
     private final Counter luceneBytesRead = new Counter();
 
+    private final Counter cacheHits = new Counter();
+    private final Counter cacheMisses = new Counter();
+    private final Counter readaheadBytesFetched = new Counter();
+
     public IndexInputStats(long numFiles, long totalSize, long minSize, long maxSize, LongSupplier currentTimeNanos) {
         this(numFiles, totalSize, minSize, maxSize, SEEKING_THRESHOLD.getBytes(), currentTimeNanos);
     }
@@ -155,6 +159,24 @@ public class IndexInputStats {
         luceneBytesRead.add(bytesRead);
     }
 
+    /**
+     * Records a read that could be served from the cache without waiting for data to be fetched from the blob store.
+     */
+    public void addCacheHit(int bytesRead) {
+        cacheHits.add(bytesRead);
+    }
+
+    /**
+     * Records a read that had to wait for data to be fetched from the blob store.
+     */
+    public void addCacheMiss(int bytesRead) {
+        cacheMisses.add(bytesRead);
+    }
+
+    public void addReadaheadBytesFetched(long bytesFetched) {
+        readaheadBytesFetched.add(bytesFetched);
+    }
+
     public long getNumFiles() {
         return numFiles;
     }
@@ -231,6 +253,18 @@ public class IndexInputStats {
         return luceneBytesRead;
     }
 
+    public Counter getCacheHits() {
+        return cacheHits;
+    }
+
+    public Counter getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public Counter getReadaheadBytesFetched() {
+        return readaheadBytesFetched;
+    }
+
     @SuppressForbidden(reason = "Handles Long.MIN_VALUE before using Math.abs()")
     public boolean isLargeSeek(long delta) {
         return delta != Long.MIN_VALUE && Math.abs(delta) > seekingThreshold;
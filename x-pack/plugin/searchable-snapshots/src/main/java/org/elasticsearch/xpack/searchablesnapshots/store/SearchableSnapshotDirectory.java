@@ -62,6 +62,7 @@ import org.elasticsearch.xpack.searchablesnapshots.store.input.CachedBlobContain
 import org.elasticsearch.xpack.searchablesnapshots.store.input.ChecksumBlobContainerIndexInput;
 import org.elasticsearch.xpack.searchablesnapshots.store.input.DirectBlobContainerIndexInput;
 import org.elasticsearch.xpack.searchablesnapshots.store.input.FrozenIndexInput;
+import org.elasticsearch.xpack.searchablesnapshots.store.input.ReadaheadPolicy;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -92,6 +93,7 @@ import static org.elasticsearch.snapshots.SearchableSnapshotsSettings.SNAPSHOT_P
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_BLOB_CACHE_METADATA_FILES_MAX_LENGTH_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PINNED_FILE_TYPES_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_INDEX_ID_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_INDEX_NAME_SETTING;
@@ -130,6 +132,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     private final boolean useCache;
     private final boolean prewarmCache;
     private final Set<String> excludedFileTypes;
+    private final Set<String> pinnedFileTypes;
     private final long uncachedChunkSize; // if negative use BlobContainer#readBlobPreferredLength, see #getUncachedChunkSize()
     private final Path cacheDir;
     private final ShardPath shardPath;
@@ -178,6 +181,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         this.partial = SNAPSHOT_PARTIAL_SETTING.get(indexSettings);
         this.prewarmCache = partial == false && useCache ? SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.get(indexSettings) : false;
         this.excludedFileTypes = new HashSet<>(SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING.get(indexSettings));
+        this.pinnedFileTypes = new HashSet<>(SNAPSHOT_CACHE_PINNED_FILE_TYPES_SETTING.get(indexSettings));
         this.uncachedChunkSize = SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING.get(indexSettings).getBytes();
         this.blobStoreCacheMaxLength = SNAPSHOT_BLOB_CACHE_METADATA_FILES_MAX_LENGTH_SETTING.get(indexSettings);
         this.threadPool = threadPool;
@@ -409,7 +413,8 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                     context,
                     inputStats,
                     frozenCacheService.getRangeSize(),
-                    frozenCacheService.getRecoveryRangeSize()
+                    frozenCacheService.getRecoveryRangeSize(),
+                    readaheadPolicyFactory()
                 );
             } else {
                 return new CachedBlobContainerIndexInput(
@@ -445,6 +450,13 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         return ext != null && excludedFileTypes.contains(ext);
     }
 
+    /**
+     * @return the factory of the policies that decide which data {@link FrozenIndexInput}s fetch ahead of their reads
+     */
+    protected ReadaheadPolicy.Factory readaheadPolicyFactory() {
+        return ReadaheadPolicy.sequential(frozenCacheService.getReadaheadRanges());
+    }
+
     public boolean isRecoveryFinalized() {
         SearchableSnapshotRecoveryState recoveryState = this.recoveryState;
         if (recoveryState == null) return false;
@@ -713,7 +725,9 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     }
 
     public FrozenCacheFile getFrozenCacheFile(String fileName, long length) {
-        return frozenCacheService.getFrozenCacheFile(createCacheKey(fileName), length);
+        final String ext = IndexFileNames.getExtension(fileName);
+        final boolean pinned = ext != null && pinnedFileTypes.contains(ext);
+        return frozenCacheService.getFrozenCacheFile(createCacheKey(fileName), length, pinned);
     }
 
     private static Repository repositoryByUuid(Map<String, Repository> repositories, String repositoryUuid, String originalName) {
@@ -19,6 +19,7 @@ import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.F
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+import org.elasticsearch.xpack.searchablesnapshots.cache.shared.FrozenCacheService;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.FrozenCacheService.FrozenCacheFile;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.SharedBytes;
 import org.elasticsearch.xpack.searchablesnapshots.store.IndexInputStats;
@@ -41,6 +42,8 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
     private static final Logger logger = LogManager.getLogger(FrozenIndexInput.class);
 
     private final FrozenCacheFile frozenCacheFile;
+    private final ReadaheadPolicy.Factory readaheadPolicyFactory;
+    private ReadaheadPolicy readahead;
 
     public FrozenIndexInput(
         String name,
@@ -49,7 +52,8 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
         IOContext context,
         IndexInputStats stats,
         int rangeSize,
-        int recoveryRangeSize
+        int recoveryRangeSize,
+        ReadaheadPolicy.Factory readaheadPolicyFactory
     ) {
         this(
             name,
@@ -64,6 +68,7 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
             directory.getFrozenCacheFile(name, fileInfo.length()),
             rangeSize,
             recoveryRangeSize,
+            readaheadPolicyFactory,
             directory.getBlobCacheByteRange(name, fileInfo.length()),
             ByteRange.EMPTY
         );
@@ -83,6 +88,7 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
         FrozenCacheFile frozenCacheFile,
         int defaultRangeSize,
         int recoveryRangeSize,
+        ReadaheadPolicy.Factory readaheadPolicyFactory,
         ByteRange headerBlobCacheByteRange,
         ByteRange footerBlobCacheByteRange
     ) {
@@ -103,6 +109,8 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
             footerBlobCacheByteRange
         );
         this.frozenCacheFile = frozenCacheFile;
+        this.readaheadPolicyFactory = readaheadPolicyFactory;
+        this.readahead = readaheadPolicyFactory.forFile(name, defaultRangeSize);
     }
 
     @Override
@@ -156,16 +164,18 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
                     luceneByteBufLock,
                     stopAsyncReads
                 ),
-                (channel, channelPos, relativePos, len, progressUpdater) -> {
-                    final long startTimeNanos = stats.currentTimeNanos();
-                    final long streamStartPosition = rangeToWrite.start() + relativePos;
-
-                    try (InputStream input = openInputStreamFromBlobStore(streamStartPosition, len)) {
-                        writeCacheFile(channel, input, channelPos, relativePos, len, progressUpdater, startTimeNanos);
-                    }
-                },
+                fillCacheRange(rangeToWrite, false),
                 directory.cacheFetchAsyncExecutor()
             );
+            if (populateCacheFuture.asFuture().isDone()) {
+                stats.addCacheHit(length);
+            } else {
+                stats.addCacheMiss(length);
+            }
+            if (directory.isRecoveryFinalized()) {
+                // start fetching the data that follows sequential reads while waiting for this one
+                readAhead(position, length);
+            }
 
             final int bytesRead = populateCacheFuture.asFuture().get();
             assert bytesRead == length : bytesRead + " vs " + length;
@@ -178,6 +188,38 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
         }
     }
 
+    private FrozenCacheService.RangeMissingHandler fillCacheRange(ByteRange rangeToWrite, boolean readahead) {
+        return (channel, channelPos, relativePos, len, progressUpdater) -> {
+            final long startTimeNanos = stats.currentTimeNanos();
+            final long streamStartPosition = rangeToWrite.start() + relativePos;
+
+            try (InputStream input = openInputStreamFromBlobStore(streamStartPosition, len)) {
+                writeCacheFile(channel, input, channelPos, relativePos, len, progressUpdater, startTimeNanos);
+            }
+            if (readahead) {
+                stats.addReadaheadBytesFetched(len);
+            }
+        };
+    }
+
+    private void readAhead(long position, int readLength) {
+        final ByteRange readaheadRange = readahead.onRead(position, readLength, offset + length());
+        if (readaheadRange.isEmpty()) {
+            return;
+        }
+        final ByteRange rangeToWrite = computeRange(readaheadRange.start()).minEnvelope(computeRange(readaheadRange.end() - 1));
+        try {
+            frozenCacheFile.populate(rangeToWrite, fillCacheRange(rangeToWrite, true), directory.cacheFetchAsyncExecutor())
+                .whenComplete(
+                    bytesRead -> {},
+                    e -> logger.debug(() -> format("failed to read ahead range [%s] of [%s]", rangeToWrite, this), e)
+                );
+        } catch (Exception e) {
+            // readahead is best effort, the data will be fetched when it is actually read
+            logger.debug(() -> format("failed to read ahead range [%s] of [%s]", rangeToWrite, this), e);
+        }
+    }
+
     private static int positionalWrite(SharedBytes.IO fc, long start, ByteBuffer byteBuffer) throws IOException {
         assert ThreadPool.assertCurrentThreadPool(SearchableSnapshots.CACHE_FETCH_ASYNC_THREAD_POOL_NAME);
         byteBuffer.flip();
@@ -354,7 +396,9 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
 
     @Override
     public FrozenIndexInput clone() {
-        return (FrozenIndexInput) super.clone();
+        final FrozenIndexInput clone = (FrozenIndexInput) super.clone();
+        clone.readahead = readahead.copy();
+        return clone;
     }
 
     @Override
@@ -411,6 +455,7 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
             frozenCacheFile,
             defaultRangeSize,
             recoveryRangeSize,
+            readaheadPolicyFactory,
             sliceHeaderByteRange,
             sliceFooterByteRange
         );
@@ -0,0 +1,71 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.store.input;
+
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+
+/**
+ * Decides which bytes of a file should be fetched into the cache ahead of the reads of a {@link FrozenIndexInput}, based on the positions
+ * of the previous reads. Instances are not thread-safe and must not be shared between index inputs, clones get their own instance through
+ * {@link #copy()}.
+ */
+public interface ReadaheadPolicy {
+
+    /**
+     * A policy that never reads ahead.
+     */
+    ReadaheadPolicy NONE = new ReadaheadPolicy() {
+        @Override
+        public ByteRange onRead(long position, long length, long fileEnd) {
+            return ByteRange.EMPTY;
+        }
+
+        @Override
+        public ReadaheadPolicy copy() {
+            return this;
+        }
+    };
+
+    /**
+     * Records a read and returns the range of the file to populate in advance of it.
+     *
+     * @param position the position of the read in the file
+     * @param length the length of the read
+     * @param fileEnd the position of the end of the file, or of the slice being read
+     * @return the range to populate, or {@link ByteRange#EMPTY} if nothing needs to be read ahead
+     */
+    ByteRange onRead(long position, long length, long fileEnd);
+
+    /**
+     * @return a policy with the same configuration as this one but without any knowledge of the previous reads
+     */
+    ReadaheadPolicy copy();
+
+    /**
+     * Creates the readahead policy of each file, or slice of a compound file, opened as a {@link FrozenIndexInput}.
+     */
+    @FunctionalInterface
+    interface Factory {
+
+        Factory NONE = (fileName, rangeSize) -> ReadaheadPolicy.NONE;
+
+        /**
+         * @param fileName the name of the file, or of the slice of a compound file
+         * @param rangeSize the size of the ranges in which the cache is populated
+         */
+        ReadaheadPolicy forFile(String fileName, long rangeSize);
+    }
+
+    /**
+     * @param readaheadRanges the maximum number of ranges to read ahead, {@code 0} disables readahead
+     * @return a factory of policies that read ahead of the sequential reads of the files that Lucene usually reads sequentially
+     */
+    static Factory sequential(int readaheadRanges) {
+        return (fileName, rangeSize) -> SequentialReadaheadPolicy.forFile(fileName, rangeSize, readaheadRanges);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.store.input;
+
+import org.apache.lucene.index.IndexFileNames;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+
+import java.util.Set;
+
+/**
+ * The default {@link ReadaheadPolicy}, which reads ahead of the sequential reads of the files that Lucene mostly consumes sequentially
+ * (postings, doc values data, terms dictionary blocks, stored fields, ...), once a few consecutive reads are found to be sequential. The
+ * readahead window starts at one range and doubles on each further readahead up to the configured maximum, and is reset as soon as a
+ * read jumps elsewhere in the file.
+ */
+final class SequentialReadaheadPolicy implements ReadaheadPolicy {
+
+    /**
+     * Extensions of the files that are usually read sequentially.
+     */
+    static final Set<String> SEQUENTIAL_FILE_EXTENSIONS = Set.of("doc", "pos", "pay", "tim", "dvd", "nvd", "fdt", "tvd", "vec");
+
+    /**
+     * Number of consecutive sequential reads after which reads are assumed to keep being sequential.
+     */
+    static final int SEQUENTIAL_READS_THRESHOLD = 3;
+
+    private final long rangeSize;
+    private final long maxWindow;
+
+    private long expectedPosition = -1L;
+    private int sequentialReads;
+    private long window;
+    private long readaheadEnd;
+
+    private SequentialReadaheadPolicy(long rangeSize, long maxWindow) {
+        this.rangeSize = rangeSize;
+        this.maxWindow = maxWindow;
+    }
+
+    /**
+     * @param fileName the name of the file, used to determine its type
+     * @param rangeSize the size of the ranges in which the cache is populated
+     * @param readaheadRanges the maximum number of ranges to read ahead, {@code 0} disables readahead
+     */
+    static ReadaheadPolicy forFile(String fileName, long rangeSize, int readaheadRanges) {
+        if (readaheadRanges <= 0 || SEQUENTIAL_FILE_EXTENSIONS.contains(IndexFileNames.getExtension(fileName)) == false) {
+            return NONE;
+        }
+        return new SequentialReadaheadPolicy(rangeSize, Math.multiplyExact(rangeSize, readaheadRanges));
+    }
+
+    @Override
+    public ReadaheadPolicy copy() {
+        return new SequentialReadaheadPolicy(rangeSize, maxWindow);
+    }
+
+    @Override
+    public ByteRange onRead(long position, long length, long fileEnd) {
+        if (position == expectedPosition) {
+            sequentialReads += 1;
+        } else {
+            sequentialReads = 0;
+            window = 0L;
+            readaheadEnd = 0L;
+        }
+        final long readEnd = position + length;
+        expectedPosition = readEnd;
+        if (sequentialReads < SEQUENTIAL_READS_THRESHOLD) {
+            return ByteRange.EMPTY;
+        }
+        if (readaheadEnd - readEnd > window / 2) {
+            // still well ahead of the reads, wait until they catch up a bit before fetching more
+            return ByteRange.EMPTY;
+        }
+        window = window == 0L ? rangeSize : Math.min(maxWindow, window * 2);
+        final long start = Math.max(readEnd, readaheadEnd);
+        final long end = Math.min(fileEnd, readEnd + window);
+        if (start >= end) {
+            return ByteRange.EMPTY;
+        }
+        readaheadEnd = end;
+        return ByteRange.of(start, end);
+    }
+}
@@ -118,7 +118,10 @@ public class SearchableSnapshotsStatsResponseTests extends ESTestCase {
             randomTimedCounter(),
             randomCounter(),
             randomCounter(),
-            randomNonNegativeLong()
+            randomNonNegativeLong(),
+            randomCounter(),
+            randomCounter(),
+            randomCounter()
         );
     }
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.CyclicBarrier;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class FrequencySketchTests extends ESTestCase {
+
+    public void testFrequencyNeverUnderestimated() {
+        final int keys = between(1, 100);
+        // enough room to not reset the counters while recording the accesses below
+        final FrequencySketch sketch = new FrequencySketch(keys * 10);
+        final int[] accesses = new int[keys];
+        for (int i = 0; i < keys * 5; i++) {
+            final int key = randomIntBetween(0, keys - 1);
+            sketch.increment(Integer.hashCode(key));
+            accesses[key] += 1;
+        }
+        for (int key = 0; key < keys; key++) {
+            assertThat(sketch.frequency(Integer.hashCode(key)), greaterThanOrEqualTo(Math.min(15, accesses[key])));
+        }
+    }
+
+    public void testConcurrentIncrementsAreNotLost() throws Exception {
+        final int threads = between(2, 8);
+        final int keysPerThread = between(1, 50);
+        final int accessesPerKey = between(1, 15);
+        // enough room to not reset the counters while recording the accesses below
+        final FrequencySketch sketch = new FrequencySketch(threads * keysPerThread * accessesPerKey);
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int firstKey = t * keysPerThread;
+            workers[t] = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                for (int i = 0; i < accessesPerKey; i++) {
+                    for (int key = firstKey; key < firstKey + keysPerThread; key++) {
+                        sketch.increment(Integer.hashCode(key));
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        for (int key = 0; key < threads * keysPerThread; key++) {
+            assertThat(sketch.frequency(Integer.hashCode(key)), greaterThanOrEqualTo(accessesPerKey));
+        }
+    }
+
+    public void testFrequencyIsCapped() {
+        final FrequencySketch sketch = new FrequencySketch(between(1, 1000));
+        final int hash = randomInt();
+        assertThat(sketch.frequency(hash), equalTo(0));
+        final int accesses = between(15, 20);
+        for (int i = 0; i < accesses; i++) {
+            sketch.increment(hash);
+        }
+        assertThat(sketch.frequency(hash), equalTo(15));
+    }
+
+    public void testCountersAreHalvedPeriodically() {
+        final int expectedKeys = between(2, 10);
+        final FrequencySketch sketch = new FrequencySketch(expectedKeys);
+        final int hotHash = randomInt();
+        for (int i = 0; i < 15; i++) {
+            sketch.increment(hotHash);
+        }
+        assertThat(sketch.frequency(hotHash), equalTo(15));
+
+        // accesses to many other keys eventually age the frequency of the key that is no longer accessed
+        for (int i = 0; i < expectedKeys * 10; i++) {
+            sketch.increment(randomValueOtherThan(hotHash, ESTestCase::randomInt));
+        }
+        assertThat(sketch.frequency(hotHash), lessThan(15));
+    }
+}
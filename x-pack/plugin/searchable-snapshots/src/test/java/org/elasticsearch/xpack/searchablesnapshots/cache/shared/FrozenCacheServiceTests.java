@@ -7,6 +7,7 @@
 
 package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
 
+import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.cluster.node.DiscoveryNodeRole;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -127,6 +128,85 @@ public class FrozenCacheServiceTests extends ESTestCase {
         }
     }
 
+    public void testAdmissionRejectsRegionsLessFrequentlyAccessedThanEvictionCandidate() throws IOException {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), ByteSizeValue.ofBytes(size(200)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), ByteSizeValue.ofBytes(size(100)).getStringRep())
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            final CacheKey hotKey = generateCacheKey();
+            final CacheKey scanKey = generateCacheKey();
+            final int accesses = between(2, 5);
+            CacheFileRegion region0 = null;
+            CacheFileRegion region1 = null;
+            for (int i = 0; i < accesses; i++) {
+                region0 = cacheService.get(hotKey, size(250), 0);
+                region1 = cacheService.get(hotKey, size(250), 1);
+            }
+            assertEquals(0, cacheService.freeRegionCount());
+
+            // a region accessed less often than the regions in the cache is not admitted
+            for (int i = 1; i < accesses; i++) {
+                expectThrows(AlreadyClosedException.class, () -> cacheService.get(scanKey, size(250), 0));
+                assertFalse(region0.isEvicted());
+                assertFalse(region1.isEvicted());
+                assertEquals(i, cacheService.getStats().getAdmissionRejectCount());
+            }
+
+            // once accessed as often, it is admitted and replaces the least frequently used region
+            final CacheFileRegion scanRegion = cacheService.get(scanKey, size(250), 0);
+            assertFalse(scanRegion.isEvicted());
+            assertTrue(region0.isEvicted());
+            assertFalse(region1.isEvicted());
+            assertEquals(accesses - 1, cacheService.getStats().getAdmissionRejectCount());
+        }
+    }
+
+    public void testPinnedRegionsEvictedLast() throws IOException {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), ByteSizeValue.ofBytes(size(200)).getStringRep())
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), ByteSizeValue.ofBytes(size(100)).getStringRep())
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            final CacheKey pinnedKey = generateCacheKey();
+            final CacheKey cacheKey = generateCacheKey();
+            final CacheFileRegion pinnedRegion = cacheService.get(pinnedKey, size(50), 0, true);
+            final CacheFileRegion region0 = cacheService.get(cacheKey, size(250), 0);
+            assertEquals(0, cacheService.freeRegionCount());
+
+            // the pinned region is the oldest but the other one is evicted
+            final CacheFileRegion region1 = cacheService.get(cacheKey, size(250), 1);
+            assertFalse(pinnedRegion.isEvicted());
+            assertTrue(region0.isEvicted());
+            assertFalse(region1.isEvicted());
+
+            // pinned regions are evicted when nothing else can be
+            assertTrue(region1.tryEvict());
+            assertEquals(1, cacheService.freeRegionCount());
+            final CacheFileRegion region2 = cacheService.get(cacheKey, size(250), 2);
+            assertEquals(0, cacheService.freeRegionCount());
+            region2.incRef();
+            try {
+                cacheService.get(cacheKey, size(250), 0);
+                assertTrue(pinnedRegion.isEvicted());
+            } finally {
+                region2.decRef();
+            }
+        }
+    }
+
     public void testForceEviction() throws IOException {
         Settings settings = Settings.builder()
             .put(NODE_NAME_SETTING.getKey(), "node")
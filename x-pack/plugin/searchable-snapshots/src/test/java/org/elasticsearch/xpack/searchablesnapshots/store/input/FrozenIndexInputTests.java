@@ -10,8 +10,12 @@ package org.elasticsearch.xpack.searchablesnapshots.store.input;
 import org.apache.lucene.store.IndexInput;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.support.FilterBlobContainer;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
@@ -27,23 +31,37 @@ import org.elasticsearch.snapshots.SearchableSnapshotsSettings;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.xpack.searchablesnapshots.AbstractSearchableSnapshotsTestCase;
 import org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
 import org.elasticsearch.xpack.searchablesnapshots.cache.common.TestUtils;
 import org.elasticsearch.xpack.searchablesnapshots.cache.full.CacheService;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.FrozenCacheService;
 import org.elasticsearch.xpack.searchablesnapshots.cache.shared.SharedBytes;
+import org.elasticsearch.xpack.searchablesnapshots.store.IndexInputStats;
 import org.elasticsearch.xpack.searchablesnapshots.store.SearchableSnapshotDirectory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshotsUtils.toIntBytes;
 import static org.elasticsearch.xpack.searchablesnapshots.cache.full.CacheService.resolveSnapshotCache;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class FrozenIndexInputTests extends AbstractSearchableSnapshotsTestCase {
 
     private static final ShardId SHARD_ID = new ShardId(new Index("_index_name", "_index_id"), 0);
+    private static final String FILE_EXTENSION = "dvd";
+    private static final String FILE_NAME = "_0_Lucene90_0." + FILE_EXTENSION;
 
     public void testRandomReads() throws IOException {
         final String fileName = randomAlphaOfLength(5) + randomFileExtension();
@@ -85,6 +103,7 @@ public class FrozenIndexInputTests extends AbstractSearchableSnapshotsTestCase {
             .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), regionSize)
             .put(FrozenCacheService.SHARED_CACHE_RANGE_SIZE_SETTING.getKey(), rangeSize)
             .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), cacheSize)
+            .put(FrozenCacheService.SHARED_CACHE_READAHEAD_RANGES_SETTING.getKey(), between(0, 4))
             .put("path.home", createTempDir())
             .build();
         final Environment environment = TestEnvironment.newEnvironment(settings);
@@ -104,7 +123,8 @@ public class FrozenIndexInputTests extends AbstractSearchableSnapshotsTestCase {
                 cacheService,
                 fileInfo,
                 snapshotId,
-                fileData,
+                TestUtils.singleBlobContainer(fileInfo.partName(0), fileData),
+                null,
                 shardPath,
                 cacheDir
             )
@@ -124,19 +144,192 @@ public class FrozenIndexInputTests extends AbstractSearchableSnapshotsTestCase {
         }
     }
 
+    public void testCacheHitsAndMisses() throws Exception {
+        final int rangeSize = between(1, 4) * SharedBytes.PAGE_SIZE;
+        final CountDownLatch fetchStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFetch = new CountDownLatch(1);
+        final Function<BlobContainer, BlobContainer> blockingBlobContainer = blobContainer -> new FilterBlobContainer(blobContainer) {
+            @Override
+            protected BlobContainer wrapChild(BlobContainer child) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public InputStream readBlob(String blobName, long position, long length) throws IOException {
+                fetchStarted.countDown();
+                try {
+                    assertTrue(releaseFetch.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                return super.readBlob(blobName, position, length);
+            }
+        };
+        runWithSearchableSnapshotDirectory(rangeSize, ReadaheadPolicy.Factory.NONE, blockingBlobContainer, (directory, fileData) -> {
+            try (IndexInput input = directory.openInput(FILE_NAME, randomIOContext())) {
+                final IndexInputStats stats = directory.getStats().get(FILE_EXTENSION);
+                // read less than a buffer, past the header that is read from the blob cache, so that a single range is read
+                final long position = rangeSize;
+                final int length = between(1, 512);
+                final byte[] expected = Arrays.copyOfRange(fileData, rangeSize, rangeSize + length);
+
+                // the first read has to wait for the data to be fetched from the blob store
+                final FutureTask<byte[]> firstRead = new FutureTask<>(() -> read(input, position, length));
+                new Thread(firstRead).start();
+                assertTrue(fetchStarted.await(10, TimeUnit.SECONDS));
+                assertBusy(() -> assertThat(stats.getCacheMisses().count(), equalTo(1L)));
+                releaseFetch.countDown();
+                assertArrayEquals(expected, firstRead.get(10, TimeUnit.SECONDS));
+                assertThat(stats.getCacheHits().count(), equalTo(0L));
+
+                // reading the same bytes again is served by the cache
+                final long bytesRequested = stats.getBlobStoreBytesRequested().total();
+                assertArrayEquals(expected, read(input.clone(), position, length));
+                assertThat(stats.getCacheHits().count(), equalTo(1L));
+                assertThat(stats.getCacheHits().total(), equalTo(stats.getCacheMisses().total()));
+                assertThat(stats.getCacheMisses().count(), equalTo(1L));
+                assertThat(stats.getBlobStoreBytesRequested().total(), equalTo(bytesRequested));
+            }
+        });
+    }
+
+    public void testReadaheadPolicyDecidesWhatIsFetchedAhead() throws Exception {
+        final int rangeSize = between(1, 4) * SharedBytes.PAGE_SIZE;
+        final ByteRange readaheadRange = ByteRange.of(6L * rangeSize, 8L * rangeSize);
+        final List<Long> readPositions = new ArrayList<>();
+        final ReadaheadPolicy.Factory readaheadPolicyFactory = (fileName, policyRangeSize) -> {
+            assertThat(fileName, equalTo(FILE_NAME));
+            assertThat(policyRangeSize, equalTo((long) rangeSize));
+            return new ReadaheadPolicy() {
+                @Override
+                public ByteRange onRead(long position, long length, long fileEnd) {
+                    readPositions.add(position);
+                    return readPositions.size() == 1 ? readaheadRange : ByteRange.EMPTY;
+                }
+
+                @Override
+                public ReadaheadPolicy copy() {
+                    return this;
+                }
+            };
+        };
+        runWithSearchableSnapshotDirectory(rangeSize, readaheadPolicyFactory, Function.identity(), (directory, fileData) -> {
+            try (IndexInput input = directory.openInput(FILE_NAME, randomIOContext())) {
+                final IndexInputStats stats = directory.getStats().get(FILE_EXTENSION);
+                final int length = between(1, 512);
+                assertArrayEquals(Arrays.copyOfRange(fileData, rangeSize, rangeSize + length), read(input, rangeSize, length));
+                assertThat(readPositions, equalTo(List.of((long) rangeSize)));
+                assertBusy(() -> assertThat(stats.getReadaheadBytesFetched().total(), equalTo(readaheadRange.length())));
+
+                // a read within the range fetched ahead doesn't wait for the blob store
+                final long bytesRequested = stats.getBlobStoreBytesRequested().total();
+                final long cacheHits = stats.getCacheHits().count();
+                final int position = toIntBytes(randomLongBetween(readaheadRange.start(), readaheadRange.end() - 1024L));
+                assertArrayEquals(Arrays.copyOfRange(fileData, position, position + length), read(input, position, length));
+                assertThat(stats.getCacheHits().count(), equalTo(cacheHits + 1L));
+                assertThat(stats.getBlobStoreBytesRequested().total(), equalTo(bytesRequested));
+            }
+        });
+    }
+
+    public void testSequentialReadsAreReadAhead() throws Exception {
+        final int rangeSize = between(1, 4) * SharedBytes.PAGE_SIZE;
+        final ReadaheadPolicy.Factory readaheadPolicyFactory = ReadaheadPolicy.sequential(between(1, 4));
+        runWithSearchableSnapshotDirectory(rangeSize, readaheadPolicyFactory, Function.identity(), (directory, fileData) -> {
+            try (IndexInput input = directory.openInput(FILE_NAME, randomIOContext())) {
+                final IndexInputStats stats = directory.getStats().get(FILE_EXTENSION);
+                // read the file in small chunks, like Lucene scanning doc values, past the header that is read from the blob cache
+                input.seek(rangeSize);
+                final byte[] result = new byte[fileData.length - rangeSize];
+                for (int offset = 0; offset < result.length;) {
+                    final int length = Math.min(result.length - offset, between(1, 256));
+                    input.readBytes(result, offset, length);
+                    offset += length;
+                }
+                assertArrayEquals(Arrays.copyOfRange(fileData, rangeSize, fileData.length), result);
+                assertBusy(() -> assertThat(stats.getReadaheadBytesFetched().total(), greaterThan(0L)));
+            }
+        });
+    }
+
+    private static byte[] read(IndexInput input, long position, int length) throws IOException {
+        final byte[] bytes = new byte[length];
+        input.seek(position);
+        input.readBytes(bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * Runs the given test against a directory holding a single doc values data file of about ten cache ranges, with a shared cache that is
+     * large enough to hold the whole file and a recovery that is already finalized.
+     */
+    private void runWithSearchableSnapshotDirectory(
+        int rangeSize,
+        ReadaheadPolicy.Factory readaheadPolicyFactory,
+        Function<BlobContainer, BlobContainer> blobContainerWrapper,
+        CheckedBiConsumer<SearchableSnapshotDirectory, byte[], Exception> test
+    ) throws Exception {
+        final Tuple<String, byte[]> bytes = randomChecksumBytes(randomByteArrayOfLength(10 * rangeSize));
+        final byte[] fileData = bytes.v2();
+        final FileInfo fileInfo = new FileInfo(
+            randomAlphaOfLength(10),
+            new StoreFileMetadata(FILE_NAME, fileData.length, bytes.v1(), Version.CURRENT.luceneVersion.toString()),
+            ByteSizeValue.ofBytes(fileData.length)
+        );
+        final long regionSize = 4L * rangeSize;
+        final Settings settings = Settings.builder()
+            .put(FrozenCacheService.SHARED_CACHE_REGION_SIZE_SETTING.getKey(), ByteSizeValue.ofBytes(regionSize))
+            .put(FrozenCacheService.SHARED_CACHE_RANGE_SIZE_SETTING.getKey(), ByteSizeValue.ofBytes(rangeSize))
+            .put(FrozenCacheService.SHARED_CACHE_SIZE_SETTING.getKey(), ByteSizeValue.ofBytes(10L * regionSize))
+            .put("path.home", createTempDir())
+            .build();
+        final Environment environment = TestEnvironment.newEnvironment(settings);
+        for (Path path : environment.dataFiles()) {
+            Files.createDirectories(path);
+        }
+        final SnapshotId snapshotId = new SnapshotId("_name", "_uuid");
+        final Path shardDir = randomShardPath(SHARD_ID);
+        final ShardPath shardPath = new ShardPath(false, shardDir, shardDir, SHARD_ID);
+        final Path cacheDir = Files.createDirectories(resolveSnapshotCache(shardDir).resolve(snapshotId.getUUID()));
+        try (
+            NodeEnvironment nodeEnvironment = new NodeEnvironment(settings, environment);
+            FrozenCacheService frozenCacheService = new FrozenCacheService(nodeEnvironment, settings, threadPool);
+            CacheService cacheService = randomCacheService();
+            TestSearchableSnapshotDirectory directory = new TestSearchableSnapshotDirectory(
+                frozenCacheService,
+                cacheService,
+                fileInfo,
+                snapshotId,
+                blobContainerWrapper.apply(TestUtils.singleBlobContainer(fileInfo.partName(0), fileData)),
+                readaheadPolicyFactory,
+                shardPath,
+                cacheDir
+            )
+        ) {
+            cacheService.start();
+            directory.loadSnapshot(createRecoveryState(true), ActionListener.noop());
+            assertTrue(directory.isRecoveryFinalized());
+            test.accept(directory, fileData);
+        }
+    }
+
     private class TestSearchableSnapshotDirectory extends SearchableSnapshotDirectory {
 
+        @Nullable
+        private final ReadaheadPolicy.Factory readaheadPolicyFactory;
+
         TestSearchableSnapshotDirectory(
             FrozenCacheService service,
             CacheService cacheService,
             FileInfo fileInfo,
             SnapshotId snapshotId,
-            byte[] fileData,
+            BlobContainer blobContainer,
+            @Nullable ReadaheadPolicy.Factory readaheadPolicyFactory,
             ShardPath shardPath,
             Path cacheDir
         ) {
             super(
-                () -> TestUtils.singleBlobContainer(fileInfo.partName(0), fileData),
+                () -> blobContainer,
                 () -> new BlobStoreIndexShardSnapshot("_snapshot_id", 0L, List.of(fileInfo), 0L, 0L, 0, 0L),
                 new TestUtils.SimpleBlobStoreCacheService(),
                 "_repository",
@@ -154,6 +347,12 @@ public class FrozenIndexInputTests extends AbstractSearchableSnapshotsTestCase {
                 threadPool,
                 service
             );
+            this.readaheadPolicyFactory = readaheadPolicyFactory;
+        }
+
+        @Override
+        protected ReadaheadPolicy.Factory readaheadPolicyFactory() {
+            return readaheadPolicyFactory == null ? super.readaheadPolicyFactory() : readaheadPolicyFactory;
         }
     }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.store.input;
+
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.searchablesnapshots.cache.common.ByteRange;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SequentialReadaheadPolicyTests extends ESTestCase {
+
+    private static final long RANGE_SIZE = 1024L;
+    private static final int READ_LENGTH = 128;
+
+    public void testNoReadaheadForRandomAccessFilesOrWhenDisabled() {
+        assertThat(SequentialReadaheadPolicy.forFile("_0.tip", RANGE_SIZE, between(1, 10)), sameInstance(ReadaheadPolicy.NONE));
+        assertThat(SequentialReadaheadPolicy.forFile("_0.kdd", RANGE_SIZE, between(1, 10)), sameInstance(ReadaheadPolicy.NONE));
+        assertThat(SequentialReadaheadPolicy.forFile("_0.doc", RANGE_SIZE, 0), sameInstance(ReadaheadPolicy.NONE));
+
+        final ReadaheadPolicy policy = ReadaheadPolicy.NONE.copy();
+        for (int i = 0; i < 10; i++) {
+            assertThat(policy.onRead(i * READ_LENGTH, READ_LENGTH, Long.MAX_VALUE), equalTo(ByteRange.EMPTY));
+        }
+    }
+
+    public void testReadaheadStartsAfterSequentialReads() {
+        final ReadaheadPolicy policy = SequentialReadaheadPolicy.forFile("_0_Lucene90_0.dvd", RANGE_SIZE, 4);
+        long position = randomLongBetween(0L, 1 << 20);
+        for (int i = 0; i < SequentialReadaheadPolicy.SEQUENTIAL_READS_THRESHOLD; i++) {
+            assertThat(policy.onRead(position, READ_LENGTH, Long.MAX_VALUE), equalTo(ByteRange.EMPTY));
+            position += READ_LENGTH;
+        }
+        final ByteRange first = policy.onRead(position, READ_LENGTH, Long.MAX_VALUE);
+        position += READ_LENGTH;
+        assertThat(first, equalTo(ByteRange.of(position, position + RANGE_SIZE)));
+    }
+
+    public void testWindowGrowsUpToMaximumAndStaysAheadOfReads() {
+        final int readaheadRanges = between(1, 8);
+        final ReadaheadPolicy policy = SequentialReadaheadPolicy.forFile("_0.doc", RANGE_SIZE, readaheadRanges);
+        final long fileEnd = RANGE_SIZE * 100;
+        long readaheadEnd = 0L;
+        for (long position = 0L; position < fileEnd; position += READ_LENGTH) {
+            final ByteRange range = policy.onRead(position, READ_LENGTH, fileEnd);
+            if (range.isEmpty() == false) {
+                assertThat("readahead ranges must not overlap", range.start(), equalTo(Math.max(position + READ_LENGTH, readaheadEnd)));
+                assertThat(range.end() - (position + READ_LENGTH), lessThanOrEqualTo(RANGE_SIZE * readaheadRanges));
+                assertThat(range.end(), lessThanOrEqualTo(fileEnd));
+                readaheadEnd = range.end();
+            }
+            if (position >= RANGE_SIZE) {
+                assertTrue("reads must not catch up with the readahead", position + READ_LENGTH <= readaheadEnd);
+            }
+        }
+        assertThat(readaheadEnd, equalTo(fileEnd));
+    }
+
+    public void testNonSequentialReadResetsReadahead() {
+        final ReadaheadPolicy policy = SequentialReadaheadPolicy.forFile("_0.tim", RANGE_SIZE, 2);
+        for (int i = 0; i <= SequentialReadaheadPolicy.SEQUENTIAL_READS_THRESHOLD; i++) {
+            policy.onRead(i * READ_LENGTH, READ_LENGTH, Long.MAX_VALUE);
+        }
+        final long jump = randomLongBetween(1L << 20, 1L << 30);
+        assertThat(policy.onRead(jump, READ_LENGTH, Long.MAX_VALUE), equalTo(ByteRange.EMPTY));
+
+        final ReadaheadPolicy copy = policy.copy();
+        for (int i = 0; i < SequentialReadaheadPolicy.SEQUENTIAL_READS_THRESHOLD; i++) {
+            assertThat(copy.onRead(i * READ_LENGTH, READ_LENGTH, Long.MAX_VALUE), equalTo(ByteRange.EMPTY));
+        }
+    }
+}
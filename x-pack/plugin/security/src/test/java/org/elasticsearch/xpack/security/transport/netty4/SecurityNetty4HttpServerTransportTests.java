@@ -6,19 +6,57 @@
  */
 package org.elasticsearch.xpack.security.transport.netty4;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.MockSecureSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.ssl.SslClientAuthenticationMode;
+import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.TestEnvironment;
 import org.elasticsearch.http.AbstractHttpServerTransportTestCase;
+import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.http.NullDispatcher;
 import org.elasticsearch.http.netty4.Netty4HttpServerTransport;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.tracing.Tracer;
 import org.elasticsearch.transport.netty4.SharedGroupFactory;
@@ -27,8 +65,12 @@ import org.elasticsearch.xpack.core.XPackSettings;
 import org.elasticsearch.xpack.core.ssl.SSLService;
 import org.junit.Before;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.net.ssl.SSLEngine;
 
@@ -233,4 +275,132 @@ public class SecurityNetty4HttpServerTransportTests extends AbstractHttpServerTr
         );
         assertNotNull(transport.configureServerChannelHandler());
     }
+
+    public void testHttp2IsNegotiatedWithAlpn() throws Exception {
+        final Settings settings = Settings.builder()
+            .put(env.settings())
+            .put(XPackSettings.HTTP_SSL_ENABLED.getKey(), true)
+            .put(Netty4HttpServerTransport.SETTING_HTTP_NETTY_HTTP2_ENABLED.getKey(), true)
+            .put(HttpTransportSettings.SETTING_HTTP_PORT.getKey(), getPortRange())
+            .build();
+        sslService = new SSLService(TestEnvironment.newEnvironment(settings));
+        final HttpServerTransport.Dispatcher dispatcher = new HttpServerTransport.Dispatcher() {
+            @Override
+            public void dispatchRequest(RestRequest request, RestChannel channel, ThreadContext threadContext) {
+                channel.sendResponse(new RestResponse(RestStatus.OK, request.uri()));
+            }
+
+            @Override
+            public void dispatchBadRequest(RestChannel channel, ThreadContext threadContext, Throwable cause) {
+                throw new AssertionError(cause);
+            }
+        };
+        // a client that doesn't offer h2 must still be served over HTTP/1.1
+        final boolean offerHttp2 = randomBoolean();
+        final String[] clientProtocols = offerHttp2
+            ? new String[] { ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1 }
+            : new String[] { ApplicationProtocolNames.HTTP_1_1 };
+        final SslContext clientSslContext = SslContextBuilder.forClient()
+            .trustManager(InsecureTrustManagerFactory.INSTANCE)
+            .applicationProtocolConfig(
+                new ApplicationProtocolConfig(
+                    ApplicationProtocolConfig.Protocol.ALPN,
+                    ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                    ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                    clientProtocols
+                )
+            )
+            .build();
+
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        final NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try (
+            Netty4HttpServerTransport transport = new Netty4HttpServerTransport(
+                settings,
+                new NetworkService(Collections.emptyList()),
+                threadPool,
+                xContentRegistry(),
+                dispatcher,
+                randomClusterSettings(),
+                new SharedGroupFactory(settings),
+                Tracer.NOOP,
+                new TLSConfig(sslService.getHttpTransportSSLConfiguration(), sslService::createSSLEngine),
+                null
+            )
+        ) {
+            transport.start();
+            final TransportAddress remoteAddress = randomFrom(transport.boundAddress().boundAddresses());
+            final AtomicReference<String> negotiatedProtocol = new AtomicReference<>();
+            final AtomicReference<String> response = new AtomicReference<>();
+            final CountDownLatch negotiated = new CountDownLatch(1);
+            final CountDownLatch responseReceived = new CountDownLatch(1);
+            final SimpleChannelInboundHandler<FullHttpResponse> responseHandler = new SimpleChannelInboundHandler<>() {
+                @Override
+                protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                    response.set(msg.content().toString(StandardCharsets.UTF_8));
+                    responseReceived.countDown();
+                }
+            };
+            final Channel connection = new Bootstrap().group(group)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline()
+                            .addLast(clientSslContext.newHandler(ch.alloc()))
+                            .addLast(new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                                @Override
+                                protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                                    if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                                        ctx.pipeline()
+                                            .addLast(Http2FrameCodecBuilder.forClient().build())
+                                            .addLast(new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+                                    } else {
+                                        ctx.pipeline()
+                                            .addLast(new HttpClientCodec())
+                                            .addLast(new HttpObjectAggregator(1024))
+                                            .addLast(responseHandler);
+                                    }
+                                    negotiatedProtocol.set(protocol);
+                                    negotiated.countDown();
+                                }
+                            });
+                    }
+                })
+                .connect(remoteAddress.address())
+                .syncUninterruptibly()
+                .channel();
+            try {
+                assertTrue(negotiated.await(10, TimeUnit.SECONDS));
+                final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/alpn");
+                request.headers().set(HttpHeaderNames.HOST, "localhost");
+                if (offerHttp2) {
+                    assertThat(negotiatedProtocol.get(), equalTo(ApplicationProtocolNames.HTTP_2));
+                    final Http2StreamChannel stream = new Http2StreamChannelBootstrap(connection).handler(
+                        new ChannelInitializer<Http2StreamChannel>() {
+                            @Override
+                            protected void initChannel(Http2StreamChannel ch) {
+                                ch.pipeline()
+                                    .addLast(new Http2StreamFrameToHttpObjectCodec(false))
+                                    .addLast(new HttpObjectAggregator(1024))
+                                    .addLast(responseHandler);
+                            }
+                        }
+                    ).open().syncUninterruptibly().getNow();
+                    request.headers().set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), "https");
+                    stream.writeAndFlush(request).syncUninterruptibly();
+                } else {
+                    assertThat(negotiatedProtocol.get(), equalTo(ApplicationProtocolNames.HTTP_1_1));
+                    connection.writeAndFlush(request).syncUninterruptibly();
+                }
+                assertTrue(responseReceived.await(10, TimeUnit.SECONDS));
+                assertThat(response.get(), equalTo("/alpn"));
+            } finally {
+                connection.close().syncUninterruptibly();
+            }
+        } finally {
+            group.shutdownGracefully(0, 10, TimeUnit.SECONDS).awaitUninterruptibly();
+            terminate(threadPool);
+        }
+    }
 }